@@ -0,0 +1,60 @@
+package net.natga999.wynn_ai.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The follower's cost per game tick, with the simulated player's physics, over every course
+ * and strategy of {@link MovementSimulator}. Runs restart as they finish; the counters say how
+ * they went: divide ticks, overshoots and stuck events by runs for the per-run figures, and
+ * ticks by 20 for seconds. {@code ./gradlew movementReport} prints the same for a single run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovementBenchmark {
+
+    @Param({"plains", "maze", "stairs", "ladders", "farmland"})
+    public String terrain;
+
+    @Param({"GENERAL", "HARVEST", "HIGHWAY"})
+    public String strategy;
+
+    private MovementSimulator simulator;
+
+    /** What the runs finished in an iteration came to. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long runs;
+        public long arrivals;
+        public long ticks;
+        public long overshoots;
+        public long stuckEvents;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            runs = arrivals = ticks = overshoots = stuckEvents = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        simulator = new MovementSimulator(MovementSimulator.course(terrain), MovementSimulator.Strategy.valueOf(strategy));
+        simulator.start();
+    }
+
+    @Benchmark
+    public void tick(Outcome outcome) {
+        if (simulator.tick()) {
+            MovementSimulator.Run run = simulator.result();
+            outcome.runs++;
+            outcome.arrivals += run.arrived ? 1 : 0;
+            outcome.ticks += run.ticks;
+            outcome.overshoots += run.overshoots;
+            outcome.stuckEvents += run.stuckEvents;
+            simulator.start();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.ai.BasicPathAI;
+import net.natga999.wynn_ai.managers.HarvestPathManager;
+import net.natga999.wynn_ai.path.CompactPath;
+import net.natga999.wynn_ai.path.PathFinder;
+import net.natga999.wynn_ai.path.PathResult;
+import net.natga999.wynn_ai.path.network.RoadNode;
+import net.natga999.wynn_ai.utility.CatmullRomSpline;
+
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the follower without a game: a {@link BasicPathAI} with one of its strategies drives a
+ * {@link SimulatedPlayer} along a planned path over one of the {@link SyntheticWorlds}, one
+ * game tick at a time, and the run is scored on how long it took and how it went.
+ * <p>
+ * {@link #main} runs every strategy over every course once and prints a table; the JMH side
+ * is {@link MovementBenchmark}. The combat strategy isn't covered: its paths come from the
+ * combat controller chasing live mobs, not from a planner.
+ */
+public final class MovementSimulator {
+    public static final String[] TERRAINS = {"plains", "maze", "stairs", "ladders", "farmland"};
+    public static final int TICKS_PER_SECOND = 20;
+
+    private static final long SEED = 451L; // Same jumps and jitter every run
+    private static final int STUCK_WINDOW = 20; // Ticks between progress checks
+    private static final double STUCK_DISTANCE = 0.5; // Least distance a window must cover, in blocks
+    private static final double GOAL_REACH = 1.5; // Ending this close to the last waypoint counts as arriving
+    private static final double TIME_LIMIT_FACTOR = 9; // Ticks allowed per block of path, twice a walk
+
+    /** The follower strategies a course can be run with. */
+    public enum Strategy { GENERAL, HARVEST, HIGHWAY }
+
+    /** A planned path across one of the synthetic worlds. */
+    public static final class Course {
+        public final String terrain;
+        public final SyntheticWorlds.Scenario scenario;
+        public final CompactPath path;
+        final Vec3d start;
+        final Vec3d goal;
+
+        Course(String terrain, SyntheticWorlds.Scenario scenario, CompactPath path) {
+            this.terrain = terrain;
+            this.scenario = scenario;
+            this.path = path;
+            this.start = Vec3d.ofBottomCenter(scenario.start);
+            this.goal = path.get(path.size() - 1); // Where the follower is headed, at waypoint height
+        }
+    }
+
+    /** How one run went. */
+    public static final class Run {
+        public final int ticks;
+        public final boolean arrived;
+        public final int overshoots;
+        public final int stuckEvents;
+        public final long nanos;
+
+        Run(int ticks, boolean arrived, int overshoots, int stuckEvents, long nanos) {
+            this.ticks = ticks;
+            this.arrived = arrived;
+            this.overshoots = overshoots;
+            this.stuckEvents = stuckEvents;
+            this.nanos = nanos;
+        }
+
+        /** Game time to the goal, or to giving up. */
+        public double seconds() {
+            return ticks / (double) TICKS_PER_SECOND;
+        }
+
+        /** Follower and physics CPU time per game tick. */
+        public double microsPerTick() {
+            return ticks > 0 ? nanos / 1e3 / ticks : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s in %.2f s, %d overshoots, %d stuck, %.2f us/tick",
+                    arrived ? "arrived" : "failed", seconds(), overshoots, stuckEvents, microsPerTick());
+        }
+    }
+
+    private final Course course;
+    private final Strategy strategy;
+    private final SimulatedPlayer player;
+    private final BasicPathAI ai;
+    private final int timeLimit;
+
+    private int ticks;
+    private int overshoots;
+    private int stuckEvents;
+    private long nanos;
+    private Vec3d windowStart;
+
+    public MovementSimulator(Course course, Strategy strategy) {
+        this.course = course;
+        this.strategy = strategy;
+        this.player = new SimulatedPlayer(course.scenario.view);
+        this.ai = new BasicPathAI(player, new Random(SEED));
+        this.timeLimit = (int) (course.path.length() * TIME_LIMIT_FACTOR) + 10 * TICKS_PER_SECOND;
+    }
+
+    /** Plans the course across a terrain of {@link SyntheticWorlds}. */
+    public static Course course(String terrain) {
+        SyntheticWorlds.Scenario scenario = SyntheticWorlds.create(terrain);
+        PathFinder pathFinder = new PathFinder(scenario.view, scenario.start, scenario.goal);
+        PathResult result = pathFinder.findPathAnytime(scenario.start, scenario.goal, 100_000, 5_000);
+        if (result == null || result.isPartial()) {
+            throw new IllegalStateException("No path across " + terrain + " terrain");
+        }
+        return new Course(terrain, scenario, result.getPath());
+    }
+
+    /** Starts a run from the beginning of the course: player at the start, facing its first leg. */
+    public void start() {
+        ai.stop();
+        CompactPath path = course.path;
+        Vec3d first = path.size() > 1 ? path.get(1) : course.goal;
+        float yaw = (float) Math.toDegrees(Math.atan2(first.z - course.start.z, first.x - course.start.x)) - 90.0f;
+        player.reset(course.start, yaw);
+
+        switch (strategy) {
+            case GENERAL -> ai.startGeneralPath(path);
+            case HARVEST -> {
+                // As HarvestPathManager hands a path over: from where the player stands, splined
+                HarvestPathManager.getInstance().setPathComplete(false);
+                CompactPath fromPlayer = path.withStart(course.start.x, course.start.y + 0.5, course.start.z);
+                ai.startHarvest(CatmullRomSpline.createPath(fromPlayer, CatmullRomSpline.DEFAULT_CHORD_ERROR));
+            }
+            case HIGHWAY -> ai.startHighwaySplinePath(roadNodes(path));
+        }
+
+        ticks = 0;
+        overshoots = 0;
+        stuckEvents = 0;
+        nanos = 0;
+        windowStart = course.start;
+    }
+
+    /** Whether the run is over: the follower stopped or the time ran out. */
+    public boolean isFinished() {
+        return ai.getStrategy() == null || ticks >= timeLimit;
+    }
+
+    /**
+     * One game tick: the follower looks and presses keys, then the player moves. Only this is
+     * timed, the bookkeeping around it isn't.
+     *
+     * @return whether the run is over
+     */
+    public boolean tick() {
+        int indexBefore = ai.getCurrentIndex();
+        CompactPath pathBefore = ai.getPath();
+
+        long begin = System.nanoTime();
+        ai.tick();
+        player.tick();
+        nanos += System.nanoTime() - begin;
+        ticks++;
+
+        // A jump of more than one waypoint within the same path is the follower catching up
+        // with a player that ran past them
+        if (ai.getPath() == pathBefore && ai.getCurrentIndex() > indexBefore + 1) {
+            overshoots++;
+        }
+        if (ticks % STUCK_WINDOW == 0) {
+            Vec3d position = player.getPos();
+            double dx = position.x - windowStart.x, dz = position.z - windowStart.z;
+            if (!isFinished() && dx * dx + dz * dz < STUCK_DISTANCE * STUCK_DISTANCE) {
+                stuckEvents++;
+            }
+            windowStart = position;
+        }
+        return isFinished();
+    }
+
+    /** Ticks from the start to the end of the course. */
+    public Run run() {
+        start();
+        while (!tick()) {
+            // Keep going
+        }
+        return result();
+    }
+
+    public Run result() {
+        Vec3d position = player.getPos();
+        boolean arrived = ai.getStrategy() == null
+                && position.squaredDistanceTo(course.goal) < GOAL_REACH * GOAL_REACH;
+        if (ai.getStrategy() != null) {
+            ai.stop(); // Out of time
+        }
+        return new Run(ticks, arrived, overshoots, stuckEvents, nanos);
+    }
+
+    BasicPathAI ai() { return ai; }
+
+    public SimulatedPlayer getPlayer() {
+        return player;
+    }
+
+    // Every planned waypoint as a node of a road, the way a recorded highway is laid out
+    private static List<RoadNode> roadNodes(CompactPath path) {
+        List<RoadNode> nodes = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            nodes.add(new RoadNode("sim-" + i, path.get(i), "sim", null, null));
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %-8s %-8s %8s %10s %6s %9s%n",
+                "terrain", "strategy", "result", "seconds", "overshoots", "stuck", "us/tick");
+        for (String terrain : TERRAINS) {
+            Course course = course(terrain);
+            for (Strategy strategy : Strategy.values()) {
+                Run run = new MovementSimulator(course, strategy).run();
+                System.out.printf("%-10s %-8s %-8s %8.2f %10d %6d %9.2f%n",
+                        terrain, strategy.name().toLowerCase(), run.arrived ? "arrived" : "failed",
+                        run.seconds(), run.overshoots, run.stuckEvents, run.microsPerTick());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.path.PathFinder;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local block search and its post-processing over the synthetic terrains.
+ * Run with the GC profiler (default in build.gradle) to see allocation per search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PathFinderBenchmark {
+
+    @Param({"plains", "maze", "stairs", "ladders", "farmland"})
+    public String terrain;
+
+    private SyntheticWorlds.Scenario scenario;
+    private PathFinder pathFinder;
+    private PathFinder anyAnglePathFinder;
+    private List<BlockPos> rawPath;
+    private List<Vec3d> simplifiedPath;
+
+    @Setup
+    public void setup() {
+        scenario = SyntheticWorlds.create(terrain);
+        pathFinder = new PathFinder(scenario.view, scenario.start, scenario.goal);
+
+        rawPath = pathFinder.findRawPath(scenario.start, scenario.goal);
+        if (rawPath == null) {
+            throw new IllegalStateException("No path across " + terrain + " terrain");
+        }
+        simplifiedPath = pathFinder.simplifyPath(rawPath);
+
+        anyAnglePathFinder = new PathFinder(scenario.view, scenario.start, scenario.goal);
+        anyAnglePathFinder.setAnyAngle(true);
+    }
+
+    @Benchmark
+    public List<BlockPos> findRawPath() {
+        return pathFinder.findRawPath(scenario.start, scenario.goal);
+    }
+
+    @Benchmark
+    public List<Vec3d> findPath() {
+        return pathFinder.findPath(scenario.start, scenario.goal);
+    }
+
+    @Benchmark
+    public List<Vec3d> findPathAnyAngle() {
+        return anyAnglePathFinder.findPath(scenario.start, scenario.goal);
+    }
+
+    @Benchmark
+    public List<Vec3d> simplifyPath() {
+        return pathFinder.simplifyPath(rawPath);
+    }
+
+    @Benchmark
+    public List<Vec3d> postProcessCorners() {
+        return pathFinder.postProcessCorners(simplifiedPath);
+    }
+}
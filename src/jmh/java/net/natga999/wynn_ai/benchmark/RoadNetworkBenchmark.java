@@ -0,0 +1,86 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.path.network.RoadNetworkManager;
+import net.natga999.wynn_ai.path.network.RoadNode;
+
+import net.minecraft.util.math.Vec3d;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Road graph routing over generated networks: a jittered grid of road nodes with some streets
+ * missing and a handful of tunnels, queried between random far-apart node pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RoadNetworkBenchmark {
+    private static final String WORLD_ID = "benchmark";
+    private static final double SPACING = 24.0; // Typical distance between hand-placed road nodes
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int nodeCount;
+
+    private RoadNetworkManager network;
+    private final List<String[]> queries = new ArrayList<>();
+    private int nextQuery;
+
+    @Setup
+    public void setup() {
+        network = RoadNetworkManager.detached(Path.of("build", "jmh-road-network.json")); // Never saved
+        Random random = new Random(451L);
+        int side = (int) Math.ceil(Math.sqrt(nodeCount));
+
+        for (int i = 0; i < nodeCount; i++) {
+            int gx = i % side, gz = i / side;
+            Vec3d position = new Vec3d(
+                    gx * SPACING + random.nextDouble() * 8 - 4,
+                    64 + random.nextInt(6),
+                    gz * SPACING + random.nextDouble() * 8 - 4);
+            network.addNode(new RoadNode(id(i), position, WORLD_ID, null, null));
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            int gx = i % side;
+            // Drop ~15% of streets so the graph isn't a perfect grid
+            if (gx + 1 < side && i + 1 < nodeCount && random.nextDouble() > 0.15) {
+                network.addConnection(id(i), id(i + 1));
+            }
+            if (i + side < nodeCount && random.nextDouble() > 0.15) {
+                network.addConnection(id(i), id(i + side));
+            }
+        }
+
+        // A few long tunnels, as on the real map
+        for (int t = 0; t < Math.max(1, nodeCount / 2000); t++) {
+            String entranceId = id(random.nextInt(nodeCount));
+            network.updateNodeType(entranceId, "TUNNEL_ENTRANCE");
+            network.setTunnelExit(entranceId, id(random.nextInt(nodeCount)));
+        }
+
+        network.findPathOnRoadNetwork(id(0), id(1)); // Compile the graph and its landmarks outside the measurement
+
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            int from = random.nextInt(nodeCount / 4); // One corner of the map ...
+            int to = nodeCount - 1 - random.nextInt(nodeCount / 4); // ... to the other
+            queries.add(new String[]{id(from), id(to)});
+        }
+    }
+
+    @Benchmark
+    public List<RoadNode> findPathOnRoadNetwork() {
+        String[] query = queries.get(nextQuery++ & (QUERY_COUNT - 1));
+        return network.findPathOnRoadNetwork(query[0], query[1]);
+    }
+
+    private static String id(int index) {
+        return "n" + index;
+    }
+}
@@ -0,0 +1,369 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.ai.PlayerHost;
+import net.natga999.wynn_ai.path.BlockAccess;
+import net.natga999.wynn_ai.path.MovementFlags;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Arrays;
+
+/**
+ * A player for the movement benchmarks: the walking part of vanilla's player physics over a
+ * {@link BlockAccess}, close enough that the follower's reach checks and timing behave as in
+ * game. It walks and sprints with ground friction, jumps, steps up half a block, climbs
+ * ladders, falls, slows down in water and collides its 0.6 x 1.8 box with every block its feet
+ * can't stand in, and with a ladder's board. No sneaking, swimming, knockback or slipperiness.
+ */
+public final class SimulatedPlayer implements PlayerHost {
+    private static final double HALF_WIDTH = 0.3;
+    private static final double HEIGHT = 1.8;
+    private static final double EYE_HEIGHT = 1.62;
+    private static final double STEP_HEIGHT = 0.6;
+
+    // Per tick, as in LivingEntity#travel
+    private static final double WALK_SPEED = 0.1;
+    private static final double SPRINT_SPEED = 0.13;
+    private static final double AIR_SPEED = 0.02;
+    private static final double SPRINT_AIR_SPEED = 0.026;
+    private static final double GROUND_DRAG = 0.546; // Slipperiness 0.6 times air drag
+    private static final double AIR_DRAG = 0.91;
+    private static final double GRAVITY = 0.08;
+    private static final double VERTICAL_DRAG = 0.98;
+    private static final double JUMP_VELOCITY = 0.42;
+    private static final double SPRINT_JUMP_BOOST = 0.2;
+    private static final int JUMP_DELAY = 10; // Ticks between jumps while the key is held
+    private static final double CLIMB_SPEED = 0.15; // Fastest move along or down a ladder
+    private static final double CLIMB_VELOCITY = 0.2;
+    private static final double LADDER_DEPTH = 3.0 / 16.0;
+    private static final double WATER_SPEED = 0.02;
+    private static final double WATER_DRAG = 0.8;
+    private static final double WATER_GRAVITY = 0.02;
+    private static final double SWIM_UP = 0.04;
+    private static final double LEDGE_HOP = 0.3; // Out of water onto a block-high bank
+    private static final double EPSILON = 1e-7;
+
+    private final BlockAccess world;
+    private final boolean[] keys = new boolean[Key.values().length];
+    private double x, y, z;
+    private double vx, vy, vz;
+    private float yaw, pitch;
+    private boolean onGround;
+    private boolean horizontalCollision;
+    private int jumpDelay;
+
+    public SimulatedPlayer(BlockAccess world) {
+        this.world = world;
+    }
+
+    /** Puts the player at rest at {@code feet}, looking along {@code yaw}, with no keys held. */
+    public void reset(Vec3d feet, float yaw) {
+        x = feet.x;
+        y = feet.y;
+        z = feet.z;
+        vx = vy = vz = 0;
+        this.yaw = yaw;
+        pitch = 0;
+        onGround = true;
+        horizontalCollision = false;
+        jumpDelay = 0;
+        Arrays.fill(keys, false);
+    }
+
+    /** One game tick of movement with the keys as held now. */
+    public void tick() {
+        if (jumpDelay > 0) jumpDelay--;
+        boolean inWater = MovementFlags.has(feetFlags(), MovementFlags.LIQUID);
+        boolean climbing = MovementFlags.has(feetFlags(), MovementFlags.CLIMBABLE);
+        boolean sprinting = keys[Key.SPRINT.ordinal()] && keys[Key.FORWARD.ordinal()] && !inWater;
+
+        if (keys[Key.JUMP.ordinal()]) {
+            if (inWater) {
+                vy += SWIM_UP;
+            } else if (onGround && jumpDelay == 0) {
+                vy = JUMP_VELOCITY;
+                if (sprinting) {
+                    double yawRad = Math.toRadians(yaw);
+                    vx -= Math.sin(yawRad) * SPRINT_JUMP_BOOST;
+                    vz += Math.cos(yawRad) * SPRINT_JUMP_BOOST;
+                }
+                jumpDelay = JUMP_DELAY;
+            }
+        } else {
+            jumpDelay = 0;
+        }
+
+        double speed = inWater ? WATER_SPEED
+                : onGround ? (sprinting ? SPRINT_SPEED : WALK_SPEED)
+                : (sprinting ? SPRINT_AIR_SPEED : AIR_SPEED);
+        accelerate(speed);
+
+        if (climbing) {
+            vx = clamp(vx, CLIMB_SPEED);
+            vz = clamp(vz, CLIMB_SPEED);
+            vy = Math.max(vy, -CLIMB_SPEED);
+        }
+
+        move(vx, vy, vz);
+
+        if (climbing && (horizontalCollision || keys[Key.JUMP.ordinal()])) {
+            vy = CLIMB_VELOCITY;
+        }
+        if (inWater) {
+            vx *= WATER_DRAG;
+            vy = vy * WATER_DRAG - WATER_GRAVITY;
+            vz *= WATER_DRAG;
+            if (horizontalCollision && isFree(x + vx, y + vy + STEP_HEIGHT, z + vz)) {
+                vy = LEDGE_HOP;
+            }
+        } else {
+            double drag = onGround ? GROUND_DRAG : AIR_DRAG;
+            vx *= drag;
+            vy = (vy - GRAVITY) * VERTICAL_DRAG;
+            vz *= drag;
+        }
+    }
+
+    // Adds the held movement keys as in Entity#movementInputToVelocity
+    private void accelerate(double speed) {
+        double forward = (keys[Key.FORWARD.ordinal()] ? 0.98 : 0) - (keys[Key.BACK.ordinal()] ? 0.98 : 0);
+        double sideways = (keys[Key.LEFT.ordinal()] ? 0.98 : 0) - (keys[Key.RIGHT.ordinal()] ? 0.98 : 0);
+        double lengthSq = forward * forward + sideways * sideways;
+        if (lengthSq < EPSILON) return;
+
+        double scale = speed / Math.max(Math.sqrt(lengthSq), 1.0);
+        double yawRad = Math.toRadians(yaw);
+        double sin = Math.sin(yawRad), cos = Math.cos(yawRad);
+        vx += (sideways * cos - forward * sin) * scale;
+        vz += (forward * cos + sideways * sin) * scale;
+    }
+
+    /*
+     * Moves by the given amount as far as the blocks allow, sliding along whatever it hits.
+     * Blocked sideways on the ground, it tries the same move half a block higher and keeps
+     * that if it gets further, which is how it walks up slabs and stairs without a jump.
+     */
+    private void move(double dx, double dy, double dz) {
+        double[] moved = slide(x, y, z, dx, dy, dz);
+        boolean landed = dy < 0 && moved[1] - y > dy + EPSILON;
+        boolean blocked = Math.abs(moved[0] - x - dx) > EPSILON || Math.abs(moved[2] - z - dz) > EPSILON;
+
+        if (blocked && (onGround || landed)) {
+            double[] up = slide(x, y, z, 0, STEP_HEIGHT, 0);
+            double[] across = slide(up[0], up[1], up[2], dx, 0, dz);
+            double[] down = slide(across[0], across[1], across[2], 0, y - up[1] + Math.min(dy, 0), 0);
+            if (horizontalDistanceSq(down) > horizontalDistanceSq(moved) + EPSILON) {
+                moved = down;
+            }
+        }
+
+        boolean blockedX = Math.abs(moved[0] - x - dx) > EPSILON;
+        boolean blockedZ = Math.abs(moved[2] - z - dz) > EPSILON;
+        boolean blockedY = Math.abs(moved[1] - y - dy) > EPSILON;
+        x = moved[0];
+        y = moved[1];
+        z = moved[2];
+
+        horizontalCollision = blockedX || blockedZ;
+        onGround = blockedY && dy < 0;
+        if (blockedX) vx = 0;
+        if (blockedY) vy = 0;
+        if (blockedZ) vz = 0;
+    }
+
+    private double horizontalDistanceSq(double[] moved) {
+        double dx = moved[0] - x, dz = moved[2] - z;
+        return dx * dx + dz * dz;
+    }
+
+    // Vertical first, then the larger horizontal axis, as vanilla resolves collisions
+    private double[] slide(double px, double py, double pz, double dx, double dy, double dz) {
+        dy = clip(1, px, py, pz, dy);
+        py += dy;
+        if (Math.abs(dx) < Math.abs(dz)) {
+            pz += clip(2, px, py, pz, dz);
+            px += clip(0, px, py, pz, dx);
+        } else {
+            px += clip(0, px, py, pz, dx);
+            pz += clip(2, px, py, pz, dz);
+        }
+        return new double[]{px, py, pz};
+    }
+
+    // How much of a move of d along the axis the box at (px, py, pz) can make
+    private double clip(int axis, double px, double py, double pz, double d) {
+        if (d == 0) return 0;
+        double[] min = {px - HALF_WIDTH, py, pz - HALF_WIDTH};
+        double[] max = {px + HALF_WIDTH, py + HEIGHT, pz + HALF_WIDTH};
+        double[] sweptMin = min.clone(), sweptMax = max.clone();
+        if (d > 0) sweptMax[axis] += d;
+        else sweptMin[axis] += d;
+
+        double[] blockMin = new double[3], blockMax = new double[3];
+        // One block lower as well: fences reach into the block above them
+        for (int by = floor(sweptMin[1]) - 1; by <= floor(sweptMax[1] - EPSILON); by++) {
+            for (int bz = floor(sweptMin[2]); bz <= floor(sweptMax[2] - EPSILON); bz++) {
+                for (int bx = floor(sweptMin[0]); bx <= floor(sweptMax[0] - EPSILON); bx++) {
+                    if (!collisionBox(bx, by, bz, blockMin, blockMax)) continue;
+                    if (!overlapsOtherAxes(axis, min, max, blockMin, blockMax)) continue;
+
+                    if (d > 0 && blockMin[axis] >= max[axis] - EPSILON) {
+                        d = Math.min(d, blockMin[axis] - max[axis]);
+                    } else if (d < 0 && blockMax[axis] <= min[axis] + EPSILON) {
+                        d = Math.max(d, blockMax[axis] - min[axis]);
+                    }
+                }
+            }
+        }
+        return d;
+    }
+
+    // Whether the box at (px, py, pz) overlaps no block
+    private boolean isFree(double px, double py, double pz) {
+        double[] min = {px - HALF_WIDTH, py, pz - HALF_WIDTH};
+        double[] max = {px + HALF_WIDTH, py + HEIGHT, pz + HALF_WIDTH};
+        double[] blockMin = new double[3], blockMax = new double[3];
+        for (int by = floor(min[1]) - 1; by <= floor(max[1] - EPSILON); by++) {
+            for (int bz = floor(min[2]); bz <= floor(max[2] - EPSILON); bz++) {
+                for (int bx = floor(min[0]); bx <= floor(max[0] - EPSILON); bx++) {
+                    if (collisionBox(bx, by, bz, blockMin, blockMax) && overlapsOtherAxes(-1, min, max, blockMin, blockMax)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean overlapsOtherAxes(int axis, double[] min, double[] max, double[] blockMin, double[] blockMax) {
+        for (int other = 0; other < 3; other++) {
+            if (other == axis) continue;
+            if (blockMax[other] <= min[other] + EPSILON || blockMin[other] >= max[other] - EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The collision box of a block into min and max, false if it has none. Feet pass through
+     * what they can stand in, bottom slabs and stairs are half a block high, fences one and a
+     * half. Outside the world is a wall.
+     */
+    private boolean collisionBox(int bx, int by, int bz, double[] min, double[] max) {
+        min[0] = bx;
+        min[1] = by;
+        min[2] = bz;
+        max[0] = bx + 1;
+        max[1] = by + 1;
+        max[2] = bz + 1;
+
+        int flags = world.getFlags(bx, by, bz);
+        if (flags == 0) return true;
+        if (MovementFlags.has(flags, MovementFlags.LADDER)) return ladderBox(bx, by, bz, min, max);
+        if (MovementFlags.has(flags, MovementFlags.FEET)) return false;
+        if (MovementFlags.has(flags, MovementFlags.BARRIER)) {
+            max[1] = by + 1.5;
+        } else if (MovementFlags.has(flags, MovementFlags.HALF)) {
+            max[1] = by + 0.5;
+        }
+        return true;
+    }
+
+    // A ladder is a thin board against the block it hangs on; climbing starts by pushing into it
+    private boolean ladderBox(int bx, int by, int bz, double[] min, double[] max) {
+        for (int side = 0; side < 4; side++) {
+            int dx = side == 0 ? 1 : side == 1 ? -1 : 0;
+            int dz = side == 2 ? 1 : side == 3 ? -1 : 0;
+            if (!MovementFlags.has(world.getFlags(bx + dx, by, bz + dz), MovementFlags.SOLID)) continue;
+
+            if (dx > 0) min[0] = bx + 1 - LADDER_DEPTH;
+            else if (dx < 0) max[0] = bx + LADDER_DEPTH;
+            else if (dz > 0) min[2] = bz + 1 - LADDER_DEPTH;
+            else max[2] = bz + LADDER_DEPTH;
+            return true;
+        }
+        return false;
+    }
+
+    private int feetFlags() {
+        return world.getFlags(floor(x), floor(y + EPSILON), floor(z));
+    }
+
+    private static int floor(double value) {
+        return (int) Math.floor(value);
+    }
+
+    private static double clamp(double value, double limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+
+    @Override
+    public boolean isPresent() {
+        return true;
+    }
+
+    @Override
+    public Vec3d getPos() {
+        return new Vec3d(x, y, z);
+    }
+
+    @Override
+    public Vec3d getEyePos() {
+        return new Vec3d(x, y + EYE_HEIGHT, z);
+    }
+
+    // Entity#getRotationVector
+    @Override
+    public Vec3d getRotationVec() {
+        double pitchRad = Math.toRadians(pitch), yawRad = -Math.toRadians(yaw);
+        double cosPitch = Math.cos(pitchRad);
+        return new Vec3d(Math.sin(yawRad) * cosPitch, -Math.sin(pitchRad), Math.cos(yawRad) * cosPitch);
+    }
+
+    @Override
+    public Vec3d getVelocity() {
+        return new Vec3d(vx, vy, vz);
+    }
+
+    @Override
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    @Override
+    public float getYaw() {
+        return yaw;
+    }
+
+    @Override
+    public float getPitch() {
+        return pitch;
+    }
+
+    @Override
+    public void setYaw(float yaw) {
+        this.yaw = yaw;
+    }
+
+    @Override
+    public void setPitch(float pitch) {
+        this.pitch = pitch;
+    }
+
+    @Override
+    public int getBlockFlags(BlockPos pos) {
+        return world.getFlags(pos);
+    }
+
+    @Override
+    public boolean isPressed(Key key) {
+        return keys[key.ordinal()];
+    }
+
+    @Override
+    public void setPressed(Key key, boolean pressed) {
+        keys[key.ordinal()] = pressed;
+    }
+}
@@ -0,0 +1,42 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.path.PathFinder;
+import net.natga999.wynn_ai.utility.CatmullRomSpline;
+
+import net.minecraft.util.math.Vec3d;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spline generation over real search output, at the managers' chord error and a coarser one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SplineBenchmark {
+
+    @Param({"plains", "maze", "stairs"})
+    public String terrain;
+
+    @Param({"0.05", "0.2"})
+    public double maxChordError;
+
+    private List<Vec3d> controlPoints;
+
+    @Setup
+    public void setup() {
+        SyntheticWorlds.Scenario scenario = SyntheticWorlds.create(terrain);
+        controlPoints = new PathFinder(scenario.view, scenario.start, scenario.goal).findPath(scenario.start, scenario.goal);
+        if (controlPoints == null) {
+            throw new IllegalStateException("No path across " + terrain + " terrain");
+        }
+    }
+
+    @Benchmark
+    public List<Vec3d> createSpline() {
+        return CatmullRomSpline.createSpline(controlPoints, maxChordError);
+    }
+}
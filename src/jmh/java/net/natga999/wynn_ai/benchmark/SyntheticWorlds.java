@@ -0,0 +1,169 @@
+package net.natga999.wynn_ai.benchmark;
+
+import net.natga999.wynn_ai.path.MovementFlags;
+import net.natga999.wynn_ai.path.SyntheticBlockAccess;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Terrain generators for the path benchmarks. Each world is {@value #SIZE} blocks square,
+ * starts at y={@value #FLOOR_Y} and comes with a start/goal pair across it.
+ */
+public final class SyntheticWorlds {
+    public static final int SIZE = 64; // Four chunks: the distances the managers actually search over
+    public static final int FLOOR_Y = 64;
+    private static final int HEIGHT = 32;
+    private static final long SEED = 451L; // Fixed so runs are comparable
+
+    // Flags as MovementFlags.of would derive them for the real blocks, follower bits included
+    public static final int AIR = MovementFlags.AIR | MovementFlags.FEET | MovementFlags.HEAD
+            | MovementFlags.THROUGH | MovementFlags.OPEN;
+    public static final int STONE = MovementFlags.FLOOR | MovementFlags.JUMP | MovementFlags.GROUND
+            | MovementFlags.OBSTACLE | MovementFlags.SOLID;
+    public static final int FARMLAND = MovementFlags.FLOOR | MovementFlags.JUMP | MovementFlags.GROUND
+            | MovementFlags.OBSTACLE | MovementFlags.SOLID | MovementFlags.FARMLAND;
+    public static final int CROP = MovementFlags.FEET | MovementFlags.HEAD
+            | MovementFlags.THROUGH | MovementFlags.OPEN;
+    public static final int WATER = MovementFlags.FEET | MovementFlags.HEAD | MovementFlags.LIQUID
+            | MovementFlags.FLUID | MovementFlags.THROUGH | MovementFlags.OPEN;
+    public static final int LADDER = MovementFlags.LADDER | MovementFlags.FEET | MovementFlags.HEAD | MovementFlags.JUMP
+            | MovementFlags.CLIMBABLE | MovementFlags.THROUGH;
+
+    private SyntheticWorlds() {
+    }
+
+    public static final class Scenario {
+        public final SyntheticBlockAccess view;
+        public final BlockPos start;
+        public final BlockPos goal;
+
+        Scenario(SyntheticBlockAccess view, BlockPos start, BlockPos goal) {
+            this.view = view;
+            this.start = start;
+            this.goal = goal;
+        }
+    }
+
+    public static Scenario create(String terrain) {
+        return switch (terrain) {
+            case "plains" -> plains();
+            case "maze" -> maze();
+            case "stairs" -> stairs();
+            case "ladders" -> ladders();
+            case "farmland" -> farmland();
+            default -> throw new IllegalArgumentException("Unknown terrain: " + terrain);
+        };
+    }
+
+    private static SyntheticBlockAccess emptyWorld() {
+        SyntheticBlockAccess view = new SyntheticBlockAccess(0, FLOOR_Y - 4, 0, SIZE, HEIGHT, SIZE);
+        view.fill(0, FLOOR_Y - 4, 0, SIZE - 1, FLOOR_Y, SIZE - 1, STONE);
+        view.fill(0, FLOOR_Y + 1, 0, SIZE - 1, FLOOR_Y - 4 + HEIGHT - 1, SIZE - 1, AIR);
+        return view;
+    }
+
+    /** Open flat ground: the heuristic leads straight to the goal. */
+    private static Scenario plains() {
+        return new Scenario(emptyWorld(), new BlockPos(2, FLOOR_Y + 1, 2), new BlockPos(SIZE - 3, FLOOR_Y + 1, SIZE - 8));
+    }
+
+    /** Recursive-backtracker maze of 2-wide corridors and 3-high walls: worst case for the heuristic. */
+    private static Scenario maze() {
+        SyntheticBlockAccess view = emptyWorld();
+        int cell = 3; // 2 corridor + 1 wall
+        int cells = (SIZE - 1) / cell;
+
+        view.fill(0, FLOOR_Y + 1, 0, SIZE - 1, FLOOR_Y + 3, SIZE - 1, STONE);
+        boolean[][] visited = new boolean[cells][cells];
+        Deque<int[]> stack = new ArrayDeque<>();
+        Random random = new Random(SEED);
+        stack.push(new int[]{0, 0});
+        visited[0][0] = true;
+        carve(view, 0, 0, cell);
+
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        while (!stack.isEmpty()) {
+            int[] current = stack.peek();
+            int[] next = null;
+            int offset = random.nextInt(4);
+            for (int i = 0; i < 4 && next == null; i++) {
+                int[] d = directions[(offset + i) & 3];
+                int nx = current[0] + d[0], nz = current[1] + d[1];
+                if (nx >= 0 && nz >= 0 && nx < cells && nz < cells && !visited[nx][nz]) {
+                    next = new int[]{nx, nz};
+                }
+            }
+            if (next == null) {
+                stack.pop();
+                continue;
+            }
+            visited[next[0]][next[1]] = true;
+            // Knock out the wall between the two cells
+            int wx = 1 + Math.min(current[0], next[0]) * cell + (current[0] != next[0] ? 2 : 0);
+            int wz = 1 + Math.min(current[1], next[1]) * cell + (current[1] != next[1] ? 2 : 0);
+            view.fill(wx, FLOOR_Y + 1, wz, wx + (current[0] != next[0] ? 0 : 1), FLOOR_Y + 3, wz + (current[1] != next[1] ? 0 : 1), AIR);
+            carve(view, next[0], next[1], cell);
+            stack.push(next);
+        }
+
+        int last = 1 + (cells - 1) * cell;
+        return new Scenario(view, new BlockPos(1, FLOOR_Y + 1, 1), new BlockPos(last, FLOOR_Y + 1, last));
+    }
+
+    private static void carve(SyntheticBlockAccess view, int cellX, int cellZ, int cell) {
+        int x = 1 + cellX * cell, z = 1 + cellZ * cell;
+        view.fill(x, FLOOR_Y + 1, z, x + 1, FLOOR_Y + 3, z + 1, AIR);
+    }
+
+    /** Rolling terraces that rise and fall one block at a time along the diagonal. */
+    private static Scenario stairs() {
+        SyntheticBlockAccess view = emptyWorld();
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int phase = ((x + z) / 6) % 24;
+                int height = phase < 12 ? phase : 24 - phase; // Triangle wave, 0..12
+                view.fill(x, FLOOR_Y + 1, z, x, FLOOR_Y + height, z, STONE);
+            }
+        }
+        return new Scenario(view, new BlockPos(2, FLOOR_Y + 1, 2), topOf(view, SIZE - 3, SIZE - 8));
+    }
+
+    /** Flat ground split by 6-high walls that can only be crossed by ladder shafts. */
+    private static Scenario ladders() {
+        SyntheticBlockAccess view = emptyWorld();
+        int wallHeight = 6;
+        for (int wallX = 20; wallX < SIZE - 10; wallX += 20) {
+            view.fill(wallX, FLOOR_Y + 1, 0, wallX, FLOOR_Y + wallHeight, SIZE - 1, STONE);
+            for (int shaftZ = 10 + wallX % 30; shaftZ < SIZE; shaftZ += 30) {
+                view.fill(wallX - 1, FLOOR_Y + 1, shaftZ, wallX - 1, FLOOR_Y + wallHeight, shaftZ, LADDER);
+                view.fill(wallX + 1, FLOOR_Y + 1, shaftZ, wallX + 1, FLOOR_Y + wallHeight, shaftZ, LADDER);
+            }
+        }
+        return new Scenario(view, new BlockPos(2, FLOOR_Y + 1, 2), new BlockPos(SIZE - 3, FLOOR_Y + 1, SIZE - 8));
+    }
+
+    /** Farmland rows under crops, split by water channels every ninth row. */
+    private static Scenario farmland() {
+        SyntheticBlockAccess view = emptyWorld();
+        for (int z = 0; z < SIZE; z++) {
+            boolean channel = z % 9 == 4;
+            view.fill(0, FLOOR_Y, z, SIZE - 1, FLOOR_Y, z, channel ? WATER : FARMLAND);
+            if (!channel) {
+                view.fill(0, FLOOR_Y + 1, z, SIZE - 1, FLOOR_Y + 1, z, CROP);
+            }
+        }
+        return new Scenario(view, new BlockPos(2, FLOOR_Y + 1, 2), new BlockPos(SIZE - 3, FLOOR_Y + 1, SIZE - 8));
+    }
+
+    private static BlockPos topOf(SyntheticBlockAccess view, int x, int z) {
+        int y = FLOOR_Y + 1;
+        while (view.getFlags(x, y, z) == STONE) {
+            y++;
+        }
+        return new BlockPos(x, y, z);
+    }
+}
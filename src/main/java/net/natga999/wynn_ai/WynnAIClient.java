@@ -8,8 +8,16 @@ import net.natga999.wynn_ai.input.KeyInputHandler;
 import net.natga999.wynn_ai.managers.*;
 import net.natga999.wynn_ai.ai.BasicPathAI;
 import net.natga999.wynn_ai.managers.combat.CombatManager;
+import net.natga999.wynn_ai.path.ChunkCache;
+import net.natga999.wynn_ai.path.CompactPath;
+import net.natga999.wynn_ai.path.MovementFlags;
+import net.natga999.wynn_ai.path.PathPlanningService;
+import net.natga999.wynn_ai.path.TerrainChangeBus;
+import net.natga999.wynn_ai.path.hpa.HierarchicalPathPlanner;
+import net.natga999.wynn_ai.path.store.TerrainStore;
 import net.natga999.wynn_ai.render.PathRenderer;
 import net.natga999.wynn_ai.render.RoadNetworkRenderer;
+import net.natga999.wynn_ai.services.NavigationService;
 
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
@@ -57,6 +65,13 @@ public class WynnAIClient implements ClientModInitializer {
 
         ResourceNodeManager.loadFromFile();
 
+        // Keep the path search block cache in step with the client's chunks
+        MovementFlags.register();
+        TerrainStore.register(); // Before the change bus, see its doc
+        TerrainChangeBus.register();
+        ChunkCache.register();
+        HierarchicalPathPlanner.register();
+
         // Register key bindings
         KeyInputHandler.register();
 
@@ -81,14 +96,14 @@ public class WynnAIClient implements ClientModInitializer {
         });
 
         WorldRenderEvents.AFTER_TRANSLUCENT.register(context -> {
-            List<Vec3d> path = HarvestPathManager.getInstance().getCurrentPath();
+            CompactPath path = HarvestPathManager.getInstance().getCurrentPath();
             if (path == null || path.size() < 2) {
                 LOGGER.debug("Path is null or too short to render: {}", path);
             } else {
                 PathRenderer.renderPath(context.matrixStack(), context.camera().getPos(), path);
             }
 
-            List<Vec3d> combatPath = CombatManager.getInstance().getCurrentPath();
+            CompactPath combatPath = CombatManager.getInstance().getCurrentPath();
             if (combatPath == null || combatPath.size() < 2) {
                 LOGGER.debug("Path is null or too short to render: {}", combatPath);
             } else {
@@ -103,6 +118,10 @@ public class WynnAIClient implements ClientModInitializer {
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             if (client.player == null || client.world == null) return;
 
+            // Hand finished off-tick path searches to the state machines below
+            PathPlanningService.getInstance().tick();
+            NavigationService.getInstance().tick(); // Follows journeys started on an earlier tick
+
             // Run AI movement logic
             RepairStateManager.getInstance().tick(client);
             CombatManager.getInstance().tick();
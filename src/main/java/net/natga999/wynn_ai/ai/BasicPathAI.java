@@ -1,31 +1,31 @@
 package net.natga999.wynn_ai.ai;
 
 import net.natga999.wynn_ai.managers.combat.CombatManager;
+import net.natga999.wynn_ai.path.CompactPath;
+import net.natga999.wynn_ai.path.MovementFlags;
 import net.natga999.wynn_ai.path.network.RoadNode;
 import net.natga999.wynn_ai.strategies.*;
 
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.network.ClientPlayerEntity;
-import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.block.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Random;
 
 //ts pmo, start full vibe-coding tbh, didn't even read
 public class BasicPathAI {
     private static final Logger LOGGER = LoggerFactory.getLogger(BasicPathAI.class);
 
-    private static final BasicPathAI INSTANCE = new BasicPathAI();
+    private static final BasicPathAI INSTANCE = new BasicPathAI(ClientPlayerHost.INSTANCE, new Random());
     public static BasicPathAI getInstance() { return INSTANCE; }
 
+    private final PlayerHost host;
+    private final Random random; // Jump, hop and look jitter
+
     // private static Vec3d target = null; // This static target seems less used; movement relies on getCurrentWaypoint()
     private final double reachThresholdXZ = 1.0;
     private final double reachThresholdY = 1.3;
@@ -40,13 +40,31 @@ public class BasicPathAI {
     private int lastJump= 0;
     private static final int JUMP_COOLDOWN_TICKS = 8;
     private static final double JUMP_CHECK_DISTANCE = 1.0;
+    private static final int PROGRESS_WINDOW = 8; // Segments past the last known one searched for the player each tick
 
     // Added path tracking variables
-    private List<Vec3d> path = new ArrayList<>();
+    private CompactPath path = CompactPath.EMPTY; // Immutable, shared with whoever planned it
     private int currentPathIndex = 0;
+    private Vec3d currentWaypoint; // getCurrentWaypoint() of waypointIndex, asked for many times a tick
+    private int waypointIndex = -1;
+    // Closest point of the path to the player, as of the last isReachedNext
+    private int progressSegment = 0; // Segment it lies on, only moves forward
+    private double progressFraction = 0; // How far along that segment, 0 to 1
+    private double progress = 0; // Distance along the path
+    private double progressOffsetXZSq = 0; // Player's squared horizontal distance from it
+    private double progressOffsetY = 0;
     private boolean followingPath = false;
     private MovementStrategy strategy;
 
+    /**
+     * A follower of its own, for driving a player other than the client's, like the simulated
+     * one of the movement benchmarks. A seeded {@code random} makes its runs repeatable.
+     */
+    public BasicPathAI(PlayerHost host, Random random) {
+        this.host = host;
+        this.random = random;
+    }
+
     public void tick() {
         if (jumpCooldown > 0) jumpCooldown--;
         lastJump++;
@@ -56,11 +74,10 @@ public class BasicPathAI {
             return;
         }
 
-        MinecraftClient client = MinecraftClient.getInstance();
         // Let the strategy handle camera rotation
-        if (client != null && client.player != null) {
-            // The strategy will call ai.rotateCameraToward(client, isFinal)
-            strategy.handleCameraRotation(this, client);
+        if (host.isPresent()) {
+            // The strategy will call ai.rotateCameraToward(isFinal)
+            strategy.handleCameraRotation(this);
         }
 
         if (CombatManager.getInstance().isInAttackRange()) {
@@ -83,33 +100,25 @@ public class BasicPathAI {
      * @return The Vec3d target for the camera.
      */
     private Vec3d getCameraLookAtTarget() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (path.isEmpty() || currentPathIndex >= path.size() || client == null || client.player == null) {
+        if (path.isEmpty() || currentPathIndex >= path.size() || !host.isPresent()) {
             return getCurrentWaypoint(); // Fallback or if no path/player
         }
 
-        Vec3d currentWaypoint = path.get(currentPathIndex);
-        if (currentWaypoint == null) return null;
+        Vec3d currentWaypoint = getCurrentWaypoint();
 
         // If this is the last waypoint in the current path segment, always look at it.
         if (currentPathIndex == path.size() - 1) {
             return currentWaypoint;
         }
 
-        Vec3d playerPos = client.player.getPos();
-        double distanceToCurrentXZ = Math.sqrt(
-                Math.pow(playerPos.x - currentWaypoint.x, 2) +
-                        Math.pow(playerPos.z - currentWaypoint.z, 2)
-        );
+        Vec3d playerPos = host.getPos();
+        double distanceToCurrentXZSq = path.horizontalDistanceSq(currentPathIndex, playerPos.x, playerPos.z);
 
-        if (distanceToCurrentXZ < this.lookAheadSwitchDistance) {
+        if (distanceToCurrentXZSq < this.lookAheadSwitchDistance * this.lookAheadSwitchDistance) {
             // Close to the current waypoint, try to look at the next one.
             if (currentPathIndex + 1 < path.size()) {
-                Vec3d nextWaypoint = path.get(currentPathIndex + 1);
-                if (nextWaypoint != null) {
-                    LOGGER.trace("Camera looking ahead to waypoint {} (current index {})", currentPathIndex + 1, currentPathIndex);
-                    return nextWaypoint;
-                }
+                LOGGER.trace("Camera looking ahead to waypoint {} (current index {})", currentPathIndex + 1, currentPathIndex);
+                return path.get(currentPathIndex + 1);
             }
         }
         LOGGER.trace("Camera looking at current waypoint {} (index {})", currentPathIndex, currentPathIndex);
@@ -122,9 +131,11 @@ public class BasicPathAI {
      * Common private initialization for all path types.
      * Resets path index and sets the new waypoints.
      */
-    private void initPathInternal(List<Vec3d> waypoints) { // Renamed to avoid confusion with a potential public initPath
-        this.path = (waypoints != null) ? new ArrayList<>(waypoints) : new ArrayList<>();
+    private void initPathInternal(CompactPath waypoints) { // Renamed to avoid confusion with a potential public initPath
+        this.path = (waypoints != null) ? waypoints : CompactPath.EMPTY; // Immutable, no copy needed
         this.currentPathIndex = 0;
+        this.waypointIndex = -1;
+        resetProgress();
         this.followingPath = true; // Assume if a path is set, we should follow. Strategy can stop if needed.
 
         if (this.path.isEmpty() && !(this.strategy instanceof HighwaySplineStrategy)) {
@@ -150,6 +161,15 @@ public class BasicPathAI {
      * @param waypoints The new list of waypoints for the current segment.
      */
     public void setPath(List<Vec3d> waypoints) {
+        setPath(CompactPath.of(waypoints));
+    }
+
+    /**
+     * Same as {@link #setPath(List)}, following the path as it is, without copying it.
+     *
+     * @param waypoints The new waypoints for the current segment.
+     */
+    public void setPath(CompactPath waypoints) {
         // Call the internal private method to do the actual initialization
         initPathInternal(waypoints);
         // If a strategy is active and sets an empty path, it might intend to stop or re-evaluate.
@@ -163,18 +183,26 @@ public class BasicPathAI {
     }
 
     /** Called by your higher-level controller when a new harvest path is ready. */
-    public void startHarvest(List<Vec3d> waypoints) {
+    public void startHarvest(CompactPath waypoints) {
         this.strategy = new HarvestMovementStrategy(); // Set strategy first
         setPath(waypoints); // Then set the path
     }
 
     /** Called by your higher-level controller when combat-movement should begin. */
     public void startCombatPath(List<Vec3d> waypoints) {
+        startCombatPath(CompactPath.of(waypoints));
+    }
+
+    public void startCombatPath(CompactPath waypoints) {
         this.strategy = new CombatMovementStrategy(); // Set strategy first
         setPath(waypoints); // Then set the path
     }
 
     public void startGeneralPath(List<Vec3d> waypoints) {
+        startGeneralPath(CompactPath.of(waypoints));
+    }
+
+    public void startGeneralPath(CompactPath waypoints) {
         this.strategy = new GeneralPurposeTravelStrategy(); // Set strategy first
         setPath(waypoints); // Then set the path
         // Original log: LOGGER.info("Starting new General Purpose path with {} waypoints", waypoints.size());
@@ -193,98 +221,135 @@ public class BasicPathAI {
             return;
         }
         this.strategy = new HighwaySplineStrategy(highwayNodes); // Set strategy first
-        setPath(new ArrayList<>()); // Start with an empty path; strategy will populate it.
+        setPath(CompactPath.EMPTY); // Start with an empty path; strategy will populate it.
         this.followingPath = true; // Explicitly ensure we are in following mode for this strategy.
         LOGGER.info("Starting new Highway Spline Path with {} total road nodes.", highwayNodes.size());
     }
 
     /**
      * Checks if the player has reached at least the current waypoint,
-     * and optionally any subsequent waypoints to allow for skipping in case of overshooting.
+     * or has overshot it: the closest point of the path to the player lies past it.
+     * Only a few segments ahead are searched, so the cost doesn't grow with the path.
      *
-     * @param player The client player entity to check position for
      * @return true if the player has reached the current waypoint or any further ones in the path
      */
-    public boolean isReachedNext(ClientPlayerEntity player) {
-        if (player == null || path.isEmpty() || currentPathIndex >= path.size()) {
+    public boolean isReachedNext() {
+        if (!host.isPresent() || path.isEmpty() || currentPathIndex >= path.size()) {
             return false;
         }
 
-        Vec3d playerPos = player.getPos();
-        Vec3d currentWaypoint = path.get(currentPathIndex);
+        Vec3d playerPos = host.getPos();
+        updateProgress(playerPos.x, playerPos.y, playerPos.z);
 
-        // Determine the dynamic reach threshold
-        double activeReachThresholdXZ;
-        if (isEnvironmentHazardous(player, currentWaypoint)) {
-            activeReachThresholdXZ = this.preciseReachThresholdXZ;
-            LOGGER.trace("Using PRECISE reach threshold: {}", activeReachThresholdXZ);
-        } else {
-            activeReachThresholdXZ = this.defaultReachThresholdXZ;
-            LOGGER.trace("Using DEFAULT reach threshold: {}", activeReachThresholdXZ);
+        // First check if we've reached the current waypoint. Near hazards the precise threshold applies;
+        // the hazard scan reads blocks, so it only runs when the distance is between the two thresholds.
+        double currentDistanceXZSq = path.horizontalDistanceSq(currentPathIndex, playerPos.x, playerPos.z);
+        double currentDistanceY = Math.abs(playerPos.y - path.y(currentPathIndex));
+        if (isWithinReach(currentPathIndex, currentDistanceXZSq, currentDistanceY)) {
+            return true;
         }
 
-        // First check if we've reached the current waypoint using the dynamic threshold
-        double currentDistanceXZ = Math.sqrt(
-                Math.pow(playerPos.x - currentWaypoint.x, 2) +
-                        Math.pow(playerPos.z - currentWaypoint.z, 2)
-        );
-        double currentDistanceY = Math.abs(playerPos.y - currentWaypoint.y);
+        // Then check if we've overshot: every waypoint before the player's point on the path is passed,
+        // as long as the player is close enough to the path for that point to mean anything
+        int passed = progressFraction > 0 ? progressSegment : progressSegment - 1;
+        if (passed > currentPathIndex && isWithinReach(passed, progressOffsetXZSq, progressOffsetY)) {
+            currentPathIndex = passed;
+            LOGGER.debug("Skipped to waypoint {} as player overshot ({} blocks along the path)", passed, progress);
+            return true;
+        }
+        return false;
+    }
 
-        boolean reachedCurrent = currentDistanceXZ < activeReachThresholdXZ && currentDistanceY < reachThresholdY;
+    private boolean isWithinReach(int waypoint, double distanceXZSq, double distanceY) {
+        if (distanceY >= reachThresholdY || distanceXZSq >= defaultReachThresholdXZ * defaultReachThresholdXZ) {
+            return false;
+        }
+        return distanceXZSq < preciseReachThresholdXZ * preciseReachThresholdXZ || !isHazardous(waypoint);
+    }
 
-        if (reachedCurrent) {
-            return true;
+    // A planned path says where precision is needed, anything else is probed around the player
+    private boolean isHazardous(int waypoint) {
+        if (path.isAnnotated()) {
+            return path.hasFlag(waypoint, CompactPath.PRECISE | CompactPath.NARROW);
         }
+        return isEnvironmentHazardous(path.get(waypoint));
+    }
+
+    /**
+     * Whether the way to the current waypoint has any of the {@link CompactPath} movement notes in
+     * {@code mask}; always false for a path without notes.
+     */
+    public boolean currentLegHas(int mask) {
+        return path.isAnnotated() && currentPathIndex < path.size() && path.hasFlag(currentPathIndex, mask);
+    }
 
-        // Then check if we've overshot and reached any of the next waypoints in the path
-        // For overshooting, we can also use the dynamic threshold, or stick to default.
-        // Using dynamic might be better to prevent skipping crucial points in tight areas.
-        for (int i = currentPathIndex + 1; i < path.size(); i++) {
-            Vec3d nextWaypoint = path.get(i);
-            // Recalculate hazard for the 'nextWaypoint' if we want the skip check to be context-aware too
-            // For simplicity now, let's use the same activeReachThresholdXZ determined for the current waypoint.
-            // A more advanced version could re-evaluate isEnvironmentHazardous for each 'nextWaypoint'.
-
-            double nextDistanceXZ = Math.sqrt(
-                    Math.pow(playerPos.x - nextWaypoint.x, 2) +
-                            Math.pow(playerPos.z - nextWaypoint.z, 2)
-            );
-            double nextDistanceY = Math.abs(playerPos.y - nextWaypoint.y);
-
-            if (nextDistanceXZ < activeReachThresholdXZ && nextDistanceY < reachThresholdY) {
-                currentPathIndex = i;
-                LOGGER.debug("Skipped to waypoint {} as player overshot (using threshold {})", i, activeReachThresholdXZ);
-                return true;
+    /**
+     * Moves the progress to the point of the path closest to the player, searching from the
+     * segment it was on, or the one leading to the current waypoint, a few segments forward.
+     */
+    private void updateProgress(double px, double py, double pz) {
+        int last = path.size() - 2; // Last segment
+        if (last < 0) {
+            progressSegment = 0;
+            progressFraction = 0;
+            progress = 0;
+            progressOffsetXZSq = path.horizontalDistanceSq(0, px, pz);
+            progressOffsetY = Math.abs(py - path.y(0));
+            return;
+        }
+
+        int from = Math.min(Math.max(progressSegment, currentPathIndex - 1), last);
+        int to = Math.min(from + PROGRESS_WINDOW, last);
+        double bestSq = Double.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            double ax = path.x(i), ay = path.y(i), az = path.z(i);
+            double sx = path.x(i + 1) - ax, sy = path.y(i + 1) - ay, sz = path.z(i + 1) - az;
+            double lengthSq = sx * sx + sy * sy + sz * sz;
+            double t = lengthSq > 0 ? MathHelper.clamp(((px - ax) * sx + (py - ay) * sy + (pz - az) * sz) / lengthSq, 0, 1) : 0;
+            double ex = px - (ax + sx * t), ey = py - (ay + sy * t), ez = pz - (az + sz * t);
+            double distanceSq = ex * ex + ey * ey + ez * ez;
+            if (distanceSq < bestSq) { // Ties go to the earlier segment, the player isn't past its end yet
+                bestSq = distanceSq;
+                progressSegment = i;
+                progressFraction = t;
+                progressOffsetXZSq = ex * ex + ez * ez;
+                progressOffsetY = Math.abs(ey);
             }
         }
-        return false;
+        progress = path.arcLength(progressSegment)
+                + (path.arcLength(progressSegment + 1) - path.arcLength(progressSegment)) * progressFraction;
     }
 
-    public void updateMovementToward(Vec3d targetPos, MinecraftClient client) {
-        if (client.player == null || client.options == null || targetPos == null) return; // Added null check for targetPos
+    private void resetProgress() {
+        progressSegment = 0;
+        progressFraction = 0;
+        progress = 0;
+        progressOffsetXZSq = 0;
+        progressOffsetY = 0;
+    }
+
+    public void updateMovementToward(Vec3d targetPos) {
+        if (!host.isPresent() || targetPos == null) return; // Added null check for targetPos
 
         // Reset movement each tick
-        client.options.forwardKey.setPressed(false);
-        client.options.backKey.setPressed(false);
-        client.options.leftKey.setPressed(false);
-        client.options.rightKey.setPressed(false);
-        client.options.jumpKey.setPressed(false);
-        client.options.sprintKey.setPressed(false);
+        for (PlayerHost.Key key : PlayerHost.Key.values()) {
+            host.setPressed(key, false);
+        }
 
         // World-space difference
-        Vec3d playerPos = client.player.getPos();
+        Vec3d playerPos = host.getPos();
         double dx = targetPos.x - playerPos.x;
         double dz = targetPos.z - playerPos.z;
 
         // If very close, do nothing for movement keys (camera might still adjust)
         if (dx * dx + dz * dz < 0.01 * 0.01) { // Adjusted threshold for very close
             // Allow checkAndJump to still operate even if very close to the XZ of the waypoint
-            checkAndJump(client);
+            checkAndJump();
             return;
         }
 
         // Convert player yaw to radians, and invert it
-        double yawRad = -Math.toRadians(client.player.getYaw());
+        double yawRad = -Math.toRadians(host.getYaw());
 
         // Rotate (dx, dz) by –yaw to get local coordinates
         double localX = dx * Math.cos(yawRad) - dz * Math.sin(yawRad);
@@ -293,44 +358,45 @@ public class BasicPathAI {
         // Decide which key to press
         if (localZ > Math.abs(localX) * 0.5) { // Adjusted sensitivity: prefer forward more
             // Mostly in front
-            client.options.forwardKey.setPressed(true);
+            host.setPressed(PlayerHost.Key.FORWARD, true);
         } else if (localZ < -Math.abs(localX) * 0.5) {
             // Mostly behind
-            client.options.backKey.setPressed(true);
+            host.setPressed(PlayerHost.Key.BACK, true);
         } else if (localX < 0) { // Player's local X is negative, target is to their right
             // Mostly to the right
-            client.options.rightKey.setPressed(true);
+            host.setPressed(PlayerHost.Key.RIGHT, true);
         } else { // Player's local X is positive, target is to their left
             // Mostly to the left
-            client.options.leftKey.setPressed(true);
+            host.setPressed(PlayerHost.Key.LEFT, true);
         }
 
-        checkAndJump(client);
+        checkAndJump();
+
+        // No sprinting or hopping where the path asks for care
+        boolean careful = currentLegHas(CompactPath.PRECISE | CompactPath.NARROW | CompactPath.LADDER);
 
-        if (lastJump > 20) {
-            client.options.sprintKey.setPressed(true);
+        if (lastJump > 20 && !careful) {
+            host.setPressed(PlayerHost.Key.SPRINT, true);
         }
 
         // Random "bunny hop" (20% chance each tick)
-        if (Math.random() < 0.05 && client.player.isOnGround() && client.options.forwardKey.isPressed()) { // Reduced chance, only if moving forward
-            client.options.jumpKey.setPressed(true);
+        if (!careful && random.nextDouble() < 0.05 && host.isOnGround() && host.isPressed(PlayerHost.Key.FORWARD)) { // Reduced chance, only if moving forward
+            host.setPressed(PlayerHost.Key.JUMP, true);
         }
     }
 
     /**
      * Rotates the camera towards an appropriate target, using look-ahead logic.
      * This is an instance method.
-     * @param client The Minecraft client.
      * @param isFinal True if this is the final rotation adjustment (no interpolation).
      */
-    public void rotateCameraToward(MinecraftClient client, boolean isFinal) {
-        ClientPlayerEntity player = client.player;
+    public void rotateCameraToward(boolean isFinal) {
         Vec3d targetPos = getCameraLookAtTarget(); // Use the look-ahead target
 
-        if (player == null || targetPos == null) return;
+        if (!host.isPresent() || targetPos == null) return;
 
         // 1) Get eye position and full delta
-        Vec3d eyePos = player.getCameraPosVec(1.0f);
+        Vec3d eyePos = host.getEyePos();
         Vec3d delta  = targetPos.subtract(eyePos);
 
         // 2) Extract horizontal (XZ) component and length
@@ -351,25 +417,25 @@ public class BasicPathAI {
         if (lookVector.length() > 1e-6) {
             rawYaw = (float) Math.toDegrees(Math.atan2(lookVector.z, lookVector.x)) - 90.0f;
         } else {
-            rawYaw = player.getYaw();
+            rawYaw = host.getYaw();
         }
 
         float rawPitch = (float) -Math.toDegrees(Math.atan2(delta.y, distXZ));
 
         if (isFinal) {
             // Directly set the yaw and pitch without interpolation for final rotation
-            player.setYaw(rawYaw);
-            player.setPitch(rawPitch);
+            host.setYaw(rawYaw);
+            host.setPitch(rawPitch);
             return;
         }
 
         // Get current view
-        float currentYaw = player.getYaw();
-        float currentPitch = player.getPitch();
+        float currentYaw = host.getYaw();
+        float currentPitch = host.getPitch();
 
         // Detect actual falling via vertical velocity
-        // LOGGER.debug("velocity: {}", player.getVelocity()); // Can be spammy
-        boolean isFalling = player.getVelocity().y < -0.38;
+        // LOGGER.debug("velocity: {}", host.getVelocity()); // Can be spammy
+        boolean isFalling = host.getVelocity().y < -0.38;
 
         float newYaw;
         float newPitch;
@@ -383,7 +449,7 @@ public class BasicPathAI {
 
             // Clamp so you never look more than 50° below the horizon
             // (i.e. max pitch = 28+-2°)
-            newPitch = MathHelper.clamp(targetPitch, -90.0f, 28.0f + (float)((Math.random() - 0.5) * 4));
+            newPitch = MathHelper.clamp(targetPitch, -90.0f, 28.0f + (float)((random.nextDouble() - 0.5) * 4));
         } else {
             // --- NORMAL BEHAVIOR WHEN NOT FALLING ---
             // Clamp pitch toward horizon if on flat ground
@@ -392,7 +458,7 @@ public class BasicPathAI {
 
             // Small jitter for natural look
             // float yawJitter   = 0; //(float)((Math.random() - 0.5) * 0.4); // Jitter can be distracting
-            float pitchJitter = (float)((Math.random() - 0.5) * 0.25);
+            float pitchJitter = (float)((random.nextDouble() - 0.5) * 0.25);
 
             // compute raw yaw error in [–180;+180)
             float dynamicT = getDynamicT(rawYaw, currentYaw);
@@ -413,8 +479,8 @@ public class BasicPathAI {
             }
         }
 
-        player.setYaw(newYaw);
-        player.setPitch(newPitch);
+        host.setYaw(newYaw);
+        host.setPitch(newPitch);
     }
 
     private static float getDynamicT(float rawYaw, float currentYaw) {
@@ -446,12 +512,13 @@ public class BasicPathAI {
         return result; // No need for final modulo if a and delta*t are within reasonable bounds, but can keep if issues arise
     }
 
-    public void checkAndJump(MinecraftClient client) {
-        if (jumpCooldown > 0 || !Objects.requireNonNull(client.player).isOnGround()) return;
+    public void checkAndJump() {
+        if (jumpCooldown > 0 || !host.isOnGround()) return;
+        // A planned path knows where it steps up, elsewhere there's nothing in front to look at
+        if (path.isAnnotated() && !currentLegHas(CompactPath.JUMP)) return;
 
-        Vec3d lookVec = client.player.getRotationVec(1.0f); // Based on current camera
-        BlockPos clientFeetPos = client.player.getBlockPos(); // Position of player's feet block
-        Vec3d clientExactPos = client.player.getPos();
+        Vec3d lookVec = host.getRotationVec(); // Based on current camera
+        Vec3d clientExactPos = host.getPos();
 
 
         // Determine the block directly in front of the player's feet at their Y level
@@ -463,60 +530,22 @@ public class BasicPathAI {
         // If standing on farmland, the effective "ground" for jumping might be slightly higher relative to checkPos
         // However, checkPos is already at player's Y, so this should be fine.
 
-        assert client.world != null;
-        BlockState stateInFront = client.world.getBlockState(checkPos);
-        BlockState stateInFrontAbove = client.world.getBlockState(checkPos.up());
-
-
-        // More robust check for what constitutes an obstacle that needs a jump
-        boolean isObstacle = false;
-        if (!stateInFront.getCollisionShape(client.world, checkPos).isEmpty() && // Block in front has collision
-                stateInFront.getBlock() != Blocks.WATER && // Not water
-                !(stateInFront.getBlock() instanceof FluidBlock) && // Not any fluid
-                !(stateInFront.getBlock() instanceof SignBlock) && // Not a sign
-                !(stateInFront.getBlock() instanceof WallSignBlock) &&
-                !(stateInFront.getBlock() instanceof AbstractBannerBlock) && // Not a banner
-                !(stateInFront.getBlock() instanceof FlowerPotBlock) && // Not a flower pot
-                !(stateInFront.getBlock() instanceof TripwireHookBlock) &&
-                !(stateInFront.getBlock() instanceof TripwireBlock) &&
-                !(stateInFront.getBlock() instanceof LeverBlock) &&
-                !(stateInFront.getBlock() instanceof ButtonBlock) &&
-                !(stateInFront.getBlock() instanceof TorchBlock) &&
-                !(stateInFront.getBlock() instanceof WallTorchBlock) &&
-                !(stateInFront.getBlock() instanceof RedstoneTorchBlock) &&
-                //!(stateInFront.getBlock() instanceof RedstoneWallTorchBlock) &&
-                !(stateInFront.getBlock() instanceof PressurePlateBlock) &&
-                !(stateInFront.getBlock() instanceof CropBlock) && // Path through crops
-                !(stateInFront.getBlock() instanceof FlowerBlock) && // Path through flowers
-                !(stateInFront.getBlock() == Blocks.SHORT_GRASS) &&
-                !(stateInFront.getBlock() == Blocks.TALL_GRASS) &&
-                !(stateInFront.getBlock() == Blocks.FERN) &&
-                !(stateInFront.getBlock() == Blocks.LARGE_FERN) &&
-                !(stateInFront.getBlock() == Blocks.DEAD_BUSH) &&
-                !(stateInFront.getBlock() instanceof CarpetBlock) &&
-                !(stateInFront.getBlock() == Blocks.SNOW && stateInFront.get(SnowBlock.LAYERS) < SnowBlock.MAX_LAYERS) && // Path over thin snow
-                !(stateInFront.getBlock() instanceof LadderBlock) && // Don't jump at ladders
-                !(stateInFront.getBlock() instanceof VineBlock) // Don't jump at vines
-        ) {
-            // It's a collidable block that isn't one of the explicitly allowed "pass-through" or "climbable" types.
-            // Now check if the space above it is clear for jumping into.
-            if (stateInFrontAbove.getCollisionShape(client.world, checkPos.up()).isEmpty() ||
-                    (stateInFrontAbove.getBlock() instanceof CarpetBlock) || // Can jump into space with carpet
-                    (stateInFrontAbove.getBlock() == Blocks.SNOW && stateInFrontAbove.get(SnowBlock.LAYERS) < SnowBlock.MAX_LAYERS) // or thin snow
-            ) {
-                isObstacle = true;
-            }
-        }
+        int flagsInFront = host.getBlockFlags(checkPos);
+        int flagsInFrontAbove = host.getBlockFlags(checkPos.up());
 
+        // A collidable block that isn't one of the "pass-through" or "climbable" types,
+        // with room above it to jump into (air, carpet or thin snow)
+        boolean isObstacle = MovementFlags.has(flagsInFront, MovementFlags.OBSTACLE)
+                && MovementFlags.has(flagsInFrontAbove, MovementFlags.OPEN);
 
-        LOGGER.trace("Jump check: Obstacle in front at {}: {} (Block: {}). Space above clear: {}. Needs Jump: {}",
-                checkPos, !stateInFront.getCollisionShape(client.world, checkPos).isEmpty(), stateInFront.getBlock(),
-                stateInFrontAbove.getCollisionShape(client.world, checkPos.up()).isEmpty(), isObstacle);
+        LOGGER.trace("Jump check: Obstacle in front at {}: {}. Space above clear: {}. Needs Jump: {}",
+                checkPos, MovementFlags.has(flagsInFront, MovementFlags.OBSTACLE),
+                MovementFlags.has(flagsInFrontAbove, MovementFlags.OPEN), isObstacle);
 
 
         // 90% chance to jump if obstacle detected
-        if (isObstacle && Math.random() < 0.9) {
-            client.options.jumpKey.setPressed(true);
+        if (isObstacle && random.nextDouble() < 0.9) {
+            host.setPressed(PlayerHost.Key.JUMP, true);
             lastJump = 0;
             jumpCooldown = JUMP_COOLDOWN_TICKS;
             LOGGER.debug("Attempting jump over obstacle at {}", checkPos);
@@ -531,8 +560,10 @@ public class BasicPathAI {
         }
 
         // Store the new path
-        this.path = new ArrayList<>(waypoints);
+        this.path = CompactPath.of(waypoints);
         this.currentPathIndex = 0;
+        this.waypointIndex = -1;
+        resetProgress();
         this.followingPath = true;
 
         // Set the first waypoint as the initial target for movement (camera will use getCameraLookAtTarget)
@@ -543,12 +574,8 @@ public class BasicPathAI {
 
 
         // Log the path details
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client.player != null && !path.isEmpty()) { // Check if path is not empty before logging
-            client.player.sendMessage(
-                    Text.literal("Following path with " + path.size() + " waypoints"),
-                    false
-            );
+        if (host.isPresent() && !path.isEmpty()) { // Check if path is not empty before logging
+            host.sendMessage("Following path with " + path.size() + " waypoints");
         }
         if (!path.isEmpty()){
             LOGGER.info("Starting path with {} waypoints", path.size());
@@ -562,8 +589,10 @@ public class BasicPathAI {
     public void clearPathState() {
         // Clear movement state
         followingPath = false;
-        path.clear();
+        path = CompactPath.EMPTY;
         currentPathIndex = 0;
+        waypointIndex = -1;
+        resetProgress();
         // target = null; // Static field, clear if necessary, but prefer instance fields
         if (strategy != null) { // Clear strategy only when explicitly stopping all AI
             // strategy = null; // Let stop() handle strategy nullification if needed
@@ -571,26 +600,8 @@ public class BasicPathAI {
 
 
         // Release keyboard controls
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client != null && client.options != null) { // Add null check for client and options
-            if (client.options.forwardKey.isPressed()) {
-                client.options.forwardKey.setPressed(false);
-            }
-            if (client.options.backKey.isPressed()) {
-                client.options.backKey.setPressed(false);
-            }
-            if (client.options.leftKey.isPressed()) {
-                client.options.leftKey.setPressed(false);
-            }
-            if (client.options.rightKey.isPressed()) {
-                client.options.rightKey.setPressed(false);
-            }
-            if (client.options.jumpKey.isPressed()) {
-                client.options.jumpKey.setPressed(false);
-            }
-            if (client.options.sprintKey.isPressed()) { // Also release sprint key
-                client.options.sprintKey.setPressed(false);
-            }
+        if (host.isPresent()) { // Also releases sprint
+            host.releaseKeys();
         }
 
         LOGGER.info("Path state cleared");
@@ -609,20 +620,16 @@ public class BasicPathAI {
 
     /**
      * Checks if the player is near a cliff or in a tight space requiring precise movement.
-     * @param player The player entity.
      * @param currentWaypoint The waypoint the player is currently moving towards.
      * @return True if hazards are detected, false otherwise.
      */
-    private boolean isEnvironmentHazardous(ClientPlayerEntity player, Vec3d currentWaypoint) {
-        if (player.getWorld() == null) return false;
-
-        BlockPos playerBlockPos = player.getBlockPos();
-        Vec3d playerPos = player.getPos();
+    private boolean isEnvironmentHazardous(Vec3d currentWaypoint) {
+        Vec3d playerPos = host.getPos();
 
         // Determine general direction towards waypoint for side checks
         Vec3d directionToWaypoint = currentWaypoint.subtract(playerPos).normalize();
         if (directionToWaypoint.lengthSquared() < 0.01) { // If very close, use player's look vector
-            directionToWaypoint = player.getRotationVec(1.0f);
+            directionToWaypoint = host.getRotationVec();
         }
 
         // Calculate perpendicular vector for "sides"
@@ -650,8 +657,8 @@ public class BasicPathAI {
                 BlockPos cliffScanStart = checkPosBase;
                 boolean potentialCliff = true;
                 for (int yOffset = 1; yOffset <= cliffDownScanDepth; yOffset++) {
-                    BlockState state = player.getWorld().getBlockState(cliffScanStart.down(yOffset));
-                    if (!state.isAir() && !(state.getBlock() instanceof FluidBlock)) { // Consider fluids as non-solid for cliff check
+                    int flags = host.getBlockFlags(cliffScanStart.down(yOffset));
+                    if (!MovementFlags.has(flags, MovementFlags.AIR | MovementFlags.FLUID)) { // Consider fluids as non-solid for cliff check
                         potentialCliff = false;
                         break;
                     }
@@ -660,7 +667,7 @@ public class BasicPathAI {
                     // To confirm it's a cliff, ensure the block at cliffScanStart itself is also air/fluid
                     // or that the player isn't standing right on the edge of a 1-block drop they can step down.
                     // A simple check: if the block directly at cliffScanStart is air, and we found a drop.
-                    if (player.getWorld().getBlockState(cliffScanStart).isAir()) {
+                    if (MovementFlags.has(host.getBlockFlags(cliffScanStart), MovementFlags.AIR)) {
                         LOGGER.trace("Hazard detected: Cliff near {}", cliffScanStart);
                         return true; // Found a cliff
                     }
@@ -670,8 +677,9 @@ public class BasicPathAI {
                 // Check at feet level and head level
                 for (int yLevel = 0; yLevel <= 1; yLevel++) { // 0 for feet, 1 for head
                     BlockPos wallCheckPos = checkPosBase.up(yLevel);
-                    BlockState wallState = player.getWorld().getBlockState(wallCheckPos);
-                    if (wallState.isSolid() && !isPassableBlockForTightCheck(wallState.getBlock())) {
+                    int wallFlags = host.getBlockFlags(wallCheckPos);
+                    // Solid, and not one of the blocks "passable" in tight spaces, like grass or flowers
+                    if (MovementFlags.has(wallFlags, MovementFlags.SOLID) && !MovementFlags.has(wallFlags, MovementFlags.THROUGH)) {
                         LOGGER.trace("Hazard detected: Wall at {}", wallCheckPos);
                         return true; // Found a tight wall
                     }
@@ -681,29 +689,6 @@ public class BasicPathAI {
         return false; // No immediate hazards found
     }
 
-    /**
-     * Helper to determine if a block is considered "passable" when checking for tight spaces.
-     * We don't want to consider things like grass or flowers as "walls".
-     */
-    private boolean isPassableBlockForTightCheck(Block block) {
-        return block instanceof AirBlock ||
-                block instanceof FluidBlock ||
-                block instanceof PlantBlock || // Covers most crops, flowers, grass, ferns
-                block instanceof SugarCaneBlock ||
-                block instanceof VineBlock ||
-                block instanceof CarpetBlock ||
-                block instanceof SnowBlock || // Thin snow is passable
-                block instanceof LadderBlock ||
-                block instanceof SignBlock ||
-                block instanceof AbstractBannerBlock ||
-                block instanceof TorchBlock ||
-                block instanceof ButtonBlock ||
-                block instanceof LeverBlock ||
-                block instanceof PressurePlateBlock ||
-                block instanceof TripwireBlock ||
-                block instanceof TripwireHookBlock;
-    }
-
     // public static Vec3d getTarget() { // Static target is problematic
     //     return target;
     // }
@@ -716,7 +701,11 @@ public class BasicPathAI {
         if (path.isEmpty() || currentPathIndex >= path.size()) {
             return null;
         }
-        return path.get(currentPathIndex);
+        if (waypointIndex != currentPathIndex) {
+            currentWaypoint = path.get(currentPathIndex);
+            waypointIndex = currentPathIndex;
+        }
+        return currentWaypoint;
     }
 
     /**
@@ -743,6 +732,26 @@ public class BasicPathAI {
         return path.size();
     }
 
+    /** Distance along the path to the player's closest point on it, as of the last waypoint check. */
+    public double getProgress() {
+        return progress;
+    }
+
+    /** Distance along the path left from the player's closest point on it to its end. */
+    public double getRemainingDistance() {
+        return Math.max(path.length() - progress, 0);
+    }
+
+    /** The path being followed; empty when there is none. */
+    public CompactPath getPath() {
+        return path;
+    }
+
+    /** The player this follower drives. */
+    public PlayerHost getHost() {
+        return host;
+    }
+
     public MovementStrategy getStrategy() {
         return strategy;
     }
@@ -0,0 +1,122 @@
+package net.natga999.wynn_ai.ai;
+
+import net.natga999.wynn_ai.path.MovementFlags;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.option.GameOptions;
+import net.minecraft.client.option.KeyBinding;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * The client's own player, moved by pressing its key bindings. Client thread only.
+ */
+public final class ClientPlayerHost implements PlayerHost {
+    public static final ClientPlayerHost INSTANCE = new ClientPlayerHost();
+
+    private ClientPlayerHost() {
+    }
+
+    @Override
+    public boolean isPresent() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        return client != null && client.player != null && client.options != null;
+    }
+
+    @Override
+    public Vec3d getPos() {
+        return client().player.getPos();
+    }
+
+    @Override
+    public Vec3d getEyePos() {
+        return client().player.getCameraPosVec(1.0f);
+    }
+
+    @Override
+    public Vec3d getRotationVec() {
+        return client().player.getRotationVec(1.0f);
+    }
+
+    @Override
+    public Vec3d getVelocity() {
+        return client().player.getVelocity();
+    }
+
+    @Override
+    public boolean isOnGround() {
+        return client().player.isOnGround();
+    }
+
+    @Override
+    public float getYaw() {
+        return client().player.getYaw();
+    }
+
+    @Override
+    public float getPitch() {
+        return client().player.getPitch();
+    }
+
+    @Override
+    public void setYaw(float yaw) {
+        client().player.setYaw(yaw);
+    }
+
+    @Override
+    public void setPitch(float pitch) {
+        client().player.setPitch(pitch);
+    }
+
+    @Override
+    public int getBlockFlags(BlockPos pos) {
+        MinecraftClient client = client();
+        return client.world != null ? MovementFlags.get(client.world.getBlockState(pos)) : 0;
+    }
+
+    @Override
+    public boolean isPressed(Key key) {
+        KeyBinding binding = binding(key);
+        return binding != null && binding.isPressed();
+    }
+
+    @Override
+    public void setPressed(Key key, boolean pressed) {
+        KeyBinding binding = binding(key);
+        if (binding != null) {
+            binding.setPressed(pressed);
+        }
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        MinecraftClient client = client();
+        if (client != null && client.player != null) {
+            client.player.sendMessage(Text.literal(message), false);
+        }
+    }
+
+    @Override
+    public BlockPos getBlockPos() {
+        return client().player.getBlockPos();
+    }
+
+    private static MinecraftClient client() {
+        return MinecraftClient.getInstance();
+    }
+
+    private static KeyBinding binding(Key key) {
+        MinecraftClient client = client();
+        GameOptions options = client != null ? client.options : null;
+        if (options == null) return null;
+        return switch (key) {
+            case FORWARD -> options.forwardKey;
+            case BACK -> options.backKey;
+            case LEFT -> options.leftKey;
+            case RIGHT -> options.rightKey;
+            case JUMP -> options.jumpKey;
+            case SPRINT -> options.sprintKey;
+        };
+    }
+}
@@ -301,7 +301,7 @@ public class CombatController {
      */
     public boolean shouldSkipWaypoint(ClientPlayerEntity player, BasicPathAI ai) {
         // Leverage the existing logic in BasicPathAI
-        return ai.isReachedNext(player);
+        return ai.isReachedNext();
     }
 
     /**
@@ -358,14 +358,14 @@ public class CombatController {
                         // This is a conceptual implementation - you'd need to implement a method
                         // to blend between two camera targets
                         Vec3d blendedTarget = lerpVec3d(adjustedWaypoint, adjustedTarget, blendFactor);
-                        BasicPathAI.getInstance().rotateCameraToward(client, false);
+                        ai.rotateCameraToward(false);
                     } else {
                         CombatManager.rotateCameraToward(adjustedTarget, client);
                     }
                 } else {
                     // Keep eyes level for better navigation when far from waypoint
                     Vec3d adjustedWaypoint = new Vec3d(waypoint.x, player.getEyeY(), waypoint.z);
-                    BasicPathAI.getInstance().rotateCameraToward(client, false);
+                    ai.rotateCameraToward(false);
                 }
             } else {
                 // If no waypoint, focus on the target
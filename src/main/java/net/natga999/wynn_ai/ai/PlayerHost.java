@@ -0,0 +1,60 @@
+package net.natga999.wynn_ai.ai;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * The player {@link BasicPathAI} drives: where it is, where it looks, which movement keys are
+ * held and what blocks are around it. {@link ClientPlayerHost} is the client's own player; the
+ * benchmarks drive a simulated one through the same movement code.
+ */
+public interface PlayerHost {
+    enum Key { FORWARD, BACK, LEFT, RIGHT, JUMP, SPRINT }
+
+    /** Whether there is a player to drive; nothing else may be called without one. */
+    boolean isPresent();
+
+    /** Feet position. */
+    Vec3d getPos();
+
+    Vec3d getEyePos();
+
+    /** Unit vector the player looks along. */
+    Vec3d getRotationVec();
+
+    Vec3d getVelocity();
+
+    boolean isOnGround();
+
+    float getYaw();
+
+    float getPitch();
+
+    void setYaw(float yaw);
+
+    void setPitch(float pitch);
+
+    /** The {@link net.natga999.wynn_ai.path.MovementFlags} of a block, 0 if unknown. */
+    int getBlockFlags(BlockPos pos);
+
+    boolean isPressed(Key key);
+
+    void setPressed(Key key, boolean pressed);
+
+    /** Shows the player a status message, if it has anywhere to show it. */
+    default void sendMessage(String message) {
+    }
+
+    default BlockPos getBlockPos() {
+        return BlockPos.ofFloored(getPos());
+    }
+
+    /** Lets go of every movement key. */
+    default void releaseKeys() {
+        for (Key key : Key.values()) {
+            if (isPressed(key)) {
+                setPressed(key, false);
+            }
+        }
+    }
+}
@@ -169,8 +169,7 @@ public class RoadNodeCommands {
         // Suggest existing node IDs relevant to the current world
         if (player.clientWorld != null) {
             String worldId = player.clientWorld.getRegistryKey().getValue().toString();
-            rnm.getAllNodes().stream()
-                    .filter(node -> node.getWorldId() != null && node.getWorldId().equals(worldId)) // Filter by current world
+            rnm.getNodesInWorld(worldId).stream()
                     .map(RoadNode::getId)
                     .filter(id -> id.toLowerCase(Locale.ROOT).startsWith(input))
                     .forEach(builder::suggest);
@@ -398,17 +397,13 @@ public class RoadNodeCommands {
         }
 
         RoadNetworkManager rnm = RoadNetworkManager.getInstance();
-        Collection<RoadNode> allNodes = rnm.getAllNodes();
         List<RoadNode> nodesToList = new ArrayList<>();
 
         if (radiusParam != null && playerPos != null) {
-            for (RoadNode node : allNodes) {
-                if (playerPos.distanceTo(node.getPosition()) <= radiusParam) {
-                    nodesToList.add(node);
-                }
-            }
+            String worldId = getPlayer(ctx.getSource()).clientWorld.getRegistryKey().getValue().toString();
+            nodesToList.addAll(rnm.findNodesWithinRadius(playerPos, worldId, radiusParam));
         } else {
-            nodesToList.addAll(allNodes);
+            nodesToList.addAll(rnm.getAllNodes());
         }
 
         if (nodesToList.isEmpty()) {
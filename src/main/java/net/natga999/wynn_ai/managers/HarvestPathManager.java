@@ -1,7 +1,15 @@
 package net.natga999.wynn_ai.managers;
 
 import net.natga999.wynn_ai.ai.BasicPathAI;
+import net.natga999.wynn_ai.path.ChunkCache;
+import net.natga999.wynn_ai.path.ChunkView;
+import net.natga999.wynn_ai.path.CompactPath;
+import net.natga999.wynn_ai.path.FlowFieldCache;
+import net.natga999.wynn_ai.path.MovementFlags;
+import net.natga999.wynn_ai.path.PathCache;
 import net.natga999.wynn_ai.path.PathFinder;
+import net.natga999.wynn_ai.path.PathPlanningService;
+import net.natga999.wynn_ai.path.PathResult;
 import net.natga999.wynn_ai.utility.CatmullRomSpline;
 
 import net.minecraft.block.Block;
@@ -24,9 +32,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 public class HarvestPathManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(HarvestPathManager.class);
@@ -35,17 +43,27 @@ public class HarvestPathManager {
     public static HarvestPathManager getInstance() { return INSTANCE; }
 
     private boolean active = false;
-    private List<Vec3d> path = null;
-    private List<Vec3d> splinePath = null;
+    private CompactPath path = null;
+    private CompactPath splinePath = null;
     private BlockPos goalPos = null;
     private boolean isFounding = false;
+    private CompletableFuture<PathResult> pendingPath = null; // Search running on the planning service
+    private BlockPos pendingStart = null; // Start of the running search, to cache its path under
+    private long pendingCacheVersion; // PathCache version from before the running search
     private boolean pathComplete = false;
+    private boolean pathPartial = false; // Current path stops short of the node, plan again at its end
+    private int partialLegs = 0; // Partial paths walked in a row towards the current node
     private boolean useRightClickHarvest = false;
+    private boolean useFlowFields = false; // Follow cached flow fields around nodes that are visited again
     private static BlockPos originalGoalPos;
 
     private int dynamicWaitTicks;
     private int verifyStartTick = 0;
     private static final int MAX_VERIFY_ATTEMPTS = 20;
+    private static final int SEARCH_EXPANSIONS = 5000; // Same as PathFinder.MAX_PATH_LENGTH
+    private static final long SEARCH_MILLIS = 150; // Keeps the bot from standing still for long
+    private static final int MAX_PARTIAL_LEGS = 4; // Give up on a node that is still out of reach after this many
+    private static final double NEIGHBOUR_GOAL_COST = 4.0; // Standing on the node itself is worth a short detour
 
     private ResourceNodeManager.ResourceNode currentTargetNode;
 
@@ -58,6 +76,7 @@ public class HarvestPathManager {
     // Node harvesting states
     private enum HarvestState {
         FINDING_NODE,
+        PLANNING_PATH,
         START_PATH,
         MOVING_TO_NODE,
         HARVESTING,
@@ -74,8 +93,10 @@ public class HarvestPathManager {
 
         if (!active) {
             BasicPathAI.getInstance().stop();
+            cancelPendingPath();
             currentState = HarvestState.FINDING_NODE;
             waitTicks = 0;
+            partialLegs = 0;
         }
     }
 
@@ -91,6 +112,31 @@ public class HarvestPathManager {
                 }
                 break;
 
+            case PLANNING_PATH:
+                if (pendingPath != null && pendingPath.isDone()) {
+                    PathResult found = pendingPath.isCompletedExceptionally() ? null : pendingPath.join();
+                    pendingPath = null;
+                    if (found != null && found.isPartial() && ++partialLegs > MAX_PARTIAL_LEGS) {
+                        LOGGER.warn("Still no full path to {} after {} partial paths", originalGoalPos, MAX_PARTIAL_LEGS);
+                        partialLegs = 0;
+                        currentState = HarvestState.WAITING;
+                        isFounding = false;
+                    } else if (found != null && !found.getWaypoints().isEmpty()) {
+                        if (!found.isPartial()) {
+                            partialLegs = 0;
+                            PathCache.getInstance().put(pendingStart, found.getEnd(), found, pendingCacheVersion);
+                        }
+                        pathPartial = found.isPartial();
+                        startWithPath(found.getPath());
+                    } else {
+                        LOGGER.warn("Pathfinding failed: no path to {}", originalGoalPos);
+                        partialLegs = 0;
+                        currentState = HarvestState.WAITING;
+                        isFounding = false;
+                    }
+                }
+                break;
+
             case START_PATH:
                 LOGGER.debug("START PATH");
                 if (splinePath != null) {
@@ -105,7 +151,8 @@ public class HarvestPathManager {
                 if (pathComplete) {
                     path = null;
                     splinePath = null;
-                    currentState = HarvestState.HARVESTING;
+                    // A partial path only got us closer, plan the rest from here
+                    currentState = pathPartial ? HarvestState.FINDING_NODE : HarvestState.HARVESTING;
                 }
                 break;
 
@@ -295,38 +342,83 @@ public class HarvestPathManager {
 
         //TODO fix stopping earlier before reaching goalPos
         //really dont want to stop early when near and because of that stack in barrier upon harvesting
-        // 2) Check if baseGoal is “free” and try it first
-        if (isPositionFree(world, baseGoal)) {
-            List<Vec3d> path = tryPath(player, world, baseGoal);
-            if (path != null) {
-                startWithPath(path);
-                return;
-            }
-        }
+        // 2) Check if baseGoal is “free” so it gets preferred
+        boolean baseGoalFree = isPositionFree(world, baseGoal);
 
-        // 3) If we get here, baseGoal was blocked or path failed → fallback
+        // 3) Free neighbours are goals of the same search, used if baseGoal is blocked, unreachable or far out of the way
         List<BlockPos> candidates = NEIGHBOUR_OFFSETS.stream()
                 .map(off -> baseGoal.add(off.getX(), off.getY(), off.getZ()))
                 .filter(p -> isPositionFree(world, p))
                 .toList();
 
-        List<List<Vec3d>> validPaths = new ArrayList<>();
+        // Block reads above happen here on the tick, the search itself runs on the planning service
+        BlockPos start = adjustPlayerStartPosition(player, world);
 
+        // baseGoal is preferred unless a neighbour saves more than NEIGHBOUR_GOAL_COST
+        List<BlockPos> goals = new ArrayList<>(candidates.size() + 1);
+        double[] goalCosts = new double[candidates.size() + 1];
+        if (baseGoalFree) {
+            goals.add(baseGoal);
+        }
         for (BlockPos cand : candidates) {
-            List<Vec3d> p = tryPath(player, world, cand);
-            if (p != null) validPaths.add(p);
+            if (cand.equals(baseGoal)) continue; // Already in, without extra cost
+            goalCosts[goals.size()] = NEIGHBOUR_GOAL_COST;
+            goals.add(cand);
+        }
+        if (useFlowFields && !goals.isEmpty()) {
+            FlowFieldCache.getInstance().visit(world, baseGoal, goals, goalCosts);
         }
 
-        if (!validPaths.isEmpty()) {
-            List<Vec3d> best = validPaths.stream()
-                    .min(Comparator.comparingDouble(this::calculatePathLength))
-                    .get();
-            startWithPath(best);
+        // Trips between the same nodes repeat, a cached path saves the search
+        PathResult cached = findCachedPath(start, baseGoal, baseGoalFree, candidates);
+        if (cached != null) {
+            LOGGER.debug("Using cached path to {}", baseGoal);
+            partialLegs = 0;
+            pathPartial = false;
+            startWithPath(cached.getPath());
+            return;
+        }
+
+        pendingStart = start;
+        pendingCacheVersion = PathCache.getInstance().version();
+        ChunkView view = ChunkCache.getInstance().createView(world, start, 8); // Covers baseGoal and every candidate
+
+        // Around a node harvested before, the way down its flow field replaces the search
+        List<BlockPos> downhill = useFlowFields ? FlowFieldCache.getInstance().findRawPath(baseGoal, start) : null;
+        if (downhill != null) {
+            LOGGER.debug("Following flow field to {}", baseGoal);
+            pendingPath = PathPlanningService.getInstance().submit(() -> smoothFlowPath(view, start, baseGoal, downhill));
         } else {
-            LOGGER.warn("Pathfinding failed: no path to {}", baseGoal);
-            currentState = HarvestState.WAITING;
+            pendingPath = PathPlanningService.getInstance().submit(() -> findBestPath(view, start, baseGoal, goals, goalCosts));
         }
-        isFounding = false;
+        currentState = HarvestState.PLANNING_PATH;
+    }
+
+    // Same preference as findBestPath: baseGoal, then any free neighbour
+    private PathResult findCachedPath(BlockPos start, BlockPos baseGoal, boolean baseGoalFree, List<BlockPos> candidates) {
+        PathCache cache = PathCache.getInstance();
+        PathResult cached = baseGoalFree ? cache.get(start, baseGoal) : null;
+        for (int i = 0; cached == null && i < candidates.size(); i++) {
+            cached = cache.get(start, candidates.get(i));
+        }
+        return cached;
+    }
+
+    // Runs on a planning worker: one search over baseGoal and the free neighbour candidates, ending at the cheapest
+    private PathResult findBestPath(ChunkView view, BlockPos start, BlockPos baseGoal, List<BlockPos> goals, double[] goalCosts) {
+        if (goals.isEmpty()) {
+            return null;
+        }
+
+        PathFinder pf = new PathFinder(view, start, baseGoal);
+        pf.setAnyAngle(true); // Open fields come out straight without a long simplify pass
+        return pf.findPathToAny(start, goals, goalCosts, SEARCH_EXPANSIONS, SEARCH_MILLIS);
+    }
+
+    // Runs on a planning worker: the flow field gives every block of the way, only the smoothing is left
+    private PathResult smoothFlowPath(ChunkView view, BlockPos start, BlockPos baseGoal, List<BlockPos> rawPath) {
+        PathFinder pf = new PathFinder(view, start, baseGoal);
+        return pf.smoothRawPath(rawPath);
     }
 
     // Helper: check if a blockpos is not solid/barrier
@@ -337,23 +429,23 @@ public class HarvestPathManager {
     }
 
 
-    // Helper: try a single path, returning null if no path
-    private List<Vec3d> tryPath(ClientPlayerEntity player, ClientWorld world, BlockPos goal) {
-        BlockPos start = adjustPlayerStartPosition(player, world);
-        PathFinder pf = new PathFinder(world, 8, start, goal);
-        return pf.findPath(start, goal);
+    private void cancelPendingPath() {
+        if (pendingPath != null) {
+            pendingPath.cancel(true);
+            pendingPath = null;
+        }
+        isFounding = false;
     }
 
     // Helper: kick off your path and spline
-    private void startWithPath(List<Vec3d> path) {
+    private void startWithPath(CompactPath path) {
         assert MinecraftClient.getInstance().player != null;
         assert MinecraftClient.getInstance().world != null;
         Vec3d exact = getAdjustedPlayerPosition(MinecraftClient.getInstance().player, MinecraftClient.getInstance().world);
         //TODO Index 0 out of bounds for length 0 - after AFK in lobby without turning harvest off
         //  at knot//net.natga999.wynn_ai.managers.HarvestPathManager.startWithPath(HarvestPathManager.java:352)
-        path.set(0, exact.add(0, 0.5, 0));
-        this.path       = path;
-        this.splinePath = CatmullRomSpline.createSpline(path, calculateSegmentCount());
+        this.path       = path.withStart(exact.x, exact.y + 0.5, exact.z);
+        this.splinePath = CatmullRomSpline.createPath(this.path, CatmullRomSpline.DEFAULT_CHORD_ERROR);
         this.goalPos    = BlockPos.ofFloored(splinePath.getLast());
         pathComplete    = false;
         currentState    = HarvestState.START_PATH;
@@ -362,24 +454,12 @@ public class HarvestPathManager {
 
     private BlockPos adjustPlayerStartPosition(ClientPlayerEntity player, ClientWorld world) {
         BlockPos pos = player.getBlockPos();
-        if (world.getBlockState(pos.down()).getBlock() == Blocks.FARMLAND) {
+        if (MovementFlags.has(MovementFlags.get(world.getBlockState(pos.down())), MovementFlags.FARMLAND)) {
             return pos.up();
         }
         return pos;
     }
 
-    private double calculatePathLength(List<Vec3d> path) {
-        double length = 0;
-        for (int i = 1; i < path.size(); i++) {
-            length += path.get(i).distanceTo(path.get(i - 1));
-        }
-        return length;
-    }
-
-    private int calculateSegmentCount() {
-        return path.size() <= 3 ? 16 : 8;
-    }
-
     private Vec3d getAdjustedPlayerPosition(ClientPlayerEntity player, ClientWorld world) {
         Vec3d pos = player.getPos();
         BlockPos footPos = new BlockPos(
@@ -409,11 +489,11 @@ public class HarvestPathManager {
         return pathComplete;
     }
 
-    public List<Vec3d> getCurrentPath() {
+    public CompactPath getCurrentPath() {
         return this.path;
     }
 
-    public List<Vec3d> getSplinePath() {
+    public CompactPath getSplinePath() {
         return this.splinePath;
     }
 
@@ -421,6 +501,14 @@ public class HarvestPathManager {
         this.useRightClickHarvest = useRightClick;
     }
 
+    public boolean isUsingFlowFields() {
+        return useFlowFields;
+    }
+
+    public void setUseFlowFields(boolean useFlowFields) {
+        this.useFlowFields = useFlowFields;
+    }
+
     public static BlockPos getOriginalGoalPos() {
         return originalGoalPos;
     }
@@ -434,6 +522,7 @@ public class HarvestPathManager {
 
         if (!this.active) {
             BasicPathAI.getInstance().stop(); // Stop current BasicPathAI movement
+            cancelPendingPath();
             currentState = HarvestState.FINDING_NODE; // Reset state
             waitTicks = 0;
             // any other cleanup needed when disabling
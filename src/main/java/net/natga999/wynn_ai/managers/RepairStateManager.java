@@ -120,14 +120,17 @@ public class RepairStateManager {
                 break;
 
             case PATHING_TO_REPAIR:
-                if (basicPathAI.getStrategy() == null || basicPathAI.getStrategy().isComplete(basicPathAI)) {
+                // The journey is followed by NavigationService, whatever roads and tunnels it takes
+                NavigationService.JourneyStatus repairJourney = navigationService.getJourneyStatus();
+                if (repairJourney == NavigationService.JourneyStatus.ARRIVED) {
                     LOGGER.info("Arrived at repair station vicinity: {}", currentTargetRepairStationVec3d);
                     transitionToState(RepairState.AT_REPAIR_STATION);
                     interactionSubState = RepairInteractionSubState.LOCATING_NPC; // Start NPC location process
+                } else if (repairJourney != NavigationService.JourneyStatus.ACTIVE) {
+                    reportFailedJourney(client, "repair station", RepairState.COOLDOWN_ERROR);
                 } else if (currentTickCounter > mainStateTimeoutTicks) {
                     LOGGER.warn("Timeout while pathing to repair station. Aborting.");
-                    basicPathAI.stop();
-                    transitionToState(RepairState.COOLDOWN_ERROR);
+                    transitionToState(RepairState.COOLDOWN_ERROR); // Cancels the journey, stopping the player
                 }
                 break;
 
@@ -140,13 +143,15 @@ public class RepairStateManager {
                 break;
 
             case PATHING_TO_WORK:
-                if (basicPathAI.getStrategy() == null || basicPathAI.getStrategy().isComplete(basicPathAI)) {
+                NavigationService.JourneyStatus workJourney = navigationService.getJourneyStatus();
+                if (workJourney == NavigationService.JourneyStatus.ARRIVED) {
                     LOGGER.info("Arrived back at previous work location.");
                     if (wasHarvestingActive) HarvestPathManager.getInstance().setActive(true);
                     transitionToState(RepairState.COOLDOWN_SUCCESS);
+                } else if (workJourney != NavigationService.JourneyStatus.ACTIVE) {
+                    reportFailedJourney(client, "work location", RepairState.COOLDOWN_SUCCESS);
                 } else if (currentTickCounter > mainStateTimeoutTicks) {
                     LOGGER.warn("Timeout while pathing back to work. Aborting.");
-                    basicPathAI.stop();
                     transitionToState(RepairState.COOLDOWN_ERROR); // Or just IDLE
                 }
                 break;
@@ -167,7 +172,7 @@ public class RepairStateManager {
                 if (npc != null) {
                     LOGGER.info("Found repair NPC: {}. Attempting interaction.", Objects.requireNonNull(npc.getDisplayName()).getString());
                     //BasicPathAI.rotateCameraToward(npc.getEyePos(), client, true);
-                    BasicPathAI.getInstance().rotateCameraToward(client, true);
+                    BasicPathAI.getInstance().rotateCameraToward(true);
                     assert client.interactionManager != null;
                     client.interactionManager.interactEntity(client.player, npc, Hand.MAIN_HAND);
                     interactionSubState = RepairInteractionSubState.CLICKED_NPC_WAITING_FOR_MENU;
@@ -425,8 +430,16 @@ public class RepairStateManager {
     }
 
 
+    private void reportFailedJourney(MinecraftClient client, String destinationName, RepairState onFailure) {
+        LOGGER.warn("Failed to path to {}.", destinationName);
+        assert client.player != null;
+        client.player.sendMessage(Text.literal("Failed to path to " + destinationName + "!"), false);
+        transitionToState(onFailure);
+    }
+
     private void transitionToState(RepairState newState) {
         LOGGER.info("RepairState transitioning from {} to {}", currentState, newState);
+        navigationService.cancelJourney(); // A journey for the previous state is never wanted after leaving it
         currentState = newState;
         currentTickCounter = 0; // Reset main state tick counter
 
@@ -450,16 +463,7 @@ public class RepairStateManager {
                 }
 
                 LOGGER.info("Attempting to navigate to repair station: {}", currentTargetRepairStationVec3d);
-                NavigationService.TravelPlan planToRepair = navigationService.planJourneyTo(currentTargetRepairStationVec3d);
-
-                if (planToRepair.planSuccess) {
-                    //TODO change to startHighwaySplinePath, but clear waypoints between tunnel nodes
-                    basicPathAI.startGeneralPath(planToRepair.waypoints);
-                } else {
-                    LOGGER.warn("Failed to plan path to repair station {}.", currentTargetRepairStationVec3d);
-                    client.player.sendMessage(Text.literal("Failed to path to repair station!"), false);
-                    transitionToState(RepairState.COOLDOWN_ERROR);
-                }
+                navigationService.startJourney(currentTargetRepairStationVec3d);
                 break;
             case PATHING_TO_WORK:
                 if (previousActivityLocation == null) {
@@ -469,17 +473,8 @@ public class RepairStateManager {
                 }
 
                 LOGGER.info("Attempting to navigate back to work location: {}", previousActivityLocation);
-                NavigationService.TravelPlan planToWork = navigationService.planJourneyTo(previousActivityLocation);
-
-                if (planToWork.planSuccess) {
-                    //TODO change to startHighwaySplinePath, but clear waypoints between tunnel nodes
-                    basicPathAI.startGeneralPath(planToWork.waypoints);
-                } else {
-                    //TODO sometimes failing find, add retry to go, maybe just restart harvest strategy
-                    LOGGER.warn("Failed to plan path back to work location {}.", previousActivityLocation);
-                    client.player.sendMessage(Text.literal("Failed to path back to work!"), false);
-                    transitionToState(RepairState.COOLDOWN_SUCCESS);
-                }
+                //TODO sometimes failing find, add retry to go, maybe just restart harvest strategy
+                navigationService.startJourney(previousActivityLocation);
                 break;
             case AT_REPAIR_STATION:
                 interactionSubState = RepairInteractionSubState.LOCATING_NPC; // Set initial substate
@@ -489,6 +484,7 @@ public class RepairStateManager {
 
     private void resetToIdle() {
         LOGGER.info("RepairStateManager resetting to IDLE state.");
+        navigationService.cancelJourney();
         currentState = RepairState.IDLE;
         interactionSubState = RepairInteractionSubState.IDLE;
         currentTickCounter = 0;
@@ -2,7 +2,12 @@ package net.natga999.wynn_ai.managers.combat;
 
 import net.natga999.wynn_ai.managers.combat.enums.CombatState;
 import net.natga999.wynn_ai.ai.BasicPathAI;
-import net.natga999.wynn_ai.path.PathFinder;
+import net.natga999.wynn_ai.path.ChunkCache;
+import net.natga999.wynn_ai.path.ChunkView;
+import net.natga999.wynn_ai.path.CompactPath;
+import net.natga999.wynn_ai.path.IncrementalPathFinder;
+import net.natga999.wynn_ai.path.PathPlanningService;
+import net.natga999.wynn_ai.path.PathResult;
 import net.natga999.wynn_ai.utility.CatmullRomSpline;
 
 import net.minecraft.nbt.NbtCompound;
@@ -22,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -38,9 +44,14 @@ public class CombatManager {
     private boolean active = false;
     private boolean isInAttackRange = false;
     private CombatState state = CombatState.SEARCH;
-    private List<Vec3d> path = null;
+    private CompactPath path = null;
+    private CompletableFuture<PathResult> pendingPath = null; // Search running on the planning service
+    private BlockPos plannedTargetPos = null; // Target block the current or pending path leads to
     private Vec3d initialTargetPos = null;
 
+    // Keeps its search tree between replans, so following a moving mob repairs the last search
+    private final IncrementalPathFinder chaseSearch = new IncrementalPathFinder();
+
     private static final Set<String> TARGET_NAMES = Set.of(
             "Warrior Zombie",
             "Zombie Raider",
@@ -50,6 +61,10 @@ public class CombatManager {
     private static final CombatManager INSTANCE = new CombatManager();
     public static CombatManager getInstance() { return INSTANCE; }
 
+    private CombatManager() {
+        ChunkCache.getInstance().addListener(chaseSearch); // Block updates repair the chase search tree
+    }
+
     public void toggleCombat() {
         active = !active;
         assert MinecraftClient.getInstance().player != null;
@@ -59,6 +74,8 @@ public class CombatManager {
             targetPos = null;
             currentTarget = null;
             path = null;
+            cancelPendingPath();
+            chaseSearch.reset();
             BasicPathAI.getInstance().stop();
             state = CombatState.SEARCH;
             isInAttackRange = false;
@@ -88,6 +105,8 @@ public class CombatManager {
         currentTarget = null;
         initialTargetPos = null;
         path = null;
+        cancelPendingPath();
+        chaseSearch.reset(); // New target, new tree
 
         ClientPlayerEntity player = MinecraftClient.getInstance().player;
         if (player == null) return;
@@ -104,7 +123,9 @@ public class CombatManager {
         MinecraftClient client = MinecraftClient.getInstance();
 
         if (!validateTarget()) {
+            cancelPendingPath(); // Target changed, the running search is useless now
             state = CombatState.SEARCH;
+            return;
         }
 
         if (currentTarget != null && client.player != null && client.world != null) {
@@ -119,6 +140,8 @@ public class CombatManager {
                 if (isAimedAt(targetPos, 5.0f)) {
                     // Stop pathing and switch to attack state
                     BasicPathAI.getInstance().stop();
+                    cancelPendingPath();
+                    initialTargetPos = currentTarget.getPos(); // Attack holds while it stays here
                     state = CombatState.ATTACK;
                     path = null;
                     //LOGGER.error("Target in attack range - switching to attack state");
@@ -126,24 +149,38 @@ public class CombatManager {
                 }
             }
 
-            // If we're not already pathing to the target, find a new path
-            if (path == null) {
-                isInAttackRange = false;
+            // Convert player position and target position to BlockPos
+            BlockPos playerPos = client.player.getBlockPos();
+            BlockPos targetBlockPos = new BlockPos((int)targetPos.getX(), (int)targetPos.getY(), (int)targetPos.getZ());
+
+            // Find a path if we have none, or replan once the target has moved to another block.
+            // The current path is followed until the replanned one arrives.
+            boolean targetMoved = path != null && !targetBlockPos.equals(plannedTargetPos);
+            if (pendingPath == null && (path == null || targetMoved)) {
+                if (path == null) {
+                    isInAttackRange = false;
+                }
                 LOGGER.info("Finding path to target at {}", targetPos);
 
-                // Convert player position and target position to BlockPos
-                BlockPos playerPos = client.player.getBlockPos();
-                BlockPos targetBlockPos = new BlockPos((int)targetPos.getX(), (int)targetPos.getY(), (int)targetPos.getZ());
+                // Search runs on the planning service, result is picked up on a later tick
+                ChunkView view = ChunkCache.getInstance().createView(client.world, playerPos, 9);
+                pendingPath = PathPlanningService.getInstance().submit(() -> chaseSearch.findPath(view, playerPos, targetBlockPos));
+                plannedTargetPos = targetBlockPos;
+            }
 
-                // Create pathfinder and find path
-                PathFinder pathFinder = new PathFinder(client.world, 9, playerPos, targetBlockPos);
-                path = pathFinder.findPath(playerPos, targetBlockPos);
+            if (pendingPath != null && pendingPath.isDone()) {
+                PathResult found = pendingPath.isCompletedExceptionally() ? null : pendingPath.join();
+                pendingPath = null;
 
-                if (path != null && !path.isEmpty()) {
-                    path = CatmullRomSpline.createSpline(path, calculateSegmentCount());
+                if (found != null && !found.getWaypoints().isEmpty()) {
+                    // The spline keeps the movement notes of the search on its control points
+                    path = CatmullRomSpline.createPath(found.getPath(), CatmullRomSpline.DEFAULT_CHORD_ERROR);
                     // Tell BasicPathAI to follow this path
                     BasicPathAI.getInstance().startCombatPath(path);
                     LOGGER.info("Path found with {} waypoints", path.size());
+                } else if (path != null) {
+                    // Keep following the old path, the next move of the target replans again
+                    LOGGER.info("No path found to moved target, keeping the current path");
                 } else {
                     LOGGER.info("No path found to target");
                     // If no path is found, try direct movement (as fallback)
@@ -163,8 +200,11 @@ public class CombatManager {
         }
     }
 
-    private int calculateSegmentCount() {
-        return path.size() <= 3 ? 16 : 8;
+    private void cancelPendingPath() {
+        if (pendingPath != null) {
+            pendingPath.cancel(true);
+            pendingPath = null;
+        }
     }
 
     private void handleAttack() {
@@ -172,6 +212,13 @@ public class CombatManager {
         if (!validateTarget()) {
             initialTargetPos = null;
             state = CombatState.SEARCH;
+            return;
+        }
+        if (hasTargetMoved()) {
+            // Follow it instead of dropping it, approach replans from the existing search
+            initialTargetPos = currentTarget.getPos();
+            state = CombatState.APPROACH;
+            return;
         }
         if (inAttackRange(targetPos)) {
             hitMob(); // Simulate left-click attack
@@ -198,18 +245,20 @@ public class CombatManager {
         double sqDist = currentTarget.squaredDistanceTo(player);
         if (sqDist > TARGET_DETECTION_RANGE * TARGET_DETECTION_RANGE) return false;
 
-        // Has the mob wandered from its original spot?
-        Vec3d nowPos = currentTarget.getPos();
-        // use a small threshold in case of floating‐point drift
-        if (nowPos.squaredDistanceTo(initialTargetPos) > 0.25) {
-            // it’s moved more than 0.5 blocks—consider invalid
-            return false;
-        }
+        // A mob that moves stays valid: approach replans incrementally instead of searching anew
 
         // Optionally: still within line-of-sight?
         return player.canSee(currentTarget);
     }
 
+    /**
+     * Has the mob wandered more than half a block from where it was when the attack started?
+     */
+    private boolean hasTargetMoved() {
+        // use a small threshold in case of floating‐point drift
+        return initialTargetPos != null && currentTarget.getPos().squaredDistanceTo(initialTargetPos) > 0.25;
+    }
+
     private boolean inAttackRange(Vec3d targetPos) {
         MinecraftClient mc = MinecraftClient.getInstance();
         if (mc.player == null || targetPos == null) return false;
@@ -402,7 +451,7 @@ public class CombatManager {
         return isInAttackRange;
     }
 
-    public List<Vec3d> getCurrentPath () {
+    public CompactPath getCurrentPath () {
         return path;
     }
 
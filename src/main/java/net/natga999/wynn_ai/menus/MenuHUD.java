@@ -190,6 +190,9 @@ public class MenuHUD {
             boolean isRightClick = checkMouseButtonState(action);
             updateHarvestBehavior(isRightClick);
         }
+        if ("toggleFlowFields".equalsIgnoreCase(action)) {
+            HarvestPathManager.getInstance().setUseFlowFields(!HarvestPathManager.getInstance().isUsingFlowFields());
+        }
         if ("open_resource_selector".equalsIgnoreCase(action)) {
             MenuHUD newMenu = MenuHUD.createNewInstance("ResourceSelector");
             MenuHUDManager.registerMenu(newMenu);
@@ -0,0 +1,35 @@
+package net.natga999.wynn_ai.mixin;
+
+import net.natga999.wynn_ai.path.TerrainChangeBus;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientPlayNetworkHandler.class)
+public abstract class MixinClientPlayNetworkHandler {
+
+    @Shadow
+    private ClientWorld world;
+
+    // A chunk delta applies its blocks one setBlockState at a time, publish them as one change per section.
+    // The packet is first seen on the network thread, which only hands it over to the client thread.
+    @Inject(method = "onChunkDeltaUpdate", at = @At("HEAD"))
+    private void beginTerrainBatch(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+        if (MinecraftClient.getInstance().isOnThread()) {
+            TerrainChangeBus.getInstance().beginBatch(world);
+        }
+    }
+
+    @Inject(method = "onChunkDeltaUpdate", at = @At("TAIL"))
+    private void endTerrainBatch(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+        TerrainChangeBus.getInstance().endBatch();
+    }
+}
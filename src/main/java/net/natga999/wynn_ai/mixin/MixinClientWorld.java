@@ -0,0 +1,25 @@
+package net.natga999.wynn_ai.mixin;
+
+import net.natga999.wynn_ai.path.TerrainChangeBus;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ClientWorld.class)
+public abstract class MixinClientWorld {
+
+    // Every block the client world changes goes through here: server updates and chunk deltas,
+    // the client's own predicted changes, and the server's answer to those in processPendingUpdate
+    @Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z", at = @At("RETURN"))
+    private void publishBlockChange(BlockPos pos, BlockState state, int flags, int maxUpdateDepth, CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValue()) { // False if the block already was in that state
+            TerrainChangeBus.getInstance().blockChanged((ClientWorld) (Object) this, pos.toImmutable());
+        }
+    }
+}
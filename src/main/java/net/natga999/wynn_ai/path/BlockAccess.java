@@ -0,0 +1,53 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Read-only block data a path search runs against.
+ * <p>
+ * Implementations: {@link LiveWorldBlockAccess} (the client world, client thread only),
+ * {@link ChunkView} (copied sections from the shared {@link ChunkCache}, any thread) and
+ * {@link SyntheticBlockAccess} (an in-memory grid for benchmarks and tools).
+ * Positions outside the bounds or in unloaded chunks have flags 0 and a null state; a
+ * {@link ChunkView} still has the flags of unloaded chunks it finds stored, with a null state.
+ */
+public interface BlockAccess {
+
+    /**
+     * @return the {@link MovementFlags} at the position, 0 if unknown
+     */
+    int getFlags(int x, int y, int z);
+
+    default int getFlags(long packedPos) {
+        return getFlags(BlockPos.unpackLongX(packedPos), BlockPos.unpackLongY(packedPos), BlockPos.unpackLongZ(packedPos));
+    }
+
+    default int getFlags(BlockPos pos) {
+        return getFlags(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * @return the block state, or null if unknown
+     */
+    BlockState getBlockState(int x, int y, int z);
+
+    default BlockState getBlockState(long packedPos) {
+        return getBlockState(BlockPos.unpackLongX(packedPos), BlockPos.unpackLongY(packedPos), BlockPos.unpackLongZ(packedPos));
+    }
+
+    default BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * Whether a search may step onto this column at all.
+     */
+    boolean isWithinBounds(int x, int z);
+
+    default boolean isWithinBounds(BlockPos pos) {
+        return isWithinBounds(pos.getX(), pos.getZ());
+    }
+
+    int getBottomY();
+}
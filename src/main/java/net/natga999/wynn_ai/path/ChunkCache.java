@@ -1,69 +1,297 @@
 package net.natga999.wynn_ai.path;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
 import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
 import net.minecraft.world.chunk.WorldChunk;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Shared, lazily filled copy of the client's block data for path searches.
+ * <p>
+ * Chunks are keyed by packed {@link ChunkPos#toLong} coordinates and only copied when a
+ * search first touches them, one section at a time. Entries are kept in LRU order and
+ * dropped again on chunk load/unload or block updates, so consecutive searches reuse
+ * each other's copies instead of re-reading the world. Each copied section also carries
+ * its {@link MovementFlags}, derived once on first use.
+ * Searches read through a per-search {@link ChunkView}.
+ */
 public class ChunkCache {
-    private final int cacheRadius; // Radius in chunks
-    private final ClientWorld world;
-    private final BlockPos center;
-    private final Map<ChunkPos, WorldChunk> cachedChunks; // Use a map for O(1) lookup
-
-    public ChunkCache(ClientWorld world, BlockPos center, int cacheRadius) {
-        this.world = world;
-        this.center = center;
-        this.cacheRadius = cacheRadius;
-        this.cachedChunks = new HashMap<>(); // HashMap instead of ArrayList
-
-        loadChunks();
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkCache.class);
+    private static final ChunkCache INSTANCE = new ChunkCache();
+
+    private static final int MAX_CACHED_CHUNKS = 512; // ~ a 22x22 chunk area, sections are copied lazily
+
+    private final Long2ObjectLinkedOpenHashMap<CachedChunk> chunks = new Long2ObjectLinkedOpenHashMap<>();
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private ClientWorld world; // World the cached chunks belong to
+
+    /**
+     * Notified whenever cached block data is dropped, so data derived from it can be dropped too.
+     * Called on the client thread while the cache is locked: listeners must not read blocks.
+     * Caches that only need to know whether an area changed can compare
+     * {@link TerrainChangeBus} versions instead.
+     */
+    public interface InvalidationListener {
+        void chunkInvalidated(int chunkX, int chunkZ);
+
+        /** A single block update; listeners that only track chunks treat it as a chunk change. */
+        default void blockInvalidated(BlockPos pos) {
+            chunkInvalidated(pos.getX() >> 4, pos.getZ() >> 4);
+        }
+
+        void cacheCleared();
     }
 
-    private void loadChunks() {
-        // Get the chunk position of the center
-        ChunkPos centerChunkPos = new ChunkPos(center);
+    private ChunkCache() {
+    }
 
-        // Load chunks within the radius (direct chunk coordinates)
-        for (int x = -cacheRadius; x <= cacheRadius; x++) {
-            for (int z = -cacheRadius; z <= cacheRadius; z++) {
-                // Calculate the chunk position
-                ChunkPos targetChunkPos = new ChunkPos(centerChunkPos.x + x, centerChunkPos.z + z);
+    public static ChunkCache getInstance() {
+        return INSTANCE;
+    }
 
-                // Get the chunk
-                WorldChunk chunk = world.getChunk(targetChunkPos.x, targetChunkPos.z);
+    /**
+     * Follows the {@link TerrainChangeBus}, so stale copies never outlive the blocks they were
+     * taken from. Subscribe before any other cache, the bus moves its versions after us.
+     */
+    public static void register() {
+        TerrainChangeBus.getInstance().subscribe(INSTANCE::terrainChanged);
+    }
 
-                if (chunk != null) {
-                    // Store with the ChunkPos as the key for fast lookup
-                    cachedChunks.put(targetChunkPos, chunk);
-                }
-            }
+    private void terrainChanged(TerrainChange change) {
+        if (change.isWholeChunk()) {
+            invalidateChunk(change.getWorld(), change.getChunkX(), change.getChunkZ());
+        } else {
+            invalidateBlocks(change);
         }
     }
 
-    public boolean isWithinCacheBounds(BlockPos pos) {
-        ChunkPos blockChunkPos = new ChunkPos(pos);
-        ChunkPos centerChunkPos = new ChunkPos(center);
+    public void addListener(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Creates a search view centered on {@code center}. Cheap: no chunk is read until the
+     * search asks for it, so this may be called from any thread.
+     *
+     * @param cacheRadius search bounds in chunks around the center
+     */
+    public ChunkView createView(ClientWorld world, BlockPos center, int cacheRadius) {
+        bindWorld(world);
+        return new ChunkView(this, world, center, cacheRadius);
+    }
+
+    /**
+     * Returns the cached chunk, copying it from the world on first access.
+     * Null when the client doesn't have the chunk loaded.
+     */
+    synchronized CachedChunk getChunk(ClientWorld world, long chunkKey) {
+        if (world != this.world) {
+            return loadChunk(world, chunkKey); // Stale view from before a world change, don't pollute the cache
+        }
+
+        CachedChunk chunk = chunks.getAndMoveToLast(chunkKey);
+        if (chunk != null) {
+            return chunk;
+        }
 
-        return Math.abs(blockChunkPos.x - centerChunkPos.x) <= cacheRadius &&
-                Math.abs(blockChunkPos.z - centerChunkPos.z) <= cacheRadius;
+        // Misses are not cached, the chunk load event would have to drop them again anyway
+        chunk = loadChunk(world, chunkKey);
+        if (chunk != null) {
+            chunks.putAndMoveToLast(chunkKey, chunk);
+            if (chunks.size() > MAX_CACHED_CHUNKS) {
+                chunks.removeFirst(); // Least recently used
+            }
+        }
+        return chunk;
     }
 
-    public BlockState getBlockState(BlockPos pos) {
-        // Calculate the chunk position for this block
-        ChunkPos blockChunkPos = new ChunkPos(pos);
+    private CachedChunk loadChunk(ClientWorld world, long chunkKey) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(ChunkPos.getPackedX(chunkKey), ChunkPos.getPackedZ(chunkKey), false);
+        return chunk != null ? new CachedChunk(chunk, world.getBottomSectionCoord()) : null;
+    }
 
-        // Direct O(1) lookup from the map
-        WorldChunk chunk = cachedChunks.get(blockChunkPos);
+    public synchronized void invalidateChunk(ClientWorld world, int chunkX, int chunkZ) {
+        if (world != this.world) return;
+        chunks.remove(ChunkPos.toLong(chunkX, chunkZ));
+        listeners.forEach(listener -> listener.chunkInvalidated(chunkX, chunkZ));
+    }
 
+    /**
+     * Drops only the section the blocks are in; it is copied again on next access.
+     */
+    public synchronized void invalidateBlocks(TerrainChange change) {
+        if (change.getWorld() != this.world) return;
+        CachedChunk chunk = chunks.get(ChunkPos.toLong(change.getChunkX(), change.getChunkZ()));
         if (chunk != null) {
-            return chunk.getBlockState(pos);
+            chunk.invalidateSection(change.getSectionY());
+        }
+        for (int i = 0; i < change.getBlockCount(); i++) {
+            BlockPos changed = change.getBlock(i);
+            listeners.forEach(listener -> listener.blockInvalidated(changed));
         }
+    }
+
+    public synchronized void clear() {
+        chunks.clear();
+        listeners.forEach(InvalidationListener::cacheCleared);
+        TerrainChangeBus.getInstance().clear();
+    }
 
-        return null; // Chunk not in cache
+    private synchronized void bindWorld(ClientWorld world) {
+        if (world != this.world) {
+            LOGGER.debug("World changed, dropping {} cached chunks", chunks.size());
+            chunks.clear();
+            listeners.forEach(InvalidationListener::cacheCleared);
+            TerrainChangeBus.getInstance().clear();
+            this.world = world;
+        }
+    }
+
+    /**
+     * Lazily copied sections of one client chunk.
+     * <p>
+     * The copy is taken from whatever thread first reads the section. The client only mutates
+     * sections on its own thread, through the world's setBlockState, which the
+     * {@link TerrainChangeBus} reports as a block change; that discards a copy that raced with
+     * it, so a stale section never outlives the search that read it.
+     */
+    static final class CachedChunk {
+        private static final Section EMPTY = new Section(null); // Shared marker for all-air sections
+
+        private final WorldChunk source;
+        private final int bottomSectionCoord;
+        private final AtomicReferenceArray<Section> sections;
+        private volatile int modCount; // Bumped on every invalidation, guards copies racing with one
+
+        CachedChunk(WorldChunk source, int bottomSectionCoord) {
+            this.source = source;
+            this.bottomSectionCoord = bottomSectionCoord;
+            this.sections = new AtomicReferenceArray<>(source.getSectionArray().length);
+        }
+
+        /**
+         * @return the block state, or null if the section couldn't be copied
+         */
+        BlockState getBlockState(int x, int y, int z) {
+            int index = (y >> 4) - bottomSectionCoord;
+            if (index < 0 || index >= sections.length()) {
+                return null; // Caller handles the world height
+            }
+
+            Section section = sections.get(index);
+            if (section == null) {
+                section = copySection(index);
+                if (section == null) return null;
+            }
+            return section.getBlockState(x, y, z);
+        }
+
+        /**
+         * @return the {@link MovementFlags} of the block, 0 if the section couldn't be copied
+         */
+        int getFlags(int x, int y, int z) {
+            int index = (y >> 4) - bottomSectionCoord;
+            if (index < 0 || index >= sections.length()) {
+                return 0;
+            }
+
+            Section section = sections.get(index);
+            if (section == null) {
+                section = copySection(index);
+                if (section == null) return 0;
+            }
+            return section.getFlags(x, y, z);
+        }
+
+        private Section copySection(int index) {
+            int expectedModCount = modCount;
+            ChunkSection live = source.getSectionArray()[index];
+            Section copy;
+            try {
+                copy = (live == null || live.isEmpty()) ? EMPTY : new Section(live.getBlockStateContainer().copy());
+            } catch (RuntimeException e) {
+                // The palette was resized under us, leave it for the next reader
+                LOGGER.debug("Could not copy chunk section {} of {}", index, source.getPos(), e);
+                return null;
+            }
+            // A block update landed mid-copy: still answer this read, but don't keep the copy
+            if (modCount == expectedModCount) {
+                sections.compareAndSet(index, null, copy);
+            }
+            return copy;
+        }
+
+        void invalidateSection(int sectionCoord) {
+            int index = sectionCoord - bottomSectionCoord;
+            if (index >= 0 && index < sections.length()) {
+                modCount++; // Only ever written under the cache lock
+                sections.set(index, null);
+            }
+        }
+    }
+
+    private static final class Section {
+        private static final int AIR_FLAGS = MovementFlags.of(Blocks.AIR.getDefaultState()) & MovementFlags.SECTION_BITS;
+
+        private final PalettedContainer<BlockState> states; // Null for an all-air section
+        private volatile char[] flags; // Movement flags per block, derived on first use
+
+        Section(PalettedContainer<BlockState> states) {
+            this.states = states;
+        }
+
+        int getFlags(int x, int y, int z) {
+            if (states == null) {
+                return AIR_FLAGS;
+            }
+
+            char[] grid = flags;
+            if (grid == null) {
+                grid = computeFlags(); // Racing readers compute the same grid, last write wins
+                flags = grid;
+            }
+            return grid[((y & 15) << 8) | ((z & 15) << 4) | (x & 15)];
+        }
+
+        private char[] computeFlags() {
+            char[] grid = new char[16 * 16 * 16];
+            // A section's palette is tiny, so remember the last state rather than hashing each block
+            BlockState lastState = null;
+            int lastFlags = 0;
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        BlockState state = states.get(x, y, z);
+                        if (state != lastState) {
+                            lastState = state;
+                            lastFlags = MovementFlags.get(state) & MovementFlags.SECTION_BITS;
+                        }
+                        grid[(y << 8) | (z << 4) | x] = (char) lastFlags;
+                    }
+                }
+            }
+            return grid;
+        }
+
+        BlockState getBlockState(int x, int y, int z) {
+            if (states == null) {
+                return Blocks.AIR.getDefaultState();
+            }
+            return states.get(x & 15, y & 15, z & 15);
+        }
     }
-}
\ No newline at end of file
+}
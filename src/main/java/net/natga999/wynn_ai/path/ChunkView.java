@@ -0,0 +1,153 @@
+package net.natga999.wynn_ai.path;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import net.natga999.wynn_ai.path.store.StoredChunk;
+import net.natga999.wynn_ai.path.store.TerrainStore;
+import net.natga999.wynn_ai.path.store.WorldTerrain;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * One search's window onto the shared {@link ChunkCache}: the snapshot-backed {@link BlockAccess}.
+ * <p>
+ * Bounds the search to a square of chunks around its center and remembers every chunk it
+ * has asked for, so the shared cache's lock is taken once per chunk rather than per block.
+ * Chunks the client doesn't have loaded are read from the {@link TerrainStore} instead, if
+ * they were seen before: flags only, their block states are unknown.
+ * Not thread safe: create one per job, it may be reused by consecutive searches of that job.
+ */
+public class ChunkView implements BlockAccess {
+    private static final int AIR_FLAGS = MovementFlags.AIR | MovementFlags.FEET | MovementFlags.HEAD;
+
+    private final ChunkCache cache;
+    private final ClientWorld world;
+    private final int centerChunkX;
+    private final int centerChunkZ;
+    private final int cacheRadius; // Radius in chunks
+    private final int bottomY;
+    private final int topY; // Exclusive
+    private final WorldTerrain storedTerrain; // Null if the store doesn't follow this world
+
+    // Chunks this view already resolved, including misses (stored as null)
+    private final Long2ObjectOpenHashMap<ChunkCache.CachedChunk> resolved = new Long2ObjectOpenHashMap<>();
+    private long lastChunkKey = Long.MIN_VALUE; // Neighbouring lookups nearly always hit the same chunk
+    private ChunkCache.CachedChunk lastChunk;
+    private final Long2ObjectOpenHashMap<StoredChunk> stored = new Long2ObjectOpenHashMap<>(); // Unloaded chunks resolved from the store, misses as null
+    private long lastStoredKey = Long.MIN_VALUE;
+    private StoredChunk lastStored;
+    private int chunkHits; // Chunk lookups answered here, for SearchStats
+    private int chunkMisses; // Chunk lookups that took the shared cache's lock
+
+    ChunkView(ChunkCache cache, ClientWorld world, BlockPos center, int cacheRadius) {
+        this.cache = cache;
+        this.world = world;
+        this.centerChunkX = center.getX() >> 4;
+        this.centerChunkZ = center.getZ() >> 4;
+        this.cacheRadius = cacheRadius;
+        this.bottomY = world.getBottomY();
+        this.topY = world.getTopY();
+        this.storedTerrain = TerrainStore.getInstance().forWorld(world);
+    }
+
+    @Override
+    public boolean isWithinBounds(int x, int z) {
+        return Math.abs((x >> 4) - centerChunkX) <= cacheRadius &&
+                Math.abs((z >> 4) - centerChunkZ) <= cacheRadius;
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        ChunkCache.CachedChunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return null; // Chunk not loaded, at most its flags are stored
+        }
+
+        if (y < bottomY || y >= topY) {
+            return Blocks.AIR.getDefaultState(); // Same as the world outside its height
+        }
+        return chunk.getBlockState(x, y, z);
+    }
+
+    @Override
+    public int getFlags(int x, int y, int z) {
+        ChunkCache.CachedChunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return getStoredFlags(x, y, z);
+        }
+
+        if (y < bottomY || y >= topY) {
+            return AIR_FLAGS;
+        }
+        return chunk.getFlags(x, y, z);
+    }
+
+    private int getStoredFlags(int x, int y, int z) {
+        StoredChunk chunk = getStoredChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return 0; // Unknown, every movement check fails on it
+        }
+
+        if (y < bottomY || y >= topY) {
+            return AIR_FLAGS;
+        }
+        return chunk.getFlags(x, y, z);
+    }
+
+    private StoredChunk getStoredChunk(int chunkX, int chunkZ) {
+        if (storedTerrain == null) {
+            return null;
+        }
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (key == lastStoredKey) {
+            return lastStored;
+        }
+
+        StoredChunk chunk = stored.get(key);
+        if (chunk == null && !stored.containsKey(key)) {
+            chunk = storedTerrain.getChunk(chunkX, chunkZ);
+            stored.put(key, chunk);
+        }
+        lastStoredKey = key;
+        lastStored = chunk;
+        return chunk;
+    }
+
+    private ChunkCache.CachedChunk getChunk(int chunkX, int chunkZ) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        if (key == lastChunkKey) {
+            chunkHits++;
+            return lastChunk;
+        }
+
+        ChunkCache.CachedChunk chunk = resolved.get(key);
+        if (chunk == null && !resolved.containsKey(key)) {
+            chunkMisses++;
+            chunk = cache.getChunk(world, key);
+            resolved.put(key, chunk);
+        } else {
+            chunkHits++;
+        }
+
+        lastChunkKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    int getChunkHits() {
+        return chunkHits;
+    }
+
+    int getChunkMisses() {
+        return chunkMisses;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+}
@@ -0,0 +1,263 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable path as flat coordinate arrays: what the spline, {@code BasicPathAI} and
+ * {@code PathRenderer} share instead of a {@code List<Vec3d>}. Points are read through
+ * {@link #x}, {@link #y} and {@link #z}, so following and drawing a path allocate nothing per
+ * point; {@link #get} still hands out a {@link Vec3d} where one is needed.
+ * <p>
+ * Each point carries the arc length from the first point and a few flag bits. A path from the
+ * {@link PathFinder} is {@link #isAnnotated() annotated}: every point also notes what the
+ * player meets on the way to it from the point before ({@link #JUMP} to {@link #NARROW}), so
+ * the follower can act on that without reading blocks.
+ */
+public final class CompactPath {
+    /** A point of the planned path, not one interpolated between them. */
+    public static final int CONTROL = 1;
+    /** The way to the next point is kept straight: a drop, a climb or a short step. */
+    public static final int STRAIGHT = 1 << 1;
+    /** A step up that needs a jump. */
+    public static final int JUMP = 1 << 2;
+    /** Climbing a ladder. */
+    public static final int LADDER = 1 << 3;
+    /** A drop of two blocks or more. */
+    public static final int DROP = 1 << 4;
+    /** Next to a cliff or a wall, reach waypoints precisely. */
+    public static final int PRECISE = 1 << 5;
+    /** Between walls on both sides. */
+    public static final int NARROW = 1 << 6;
+    /** Every note on the way to a point. */
+    public static final int MOVEMENT = JUMP | LADDER | DROP | PRECISE | NARROW;
+
+    public static final CompactPath EMPTY = new CompactPath(new double[0], new double[0], new byte[0], 0, false);
+
+    private final double[] coords; // x, y, z per point
+    private final double[] arc; // Distance along the path from the first point
+    private final byte[] flags;
+    private final int size;
+    private final boolean annotated;
+
+    private CompactPath(double[] coords, double[] arc, byte[] flags, int size, boolean annotated) {
+        this.coords = coords;
+        this.arc = arc;
+        this.flags = flags;
+        this.size = size;
+        this.annotated = annotated;
+    }
+
+    /** The points of {@code points}, all flagged {@link #CONTROL}; null gives {@link #EMPTY}. */
+    public static CompactPath of(List<Vec3d> points) {
+        return of(points, null);
+    }
+
+    /**
+     * The points of {@code points}, all flagged {@link #CONTROL}, with the {@link #MOVEMENT} notes
+     * from {@code annotations} if given.
+     */
+    public static CompactPath of(List<Vec3d> points, int[] annotations) {
+        if (points == null || points.isEmpty()) return EMPTY;
+        Builder builder = new Builder(points.size()).annotated(annotations != null);
+        for (int i = 0; i < points.size(); i++) {
+            Vec3d point = points.get(i);
+            builder.add(point.x, point.y, point.z, CONTROL | (annotations != null ? annotations[i] & MOVEMENT : 0));
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double x(int i) {
+        return coords[check(i) * 3];
+    }
+
+    public double y(int i) {
+        return coords[check(i) * 3 + 1];
+    }
+
+    public double z(int i) {
+        return coords[check(i) * 3 + 2];
+    }
+
+    public int flags(int i) {
+        return flags[check(i)] & 0xFF;
+    }
+
+    /** Whether point {@code i} has any of the flags in {@code mask}. */
+    public boolean hasFlag(int i, int mask) {
+        return (flags(i) & mask) != 0;
+    }
+
+    /** Whether the points carry {@link #MOVEMENT} notes; without them the follower has to look. */
+    public boolean isAnnotated() {
+        return annotated;
+    }
+
+    /** Distance along the path from the first point to point {@code i}. */
+    public double arcLength(int i) {
+        return arc[check(i)];
+    }
+
+    /** Distance along the whole path, 0 for fewer than two points. */
+    public double length() {
+        return size == 0 ? 0 : arc[size - 1];
+    }
+
+    /**
+     * The segment {@code distance} along the path falls on: the last point at or before it,
+     * never the last point itself. Distances outside the path fall on the first or last segment.
+     */
+    public int segmentAt(double distance) {
+        if (size < 2) return 0;
+        int low = 0, high = size - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (arc[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /** How far {@code distance} is along segment {@code i}, 0 at its start and 1 at its end, clamped. */
+    public double fractionAt(int i, double distance) {
+        if (i + 1 >= size) return 0;
+        double length = arc[i + 1] - arc[check(i)];
+        return length > 0 ? Math.clamp((distance - arc[i]) / length, 0.0, 1.0) : 0;
+    }
+
+    /** The point {@code distance} along the path, clamped to its ends. */
+    public Vec3d positionAt(double distance) {
+        int i = segmentAt(distance);
+        if (i + 1 >= size) return get(i);
+        double t = fractionAt(i, distance);
+        return new Vec3d(x(i) + (x(i + 1) - x(i)) * t, y(i) + (y(i + 1) - y(i)) * t, z(i) + (z(i + 1) - z(i)) * t);
+    }
+
+    /** Point {@code i} as a new {@link Vec3d}. */
+    public Vec3d get(int i) {
+        return new Vec3d(x(i), y(i), z(i));
+    }
+
+    public Vec3d getLast() {
+        return get(size - 1);
+    }
+
+    /** Squared distance from point {@code i} to the given position in the XZ plane. */
+    public double horizontalDistanceSq(int i, double x, double z) {
+        double dx = x(i) - x, dz = z(i) - z;
+        return dx * dx + dz * dz;
+    }
+
+    /** A copy with the first point moved, keeping its flags. */
+    public CompactPath withStart(double x, double y, double z) {
+        if (size == 0) throw new IndexOutOfBoundsException("Empty path has no start");
+        Builder builder = new Builder(size).annotated(annotated);
+        builder.add(x, y, z, flags(0));
+        for (int i = 1; i < size; i++) {
+            builder.add(x(i), y(i), z(i), flags(i));
+        }
+        return builder.build();
+    }
+
+    /** The points as a new list, for code that still takes {@code List<Vec3d>}. */
+    public List<Vec3d> toList() {
+        List<Vec3d> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(get(i));
+        }
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompactPath[%d points, %.1f blocks%s]", size, length(), annotated ? ", annotated" : "");
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        return i;
+    }
+
+    /** Appends points one by one, growing its arrays as needed; arc lengths are summed as it goes. */
+    public static final class Builder {
+        private double[] coords;
+        private double[] arc;
+        private byte[] flags;
+        private int size;
+        private boolean annotated;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 2);
+            coords = new double[capacity * 3];
+            arc = new double[capacity];
+            flags = new byte[capacity];
+        }
+
+        /** Marks the path as carrying {@link #MOVEMENT} notes, see {@link CompactPath#isAnnotated()}. */
+        public Builder annotated(boolean annotated) {
+            this.annotated = annotated;
+            return this;
+        }
+
+        public Builder add(double x, double y, double z, int pointFlags) {
+            if (size == arc.length) {
+                int capacity = size * 2;
+                coords = Arrays.copyOf(coords, capacity * 3);
+                arc = Arrays.copyOf(arc, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            int c = size * 3;
+            coords[c] = x;
+            coords[c + 1] = y;
+            coords[c + 2] = z;
+            if (size > 0) {
+                double dx = x - coords[c - 3], dy = y - coords[c - 2], dz = z - coords[c - 1];
+                arc[size] = arc[size - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+            }
+            flags[size] = (byte) pointFlags;
+            size++;
+            return this;
+        }
+
+        /** Adds the point again only if it differs from the last one, with its flags merged in otherwise. */
+        public Builder addDistinct(double x, double y, double z, int pointFlags) {
+            if (size > 0) {
+                int c = (size - 1) * 3;
+                if (coords[c] == x && coords[c + 1] == y && coords[c + 2] == z) {
+                    flags[size - 1] |= (byte) pointFlags;
+                    return this;
+                }
+            }
+            return add(x, y, z, pointFlags);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CompactPath build() {
+            if (size == 0) return EMPTY;
+            // Trimmed, so a path kept around holds no spare capacity
+            return new CompactPath(Arrays.copyOf(coords, size * 3), Arrays.copyOf(arc, size),
+                    Arrays.copyOf(flags, size), size, annotated);
+        }
+    }
+}
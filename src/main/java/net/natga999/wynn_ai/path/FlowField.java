@@ -0,0 +1,188 @@
+package net.natga999.wynn_ai.path;
+
+import net.natga999.wynn_ai.path.search.IndexedMinHeap;
+import net.natga999.wynn_ai.path.search.LongIndexMap;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cost to the nearest of a fixed set of goals from every position around them, with the next
+ * step on the way. Any start inside gets its path by walking downhill, in steps proportional
+ * to the path and without a search.
+ * <p>
+ * Built with one Dijkstra run backwards: every move {@link PathFinder#exploreMoves} finds in
+ * the region is reversed and costs spread out from the goals, each starting at its own extra
+ * cost. Costs are the search's, with the jump penalty of a trip that just started. A position
+ * the search never opens, like a ledge only ever dropped from, is missing from the field.
+ * Immutable once built, so lookups need no lock.
+ */
+public final class FlowField {
+    private static final int NO_NEXT = -1;
+
+    private final BlockPos min;
+    private final BlockPos max;
+    private final LongIndexMap index;
+    private final long[] positions;
+    private final float[] costs; // Infinite where no goal can be reached
+    private final int[] next; // NO_NEXT on goals and unreachable positions
+
+    private FlowField(BlockPos min, BlockPos max, LongIndexMap index, long[] positions, float[] costs, int[] next) {
+        this.min = min;
+        this.max = max;
+        this.index = index;
+        this.positions = positions;
+        this.costs = costs;
+        this.next = next;
+    }
+
+    /**
+     * Explores the box around {@code center} and spreads the goal costs over it.
+     *
+     * @param goalCosts extra cost of ending at each goal, as for {@link PathFinder#findPathToAny}
+     * @return the field, or null if the thread was interrupted or no goal is in the box
+     */
+    public static FlowField build(BlockAccess blocks, BlockPos center, int radius, int height,
+                                  List<BlockPos> goals, double[] goalCosts) {
+        BlockPos min = center.add(-radius, -height, -radius);
+        BlockPos max = center.add(radius, height, radius);
+
+        // Jumps cost their base, the finder is asked for a trip of length zero
+        PathFinder finder = new PathFinder(blocks, center, center);
+        Edges edges = new Edges();
+        if (!finder.exploreMoves(min, max, edges)) {
+            return null;
+        }
+
+        int count = edges.positionCount;
+        long[] positions = Arrays.copyOf(edges.positions, count);
+
+        // Reverse adjacency: for every position, the moves that end there
+        int[] firstIn = new int[count + 1];
+        for (int e = 0; e < edges.count; e++) firstIn[edges.to[e] + 1]++;
+        for (int i = 0; i < count; i++) firstIn[i + 1] += firstIn[i];
+        int[] inFrom = new int[edges.count];
+        float[] inCost = new float[edges.count];
+        int[] fill = Arrays.copyOf(firstIn, count);
+        for (int e = 0; e < edges.count; e++) {
+            int slot = fill[edges.to[e]]++;
+            inFrom[slot] = edges.from[e];
+            inCost[slot] = edges.cost[e];
+        }
+
+        float[] costs = new float[count];
+        int[] next = new int[count];
+        Arrays.fill(costs, Float.POSITIVE_INFINITY);
+        Arrays.fill(next, NO_NEXT);
+
+        IndexedMinHeap open = new IndexedMinHeap(count);
+        for (int i = 0; i < goals.size(); i++) {
+            int goal = edges.index.get(goals.get(i).asLong());
+            if (goal == LongIndexMap.MISSING || goalCosts[i] >= costs[goal]) continue;
+            costs[goal] = (float) goalCosts[i];
+            if (open.contains(goal)) {
+                open.decreaseKey(goal, costs[goal]);
+            } else {
+                open.insert(goal, costs[goal]);
+            }
+        }
+        if (open.isEmpty()) {
+            return null;
+        }
+
+        while (!open.isEmpty()) {
+            int node = open.poll();
+            for (int slot = firstIn[node]; slot < firstIn[node + 1]; slot++) {
+                int from = inFrom[slot];
+                float cost = costs[node] + inCost[slot];
+                if (cost < costs[from]) {
+                    costs[from] = cost;
+                    next[from] = node;
+                    if (open.contains(from)) {
+                        open.decreaseKey(from, cost);
+                    } else {
+                        open.insert(from, cost); // Settled positions never get cheaper, costs are positive
+                    }
+                }
+            }
+        }
+        return new FlowField(min, max, edges.index, positions, costs, next);
+    }
+
+    /**
+     * @return every block from {@code start} to the cheapest goal, or null if the field
+     *         doesn't cover {@code start} or no goal can be reached from it
+     */
+    public List<BlockPos> rawPathFrom(BlockPos start) {
+        int node = index.get(start.asLong());
+        if (node == LongIndexMap.MISSING || costs[node] == Float.POSITIVE_INFINITY) {
+            return null;
+        }
+
+        List<BlockPos> path = new ArrayList<>();
+        for (; node != NO_NEXT; node = next[node]) {
+            path.add(BlockPos.fromLong(positions[node]));
+        }
+        return path;
+    }
+
+    /** Cost from {@code start} to the cheapest goal, goal cost included; infinite if not covered. */
+    public double costFrom(BlockPos start) {
+        int node = index.get(start.asLong());
+        return node == LongIndexMap.MISSING ? Double.POSITIVE_INFINITY : costs[node];
+    }
+
+    /** Lowest corner of the explored box. */
+    public BlockPos getMin() {
+        return min;
+    }
+
+    /** Highest corner of the explored box, inclusive. */
+    public BlockPos getMax() {
+        return max;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    // Moves as reported by the finder, positions numbered in order of appearance
+    private static final class Edges implements PathFinder.MoveSink {
+        final LongIndexMap index = new LongIndexMap(4096);
+        long[] positions = new long[4096];
+        int positionCount;
+        int[] from = new int[16384];
+        int[] to = new int[16384];
+        float[] cost = new float[16384];
+        int count;
+
+        @Override
+        public void move(long fromPos, long toPos, double moveCost) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+                cost = Arrays.copyOf(cost, count * 2);
+            }
+            from[count] = indexOf(fromPos);
+            to[count] = indexOf(toPos);
+            cost[count] = (float) moveCost;
+            count++;
+        }
+
+        private int indexOf(long pos) {
+            int i = index.get(pos);
+            if (i == LongIndexMap.MISSING) {
+                if (positionCount == positions.length) {
+                    positions = Arrays.copyOf(positions, positionCount * 2);
+                }
+                i = positionCount++;
+                positions[i] = pos;
+                index.put(pos, i);
+            }
+            return i;
+        }
+    }
+}
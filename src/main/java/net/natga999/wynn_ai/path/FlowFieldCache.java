@@ -0,0 +1,123 @@
+package net.natga999.wynn_ai.path;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * {@link FlowField}s around the places trips keep going back to, like resource nodes that are
+ * harvested again every minute. Each place is keyed by an anchor block; once it was asked for
+ * often enough, a field is built around it on the planning service.
+ * <p>
+ * A field depends on every block its moves read: its box, one column around it, the drop
+ * below and a jump above. It is only handed out while the {@link TerrainChangeBus} reports no
+ * change there since the build started, and rebuilt on the next visits otherwise.
+ */
+public class FlowFieldCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlowFieldCache.class);
+    private static final FlowFieldCache INSTANCE = new FlowFieldCache();
+
+    private static final int HOT_VISITS = 2; // Visits before a place gets a field, one-off trips keep searching
+    private static final int MAX_FIELDS = 8;
+    private static final int MAX_TRACKED = 256; // Places with a visit count, forgotten all at once past this
+    private static final int RADIUS = 24; // Horizontal reach of a field around its anchor
+    private static final int HEIGHT = 12; // Vertical reach, up and down
+    private static final int VIEW_RADIUS = 2; // Chunks around the anchor, covers RADIUS plus what its moves read
+    private static final int MAX_DROP = 3; // Same as the PathFinder default
+
+    private final Long2ObjectLinkedOpenHashMap<Entry> fields = new Long2ObjectLinkedOpenHashMap<>();
+    private final Long2IntOpenHashMap visits = new Long2IntOpenHashMap();
+    private final LongOpenHashSet building = new LongOpenHashSet(); // Anchors with a build running
+    private final TerrainChangeBus terrain = TerrainChangeBus.getInstance();
+
+    private FlowFieldCache() {
+    }
+
+    public static FlowFieldCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Counts a trip to {@code anchor}; a place visited often enough gets a field built in the
+     * background. Call on the client thread, the field covers the goals as they are now.
+     *
+     * @param goals     blocks to end on, near the anchor
+     * @param goalCosts extra cost of ending at each goal
+     */
+    public void visit(ClientWorld world, BlockPos anchor, List<BlockPos> goals, double[] goalCosts) {
+        long key = anchor.asLong();
+        synchronized (this) {
+            if (visits.size() >= MAX_TRACKED && !visits.containsKey(key)) {
+                visits.clear();
+            }
+            if (visits.addTo(key, 1) + 1 < HOT_VISITS || fresh(key) != null || !building.add(key)) {
+                return;
+            }
+        }
+
+        long version = terrain.version(); // Before the build reads any block
+        ChunkView view = ChunkCache.getInstance().createView(world, anchor, VIEW_RADIUS);
+        List<BlockPos> goalsCopy = List.copyOf(goals);
+        double[] goalCostsCopy = goalCosts.clone();
+        PathPlanningService.getInstance()
+                .submit(() -> FlowField.build(view, anchor, RADIUS, HEIGHT, goalsCopy, goalCostsCopy))
+                .whenComplete((field, error) -> store(key, field, version));
+    }
+
+    /**
+     * @return every block from {@code start} to the best goal around {@code anchor}, or null
+     *         if there is no fresh field for it or the field doesn't reach {@code start}
+     */
+    public List<BlockPos> findRawPath(BlockPos anchor, BlockPos start) {
+        FlowField field;
+        synchronized (this) {
+            field = fresh(anchor.asLong());
+        }
+        return field != null ? field.rawPathFrom(start) : null;
+    }
+
+    private synchronized void store(long anchor, FlowField field, long version) {
+        building.remove(anchor);
+        if (field == null) {
+            return; // Cancelled, or no goal was in the box
+        }
+        fields.putAndMoveToLast(anchor, new Entry(field, version));
+        if (fields.size() > MAX_FIELDS) {
+            fields.removeFirst(); // Least recently used
+        }
+        if (fresh(anchor) != null) {
+            LOGGER.debug("Built flow field around {}: {} positions", BlockPos.fromLong(anchor), field.size());
+        }
+    }
+
+    // The field around the anchor, dropped if a block it read changed since it was built
+    private FlowField fresh(long anchor) {
+        Entry entry = fields.getAndMoveToLast(anchor);
+        if (entry == null) return null;
+        BlockPos min = entry.field.getMin(), max = entry.field.getMax();
+        if (terrain.changedSince(min.getX() - 1, min.getY() - MAX_DROP - 2, min.getZ() - 1,
+                max.getX() + 1, max.getY() + 3, max.getZ() + 1, entry.version)) {
+            fields.remove(anchor);
+            return null;
+        }
+        return entry.field;
+    }
+
+    private static final class Entry {
+        final FlowField field;
+        final long version; // TerrainChangeBus version from before the build
+
+        Entry(FlowField field, long version) {
+            this.field = field;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package net.natga999.wynn_ai.path;
+
+import net.natga999.wynn_ai.path.search.NodePool;
+import net.natga999.wynn_ai.path.search.SearchWorkspace;
+
+import net.minecraft.util.math.BlockPos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Path search that keeps its A* tree between calls, for chasing a target that keeps moving.
+ * <p>
+ * The tree is rooted where the first search started. Costs of closed nodes are distances from
+ * that root and don't depend on the goal, so when the goal moves the search only re-keys its
+ * open fringe and continues, often finding the new goal already closed. Block updates reported
+ * through the {@link ChunkCache} repair the tree instead: nodes that read a changed block are
+ * expanded again and whatever hung below them is searched anew. The tree starts over when the
+ * player has left it or it has grown too large.
+ * <p>
+ * Repairs only re-expand around the change, so a block removed inside an already closed area
+ * may leave the path longer than necessary until the next fresh tree.
+ */
+public class IncrementalPathFinder implements ChunkCache.InvalidationListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalPathFinder.class);
+
+    private static final int MAX_TREE_NODES = 20000; // Start over past this, the old part of the tree is mostly dead weight
+    private static final double MAX_START_OFFSET_SQ = 2.0 * 2.0; // Player must stand this close to the found path
+    private static final int MAX_DROP = 3; // Same as the PathFinder default
+    private static final int MAX_QUEUED_CHANGES = 256; // Past this, starting over is cheaper than repairing
+
+    private final SearchWorkspace workspace = new SearchWorkspace(); // Kept between searches
+    private final Queue<BlockPos> changedBlocks = new ConcurrentLinkedQueue<>(); // Filled on the client thread
+    private final AtomicInteger queuedChanges = new AtomicInteger(); // Size of changedBlocks, which counts in O(n)
+    private volatile boolean stale = true; // Whole tree is unusable: nothing searched yet, or chunks changed
+
+    private BlockPos root;
+    private BlockPos rootGoal; // Goal of the first search, fixes the cost model for the whole tree
+
+    /**
+     * Finds a path from {@code start} to {@code goal}, reusing the tree of earlier calls.
+     * Calls are serialized; run it on a planning worker with a fresh {@link ChunkView}.
+     *
+     * @return the path from the player's position with its movement notes, or null if there is none
+     */
+    public synchronized PathResult findPath(BlockAccess blocks, BlockPos start, BlockPos goal) {
+        boolean reused = !stale && workspace.nodes.size() > 0 && workspace.nodes.size() < MAX_TREE_NODES;
+        if (reused) {
+            repair();
+        } else {
+            restart(start, goal);
+        }
+
+        PathFinder finder = new PathFinder(blocks, root, rootGoal, MAX_DROP);
+        List<BlockPos> rawPath = finder.resumeRawPath(workspace, goal);
+        int from = rawPath != null ? nearestIndex(rawPath, start) : -1;
+
+        if (reused && (rawPath == null || from < 0)) {
+            // The player left the tree, or the repair cut off every way to the goal
+            LOGGER.debug("Incremental search out of reach from {}, starting over", start);
+            restart(start, goal);
+            finder = new PathFinder(blocks, root, rootGoal, MAX_DROP);
+            rawPath = finder.resumeRawPath(workspace, goal);
+            from = rawPath != null ? 0 : -1;
+        }
+
+        if (rawPath == null || from < 0) {
+            return null;
+        }
+        LOGGER.debug("{} search to {}: {} tree nodes", reused ? "Resumed" : "Fresh", goal, workspace.nodes.size());
+
+        List<BlockPos> fromPlayer = rawPath.subList(from, rawPath.size());
+        return finder.smoothRawPath(fromPlayer);
+    }
+
+    /** Drops the tree; the next search starts from scratch. */
+    public void reset() {
+        stale = true;
+    }
+
+    @Override
+    public void blockInvalidated(BlockPos pos) {
+        // Changes pile up between chases; a stale tree doesn't need them, a long queue isn't worth repairing
+        if (stale) return;
+        if (queuedChanges.incrementAndGet() > MAX_QUEUED_CHANGES) {
+            stale = true;
+            return;
+        }
+        changedBlocks.add(pos);
+    }
+
+    @Override
+    public void chunkInvalidated(int chunkX, int chunkZ) {
+        stale = true; // A chunk (un)loaded, too much changed to repair
+    }
+
+    @Override
+    public void cacheCleared() {
+        stale = true;
+    }
+
+    private void restart(BlockPos start, BlockPos goal) {
+        workspace.reset();
+        changedBlocks.clear();
+        queuedChanges.set(0);
+        stale = false;
+        root = start;
+        rootGoal = goal;
+    }
+
+    /**
+     * Applies the queued block updates. A node whose expansion could have read a changed block is
+     * expanded again; nodes reached through such a node lose their cost and are searched again.
+     */
+    private void repair() {
+        if (changedBlocks.isEmpty()) return;
+
+        NodePool nodes = workspace.nodes;
+        int count = nodes.size();
+        boolean[] touched = new boolean[count];
+        boolean anyTouched = false;
+
+        for (BlockPos changed = changedBlocks.poll(); changed != null; changed = changedBlocks.poll()) {
+            queuedChanges.decrementAndGet();
+            for (int node = 0; node < count; node++) {
+                if (readsBlock(nodes.position(node), changed)) {
+                    touched[node] = true;
+                    anyTouched = true;
+                }
+            }
+        }
+        if (!anyTouched) return;
+
+        // Parents always cost less than their children, so in cost order a parent is settled first
+        Integer[] order = new Integer[count];
+        for (int node = 0; node < count; node++) order[node] = node;
+        Arrays.sort(order, (a, b) -> Double.compare(nodes.cost(a), nodes.cost(b)));
+
+        boolean[] dropped = new boolean[count];
+        int droppedCount = 0, reopenedCount = 0;
+        for (int node : order) {
+            int parent = nodes.parent(node);
+            if (parent != NodePool.NO_PARENT && (touched[parent] || dropped[parent])) {
+                // Reached through a move that may no longer exist
+                dropped[node] = true;
+                droppedCount++;
+                nodes.update(node, Double.POSITIVE_INFINITY, NodePool.NO_PARENT);
+                nodes.reopen(node);
+                workspace.open.remove(node);
+            } else if (touched[node] && nodes.isClosed(node)) {
+                nodes.reopen(node);
+                workspace.open.insert(node, nodes.cost(node)); // Re-keyed before the search resumes
+                reopenedCount++;
+            }
+        }
+        LOGGER.debug("Repaired search tree: {} nodes reopened, {} dropped", reopenedCount, droppedCount);
+    }
+
+    // Whether expanding the node looks at the block: its columns and the ones next to it,
+    // from the deepest drop below to the headroom of a jump above
+    private static boolean readsBlock(long node, BlockPos changed) {
+        int dx = changed.getX() - BlockPos.unpackLongX(node);
+        int dz = changed.getZ() - BlockPos.unpackLongZ(node);
+        int dy = changed.getY() - BlockPos.unpackLongY(node);
+        return Math.abs(dx) <= 1 && Math.abs(dz) <= 1 && dy >= -(MAX_DROP + 2) && dy <= 3;
+    }
+
+    // Where the player joins the path: the closest block on it, -1 if none is close enough
+    private static int nearestIndex(List<BlockPos> rawPath, BlockPos start) {
+        int nearest = -1;
+        double nearestDistance = MAX_START_OFFSET_SQ;
+        for (int i = 0; i < rawPath.size(); i++) {
+            double distance = rawPath.get(i).getSquaredDistance(start);
+            if (distance <= nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+}
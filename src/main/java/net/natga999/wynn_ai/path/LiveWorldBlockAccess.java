@@ -0,0 +1,49 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Reads the client world directly, deriving flags on every call.
+ * Only for the client thread and for short synchronous checks; searches off the tick go through {@link ChunkView}.
+ */
+public class LiveWorldBlockAccess implements BlockAccess {
+    private final ClientWorld world;
+    private final int centerChunkX;
+    private final int centerChunkZ;
+    private final int radius; // Radius in chunks
+    private final BlockPos.Mutable mutable = new BlockPos.Mutable();
+
+    public LiveWorldBlockAccess(ClientWorld world, BlockPos center, int radius) {
+        this.world = world;
+        this.centerChunkX = center.getX() >> 4;
+        this.centerChunkZ = center.getZ() >> 4;
+        this.radius = radius;
+    }
+
+    @Override
+    public int getFlags(int x, int y, int z) {
+        return MovementFlags.get(getBlockState(x, y, z));
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        // Unloaded chunks would read back as air, report them as unknown instead
+        if (world.getChunkManager().getWorldChunk(x >> 4, z >> 4, false) == null) {
+            return null;
+        }
+        return world.getBlockState(mutable.set(x, y, z));
+    }
+
+    @Override
+    public boolean isWithinBounds(int x, int z) {
+        return Math.abs((x >> 4) - centerChunkX) <= radius &&
+                Math.abs((z >> 4) - centerChunkZ) <= radius;
+    }
+
+    @Override
+    public int getBottomY() {
+        return world.getBottomY();
+    }
+}
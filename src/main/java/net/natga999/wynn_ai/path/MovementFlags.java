@@ -0,0 +1,244 @@
+package net.natga999.wynn_ai.path;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+
+import net.minecraft.block.*;
+import net.minecraft.block.enums.BlockHalf;
+import net.minecraft.block.enums.SlabType;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.EmptyBlockView;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Movement properties of a block, derived once per block state into a table indexed by raw
+ * state id, so every check is one array read. The search bits (below {@link #OBSTACLE}) are
+ * also stored per chunk section by {@link ChunkCache}; the bits from there up are for the
+ * follower, which reads single blocks next to the player.
+ * <p>
+ * A value of 0 also stands for "unknown" (chunk not loaded): every check fails on it.
+ */
+public final class MovementFlags {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MovementFlags.class);
+
+    public static final int AIR     = 1;       // Plain air
+    public static final int FEET    = 1 << 1;  // Feet may occupy this block
+    public static final int HEAD    = 1 << 2;  // Head may occupy this block
+    public static final int LADDER  = 1 << 3;
+    public static final int FLOOR   = 1 << 4;  // Something to stand on at the top face (hasTopCollision)
+    public static final int JUMP    = 1 << 5;  // Can jump while standing on top of it
+    public static final int GROUND  = 1 << 6;  // Walkable when raycasting straight segments
+    public static final int LIQUID  = 1 << 7;
+    public static final int BARRIER = 1 << 8;  // Collision taller than a block (fences, walls) or an invisible barrier
+    public static final int HALF    = 1 << 9;  // Bottom slab or bottom stair, top face sits half a block low
+
+    public static final int SECTION_BITS = 0xFFFF; // The search bits, what ChunkCache keeps per block
+
+    // Follower bits, not kept per section
+    public static final int OBSTACLE  = 1 << 16; // Collides and is worth jumping over, not a plant, sign or ladder
+    public static final int THROUGH   = 1 << 17; // Never a wall in a tight spot: plants, carpets, signs, torches and the like
+    public static final int CLIMBABLE = 1 << 18; // Ladder or vine
+    public static final int THIN_SNOW = 1 << 19; // Snow below a full block, walked over without a jump
+    public static final int FARMLAND  = 1 << 20;
+    public static final int OPEN      = 1 << 21; // Room to jump into: no collision, a carpet or thin snow
+    public static final int SOLID     = 1 << 22; // BlockState#isSolid
+    public static final int FLUID     = 1 << 23; // A fluid block itself, not a waterlogged one
+
+    private static volatile int[] table; // Flags by raw state id, built on world join
+
+    private MovementFlags() {
+    }
+
+    /** Builds the table again on every join, the server may have synced other state ids. */
+    public static void register() {
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> buildTable());
+    }
+
+    public static void buildTable() {
+        int[] built = new int[Block.STATE_IDS.size()];
+        for (BlockState state : Block.STATE_IDS) {
+            built[Block.getRawIdFromState(state)] = of(state);
+        }
+        table = built;
+        LOGGER.debug("Movement flags built for {} block states", built.length);
+    }
+
+    /** The flags of a state, from the table; computed directly before the first join. */
+    public static int get(BlockState state) {
+        if (state == null) return 0;
+        int[] flags = table;
+        int id = Block.getRawIdFromState(state);
+        if (flags == null || id < 0 || id >= flags.length) {
+            return of(state);
+        }
+        return flags[id];
+    }
+
+    public static boolean has(int flags, int mask) {
+        return (flags & mask) != 0;
+    }
+
+    /**
+     * Computes the flags for a state; {@link #get} reads them from the table instead. Must stay
+     * a pure function of the state: results are cached per section.
+     */
+    public static int of(BlockState state) {
+        if (state == null) return 0;
+
+        Block block = state.getBlock();
+        int flags = 0;
+
+        if (state.isAir()) {
+            return AIR | FEET | HEAD | THROUGH | OPEN;
+        }
+
+        boolean ladder = block instanceof LadderBlock;
+        boolean passable = state.isReplaceable() // General replaceable blocks (like grass, ferns)
+                || ladder
+                || block instanceof CropBlock // General check for all crops
+                || block instanceof FlowerBlock // General flowers
+                || block == Blocks.SHORT_GRASS
+                || block == Blocks.TALL_GRASS
+                || block == Blocks.FERN
+                || block == Blocks.LARGE_FERN
+                || block == Blocks.DEAD_BUSH
+                || block == Blocks.VINE
+                || block == Blocks.SUGAR_CANE
+                || block == Blocks.NETHER_WART;
+
+        // Feet can also stand in carpet or thin snow, the head can't
+        if (passable
+                || block instanceof CarpetBlock
+                || (block == Blocks.SNOW && state.get(SnowBlock.LAYERS) <= 3)) {
+            flags |= FEET;
+        }
+        if (passable) {
+            flags |= HEAD;
+        }
+        if (ladder) {
+            flags |= LADDER;
+        }
+
+        boolean solidTop = state.isSideSolidFullSquare(EmptyBlockView.INSTANCE, BlockPos.ORIGIN, Direction.UP);
+        boolean fullSnow = block instanceof SnowBlock && state.get(SnowBlock.LAYERS) == SnowBlock.MAX_LAYERS;
+
+        // Ladders don't have top collision for standing
+        if (!ladder && (solidTop
+                || block instanceof FarmlandBlock
+                || (block instanceof SlabBlock && state.get(SlabBlock.TYPE) == SlabType.TOP) // Only top slabs are fully solid on top
+                || fullSnow
+                || (block instanceof StairsBlock && state.get(StairsBlock.HALF) == BlockHalf.TOP))) {
+            flags |= FLOOR;
+        }
+
+        // Standing on a ladder means standing on its top edge
+        if (solidTop || block instanceof StairsBlock || block instanceof FarmlandBlock || ladder) {
+            flags |= JUMP;
+        }
+
+        if (solidTop
+                || block instanceof StairsBlock
+                || block instanceof SlabBlock
+                || fullSnow
+                || block instanceof CarpetBlock // Carpets are thin, stand on block below
+                || block instanceof FarmlandBlock) {
+            flags |= GROUND;
+        }
+
+        if (!state.getFluidState().isEmpty()) {
+            flags |= LIQUID;
+        }
+
+        if (block == Blocks.BARRIER
+                || block instanceof FenceBlock
+                || block instanceof WallBlock
+                || block instanceof FenceGateBlock) {
+            flags |= BARRIER;
+        }
+
+        if ((block instanceof SlabBlock && state.get(SlabBlock.TYPE) == SlabType.BOTTOM)
+                || (block instanceof StairsBlock && state.get(StairsBlock.HALF) == BlockHalf.BOTTOM)) {
+            flags |= HALF;
+        }
+
+        return flags | followerFlags(state, block);
+    }
+
+    private static int followerFlags(BlockState state, Block block) {
+        int flags = 0;
+        boolean thinSnow = block == Blocks.SNOW && state.get(SnowBlock.LAYERS) < SnowBlock.MAX_LAYERS;
+        boolean collides = !state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN).isEmpty();
+
+        if (thinSnow) {
+            flags |= THIN_SNOW;
+        }
+        if (block instanceof FarmlandBlock) {
+            flags |= FARMLAND;
+        }
+        if (block instanceof LadderBlock || block instanceof VineBlock) {
+            flags |= CLIMBABLE;
+        }
+        if (block instanceof FluidBlock) {
+            flags |= FLUID;
+        }
+        if (state.isSolid()) {
+            flags |= SOLID;
+        }
+        if (!collides || block instanceof CarpetBlock || thinSnow) {
+            flags |= OPEN;
+        }
+
+        boolean through = block instanceof AirBlock
+                || block instanceof FluidBlock
+                || block instanceof PlantBlock // Covers most crops, flowers, grass, ferns
+                || block instanceof SugarCaneBlock
+                || block instanceof VineBlock
+                || block instanceof CarpetBlock
+                || block instanceof SnowBlock // Thin snow is passable
+                || block instanceof LadderBlock
+                || block instanceof SignBlock
+                || block instanceof AbstractBannerBlock
+                || block instanceof TorchBlock
+                || block instanceof ButtonBlock
+                || block instanceof LeverBlock
+                || block instanceof PressurePlateBlock
+                || block instanceof TripwireBlock
+                || block instanceof TripwireHookBlock;
+        if (through) {
+            flags |= THROUGH;
+        }
+
+        // Collidable and not one of the blocks walked through, over or climbed instead
+        boolean notJumpedOver = block == Blocks.WATER
+                || block instanceof FluidBlock
+                || block instanceof SignBlock
+                || block instanceof WallSignBlock
+                || block instanceof AbstractBannerBlock
+                || block instanceof FlowerPotBlock
+                || block instanceof TripwireHookBlock
+                || block instanceof TripwireBlock
+                || block instanceof LeverBlock
+                || block instanceof ButtonBlock
+                || block instanceof TorchBlock
+                || block instanceof WallTorchBlock
+                || block instanceof RedstoneTorchBlock
+                || block instanceof PressurePlateBlock
+                || block instanceof CropBlock // Path through crops
+                || block instanceof FlowerBlock // Path through flowers
+                || block == Blocks.SHORT_GRASS
+                || block == Blocks.TALL_GRASS
+                || block == Blocks.FERN
+                || block == Blocks.LARGE_FERN
+                || block == Blocks.DEAD_BUSH
+                || block instanceof CarpetBlock
+                || thinSnow // Path over thin snow
+                || block instanceof LadderBlock // Don't jump at ladders
+                || block instanceof VineBlock; // Don't jump at vines
+        if (collides && !notJumpedOver) {
+            flags |= OBSTACLE;
+        }
+        return flags;
+    }
+}
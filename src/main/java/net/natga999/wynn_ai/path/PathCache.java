@@ -0,0 +1,195 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * LRU of finished paths, keyed by start and goal block, so trips that repeat cost a lookup
+ * instead of a search. A path keeps the movement notes its search annotated it with.
+ * <p>
+ * A path remembers the {@link TerrainChangeBus} version it was searched at and the chunks it
+ * crosses, and is only handed out while none of them changed since. A cached path also
+ * answers any goal it walks over on the way, cut short there. Entries expire after a while
+ * anyway, as walkability isn't everything that changes.
+ */
+public class PathCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PathCache.class);
+    private static final PathCache INSTANCE = new PathCache();
+
+    private static final int MAX_ENTRIES = 128;
+    private static final long MAX_AGE_NANOS = 5L * 60 * 1_000_000_000L; // Five minutes
+    private static final double ON_PATH_DISTANCE_SQ = 0.5 * 0.5; // Goal centre to a straight stretch of the path
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order, eldest first
+    private final TerrainChangeBus terrain = TerrainChangeBus.getInstance();
+
+    /** A cache of its own, next to the shared one. */
+    public PathCache() {
+    }
+
+    /** The cache for the client world. */
+    public static PathCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The current version, to pass to {@link #put}. Take it before the search reads any block,
+     * so a change that lands during the search makes the path stale rather than cached.
+     */
+    public long version() {
+        return terrain.version();
+    }
+
+    /**
+     * @return a copy of a cached path from {@code start} to {@code goal}, possibly cut from a
+     *         longer one that passes {@code goal}; null if none is fresh
+     */
+    public synchronized PathResult get(BlockPos start, BlockPos goal) {
+        long now = System.nanoTime();
+        Entry exact = entries.get(new Key(start.asLong(), goal.asLong()));
+        if (exact != null && isFresh(exact, now)) {
+            return PathResult.complete(new ArrayList<>(exact.waypoints), goal, 0, exact.annotations);
+        }
+
+        // A longer trip from the same start may walk straight over the goal
+        long startKey = start.asLong();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (!isFresh(entry, now)) {
+                it.remove();
+                continue;
+            }
+            if (entry.key.start != startKey) continue;
+            List<Vec3d> prefix = prefixTo(entry.waypoints, goal);
+            if (prefix != null) {
+                LOGGER.debug("Path to {} cut from cached path to {}", goal, BlockPos.fromLong(entry.key.goal));
+                // The goal lies on the stretch to the next waypoint, and meets what that stretch meets
+                int[] annotations = entry.annotations != null ? Arrays.copyOf(entry.annotations, prefix.size()) : null;
+                return PathResult.complete(prefix, goal, 0, annotations);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers a complete path and its movement notes; a copy is kept, the caller may change its list.
+     *
+     * @param searchedAt {@link #version()} taken before the search started
+     */
+    public synchronized void put(BlockPos start, BlockPos goal, PathResult path, long searchedAt) {
+        List<Vec3d> waypoints = path != null ? path.getWaypoints() : null;
+        if (waypoints == null || waypoints.isEmpty()) return;
+        int[] annotations = path.getAnnotations();
+
+        long[] chunks = chunksCrossed(waypoints);
+        for (long chunk : chunks) {
+            if (terrain.chunkChangedSince(chunk, searchedAt)) return; // Changed while the search ran
+        }
+
+        Key key = new Key(start.asLong(), goal.asLong());
+        entries.put(key, new Entry(key, new ArrayList<>(waypoints), annotations != null ? annotations.clone() : null,
+                chunks, searchedAt, System.nanoTime()));
+        if (entries.size() > MAX_ENTRIES) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            eldest.next();
+            eldest.remove(); // Least recently used
+        }
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        if (now - entry.createdAt > MAX_AGE_NANOS) return false;
+        for (long chunk : entry.chunks) {
+            if (terrain.chunkChangedSince(chunk, entry.version)) return false;
+        }
+        return true;
+    }
+
+    // Waypoints up to where the path passes over the goal block, ending on its centre; null if it doesn't.
+    // Stretches between waypoints are walked straight, so any point on one is reachable along it.
+    private static List<Vec3d> prefixTo(List<Vec3d> waypoints, BlockPos goal) {
+        Vec3d target = Vec3d.ofCenter(goal);
+        for (int i = 0; i + 1 < waypoints.size(); i++) {
+            Vec3d from = waypoints.get(i), to = waypoints.get(i + 1);
+            // Flat stretches on the goal's level only, steps and drops don't pass through block centres
+            if (BlockPos.ofFloored(from).getY() != goal.getY() || BlockPos.ofFloored(to).getY() != goal.getY()) continue;
+
+            double dx = to.x - from.x, dz = to.z - from.z;
+            double lengthSq = dx * dx + dz * dz;
+            double t = lengthSq == 0 ? 0 : ((target.x - from.x) * dx + (target.z - from.z) * dz) / lengthSq;
+            t = Math.max(0, Math.min(1, t));
+            double offX = from.x + t * dx - target.x, offZ = from.z + t * dz - target.z;
+            if (offX * offX + offZ * offZ <= ON_PATH_DISTANCE_SQ) {
+                List<Vec3d> prefix = new ArrayList<>(waypoints.subList(0, i + 1));
+                prefix.add(target);
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    // Every chunk touched by the bounding box of a stretch, a superset of the chunks the path crosses
+    private static long[] chunksCrossed(List<Vec3d> waypoints) {
+        List<Long> chunks = new ArrayList<>();
+        for (int i = 0; i < waypoints.size(); i++) {
+            Vec3d from = waypoints.get(i), to = waypoints.get(Math.min(i + 1, waypoints.size() - 1));
+            int minX = (int) Math.floor(Math.min(from.x, to.x)) >> 4, maxX = (int) Math.floor(Math.max(from.x, to.x)) >> 4;
+            int minZ = (int) Math.floor(Math.min(from.z, to.z)) >> 4, maxZ = (int) Math.floor(Math.max(from.z, to.z)) >> 4;
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    long chunk = ChunkPos.toLong(cx, cz);
+                    if (!chunks.contains(chunk)) chunks.add(chunk); // A path crosses a handful of chunks
+                }
+            }
+        }
+        return chunks.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static final class Key {
+        final long start, goal;
+
+        Key(long start, long goal) {
+            this.start = start;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && other.start == start && other.goal == goal;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, goal);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final List<Vec3d> waypoints;
+        final int[] annotations; // Null if the path wasn't annotated
+        final long[] chunks;
+        final long version;
+        final long createdAt;
+
+        Entry(Key key, List<Vec3d> waypoints, int[] annotations, long[] chunks, long version, long createdAt) {
+            this.key = key;
+            this.waypoints = waypoints;
+            this.annotations = annotations;
+            this.chunks = chunks;
+            this.version = version;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package net.natga999.wynn_ai.path;
 
+import net.natga999.wynn_ai.path.search.IndexedMinHeap;
+import net.natga999.wynn_ai.path.search.LongIndexMap;
+import net.natga999.wynn_ai.path.search.NodePool;
+import net.natga999.wynn_ai.path.search.SearchWorkspace;
+
 import net.minecraft.block.*;
-import net.minecraft.block.enums.BlockHalf;
-import net.minecraft.block.enums.SlabType;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
@@ -21,364 +24,745 @@ import org.slf4j.LoggerFactory;
 //TODO fix crops count as air
 public class PathFinder {
     private static final Logger LOGGER = LoggerFactory.getLogger(PathFinder.class);
-    private final ClientWorld world;
-    private final ChunkCache cache;
+    private final BlockAccess blocks;
     private final int maxDrop;  // maximum safe drop height
+    private boolean anyAngle; // Shortcut flat stretches during the search, see setAnyAngle
     private static final int MAX_PATH_LENGTH = 5000; // Maximum number of nodes to explore
     private static final double CORNER_OFFSET = 0.2; // amount to soften 90° turns
+    private static final int NO_GROUND = Integer.MIN_VALUE; // findGroundBelow found nothing to stand on
+    private static final int CLIFF_DEPTH = 4; // Air this deep beside the path makes a cliff edge
+    private static final double[] ANYTIME_WEIGHTS = { 2.5, 1.5, 1.0 }; // Greedy first result, then tightened to plain A*
+
+    // Offsets for the 8 directions in XZ plane (N, NE, E, SE, S, SW, W, NW)
+    private static final int[] DX = {  0,  1,  1,  1,  0, -1, -1, -1 };
+    private static final int[] DZ = {  1,  1,  0, -1, -1, -1,  0,  1 };
+
     private final BlockPos start;
     private final BlockPos goal;
+    private final double totalDistance; // start -> goal, scales the jump penalty in movementCost
+
+    // Bound for the duration of findPath
+    private SearchWorkspace workspace;
+    private int goalX, goalY, goalZ;
+    private boolean noHeuristic; // findRawPaths has no single goal to aim at
+    private double heuristicWeight = 1.0; // Inflates the estimate in open set keys, below 1 only for anytime passes
+    private int[] improvedClosed; // Anytime only: closed nodes that got cheaper, expanded again by the next pass
+    private int improvedClosedCount;
+    private long[] goalKeys; // Anytime only: every goal, the search ends at the cheapest one
+    private double[] goalCosts; // Anytime only: extra cost of ending at each goal
+    private MoveSink moveSink; // exploreMoves only: relax reports each move instead of searching
+
+    // Counted during a search for its SearchStats
+    private int expandedCount;
+    private int reopenedCount;
+    private int openPeak;
+    private int lookupCount;
+    private int chunkHitsBefore, chunkMissesBefore; // The view's counters span its searches
+    private long searchStartNanos;
+    private SearchStats.Status searchStatus;
+    private SearchStats lastStats;
 
     public PathFinder(ClientWorld world, int cacheRadius, BlockPos start, BlockPos goal) {
         this(world, cacheRadius, start, goal, 3); // Default max drop of 3 blocks
     }
 
     public PathFinder(ClientWorld world, int cacheRadius, BlockPos start, BlockPos goal, int maxDrop) {
-        this.world = world;
-        this.cache = new ChunkCache(world, start, cacheRadius);
+        this(ChunkCache.getInstance().createView(world, start, cacheRadius), start, goal, maxDrop);
+    }
+
+    // Searches whatever the block access exposes; with a ChunkView it is safe to run off the client thread
+    public PathFinder(BlockAccess blocks, BlockPos start, BlockPos goal) {
+        this(blocks, start, goal, 3);
+    }
+
+    public PathFinder(BlockAccess blocks, BlockPos start, BlockPos goal, int maxDrop) {
+        this.blocks = blocks;
         this.start   = start;
         this.goal    = goal;
         this.maxDrop = maxDrop;
-        LOGGER.debug("PathFinder initialized with cache radius {} and max drop {}", cacheRadius, maxDrop);
+        this.totalDistance = Math.sqrt(start.getSquaredDistance(goal));
+    }
+
+    /**
+     * Any-angle mode (Lazy Theta*): a node reached over flat ground takes its grandparent as
+     * parent whenever the straight line between them stays on that level. The line is only
+     * checked once the node is expanded, so each expansion walks at most one line. Raw paths
+     * then hold just the turning points, which leaves {@link #simplifyPath} little to do.
+     * <p>
+     * Off for callers that need every block of the path, like the hierarchical planner.
+     */
+    public void setAnyAngle(boolean anyAngle) {
+        this.anyAngle = anyAngle;
     }
 
     public List<Vec3d> findPath(BlockPos start, BlockPos goal) {
-        LOGGER.info("Finding path from {} to {}", start, goal);
+        List<BlockPos> rawPath = findRawPath(start, goal);
+        if (rawPath == null) {
+            return null;
+        }
 
-        Map<BlockPos, Double> gScore = new HashMap<>();
-        gScore.put(start, 0.0);
+        List<Vec3d> simplifiedPath = simplifyPath(rawPath);
+        return postProcessCorners(simplifiedPath);
+    }
+
+    /**
+     * What the last search of this finder did, whether it found a path or not; null before
+     * the first one. Covers every search method, {@link #exploreMoves} excepted.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
 
+    /**
+     * A* over packed block positions. The hot loop works on primitive coordinates and the
+     * calling thread's {@link SearchWorkspace}, so a search allocates only its result.
+     *
+     * @return every block the path steps through (in any-angle mode only where it turns),
+     *         or null if there is none
+     */
+    public List<BlockPos> findRawPath(BlockPos start, BlockPos goal) {
+        beginStats();
         // Check if start and goal are within cache bounds
-        if (!cache.isWithinCacheBounds(start)) {
-            LOGGER.debug("Start position {} is outside cache bounds", start);
+        if (!blocks.isWithinBounds(start) || !blocks.isWithinBounds(goal)) {
+            searchStatus = SearchStats.Status.OUT_OF_BOUNDS;
+            finishStats(null);
+            return null;
+        }
+
+        workspace = SearchWorkspace.get();
+        goalX = goal.getX();
+        goalY = goal.getY();
+        goalZ = goal.getZ();
+        List<BlockPos> rawPath = null;
+        try {
+            rawPath = search(start.asLong(), goal.asLong());
+            return rawPath;
+        } finally {
+            workspace = null;
+            finishStats(rawPath);
+        }
+    }
+
+    /**
+     * Anytime variant of {@link #findPath} for searches that may not fit their budget.
+     * <p>
+     * Runs weighted A* passes with a shrinking weight over one search tree (ARA*): the first,
+     * greedy pass finds a path quickly and each later pass shortens it, re-expanding only the
+     * nodes that got cheaper. The best path found when the budget runs out is returned. If no
+     * pass reached the goal by then, the result is partial and leads to the expanded node
+     * closest to the goal, so the caller can start walking and plan again from there.
+     *
+     * @param maxExpansions nodes to expand over all passes
+     * @param timeBudgetMillis wall-clock limit over all passes
+     * @return the path, or null if the goal can't be reached in the searched area or the
+     *         search made no progress towards it
+     */
+    public PathResult findPathAnytime(BlockPos start, BlockPos goal, int maxExpansions, long timeBudgetMillis) {
+        return findPathToAny(start, List.of(goal), new double[1], maxExpansions, timeBudgetMillis);
+    }
+
+    /**
+     * {@link #findPathAnytime} towards a set of goals: one search that ends at whichever goal is
+     * cheapest to reach, instead of one search per goal. The estimate is the smallest one over
+     * all goals, so it still never overestimates.
+     *
+     * @param goalCosts added to the path cost of ending at the goal with the same index; lets a
+     *                  goal win over others that are a little closer
+     * @return the path to the goal with the lowest path plus goal cost, see {@link PathResult#getEnd}
+     */
+    public PathResult findPathToAny(BlockPos start, List<BlockPos> goals, double[] goalCosts, int maxExpansions, long timeBudgetMillis) {
+        beginStats();
+        PathResult result = null;
+        try {
+            result = searchToAny(start, goals, goalCosts, maxExpansions, timeBudgetMillis);
+        } finally {
+            finishStats(result != null ? result.getRawLength() : 0);
+        }
+        return result != null ? result.withStats(lastStats) : null;
+    }
+
+    private PathResult searchToAny(BlockPos start, List<BlockPos> goals, double[] goalCosts, int maxExpansions, long timeBudgetMillis) {
+        if (!blocks.isWithinBounds(start)) {
+            searchStatus = SearchStats.Status.OUT_OF_BOUNDS;
             return null;
         }
+        long[] keys = new long[goals.size()];
+        double[] costs = new double[goals.size()];
+        int goalCount = 0;
+        for (int i = 0; i < goals.size(); i++) {
+            if (!blocks.isWithinBounds(goals.get(i))) continue; // Can't be reached, others still can
+            keys[goalCount] = goals.get(i).asLong();
+            costs[goalCount++] = goalCosts[i];
+        }
+        if (goalCount == 0) {
+            searchStatus = SearchStats.Status.OUT_OF_BOUNDS;
+            return null;
+        }
+
+        workspace = SearchWorkspace.get();
+        goalKeys = Arrays.copyOf(keys, goalCount);
+        this.goalCosts = Arrays.copyOf(costs, goalCount);
+        goalX = BlockPos.unpackLongX(goalKeys[0]);
+        goalY = BlockPos.unpackLongY(goalKeys[0]);
+        goalZ = BlockPos.unpackLongZ(goalKeys[0]);
+        improvedClosed = new int[64];
+        improvedClosedCount = 0;
+        try {
+            long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+            long startKey = start.asLong();
+            NodePool nodes = workspace.nodes;
+            IndexedMinHeap openSet = workspace.open;
+
+            int startNode = nodes.add(startKey, 0.0, NodePool.NO_PARENT);
+            workspace.index.put(startKey, startNode);
+            heuristicWeight = ANYTIME_WEIGHTS[0];
+            openSet.insert(startNode, heuristicWeight * estimateDistance(start.getX(), start.getY(), start.getZ()));
+
+            int goalNode = LongIndexMap.MISSING; // Cheapest goal reached so far
+            double goalNodeCost = 0.0; // Its goal cost
+            int closest = startNode; // Expanded node nearest to a goal, where a partial path ends
+            double closestEstimate = estimateDistance(start.getX(), start.getY(), start.getZ());
+            int expanded = 0;
+            boolean outOfBudget = false;
+
+            for (int pass = 0; pass < ANYTIME_WEIGHTS.length && !outOfBudget; pass++) {
+                if (pass > 0) {
+                    beginAnytimePass(ANYTIME_WEIGHTS[pass]);
+                }
+
+                // Expand while something open could still lead to a cheaper goal under this weight
+                while (!openSet.isEmpty()
+                        && (goalNode == LongIndexMap.MISSING || openSet.peekKey() < nodes.cost(goalNode) + goalNodeCost)) {
+                    if (expanded >= maxExpansions
+                            || ((expanded & 63) == 0 && System.nanoTime() > deadline)
+                            || ((expanded & 255) == 0 && Thread.currentThread().isInterrupted())) {
+                        outOfBudget = true;
+                        break;
+                    }
+
+                    int current = openSet.poll();
+                    long currentKey = nodes.position(current);
+                    if (anyAngle) confirmParent(current);
+                    int goalIndex = goalIndex(currentKey);
+                    if (goalIndex >= 0) {
+                        double total = nodes.cost(current) + goalCosts[goalIndex];
+                        if (goalNode == LongIndexMap.MISSING || total < nodes.cost(goalNode) + goalNodeCost) {
+                            goalNode = current;
+                            goalNodeCost = goalCosts[goalIndex];
+                        }
+                        if (goalKeys.length == 1) {
+                            break; // Left unclosed, a later pass may still lower its cost
+                        }
+                        // Other goals may lie beyond this one, keep expanding through it
+                    }
+                    nodes.close(current);
+                    expanded++;
+
+                    int x = BlockPos.unpackLongX(currentKey), y = BlockPos.unpackLongY(currentKey), z = BlockPos.unpackLongZ(currentKey);
+                    double estimate = estimateDistance(x, y, z);
+                    if (estimate < closestEstimate) {
+                        closest = current;
+                        closestEstimate = estimate;
+                    }
+                    expand(current, x, y, z);
+                }
+
+                if (goalNode == LongIndexMap.MISSING && !outOfBudget) {
+                    return null; // Searched everything reachable
+                }
+            }
+
+            if (goalNode != LongIndexMap.MISSING) {
+                List<BlockPos> rawPath = reconstructPath(goalNode);
+                searchStatus = SearchStats.Status.FOUND;
+                return toResult(rawPath, false);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                searchStatus = SearchStats.Status.CANCELLED;
+                return null; // Nobody waits for a cancelled search, not even for part of it
+            }
+            searchStatus = SearchStats.Status.OUT_OF_BUDGET;
+            if (closest == startNode) {
+                return null; // Nothing to walk towards
+            }
+            List<BlockPos> rawPath = reconstructPath(closest);
+            searchStatus = SearchStats.Status.PARTIAL;
+            return toResult(rawPath, true);
+        } finally {
+            workspace = null;
+            heuristicWeight = 1.0;
+            improvedClosed = null;
+            goalKeys = null;
+            this.goalCosts = null;
+        }
+    }
+
+    private int goalIndex(long key) {
+        for (int i = 0; i < goalKeys.length; i++) {
+            if (goalKeys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    // Starts the next anytime pass: nothing is closed any more, nodes that got cheaper while
+    // closed are queued again, and every open key is recomputed for the lower weight
+    private void beginAnytimePass(double weight) {
+        NodePool nodes = workspace.nodes;
+        IndexedMinHeap openSet = workspace.open;
+        heuristicWeight = weight;
+
+        for (int node = 0; node < nodes.size(); node++) {
+            nodes.reopen(node);
+        }
+        for (int i = 0; i < improvedClosedCount; i++) {
+            int node = improvedClosed[i];
+            if (!openSet.contains(node)) {
+                openSet.insert(node, 0.0); // Keyed below
+                reopenedCount++;
+            }
+        }
+        improvedClosedCount = 0;
+        openPeak = Math.max(openPeak, openSet.size());
+
+        openSet.rekey(node -> {
+            long key = nodes.position(node);
+            return nodes.cost(node) + weight * estimateDistance(BlockPos.unpackLongX(key), BlockPos.unpackLongY(key), BlockPos.unpackLongZ(key));
+        });
+    }
+
+    /**
+     * Dijkstra from {@code start} until every goal is reached, for callers that need paths
+     * to several targets at once (one flood instead of one search per target).
+     *
+     * @return the raw path to each goal in the order given, null where there is none
+     */
+    public List<List<BlockPos>> findRawPaths(BlockPos start, long[] goals) {
+        List<List<BlockPos>> paths = new ArrayList<>(Collections.nCopies(goals.length, null));
+        beginStats();
+        if (!blocks.isWithinBounds(start)) {
+            searchStatus = SearchStats.Status.OUT_OF_BOUNDS;
+            finishStats(null);
+            return paths;
+        }
+
+        workspace = SearchWorkspace.get();
+        noHeuristic = true;
+        int found = 0;
+        try {
+            NodePool nodes = workspace.nodes;
+            IndexedMinHeap openSet = workspace.open;
+
+            long startKey = start.asLong();
+            int startNode = nodes.add(startKey, 0.0, NodePool.NO_PARENT);
+            workspace.index.put(startKey, startNode);
+            openSet.insert(startNode, 0.0);
+
+            int remaining = goals.length;
+            int closedCount = 0;
+            while (!openSet.isEmpty() && remaining > 0 && closedCount <= MAX_PATH_LENGTH) {
+                if ((closedCount & 255) == 0 && Thread.currentThread().isInterrupted()) {
+                    searchStatus = SearchStats.Status.CANCELLED;
+                    return paths;
+                }
+
+                int current = openSet.poll();
+                long currentKey = nodes.position(current);
+                nodes.close(current);
+                closedCount++;
+
+                for (int i = 0; i < goals.length; i++) {
+                    if (goals[i] == currentKey && paths.get(i) == null) {
+                        paths.set(i, reconstructPath(current));
+                        found += paths.get(i).size();
+                        remaining--;
+                    }
+                }
+
+                expand(current, BlockPos.unpackLongX(currentKey), BlockPos.unpackLongY(currentKey), BlockPos.unpackLongZ(currentKey));
+            }
+            if (remaining == 0) {
+                searchStatus = SearchStats.Status.FOUND;
+            } else if (closedCount > MAX_PATH_LENGTH) {
+                searchStatus = SearchStats.Status.OUT_OF_BUDGET;
+            }
+            return paths;
+        } finally {
+            workspace = null;
+            noHeuristic = false;
+            finishStats(found); // Blocks over all paths found
+        }
+    }
+
+    /** Receives the moves found by {@link #exploreMoves}, as packed positions. */
+    interface MoveSink {
+        void move(long from, long to, double cost);
+    }
 
-        if (!cache.isWithinCacheBounds(goal)) {
-            LOGGER.debug("Goal position {} is outside cache bounds", goal);
+    /**
+     * Reports every move the search could make from inside the box, bounds inclusive: from
+     * each standing spot in it and from each position those moves lead to, such as the air
+     * a jump passes through. Nothing is searched, costs are those of a single step. For
+     * {@link FlowField}, which walks the moves backwards from its goals.
+     *
+     * @return false if the thread was interrupted before every move was reported
+     */
+    boolean exploreMoves(BlockPos min, BlockPos max, MoveSink sink) {
+        workspace = SearchWorkspace.get();
+        moveSink = sink;
+        try {
+            NodePool nodes = workspace.nodes;
+            for (int x = min.getX(); x <= max.getX(); x++) {
+                for (int z = min.getZ(); z <= max.getZ(); z++) {
+                    if (!blocks.isWithinBounds(x, z)) continue;
+                    for (int y = min.getY(); y <= max.getY(); y++) {
+                        boolean standing = (hasTopCollision(x, y - 1, z) && isSpaceClear(x, y, z))
+                                || (isLadder(x, y, z) && isSpaceClearForLadder(x, y, z));
+                        if (standing) {
+                            long key = BlockPos.asLong(x, y, z);
+                            workspace.index.put(key, nodes.add(key, 0.0, NodePool.NO_PARENT));
+                        }
+                    }
+                }
+            }
+
+            // Positions found by relax are appended, so this also visits them
+            for (int node = 0; node < nodes.size(); node++) {
+                if ((node & 255) == 0 && Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                long key = nodes.position(node);
+                int x = BlockPos.unpackLongX(key), y = BlockPos.unpackLongY(key), z = BlockPos.unpackLongZ(key);
+                if (x < min.getX() || x > max.getX() || y < min.getY() || y > max.getY() || z < min.getZ() || z > max.getZ()) {
+                    continue; // Reached from inside, but its own moves lead further out
+                }
+                expand(node, x, y, z);
+            }
+            return true;
+        } finally {
+            workspace = null;
+            moveSink = null;
+        }
+    }
+
+    /**
+     * Continues a search kept in {@code workspace} towards a possibly different goal, for
+     * {@link IncrementalPathFinder}. Closed nodes keep their cost from this finder's start,
+     * only the open fringe is re-keyed for the new goal; an empty workspace starts fresh.
+     */
+    List<BlockPos> resumeRawPath(SearchWorkspace workspace, BlockPos goal) {
+        beginStats();
+        if (!blocks.isWithinBounds(goal)) {
+            searchStatus = SearchStats.Status.OUT_OF_BOUNDS;
+            finishStats(null);
             return null;
         }
 
-        // Nodes to explore and the ones already explored
-        PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(Node::getF));
-        HashSet<BlockPos> closedSet = new HashSet<>();
+        this.workspace = workspace;
+        goalX = goal.getX();
+        goalY = goal.getY();
+        goalZ = goal.getZ();
+        List<BlockPos> rawPath = null;
+        try {
+            long goalKey = goal.asLong();
+            if (workspace.nodes.size() == 0) {
+                rawPath = search(start.asLong(), goalKey);
+                return rawPath;
+            }
+
+            // Reached while searching for an earlier goal
+            int goalNode = workspace.index.get(goalKey);
+            if (goalNode != LongIndexMap.MISSING && workspace.nodes.isClosed(goalNode)) {
+                searchStatus = SearchStats.Status.FOUND;
+                rawPath = reconstructPath(goalNode);
+                return rawPath;
+            }
+
+            NodePool nodes = workspace.nodes;
+            workspace.open.rekey(node -> {
+                long key = nodes.position(node);
+                return nodes.cost(node) + estimateDistance(BlockPos.unpackLongX(key), BlockPos.unpackLongY(key), BlockPos.unpackLongZ(key));
+            });
+            rawPath = runSearch(goalKey);
+            return rawPath;
+        } finally {
+            this.workspace = null;
+            finishStats(rawPath);
+        }
+    }
 
+    private List<BlockPos> search(long startKey, long goalKey) {
         // Start node
-        Node startNode = new Node(start, 0, estimateDistance(start, goal));
-        openSet.add(startNode);
+        int startNode = workspace.nodes.add(startKey, 0.0, NodePool.NO_PARENT);
+        workspace.index.put(startKey, startNode);
+        workspace.open.insert(startNode, estimateDistance(BlockPos.unpackLongX(startKey), BlockPos.unpackLongY(startKey), BlockPos.unpackLongZ(startKey)));
+        return runSearch(goalKey);
+    }
+
+    private List<BlockPos> runSearch(long goalKey) {
+        NodePool nodes = workspace.nodes;
+        IndexedMinHeap openSet = workspace.open;
 
         int iterations = 0;
-        int nodesExpanded = 0;
+        int closedCount = 0;
 
         // Path finding loop
         while (!openSet.isEmpty()) {
             iterations++;
 
+            // Planning service cancels a search by interrupting its worker
+            if ((iterations & 255) == 0 && Thread.currentThread().isInterrupted()) {
+                searchStatus = SearchStats.Status.CANCELLED;
+                return null;
+            }
+
             // Check if we've explored too many nodes
-            if (closedSet.size() > MAX_PATH_LENGTH) {
-                LOGGER.debug("Path search aborted - exceeded maximum path length ({} nodes explored)", MAX_PATH_LENGTH);
+            if (closedCount > MAX_PATH_LENGTH) {
+                searchStatus = SearchStats.Status.OUT_OF_BUDGET;
                 return null; // Path too long, abort
             }
 
-            Node current = openSet.poll();
-            nodesExpanded++;
+            int current = openSet.poll();
+            long currentKey = nodes.position(current);
+            if (anyAngle) confirmParent(current);
 
             // Check if goal is found
-            if (current.getPos().equals(goal)) {
-                List<BlockPos> rawPath = reconstructPath(current);
-                List<Vec3d> simplifiedPath = simplifyPath(rawPath);
-                List<Vec3d> curvedPath = postProcessCorners(simplifiedPath);
-                LOGGER.info("Simplified path from {} to {} nodes", rawPath.size(), curvedPath.size());
-                return curvedPath;
+            if (currentKey == goalKey) {
+                searchStatus = SearchStats.Status.FOUND;
+                return reconstructPath(current);
             }
 
-            closedSet.add(current.getPos());
+            nodes.close(current);
+            closedCount++;
 
-            // Explore 8 planar neighbors (N, NE, E, SE, S, SW, W, NW)
-            int validNeighbors = 0;
-            // Explore 8 planar neighbors (N, NE, E, SE, S, SW, W, NW)
-            // int validNeighbors = 0; // validNeighbors is incremented when a node is actually added
-            // Offsets for the 8 directions in XZ plane
-            int[] dx = {  0,  1,  1,  1,  0, -1, -1, -1 };
-            int[] dz = {  1,  1,  0, -1, -1, -1,  0,  1 };
+            expand(current, BlockPos.unpackLongX(currentKey), BlockPos.unpackLongY(currentKey), BlockPos.unpackLongZ(currentKey));
+        }
 
-            for (int i = 0; i < 8; i++) {
-                BlockPos horizPos = current.getPos().add(dx[i], 0, dz[i]);
-
-                if (!cache.isWithinCacheBounds(horizPos)) continue;
-
-                // Corner-cut prevention for the step from current.getPos() to horizPos.
-                // This gates whether horizPos (and candidates derived from it) are even considered.
-                if (Math.abs(dx[i]) == 1 && Math.abs(dz[i]) == 1) {
-                    BlockPos sideA = current.getPos().add(dx[i], 0, 0);
-                    BlockPos sideB = current.getPos().add(0, 0, dz[i]);
-                    boolean sideAClear = isLadder(sideA) ? isSpaceClearForLadder(sideA) : isSpaceClear(sideA);
-                    boolean sideBClear = isLadder(sideB) ? isSpaceClearForLadder(sideB) : isSpaceClear(sideB);
-                    if (!sideAClear || !sideBClear) {
-                        LOGGER.trace("Corner cut failed for horizPos {} from {}", horizPos, current.getPos());
-                        continue; // Skip this horizPos entirely
-                    }
-                }
+        return null; // No path found, searchStatus is still NO_PATH
+    }
 
-                // Option 1: Consider ground found by findGroundBelow(horizPos)
-                BlockPos groundCandidate = findGroundBelow(horizPos);
-                if (groundCandidate != null) {
-                    if (!closedSet.contains(groundCandidate)) {
-                        boolean canMoveToGroundCandidate = true;
-                        // Headspace check for jump/drop: if horizPos is stepped through to reach groundCandidate
-                        // This check is important if horizPos itself isn't the final destination but an intermediate air block for a jump/drop.
-                        if (!isLadder(groundCandidate) && !isSpaceClear(horizPos.up())) {
-                            LOGGER.trace("Headspace blocked at {}.up for move to groundCandidate {}", horizPos, groundCandidate);
-                            canMoveToGroundCandidate = false;
-                        }
-                        // Target space clearance
-                        if (canMoveToGroundCandidate) {
-                            if (isLadder(groundCandidate) ? !isSpaceClearForLadder(groundCandidate) : !isSpaceClear(groundCandidate)) {
-                                LOGGER.trace("Target space {} not clear for groundCandidate {}", groundCandidate, (isLadder(groundCandidate) ? "(ladder)" : "(normal)"));
-                                canMoveToGroundCandidate = false;
-                            }
-                        }
+    /** Pushes every move reachable from the node at (x, y, z) through {@link #relax}. */
+    private void expand(int current, int x, int y, int z) {
+        double g = workspace.nodes.cost(current);
+        expandedCount++;
 
-                        if (canMoveToGroundCandidate) {
-                            double tentativeG = current.getG() + movementCost(current.getPos(), groundCandidate);
-                            if (!gScore.containsKey(groundCandidate) || tentativeG < gScore.get(groundCandidate)) {
-                                gScore.put(groundCandidate, tentativeG);
-                                openSet.add(new Node(groundCandidate, tentativeG, estimateDistance(groundCandidate, goal), current));
-                                validNeighbors++; // Incremented because a valid node option was found and added
-                                LOGGER.trace("Added groundCandidate {} from {} via horizPos {}", groundCandidate, current.getPos(), horizPos);
-                            }
-                        }
-                    }
-                }
+        // Explore 8 planar neighbors (N, NE, E, SE, S, SW, W, NW)
+        for (int i = 0; i < 8; i++) {
+            int hx = x + DX[i];
+            int hz = z + DZ[i];
 
-                // Option 2: Consider horizPos itself if it's an air block above a ladder.
-                // This allows stepping onto the spot right above a ladder to initiate a climb down.
-                BlockState horizState = cache.getBlockState(horizPos);
-                if (horizState != null && horizState.isAir()) {
-                    BlockPos belowHoriz = horizPos.down();
-                    // Check if horizPos is a suitable air block to step into for climbing down a ladder
-                    if (isLadder(belowHoriz) && isSpaceClearForLadder(horizPos)) {
-                        BlockPos airAboveLadderCandidate = horizPos; // This is horizPos itself
-
-                        if (!closedSet.contains(airAboveLadderCandidate)) {
-                            // isSpaceClearForLadder(airAboveLadderCandidate) is already confirmed true
-                            double tentativeG = current.getG() + movementCost(current.getPos(), airAboveLadderCandidate);
-                            if (!gScore.containsKey(airAboveLadderCandidate) || tentativeG < gScore.get(airAboveLadderCandidate)) {
-                                gScore.put(airAboveLadderCandidate, tentativeG);
-                                openSet.add(new Node(airAboveLadderCandidate, tentativeG, estimateDistance(airAboveLadderCandidate, goal), current));
-                                validNeighbors++; // Incremented because a valid node option was found and added
-                                LOGGER.trace("Added airAboveLadderCandidate {} from {}", airAboveLadderCandidate, current.getPos());
-                            }
-                        }
-                    }
+            if (!blocks.isWithinBounds(hx, hz)) continue;
+
+            // Corner-cut prevention: both orthogonal blocks of a diagonal step must be passable.
+            // This gates whether (hx, hz) and candidates derived from it are even considered.
+            if (DX[i] != 0 && DZ[i] != 0) {
+                if (!isPassable(x + DX[i], y, z) || !isPassable(x, y, z + DZ[i])) {
+                    continue; // Skip this horizontal position entirely
                 }
             }
 
-            // Consider jumping up one block if possible
-            BlockPos upPos = current.getPos().up();
-            if (cache.isWithinCacheBounds(upPos) && !closedSet.contains(upPos)) {
-                // Can only jump up from a solid block
-                BlockState currentBlockStateBelow = cache.getBlockState(current.getPos().down());
-                if (canJumpFrom(currentBlockStateBelow)) {
-                    // Check if space above is clear for jumping
-                    if (isSpaceClear(upPos)) {
-                        validNeighbors++;
-                        double jumpIncrement = movementCost(current.getPos(), upPos);
-                        double jumpCost      = current.getG() + jumpIncrement;
-                        openSet.add(new Node(upPos, jumpCost, estimateDistance(upPos, goal), current));
-                    } else {
-                        LOGGER.debug("Can't jump up at {} - space not clear", current.getPos());
-                    }
-                } else {
-                    LOGGER.debug("Can't jump up at {} - not standing on solid block", current.getPos());
+            // Option 1: Consider ground found by findGroundBelow
+            int groundY = findGroundBelow(hx, y, hz);
+            if (groundY != NO_GROUND) {
+                // Headspace for a jump/drop stepped through the horizontal position, then target clearance
+                boolean headspace = isLadder(hx, groundY, hz) || isSpaceClear(hx, y + 1, hz);
+                if (headspace && isPassable(hx, groundY, hz)) {
+                    relax(current, hx, groundY, hz, g + movementCost(x, y, z, hx, groundY, hz));
                 }
             }
 
-            // Consider climbing ladders
-            BlockPos currentPos = current.getPos();
-            // BlockState currentBlockState = cache.getBlockState(currentPos); // Already fetched if needed for climbDown
-
-            // Climbing Up a Ladder
-            if (isLadder(currentPos)) { // Current position is a ladder
-                BlockPos ladderUp = currentPos.up(); // Potential next position (feet)
-
-                if (cache.isWithinCacheBounds(ladderUp) && !closedSet.contains(ladderUp)) {
-                    BlockState ladderUpState = cache.getBlockState(ladderUp);
-                    if (ladderUpState != null) { // Ensure block state is available
-                        // To climb to ladderUp:
-                        // 1. ladderUp must itself be a ladder block or an air block (for exiting).
-                        // 2. The 2-block high space for the player, if their feet were at ladderUp, must be clear in a ladder context.
-                        if ((isLadder(ladderUp) || ladderUpState.isAir()) && isSpaceClearForLadder(ladderUp)) {
-                            validNeighbors++;
-                            double climbCost = current.getG() + movementCost(currentPos, ladderUp);
-                            if (!gScore.containsKey(ladderUp) || climbCost < gScore.get(ladderUp)) {
-                                gScore.put(ladderUp, climbCost);
-                                openSet.add(new Node(ladderUp, climbCost, estimateDistance(ladderUp, goal), current));
-                                LOGGER.debug("Added ladder climb up option from {} to {}", currentPos, ladderUp);
-                            }
-                        } else {
-                            LOGGER.debug("Cannot climb up from {} to {}: target block type or space for entity not suitable for ladder.", currentPos, ladderUp);
-                        }
-                    }
-                }
+            // Option 2: Consider the horizontal position itself if it's an air block above a ladder.
+            // This allows stepping onto the spot right above a ladder to initiate a climb down.
+            if (MovementFlags.has(flags(hx, y, hz), MovementFlags.AIR)
+                    && isLadder(hx, y - 1, hz) && isSpaceClearForLadder(hx, y, hz)) {
+                relax(current, hx, y, hz, g + movementCost(x, y, z, hx, y, hz));
             }
+        }
 
-            // Climbing Down a Ladder (ensure currentBlockState is fetched if not already)
-            BlockState currentBlockState = cache.getBlockState(currentPos); // Moved here or ensure it's available
-            BlockPos ladderDown = currentPos.down();
-            if (cache.isWithinCacheBounds(ladderDown) && !closedSet.contains(ladderDown)) {
-                boolean canClimbDown = false;
-                if (isLadder(ladderDown) && isSpaceClearForLadder(currentPos) && (isLadder(currentPos) || (currentBlockState != null && currentBlockState.isAir()))) {
-                    canClimbDown = true;
-                }
+        // Consider jumping up one block, only from solid footing and with the space above clear
+        if (canJumpFrom(x, y - 1, z) && isSpaceClear(x, y + 1, z)) {
+            relax(current, x, y + 1, z, g + movementCost(x, y, z, x, y + 1, z));
+        }
 
-                if (canClimbDown) {
-                    validNeighbors++;
-                    double climbCost = current.getG() + movementCost(currentPos, ladderDown);
-                    if (!gScore.containsKey(ladderDown) || climbCost < gScore.get(ladderDown)) {
-                        gScore.put(ladderDown, climbCost);
-                        openSet.add(new Node(ladderDown, climbCost, estimateDistance(ladderDown, goal), current));
-                        LOGGER.debug("Added ladder climb down option from {} to {}", currentPos, ladderDown);
-                    }
+        // Climbing Up a Ladder: the block above must be ladder or air (for exiting) with room for the player
+        boolean onLadder = isLadder(x, y, z);
+        if (onLadder && MovementFlags.has(flags(x, y + 1, z), MovementFlags.LADDER | MovementFlags.AIR)
+                && isSpaceClearForLadder(x, y + 1, z)) {
+            relax(current, x, y + 1, z, g + movementCost(x, y, z, x, y + 1, z));
+        }
+
+        // Climbing Down a Ladder, from inside a ladder or from the air block above one
+        if (isLadder(x, y - 1, z) && isSpaceClearForLadder(x, y, z)
+                && MovementFlags.has(flags(x, y, z), MovementFlags.LADDER | MovementFlags.AIR)) {
+            relax(current, x, y - 1, z, g + movementCost(x, y, z, x, y - 1, z));
+        }
+
+        // Consider "ladder-top-hop": stepping onto the air above a ladder top that is one block
+        // short of a ledge. The hop itself is the regular jump up once that node is expanded,
+        // canJumpFrom treats the ladder below as something to jump from.
+        if (!onLadder && canJumpFrom(x, y - 1, z)) {
+            for (int i = 0; i < 8; i++) {
+                int lx = x + DX[i];
+                int lz = z + DZ[i];
+
+                if (!isLadder(lx, y - 1, lz) || !isSpaceClearForLadder(lx, y, lz)) {
+                    continue; // Not a ladder top the player fits above
                 }
-            }
 
-            // ... (after regular ladder climbing logic)
+                // Only worth it when the hop destination above is open
+                if (workspace.isClosed(BlockPos.asLong(lx, y + 1, lz)) || !isSpaceClear(lx, y + 1, lz)) {
+                    continue;
+                }
 
-            // Consider "ladder-top-hop": jumping/stepping onto the top of a ladder
-            // and then immediately considering a jump up from there.
-            // This is for when a ladder is one block short of a ledge.
-            if (!isLadder(currentPos) && canJumpFrom(cache.getBlockState(currentPos.down()))) { // Must be on solid ground to initiate this
-                for (int i = 0; i < 8; i++) { // Check horizontal neighbors for a ladder top
-                    BlockPos ladderTopCandidatePos = current.getPos().add(dx[i], 0, dz[i]); // Horizontal position
-                    BlockPos ladderBlockBelow = ladderTopCandidatePos.down(); // The ladder block itself
+                relax(current, lx, y, lz, g + movementCost(x, y, z, lx, y, lz));
+            }
+        }
+    }
 
-                    if (!cache.isWithinCacheBounds(ladderBlockBelow) || !isLadder(ladderBlockBelow)) {
-                        continue; // Not a ladder below the horizontal candidate
-                    }
+    /**
+     * Opens (x, y, z) with cost {@code g}, or lowers its cost if it is already open.
+     * Closed nodes are never reopened; an anytime search remembers them for its next pass.
+     * In any-angle mode the grandparent is tried as a cheaper parent first. While exploring
+     * moves, the move is only reported.
+     */
+    private void relax(int parent, int x, int y, int z, double g) {
+        long key = BlockPos.asLong(x, y, z);
+        int node = workspace.index.get(key);
+
+        if (moveSink != null) {
+            moveSink.move(workspace.nodes.position(parent), key, g);
+            if (node == LongIndexMap.MISSING) {
+                workspace.index.put(key, workspace.nodes.add(key, 0.0, NodePool.NO_PARENT));
+            }
+            return;
+        }
 
-                    // ladderTopCandidatePos is the air block directly above the ladderBlockBelow.
-                    // Check if we can "land" or be at ladderTopCandidatePos (the air block above the ladder)
-                    // For this specific maneuver, the "standing" spot is effectively the top edge of ladderBlockBelow.
-                    // The entity's feet would be in ladderTopCandidatePos.
-                    if (isSpaceClearForLadder(ladderTopCandidatePos)) { // Can the player occupy this air space above the ladder?
-
-                        // Now, from this ladderTopCandidatePos (air above ladder), can we jump one block up?
-                        BlockPos jumpTargetPos = ladderTopCandidatePos.up();
-                        BlockPos surfaceBelowJumpTarget = jumpTargetPos.down(); // This should be ladderTopCandidatePos
-
-                        if (cache.isWithinCacheBounds(jumpTargetPos) && !closedSet.contains(jumpTargetPos) &&
-                                isSpaceClear(jumpTargetPos)) { // Standard space clear for the jump destination
-
-                            // The "jump from" surface is effectively the top of the ladder (ladderBlockBelow).
-                            // We don't need a canJumpFrom() check here in the traditional sense,
-                            // as the ability to be at ladderTopCandidatePos implies we can initiate a jump.
-
-                            // Cost: cost to move to ladderTopCandidatePos + cost to jump to jumpTargetPos
-                            double costToLadderAir = movementCost(current.getPos(), ladderTopCandidatePos);
-                            double costToJump = movementCost(ladderTopCandidatePos, jumpTargetPos);
-                            double tentativeG = current.getG() + costToLadderAir + costToJump;
-
-                            if (!gScore.containsKey(jumpTargetPos) || tentativeG < gScore.get(jumpTargetPos)) {
-                                // We need an intermediate node for the path reconstruction to make sense,
-                                // or we need to ensure the path simplifier can handle this.
-                                // For A*, it's better to add the actual sequence.
-
-                                // Create a temporary parent node representing being on top of the ladder
-                                // This node won't be added to openSet directly but used as parent for jumpTargetPos
-                                Node ladderAirNode = new Node(ladderTopCandidatePos, current.getG() + costToLadderAir, estimateDistance(ladderTopCandidatePos, goal), current);
-
-                                gScore.put(jumpTargetPos, tentativeG);
-                                // The parent of jumpTargetPos should be the conceptual node of being at ladderTopCandidatePos
-                                // For simplicity in A*, we can add ladderTopCandidatePos first if it's not already optimally reached,
-                                // and then from ladderTopCandidatePos, the jumpTargetPos would be a natural jump.
-
-                                // Let's try adding ladderTopCandidatePos first, then the jump will be handled when it becomes current.
-                                // This is cleaner for A*.
-                                double gScoreLadderAir = current.getG() + costToLadderAir;
-                                if(!closedSet.contains(ladderTopCandidatePos) && (!gScore.containsKey(ladderTopCandidatePos) || gScoreLadderAir < gScore.get(ladderTopCandidatePos))) {
-                                    gScore.put(ladderTopCandidatePos, gScoreLadderAir);
-                                    openSet.add(new Node(ladderTopCandidatePos, gScoreLadderAir, estimateDistance(ladderTopCandidatePos, goal), current));
-                                    validNeighbors++;
-                                    LOGGER.debug("Added ladder-top-air candidate {} for potential hop from {}", ladderTopCandidatePos, current.getPos());
-                                }
-                                // The jump from ladderTopCandidatePos to jumpTargetPos will be handled
-                                // when ladderTopCandidatePos is processed from the openSet, via the standard "jump up" logic,
-                                // provided canJumpFrom() can be true when standing in air above a ladder.
-
-                                // To make the jump from air above ladder work with current canJumpFrom:
-                                // We need to ensure that when currentPos is ladderTopCandidatePos,
-                                // currentPos.down() (which is ladderBlockBelow) is seen as something jumpable.
-                                // Let's modify canJumpFrom slightly.
-                            }
-                        }
+        int via = parent;
+        double viaCost = g;
+        if (anyAngle) {
+            int grandparent = workspace.nodes.parent(parent);
+            if (grandparent != NodePool.NO_PARENT) {
+                long grandparentKey = workspace.nodes.position(grandparent);
+                // Flat stretches only, the line of sight can't follow steps, drops or ladders
+                if (BlockPos.unpackLongY(grandparentKey) == y && BlockPos.unpackLongY(workspace.nodes.position(parent)) == y) {
+                    double shortcut = workspace.nodes.cost(grandparent)
+                            + distance(BlockPos.unpackLongX(grandparentKey), y, BlockPos.unpackLongZ(grandparentKey), x, y, z);
+                    if (shortcut < g) {
+                        via = grandparent;
+                        viaCost = shortcut;
                     }
                 }
             }
+        }
 
-            if (validNeighbors == 0 && iterations % 100 == 0) {
-                LOGGER.debug("No valid neighbors for position {} after {} iterations", current.getPos(), iterations);
+        if (node == LongIndexMap.MISSING) {
+            node = workspace.nodes.add(key, viaCost, via);
+            workspace.index.put(key, node);
+            if (via != parent) workspace.nodes.updateFallback(node, g, parent);
+            workspace.open.insert(node, viaCost + heuristicWeight * estimateDistance(x, y, z));
+            if (workspace.open.size() > openPeak) openPeak = workspace.open.size();
+            return;
+        }
+
+        if (anyAngle && g < workspace.nodes.fallbackCost(node)) {
+            workspace.nodes.updateFallback(node, g, parent);
+        }
+        if (!workspace.nodes.isClosed(node) && viaCost < workspace.nodes.cost(node)) {
+            workspace.nodes.update(node, viaCost, via);
+            if (workspace.open.contains(node)) {
+                workspace.open.decreaseKey(node, viaCost + heuristicWeight * estimateDistance(x, y, z));
+            } else {
+                // Dropped by an incremental repair, or an anytime goal waiting for a cheaper path
+                workspace.open.insert(node, viaCost + heuristicWeight * estimateDistance(x, y, z));
+                if (workspace.open.size() > openPeak) openPeak = workspace.open.size();
+                reopenedCount++;
+            }
+        } else if (improvedClosed != null && viaCost < workspace.nodes.cost(node)) {
+            workspace.nodes.update(node, viaCost, via);
+            if (improvedClosedCount == improvedClosed.length) {
+                improvedClosed = Arrays.copyOf(improvedClosed, improvedClosedCount * 2);
             }
+            improvedClosed[improvedClosedCount++] = node;
+        }
+    }
 
-            if (iterations % 1000 == 0) {
-                LOGGER.debug("Pathfinding in progress - {} iterations, {} nodes in closed set, {} nodes in open set",
-                        iterations, closedSet.size(), openSet.size());
+    // Lazy Theta*: a shortcut parent was taken on trust when the node was opened. Check the line
+    // now, before the node is expanded, and fall back to the cheapest plain move if it is blocked.
+    private void confirmParent(int node) {
+        NodePool nodes = workspace.nodes;
+        int parent = nodes.parent(node);
+        if (parent == nodes.fallbackParent(node)) return; // Reached by a plain move, nothing to check
+        if (!hasFlatLineOfSight(nodes.position(parent), nodes.position(node))) {
+            nodes.update(node, nodes.fallbackCost(node), nodes.fallbackParent(node));
+        }
+    }
+
+    /**
+     * Whether a straight walk between two blocks on the same level stays on flat ground: every
+     * block the line crosses, and both side blocks where it passes exactly through a corner.
+     * Walks the line on integers, cell centre to cell centre, without allocating.
+     */
+    private boolean hasFlatLineOfSight(long from, long to) {
+        int x = BlockPos.unpackLongX(from), y = BlockPos.unpackLongY(from), z = BlockPos.unpackLongZ(from);
+        int dx = BlockPos.unpackLongX(to) - x, dz = BlockPos.unpackLongZ(to) - z;
+        int stepX = Integer.signum(dx), stepZ = Integer.signum(dz);
+        int lengthX = Math.abs(dx), lengthZ = Math.abs(dz);
+
+        for (int ix = 0, iz = 0; ix < lengthX || iz < lengthZ; ) {
+            // Sign of (ix + 0.5) / lengthX - (iz + 0.5) / lengthZ: which border the line crosses next
+            long next = (long) (2 * ix + 1) * lengthZ - (long) (2 * iz + 1) * lengthX;
+            if (next == 0) {
+                if (!isFlatWalkable(x + stepX, y, z) || !isFlatWalkable(x, y, z + stepZ)) return false;
+                x += stepX;
+                z += stepZ;
+                ix++;
+                iz++;
+            } else if (next < 0) {
+                x += stepX;
+                ix++;
+            } else {
+                z += stepZ;
+                iz++;
             }
+            if (!isFlatWalkable(x, y, z)) return false;
         }
+        return true;
+    }
+
+    // Standing room on flat ground that the raycast in simplifyPath also accepts; no ladders
+    private boolean isFlatWalkable(int x, int y, int z) {
+        if (!isSpaceClear(x, y, z) || isLadder(x, y, z)) return false;
+        int below = flags(x, y - 1, z);
+        return MovementFlags.has(below, MovementFlags.FLOOR) && MovementFlags.has(below, MovementFlags.GROUND);
+    }
 
-        LOGGER.warn("No path found after {} iterations, {} nodes expanded", iterations, nodesExpanded);
-        return null; // No path found
+    // Space an entity with its feet at the position needs, in a ladder context if it is a ladder
+    private boolean isPassable(int x, int y, int z) {
+        return isLadder(x, y, z) ? isSpaceClearForLadder(x, y, z) : isSpaceClear(x, y, z);
     }
 
     // New helper method to check if a block is a ladder
     private boolean isLadder(BlockPos pos) {
-        if (!cache.isWithinCacheBounds(pos)) return false;
-        BlockState state = cache.getBlockState(pos);
-        return state != null && state.getBlock() instanceof LadderBlock;
+        return isLadder(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    private boolean isLadder(int x, int y, int z) {
+        return blocks.isWithinBounds(x, z) && MovementFlags.has(flags(x, y, z), MovementFlags.LADDER);
     }
 
     // New helper method to check if space is clear for ladder movement
     // The entity is considered to be "inside" the ladder block or the air block it steps into.
     // This checks if an entity with feet at 'pos' has clearance for both feet and head in a ladder context.
     private boolean isSpaceClearForLadder(BlockPos pos) {
-        // Check if the entity's feet position (pos) is valid for being on a ladder
-        if (!cache.isWithinCacheBounds(pos)) {
-            LOGGER.debug("Position (isSpaceClearForLadder feet) {} is outside cache bounds", pos);
-            return false;
-        }
-        BlockState blockAtFeet = cache.getBlockState(pos);
-        if (blockAtFeet == null) {
-            LOGGER.debug("Missing block state at {} (feet) for ladder check", pos);
-            return false;
-        }
-
-        // Feet must be in a ladder block or an air block (e.g., when moving into an empty ladder column space or stepping off)
-        boolean feetOk = blockAtFeet.getBlock() instanceof LadderBlock || blockAtFeet.isAir();
-        if (!feetOk) {
-            LOGGER.debug("Space not clear for ladder at {} (feet): block is {} - not ladder or air", pos, blockAtFeet);
-            return false;
-        }
-
-        // Check if the entity's head position (pos.up()) is also valid for being on a ladder
-        BlockPos headPos = pos.up();
-        if (!cache.isWithinCacheBounds(headPos)) {
-            LOGGER.debug("Position (isSpaceClearForLadder head) {} is outside cache bounds", headPos);
-            return false;
-        }
-        BlockState blockAtHead = cache.getBlockState(headPos);
-        if (blockAtHead == null) {
-            LOGGER.debug("Missing block state at {} (head) for ladder check", headPos);
-            return false;
-        }
+        return isSpaceClearForLadder(pos.getX(), pos.getY(), pos.getZ());
+    }
 
-        // Head must also be in a ladder block or an air block.
-        boolean headOk = blockAtHead.isAir() || blockAtHead.getBlock() instanceof LadderBlock;
-        if (!headOk) {
-            LOGGER.debug("Space not clear for ladder at {} (head): block is {} - not air or ladder", headPos, blockAtHead);
-            return false;
-        }
+    private boolean isSpaceClearForLadder(int x, int y, int z) {
+        if (!blocks.isWithinBounds(x, z)) return false;
 
-        return true; // Both feet and head positions are suitable for an entity at 'pos' on a ladder.
+        // Feet and head must each be in a ladder block or an air block
+        // (e.g., when moving into an empty ladder column space or stepping off)
+        return MovementFlags.has(flags(x, y, z), MovementFlags.LADDER | MovementFlags.AIR)
+                && MovementFlags.has(flags(x, y + 1, z), MovementFlags.LADDER | MovementFlags.AIR);
     }
 
     public List<Vec3d> simplifyPath(List<BlockPos> rawPath) {
@@ -424,9 +808,6 @@ public class PathFinder {
                 numChops = (int) Math.ceil(fullSegmentManhattanDistance / MAX_SEGMENT_LENGTH); // Assign value
                 if (numChops <= 1) numChops = 2; // Ensure at least one chop if over limit and numChops calculated as 1
 
-                LOGGER.debug("Chopping segment from {} to {} (Manhattan dist: {}) into {} sub-segments.",
-                        segmentStartBlockPos, segmentEndBlockPos, fullSegmentManhattanDistance, numChops);
-
                 for (int chop = 1; chop < numChops; chop++) { // Iterate to add numChops-1 intermediate points
                     double t = (double) chop / numChops;
                     Vec3d intermediatePoint = segmentStartVec.lerp(segmentEndVec, t);
@@ -586,13 +967,165 @@ public class PathFinder {
         return simplified;
     }
 
+    /**
+     * Smoothed and annotated waypoints for a raw path found elsewhere, like a search result.
+     */
+    public PathResult smoothRawPath(List<BlockPos> rawPath) {
+        return toResult(rawPath, false);
+    }
+
+    private PathResult toResult(List<BlockPos> rawPath, boolean partial) {
+        rawPath = fillShortcuts(rawPath);
+        List<Vec3d> waypoints = postProcessCorners(simplifyPath(rawPath));
+        int[] annotations = annotate(rawPath, waypoints);
+        return partial
+                ? PathResult.partial(waypoints, rawPath.getLast(), rawPath.size(), annotations)
+                : PathResult.complete(waypoints, rawPath.getLast(), rawPath.size(), annotations);
+    }
+
+    /**
+     * An any-angle search keeps only the ends of a shortcut. Puts back the blocks its line walks
+     * over, the same ones {@link #hasFlatLineOfSight} checked, so that {@link #blockNotes} looks
+     * beside the whole stretch and not just its ends. A path without shortcuts is returned as it is.
+     */
+    private static List<BlockPos> fillShortcuts(List<BlockPos> rawPath) {
+        List<BlockPos> filled = null;
+        for (int k = 1; k < rawPath.size(); k++) {
+            BlockPos from = rawPath.get(k - 1), to = rawPath.get(k);
+            int dx = to.getX() - from.getX(), dz = to.getZ() - from.getZ();
+            boolean shortcut = from.getY() == to.getY() && Math.max(Math.abs(dx), Math.abs(dz)) > 1;
+            if (shortcut && filled == null) {
+                filled = new ArrayList<>(rawPath.subList(0, k));
+            }
+            if (filled == null) continue;
+
+            if (shortcut) {
+                int x = from.getX(), y = from.getY(), z = from.getZ();
+                int stepX = Integer.signum(dx), stepZ = Integer.signum(dz);
+                int lengthX = Math.abs(dx), lengthZ = Math.abs(dz);
+                for (int ix = 0, iz = 0; ; ) {
+                    // Same walk as hasFlatLineOfSight: which border the line crosses next
+                    long next = (long) (2 * ix + 1) * lengthZ - (long) (2 * iz + 1) * lengthX;
+                    if (next <= 0) {
+                        x += stepX;
+                        ix++;
+                    }
+                    if (next >= 0) {
+                        z += stepZ;
+                        iz++;
+                    }
+                    if (ix >= lengthX && iz >= lengthZ) break; // Reached the end, added below
+                    filled.add(new BlockPos(x, y, z));
+                }
+            }
+            filled.add(to);
+        }
+        return filled != null ? filled : rawPath;
+    }
+
+    /**
+     * {@link CompactPath} movement notes for each waypoint: what the raw path meets between the
+     * waypoint before and this one, and one block either side, since the follower switches to
+     * the next waypoint a step early. The blocks were read by the search, they are still cached.
+     */
+    private int[] annotate(List<BlockPos> rawPath, List<Vec3d> waypoints) {
+        int[] blockNotes = new int[rawPath.size()];
+        for (int k = 0; k < rawPath.size(); k++) {
+            blockNotes[k] = blockNotes(rawPath, k);
+        }
+
+        int[] annotations = new int[waypoints.size()];
+        int previous = 0; // Raw index of the waypoint before
+        for (int i = 0; i < waypoints.size(); i++) {
+            int index = nearestRawIndex(rawPath, waypoints.get(i), previous);
+            int from = Math.max(previous - 1, 0), to = Math.min(index + 1, rawPath.size() - 1);
+            for (int k = from; k <= to; k++) {
+                annotations[i] |= blockNotes[k];
+            }
+            previous = index;
+        }
+        return annotations;
+    }
+
+    // Raw path index closest to a waypoint, searching forward from the waypoint before's
+    private static int nearestRawIndex(List<BlockPos> rawPath, Vec3d waypoint, int from) {
+        int best = from;
+        double bestSq = Double.MAX_VALUE;
+        for (int k = from; k < rawPath.size(); k++) {
+            BlockPos pos = rawPath.get(k);
+            double dx = pos.getX() + 0.5 - waypoint.x, dy = pos.getY() + 0.5 - waypoint.y, dz = pos.getZ() + 0.5 - waypoint.z;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (distanceSq < bestSq) {
+                best = k;
+                bestSq = distanceSq;
+            } else if (distanceSq > bestSq + 16) {
+                break; // Walking away from it again
+            }
+        }
+        return best;
+    }
+
+    // What moving into raw path block k and standing there involves
+    private int blockNotes(List<BlockPos> rawPath, int k) {
+        BlockPos pos = rawPath.get(k);
+        int x = pos.getX(), y = pos.getY(), z = pos.getZ();
+        int notes = 0;
+
+        if (isLadder(x, y, z)) {
+            notes |= CompactPath.LADDER;
+        }
+        if (k > 0) {
+            BlockPos prev = rawPath.get(k - 1);
+            if (y > prev.getY() && !isLadder(x, y, z) && !isLadder(prev)) {
+                notes |= CompactPath.JUMP;
+            } else if (prev.getY() - y >= 2 && !isLadder(prev)) {
+                notes |= CompactPath.DROP;
+            }
+        }
+
+        // Sides off the path: a wall at feet or head height, or open air down to a cliff
+        int walls = 0;
+        for (int d = 0; d < DX.length; d += 2) { // Straight neighbours only
+            int sx = x + DX[d], sz = z + DZ[d];
+            if (isOnPath(rawPath, k - 1, sx, sz) || isOnPath(rawPath, k + 1, sx, sz)) continue;
+            int feet = blocks.getFlags(sx, y, sz);
+            if (!MovementFlags.has(feet, MovementFlags.FEET) || !MovementFlags.has(blocks.getFlags(sx, y + 1, sz), MovementFlags.HEAD)) {
+                walls++;
+            } else if (isCliff(sx, y, sz)) {
+                notes |= CompactPath.PRECISE;
+            }
+        }
+        if (walls > 0) {
+            notes |= CompactPath.PRECISE;
+        }
+        if (walls >= 2) {
+            notes |= CompactPath.NARROW;
+        }
+        return notes;
+    }
+
+    private static boolean isOnPath(List<BlockPos> rawPath, int k, int x, int z) {
+        return k >= 0 && k < rawPath.size() && rawPath.get(k).getX() == x && rawPath.get(k).getZ() == z;
+    }
+
+    // Nothing to stand on within CLIFF_DEPTH below a free block beside the path
+    private boolean isCliff(int x, int y, int z) {
+        for (int d = 1; d <= CLIFF_DEPTH; d++) {
+            int flags = blocks.getFlags(x, y - d, z);
+            if (flags == 0 || MovementFlags.has(flags, MovementFlags.FLOOR | MovementFlags.LADDER)) {
+                return false; // Ground, or unknown
+            }
+        }
+        return true;
+    }
+
     /**
      * Convert BlockPos to Vec3d, centering within the block.
      * @param pos The current BlockPos to convert.
      * @param prevPos The previous BlockPos in the path, or null if this is the start.
      */
     private Vec3d toVec3(BlockPos pos, BlockPos prevPos) {
-        BlockState state = cache.getBlockState(pos);
+        BlockState state = blocks.getBlockState(pos);
         double x = pos.getX() + 0.5;
         double y = pos.getY() + 0.5;
         double z = pos.getZ() + 0.5;
@@ -613,7 +1146,7 @@ public class PathFinder {
             aligned = true;
         } else if (state != null && state.isAir()) {
             // Current block is air. Check context for ladder alignment.
-            BlockState prevBlockState = (prevPos != null) ? cache.getBlockState(prevPos) : null;
+            BlockState prevBlockState = (prevPos != null) ? blocks.getBlockState(prevPos) : null;
 
             if (prevPos != null && prevBlockState != null && prevBlockState.getBlock() instanceof LadderBlock) {
                 // Case 1: Previous was a ladder, current is air (exiting ladder upwards)
@@ -632,7 +1165,7 @@ public class PathFinder {
             } else {
                 // Case 2: Current is air, check if block BELOW is a ladder (preparing to climb down)
                 BlockPos belowPos = pos.down();
-                BlockState belowState = cache.getBlockState(belowPos);
+                BlockState belowState = blocks.getBlockState(belowPos);
                 if (belowState != null && belowState.getBlock() instanceof LadderBlock) {
                     Direction ladderFacing = belowState.get(LadderBlock.FACING);
                     double ladderDepthOffset = 0.4;
@@ -652,7 +1185,7 @@ public class PathFinder {
                     // This could be the second air block in a "ladder-top-hop" jump.
                     // Check if prevPos.down() was a ladder.
                     BlockPos belowPrevPos = prevPos.down();
-                    BlockState belowPrevState = cache.getBlockState(belowPrevPos);
+                    BlockState belowPrevState = blocks.getBlockState(belowPrevPos);
                     if (belowPrevState != null && belowPrevState.getBlock() instanceof LadderBlock) {
                         // Align with the ladder that was below the previous air block
                         Direction ladderFacing = belowPrevState.get(LadderBlock.FACING);
@@ -675,12 +1208,12 @@ public class PathFinder {
         // and that prevPos was aligned to a ladder, we might want to align 'pos' as well if it's directly above.
         // This handles the final landing block of the ladder-top-hop.
         else if (state != null && !state.isAir() && !(state.getBlock() instanceof LadderBlock) && prevPos != null) {
-            BlockState prevBlockState = cache.getBlockState(prevPos);
+            BlockState prevBlockState = blocks.getBlockState(prevPos);
             if (prevBlockState != null && prevBlockState.isAir() && pos.getY() == prevPos.getY() + 1 && pos.getX() == prevPos.getX() && pos.getZ() == prevPos.getZ()) {
                 // Current is solid, previous was air directly below current.
                 // Check if prevPos was aligned due to a ladder further below it.
                 BlockPos belowPrevPos = prevPos.down();
-                BlockState belowPrevState = cache.getBlockState(belowPrevPos);
+                BlockState belowPrevState = blocks.getBlockState(belowPrevPos);
                 if (belowPrevState != null && belowPrevState.getBlock() instanceof LadderBlock) {
                     // Align current 'pos' with the ladder that was below 'prevPos'
                     Direction ladderFacing = belowPrevState.get(LadderBlock.FACING);
@@ -705,7 +1238,7 @@ public class PathFinder {
      * Post-process waypoints to soften 90° corners by replacing the corner point
      * with a point offset from the corner in both directions.
      */
-    private List<Vec3d> postProcessCorners(List<Vec3d> path) {
+    public List<Vec3d> postProcessCorners(List<Vec3d> path) {
         if (path.size() < 3) return path;
         List<Vec3d> result = new ArrayList<>();
         result.add(path.getFirst());
@@ -725,7 +1258,7 @@ public class PathFinder {
             boolean currIsLadder = isLadder(currBlock);
             boolean prevIsLadder = isLadder(prevBlock);
             // Also check if curr is air directly above a ladder (prevBlock)
-            boolean currIsAirAboveLadder = currBlock.getY() == prevBlock.getY() + 1 && prevIsLadder && cache.getBlockState(currBlock).isAir();
+            boolean currIsAirAboveLadder = currBlock.getY() == prevBlock.getY() + 1 && prevIsLadder && MovementFlags.has(blocks.getFlags(currBlock), MovementFlags.AIR);
 
 
             if (currIsLadder || prevIsLadder || currIsAirAboveLadder) {
@@ -765,12 +1298,11 @@ public class PathFinder {
         for (int i = 0; i < line.size(); i++) {
             BlockPos pos = line.get(i);
             // Ensure position is within cached chunks
-            if (!cache.isWithinCacheBounds(pos)) {
+            if (!blocks.isWithinBounds(pos)) {
                 return false;
             }
 
-            BlockState blockState = cache.getBlockState(pos);
-            if (blockState == null) return false;
+            if (blocks.getFlags(pos) == 0) return false; // Not loaded
 
             if (isLadder(pos)) {
                 // For a ladder block to be "walkable" in a raycast,
@@ -780,19 +1312,19 @@ public class PathFinder {
 
                 if (i + 1 < line.size()) {
                     BlockPos nextPosInLine = line.get(i+1);
-                    BlockState nextBlockStateInLine = cache.getBlockState(nextPosInLine);
-                    if (nextBlockStateInLine == null) return false;
+                    int nextFlagsInLine = blocks.getFlags(nextPosInLine);
+                    if (nextFlagsInLine == 0) return false;
 
                     if (nextPosInLine.getY() != pos.getY()) { // Moving vertically
                         // If next is also a ladder, it's fine. If it's air, it's also fine (exiting top).
                         // If it's something else, it's a blockage.
-                        if (!isLadder(nextPosInLine) && !nextBlockStateInLine.isAir()) {
+                        if (!MovementFlags.has(nextFlagsInLine, MovementFlags.LADDER | MovementFlags.AIR)) {
                             return false;
                         }
                         // Additionally, if exiting to air, ensure two blocks of air for player height
-                        if (nextBlockStateInLine.isAir()) {
+                        if (MovementFlags.has(nextFlagsInLine, MovementFlags.AIR)) {
                             BlockPos twoUpFromCurrentLadder = pos.up(2);
-                            if(!cache.isWithinCacheBounds(twoUpFromCurrentLadder) || !cache.getBlockState(twoUpFromCurrentLadder).isAir()){
+                            if(!blocks.isWithinBounds(twoUpFromCurrentLadder) || !MovementFlags.has(blocks.getFlags(twoUpFromCurrentLadder), MovementFlags.AIR)){
                                 return false; // Not enough space to exit ladder
                             }
                         }
@@ -807,8 +1339,8 @@ public class PathFinder {
                     // If the very last block of the raycast is a ladder, ensure space above it to stand
                     BlockPos oneUp = pos.up();
                     BlockPos twoUp = pos.up(2);
-                    if (!cache.isWithinCacheBounds(oneUp) || !cache.getBlockState(oneUp).isAir() ||
-                            !cache.isWithinCacheBounds(twoUp) || !cache.getBlockState(twoUp).isAir()){
+                    if (!blocks.isWithinBounds(oneUp) || !MovementFlags.has(blocks.getFlags(oneUp), MovementFlags.AIR) ||
+                            !blocks.isWithinBounds(twoUp) || !MovementFlags.has(blocks.getFlags(twoUp), MovementFlags.AIR)){
                         return false; // Not enough space to stand after climbing this ladder
                     }
                 }
@@ -830,14 +1362,8 @@ public class PathFinder {
     }
 
     private boolean isGroundWalkable(BlockPos pos) {
-        BlockState state = cache.getBlockState(pos);
-        return state != null &&
-                (state.isSideSolidFullSquare(world, pos, Direction.UP)
-                        || state.getBlock() instanceof StairsBlock
-                        || state.getBlock() instanceof SlabBlock
-                        || (state.getBlock() instanceof SnowBlock && state.get(SnowBlock.LAYERS) == SnowBlock.MAX_LAYERS) // Only full snow blocks
-                        || state.getBlock() instanceof CarpetBlock // Carpets are thin, stand on block below
-                        || state.getBlock() instanceof FarmlandBlock);
+        // Full tops, stairs, slabs, full snow, carpets and farmland
+        return MovementFlags.has(blocks.getFlags(pos), MovementFlags.GROUND);
     }
 
     /**
@@ -951,247 +1477,165 @@ public class PathFinder {
         return blocks;
     }
 
-    private boolean canJumpFrom(BlockState stateBelowFeet) { // Renamed parameter for clarity
-        if (stateBelowFeet == null) return false;
-
-        // Standard jumpable surfaces
-        if (stateBelowFeet.isSideSolidFullSquare(world, BlockPos.ORIGIN, Direction.UP) // BlockPos.ORIGIN is fine for state check
-                || stateBelowFeet.getBlock() instanceof StairsBlock
-                || stateBelowFeet.getBlock() instanceof FarmlandBlock) {
-            return true;
-        }
-
-        // Allow jumping if the block below feet is a ladder (representing standing on its top edge)
-        return stateBelowFeet.getBlock() instanceof LadderBlock;
+    private boolean canJumpFrom(int x, int y, int z) {
+        // Solid tops, stairs, farmland, and ladders (representing standing on its top edge)
+        return MovementFlags.has(flags(x, y, z), MovementFlags.JUMP);
     }
 
-    /** If horiz has no solid block beneath, scan down up to maxDrop. */
-    private BlockPos findGroundBelow(BlockPos horiz) {
+    /**
+     * If the horizontal position has no solid block beneath, scan down up to maxDrop.
+     * @return the Y to stand at, or {@link #NO_GROUND}
+     */
+    private int findGroundBelow(int x, int y, int z) {
         // If the current horizontal position is a ladder, it's its own "ground" for pathfinding purposes
-        if (isLadder(horiz) && isSpaceClearForLadder(horiz)) {
-            LOGGER.debug("Position {} is a ladder, considering it as ground.", horiz);
-            return horiz;
+        if (isLadder(x, y, z) && isSpaceClearForLadder(x, y, z)) {
+            return y;
         }
 
         for (int d = 0; d <= maxDrop; d++) {
-            BlockPos below = horiz.down(d + 1);
-            if (below.getY() < world.getBottomY()) {
-                LOGGER.debug("Position {} is below world level", below);
-                break;
+            int belowY = y - d - 1;
+            if (belowY < blocks.getBottomY()) {
+                break; // Below world level
             }
 
-            if (!cache.isWithinCacheBounds(below)) {
-                LOGGER.debug("Position of ground below {} is outside cache bounds", below);
-                return null;
-            }
-
-            if (hasTopCollision(below)) {
-                BlockPos result = below.up();
-                if (isSpaceClear(result) || (isLadder(result) && isSpaceClearForLadder(result))) { // Allow standing in ladder space too
-                    LOGGER.debug("Found ground at {}, returning position just above: {}", below, result);
-                    return result;
-                } else {
-                    LOGGER.debug("Found ground at {} but space at {} is not clear", below, result);
+            if (hasTopCollision(x, belowY, z)) {
+                int standY = belowY + 1;
+                if (isSpaceClear(x, standY, z) || (isLadder(x, standY, z) && isSpaceClearForLadder(x, standY, z))) { // Allow standing in ladder space too
+                    return standY;
                 }
             }
         }
-        LOGGER.debug("No suitable ground found below {} within max drop {}", horiz, maxDrop);
-        return null;
+        return NO_GROUND;
     }
 
     /** Ensure that the two-block-tall space at pos is free. */
     private boolean isSpaceClear(BlockPos pos) {
-        if (!cache.isWithinCacheBounds(pos) || !cache.isWithinCacheBounds(pos.up())) {
-            LOGGER.debug("Position {} or {} (isSpaceClear) is outside cache bounds", pos, pos.up());
-            return false;
-        }
-
-        BlockState blockAt = cache.getBlockState(pos);
-        BlockState blockAbove = cache.getBlockState(pos.up());
-        if (blockAt == null || blockAbove == null) {
-            LOGGER.debug("Missing block state at {} or {}", pos, pos.up());
-            return false;
-        }
-
-        // Feet can be in air, passable plants, thin blocks, or a ladder
-        boolean feetClear = blockAt.isAir() // Explicitly allow air first
-                || blockAt.isReplaceable() // General replaceable blocks (like grass, ferns)
-                || blockAt.getBlock() instanceof CarpetBlock
-                || (blockAt.getBlock() == Blocks.SNOW && blockAt.get(SnowBlock.LAYERS) <= 3)
-                || isLadder(pos) // Feet can be in a ladder block
-                // Add back specific checks for crops and other non-solid plants
-                || blockAt.getBlock() instanceof CropBlock // General check for all crops
-                || blockAt.getBlock() instanceof FlowerBlock // General flowers
-                || blockAt.getBlock() == Blocks.SHORT_GRASS
-                || blockAt.getBlock() == Blocks.TALL_GRASS // if you want to path through tall grass
-                || blockAt.getBlock() == Blocks.FERN
-                || blockAt.getBlock() == Blocks.LARGE_FERN
-                || blockAt.getBlock() == Blocks.DEAD_BUSH
-                || blockAt.getBlock() == Blocks.VINE
-                || blockAt.getBlock() == Blocks.SUGAR_CANE
-                || blockAt.getBlock() == Blocks.NETHER_WART;
-
-
-        // Head can be in air, passable plants, or a ladder
-        boolean headClear = blockAbove.isAir()
-                || blockAbove.isReplaceable()
-                || isLadder(pos.up()) // Head can be in a ladder block
-                // Add back specific checks for crops and other non-solid plants for head clearance
-                || blockAbove.getBlock() instanceof CropBlock
-                || blockAbove.getBlock() instanceof FlowerBlock
-                || blockAbove.getBlock() == Blocks.SHORT_GRASS
-                || blockAbove.getBlock() == Blocks.TALL_GRASS
-                || blockAbove.getBlock() == Blocks.FERN
-                || blockAbove.getBlock() == Blocks.LARGE_FERN
-                || blockAbove.getBlock() == Blocks.DEAD_BUSH
-                || blockAbove.getBlock() == Blocks.VINE
-                || blockAbove.getBlock() == Blocks.SUGAR_CANE
-                || blockAbove.getBlock() == Blocks.NETHER_WART;
-
-
-        // If feet are in a ladder, head must also be in a ladder or air/replaceable
-        if (isLadder(pos) && !headClear) {
-            if (!(blockAbove.isAir() || blockAbove.isReplaceable() || isLadder(pos.up()))) {
-                LOGGER.debug("Space not clear at {}: feet in ladder, but head blocked by {}", pos, blockAbove);
-                return false;
-            }
-        }
+        return isSpaceClear(pos.getX(), pos.getY(), pos.getZ());
+    }
 
+    private boolean isSpaceClear(int x, int y, int z) {
+        if (!blocks.isWithinBounds(x, z)) return false;
 
-        boolean result = feetClear && headClear;
-        if (!result) {
-            LOGGER.debug("Space not clear at {}: block at position is {}, block above is {}. FeetClear: {}, HeadClear: {}",
-                    pos, blockAt, blockAbove, feetClear, headClear);
-        }
-        return result;
+        // Feet can be in air, passable plants, thin blocks, or a ladder; head in air, passable plants, or a ladder.
+        // Unloaded blocks have no flags, so they are never clear.
+        return MovementFlags.has(flags(x, y, z), MovementFlags.FEET)
+                && MovementFlags.has(flags(x, y + 1, z), MovementFlags.HEAD);
     }
 
     /**
      * @return true if there is any collision geometry at this block's top face.
      */
-    private boolean hasTopCollision(BlockPos pos) {
-        BlockState state = cache.getBlockState(pos);
-        if (state == null) return false;
-
-        if (state.getBlock() instanceof LadderBlock) return false; // Ladders don't have top collision for standing
-
-        // Check for blocks that are solid on top or specific standable non-solid blocks
-        return state.isSideSolidFullSquare(world, pos, Direction.UP)
-                || state.getBlock() instanceof FarmlandBlock
-                || (state.getBlock() instanceof SlabBlock && state.get(SlabBlock.TYPE) == SlabType.TOP) // Only top slabs are fully solid on top
-                || (state.getBlock() instanceof SnowBlock && state.get(SnowBlock.LAYERS) == SnowBlock.MAX_LAYERS) // Full snow block
-                || state.getBlock() instanceof StairsBlock && state.get(StairsBlock.HALF) == BlockHalf.TOP; // Top half of stairs
+    private boolean hasTopCollision(int x, int y, int z) {
+        // Solid tops, farmland, top slabs/stairs and full snow; never ladders
+        return MovementFlags.has(flags(x, y, z), MovementFlags.FLOOR);
     }
 
     /** Cost: use Euclidean or custom if you want to penalize drops/jumps. */
-    private double movementCost(BlockPos from, BlockPos to) {
-        double baseCost = Math.sqrt(from.getSquaredDistance(to));
-        int yDiff = to.getY() - from.getY();
-        double finalCost;
+    private double movementCost(int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+        double baseCost = distance(fromX, fromY, fromZ, toX, toY, toZ);
+        int yDiff = toY - fromY;
 
-        BlockState fromState = cache.getBlockState(from);
-        BlockState toState = cache.getBlockState(to);
-
-        boolean movingToLadder = (toState != null && toState.getBlock() instanceof LadderBlock);
-        boolean movingFromLadder = (fromState != null && fromState.getBlock() instanceof LadderBlock);
-        boolean onLadderSegment = (movingToLadder && movingFromLadder && from.getX() == to.getX() && from.getZ() == to.getZ()); // Moving purely vertically on a ladder
+        boolean movingToLadder = MovementFlags.has(flags(toX, toY, toZ), MovementFlags.LADDER);
+        boolean movingFromLadder = MovementFlags.has(flags(fromX, fromY, fromZ), MovementFlags.LADDER);
+        boolean onLadderSegment = (movingToLadder && movingFromLadder && fromX == toX && fromZ == toZ); // Moving purely vertically on a ladder
         boolean enteringOrExitingLadder = (movingToLadder != movingFromLadder);
 
-
-        double totalDist   = Math.sqrt(start.getSquaredDistance(goal));
-        double distSoFar   = Math.sqrt(start.getSquaredDistance(from));
-        double fraction    = (totalDist == 0) ? 0 : Math.min(1.0, distSoFar / totalDist);
+        double distSoFar   = distance(start.getX(), start.getY(), start.getZ(), fromX, fromY, fromZ);
+        double fraction    = (totalDistance == 0) ? 0 : Math.min(1.0, distSoFar / totalDistance);
 
         double jumpMult = 1.0 + 0.5 * fraction;
         double ladderClimbCostMultiplier = 1.05; // Slightly cheaper than diagonal, more than flat
         double ladderTransitionCostMultiplier = 1.1; // Cost for getting on/off ladder
 
         if (onLadderSegment) { // Climbing up or down a ladder segment
-            finalCost = baseCost * ladderClimbCostMultiplier;
+            return baseCost * ladderClimbCostMultiplier;
         } else if (enteringOrExitingLadder) {
-            finalCost = baseCost * ladderTransitionCostMultiplier;
+            return baseCost * ladderTransitionCostMultiplier;
         } else if (yDiff < 0) { // Dropping down
-            finalCost = baseCost * 0.8;
+            return baseCost * 0.8;
         } else if (yDiff > 0) { // Jumping up
-            finalCost = baseCost * jumpMult;
+            return baseCost * jumpMult;
         } else { // Flat movement
-            finalCost = baseCost;
+            return baseCost;
         }
-
-        LOGGER.debug("Movement cost from {} to {}: {}. Base: {}, YDiff: {}, ToLadder: {}, FromLadder: {}, OnLadderSeg: {}, EnterExitLadder: {}",
-                from, to, finalCost, baseCost, yDiff, movingToLadder, movingFromLadder, onLadderSegment, enteringOrExitingLadder);
-        return finalCost;
     }
 
-    private double estimateDistance(BlockPos start, BlockPos end) {
+    private double estimateDistance(int x, int y, int z) {
+        if (noHeuristic) return 0.0;
+        if (goalKeys != null && goalKeys.length > 1) {
+            // Closest goal, counting what ending there costs
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < goalKeys.length; i++) {
+                long goalKey = goalKeys[i];
+                best = Math.min(best, goalCosts[i]
+                        + distance(x, y, z, BlockPos.unpackLongX(goalKey), BlockPos.unpackLongY(goalKey), BlockPos.unpackLongZ(goalKey)));
+            }
+            return best;
+        }
         // Euclidean distance is generally a good admissible heuristic.
         // Manhattan can sometimes be better if diagonal movement is heavily penalized or impossible.
-        return Math.sqrt(start.getSquaredDistance(end));
+        return distance(x, y, z, goalX, goalY, goalZ);
+    }
+
+    private static double distance(int x1, int y1, int z1, int x2, int y2, int z2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double dz = z2 - z1;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
     }
 
     private boolean isOnGround(BlockPos pos) {
         if (isLadder(pos) && isSpaceClearForLadder(pos)) return true; // On a ladder is considered "grounded" for path purposes
 
         BlockPos below = pos.down();
-        if (!cache.isWithinCacheBounds(below)) {
+        if (!blocks.isWithinBounds(below)) {
             return false;
         }
-
-        BlockState state = cache.getBlockState(below);
-        return state != null && (state.isSideSolidFullSquare(world, below, Direction.UP)
-                || state.getBlock() instanceof StairsBlock
-                || state.getBlock() instanceof SlabBlock
-                || (state.getBlock() instanceof SnowBlock && state.get(SnowBlock.LAYERS) == SnowBlock.MAX_LAYERS)
-                || state.getBlock() instanceof CarpetBlock
-                || state.getBlock() instanceof FarmlandBlock);
+        return isGroundWalkable(below);
     }
 
-    private List<BlockPos> reconstructPath(Node goalNode) {
+    private List<BlockPos> reconstructPath(int goalNode) {
+        NodePool nodes = workspace.nodes;
         List<BlockPos> path = new ArrayList<>();
-        Node current = goalNode;
-        while (current != null) {
-            path.addFirst(current.getPos());
-            current = current.getParent();
+        for (int node = goalNode; node != NodePool.NO_PARENT; node = nodes.parent(node)) {
+            path.add(BlockPos.fromLong(nodes.position(node)));
         }
-        LOGGER.info("Reconstructed path of length {}", path.size());
+        Collections.reverse(path);
         return path;
     }
 
-    // Node class for A* algorithm
-    private static class Node {
-        private final BlockPos pos;
-        private final double g; // Cost from start
-        private final double h; // Estimated cost to goal
-        private final Node parent;
-
-        public Node(BlockPos pos, double g, double h) {
-            this.pos = pos;
-            this.g = g;
-            this.h = h;
-            this.parent = null;
-        }
-
-        public Node(BlockPos pos, double g, double h, Node parent) {
-            this.pos = pos;
-            this.g = g;
-            this.h = h;
-            this.parent = parent;
-        }
-
-        public BlockPos getPos() {
-            return pos;
+    private void beginStats() {
+        expandedCount = 0;
+        reopenedCount = 0;
+        openPeak = 0;
+        lookupCount = 0;
+        searchStatus = SearchStats.Status.NO_PATH;
+        if (blocks instanceof ChunkView view) {
+            chunkHitsBefore = view.getChunkHits();
+            chunkMissesBefore = view.getChunkMisses();
         }
+        searchStartNanos = System.nanoTime();
+    }
 
-        public double getG() {
-            return g;
-        }
+    private void finishStats(List<BlockPos> rawPath) {
+        finishStats(rawPath != null ? rawPath.size() : 0);
+    }
 
-        public double getF() {
-            return g + h;
+    private void finishStats(int pathLength) {
+        int chunkHits = 0, chunkMisses = 0;
+        if (blocks instanceof ChunkView view) {
+            chunkHits = view.getChunkHits() - chunkHitsBefore;
+            chunkMisses = view.getChunkMisses() - chunkMissesBefore;
         }
+        lastStats = new SearchStats(searchStatus, expandedCount, reopenedCount, openPeak, lookupCount,
+                chunkHits, chunkMisses, pathLength, System.nanoTime() - searchStartNanos);
+        SearchStats.totals().record(lastStats);
+        LOGGER.debug("Search finished: {}", lastStats); // Formatted only with debug logging on
+    }
 
-        public Node getParent() {
-            return parent;
-        }
+    // Every movement flag read of the search goes through here, for SearchStats
+    private int flags(int x, int y, int z) {
+        lookupCount++;
+        return blocks.getFlags(x, y, z);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs path searches on a small worker pool so the client tick never waits for A*.
+ * <p>
+ * Searches read block data through a {@link ChunkView} of the shared {@link ChunkCache},
+ * run on a worker, and hand their result back in {@link #tick()} so callers only ever
+ * observe completed futures from the tick thread.
+ * Cancelling a returned future interrupts the worker, which aborts the search.
+ */
+public class PathPlanningService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PathPlanningService.class);
+    private static final PathPlanningService INSTANCE = new PathPlanningService();
+
+    private static final int WORKER_COUNT = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() / 2));
+
+    private final ExecutorService workers;
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>(); // Filled by workers, drained on tick
+
+    private PathPlanningService() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "WynnAI Path Planner #" + threadIndex.incrementAndGet());
+            thread.setDaemon(true); // Never keep the game alive on exit
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(WORKER_COUNT, factory);
+        LOGGER.info("Path planning service started with {} worker(s)", WORKER_COUNT);
+    }
+
+    public static PathPlanningService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Searches for a path on a worker, within {@code cacheRadius} chunks of {@code start}.
+     */
+    public CompletableFuture<List<Vec3d>> findPath(ClientWorld world, int cacheRadius, BlockPos start, BlockPos goal) {
+        ChunkView view = ChunkCache.getInstance().createView(world, start, cacheRadius);
+        return submit(() -> new PathFinder(view, start, goal).findPath(start, goal));
+    }
+
+    /**
+     * Runs an arbitrary planning job on a worker. The job must not touch the live world;
+     * read blocks through a {@link ChunkView} instead.
+     * The returned future is completed on the client thread during {@link #tick()}.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> job) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task = workers.submit(() -> {
+            if (result.isDone()) return; // Cancelled while still queued
+
+            try {
+                T value = job.get();
+                completions.add(() -> result.complete(value));
+            } catch (Throwable t) {
+                if (!result.isCancelled()) {
+                    LOGGER.warn("Path planning job failed", t);
+                }
+                completions.add(() -> result.completeExceptionally(t));
+            }
+        });
+
+        // Propagate cancellation to the worker so the search stops burning CPU
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Delivers finished results. Called once per client tick before any state machine runs.
+     */
+    public void tick() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+}
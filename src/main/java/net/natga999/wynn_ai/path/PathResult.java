@@ -0,0 +1,87 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.List;
+
+/**
+ * Waypoints found by a budgeted search. A partial result ran out of budget before reaching
+ * the goal and ends at the point closest to it; walk it, then plan again from its end.
+ */
+public final class PathResult {
+    private final List<Vec3d> waypoints;
+    private final BlockPos end;
+    private final boolean partial;
+    private final int rawLength; // Blocks of the raw path, 0 if unknown
+    private final SearchStats stats;
+    private final int[] annotations; // CompactPath movement notes per waypoint, null if unknown
+    private CompactPath path; // getWaypoints() packed on first use
+
+    private PathResult(List<Vec3d> waypoints, BlockPos end, boolean partial, int rawLength, SearchStats stats, int[] annotations) {
+        this.waypoints = waypoints;
+        this.end = end;
+        this.partial = partial;
+        this.rawLength = rawLength;
+        this.stats = stats;
+        this.annotations = annotations;
+    }
+
+    public static PathResult complete(List<Vec3d> waypoints, BlockPos end) {
+        return new PathResult(waypoints, end, false, 0, null, null);
+    }
+
+    public static PathResult partial(List<Vec3d> waypoints, BlockPos end) {
+        return new PathResult(waypoints, end, true, 0, null, null);
+    }
+
+    static PathResult complete(List<Vec3d> waypoints, BlockPos end, int rawLength, int[] annotations) {
+        return new PathResult(waypoints, end, false, rawLength, null, annotations);
+    }
+
+    static PathResult partial(List<Vec3d> waypoints, BlockPos end, int rawLength, int[] annotations) {
+        return new PathResult(waypoints, end, true, rawLength, null, annotations);
+    }
+
+    PathResult withStats(SearchStats stats) {
+        return new PathResult(waypoints, end, partial, rawLength, stats, annotations);
+    }
+
+    public List<Vec3d> getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * The waypoints as a {@link CompactPath}, for following and drawing; annotated with what the
+     * search saw on the way if it came straight from a {@link PathFinder}.
+     */
+    public CompactPath getPath() {
+        if (path == null) {
+            path = CompactPath.of(waypoints, annotations);
+        }
+        return path;
+    }
+
+    /** The block the path ends on: the goal, or for a partial path where the search got closest. */
+    public BlockPos getEnd() {
+        return end;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    // Movement notes per waypoint, null if unknown; not copied, don't change them
+    int[] getAnnotations() {
+        return annotations;
+    }
+
+    int getRawLength() {
+        return rawLength;
+    }
+
+    /** What the search that found the path did; null for paths put together from several. */
+    public SearchStats getStats() {
+        return stats;
+    }
+}
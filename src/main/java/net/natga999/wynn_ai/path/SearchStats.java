@@ -0,0 +1,199 @@
+package net.natga999.wynn_ai.path;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What one {@link PathFinder} search did, see {@link PathFinder#getLastStats()}. Counting is a
+ * few integer increments per expansion, so it is always on, unlike the debug log it replaces.
+ * Every search also adds to the process-wide {@link #totals()}.
+ */
+public final class SearchStats {
+    public enum Status {
+        /** Reached the goal. */
+        FOUND,
+        /** Ran out of budget, the path leads towards the goal. */
+        PARTIAL,
+        /** Everything reachable was searched. */
+        NO_PATH,
+        /** Ran out of expansions or time with nothing to show. */
+        OUT_OF_BUDGET,
+        /** The worker was interrupted. */
+        CANCELLED,
+        /** Start or every goal lies outside the searched area. */
+        OUT_OF_BOUNDS
+    }
+
+    private static final Totals TOTALS = new Totals();
+
+    private final Status status;
+    private final int nodesExpanded;
+    private final int nodesReopened;
+    private final int openPeak;
+    private final int blockLookups;
+    private final int chunkCacheHits;
+    private final int chunkCacheMisses;
+    private final int pathLength;
+    private final long wallNanos;
+
+    SearchStats(Status status, int nodesExpanded, int nodesReopened, int openPeak, int blockLookups,
+                int chunkCacheHits, int chunkCacheMisses, int pathLength, long wallNanos) {
+        this.status = status;
+        this.nodesExpanded = nodesExpanded;
+        this.nodesReopened = nodesReopened;
+        this.openPeak = openPeak;
+        this.blockLookups = blockLookups;
+        this.chunkCacheHits = chunkCacheHits;
+        this.chunkCacheMisses = chunkCacheMisses;
+        this.pathLength = pathLength;
+        this.wallNanos = wallNanos;
+    }
+
+    /** Counters summed over every search since start or the last {@link Totals#reset()}. */
+    public static Totals totals() {
+        return TOTALS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /** Closed nodes queued again: improved by a later anytime pass or cut off by a repair. */
+    public int getNodesReopened() {
+        return nodesReopened;
+    }
+
+    /** Largest the open set got. */
+    public int getOpenPeak() {
+        return openPeak;
+    }
+
+    /** Movement flag reads, each one block. */
+    public int getBlockLookups() {
+        return blockLookups;
+    }
+
+    /** Chunk lookups the search's {@link ChunkView} answered itself; 0 for other block access. */
+    public int getChunkCacheHits() {
+        return chunkCacheHits;
+    }
+
+    /** Chunk lookups that went to the shared {@link ChunkCache}. */
+    public int getChunkCacheMisses() {
+        return chunkCacheMisses;
+    }
+
+    /** Blocks in the raw path found, 0 without one. */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d expanded, %d reopened, open peak %d, %d block lookups, chunk cache %d/%d, path %d, %.2f ms",
+                status, nodesExpanded, nodesReopened, openPeak, blockLookups,
+                chunkCacheHits, chunkCacheHits + chunkCacheMisses, pathLength, wallNanos / 1e6);
+    }
+
+    /** Process-wide sums, updated from every planning thread without locking. */
+    public static final class Totals {
+        private final LongAdder searches = new LongAdder();
+        private final LongAdder[] byStatus = new LongAdder[Status.values().length];
+        private final LongAdder nodesExpanded = new LongAdder();
+        private final LongAdder nodesReopened = new LongAdder();
+        private final LongAccumulator openPeak = new LongAccumulator(Math::max, 0);
+        private final LongAdder blockLookups = new LongAdder();
+        private final LongAdder chunkCacheHits = new LongAdder();
+        private final LongAdder chunkCacheMisses = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+
+        private Totals() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+
+        void record(SearchStats stats) {
+            searches.increment();
+            byStatus[stats.status.ordinal()].increment();
+            nodesExpanded.add(stats.nodesExpanded);
+            nodesReopened.add(stats.nodesReopened);
+            openPeak.accumulate(stats.openPeak);
+            blockLookups.add(stats.blockLookups);
+            chunkCacheHits.add(stats.chunkCacheHits);
+            chunkCacheMisses.add(stats.chunkCacheMisses);
+            wallNanos.add(stats.wallNanos);
+        }
+
+        public long getSearches() {
+            return searches.sum();
+        }
+
+        public long getSearches(Status status) {
+            return byStatus[status.ordinal()].sum();
+        }
+
+        public long getNodesExpanded() {
+            return nodesExpanded.sum();
+        }
+
+        public long getNodesReopened() {
+            return nodesReopened.sum();
+        }
+
+        /** Largest open set of any single search. */
+        public long getOpenPeak() {
+            return openPeak.get();
+        }
+
+        public long getBlockLookups() {
+            return blockLookups.sum();
+        }
+
+        public long getChunkCacheHits() {
+            return chunkCacheHits.sum();
+        }
+
+        public long getChunkCacheMisses() {
+            return chunkCacheMisses.sum();
+        }
+
+        public long getWallNanos() {
+            return wallNanos.sum();
+        }
+
+        public void reset() {
+            searches.reset();
+            for (LongAdder adder : byStatus) adder.reset();
+            nodesExpanded.reset();
+            nodesReopened.reset();
+            openPeak.reset();
+            blockLookups.reset();
+            chunkCacheHits.reset();
+            chunkCacheMisses.reset();
+            wallNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder statuses = new StringBuilder();
+            for (Status status : Status.values()) {
+                long count = getSearches(status);
+                if (count > 0) {
+                    statuses.append(statuses.isEmpty() ? "" : ", ").append(status).append(' ').append(count);
+                }
+            }
+            return String.format("%d searches (%s), %d expanded, %d reopened, open peak %d, %d block lookups, chunk cache %d/%d, %.1f ms",
+                    getSearches(), statuses, getNodesExpanded(), getNodesReopened(), getOpenPeak(), getBlockLookups(),
+                    getChunkCacheHits(), getChunkCacheHits() + getChunkCacheMisses(), getWallNanos() / 1e6);
+        }
+    }
+}
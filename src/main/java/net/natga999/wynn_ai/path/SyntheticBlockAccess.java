@@ -0,0 +1,72 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.block.BlockState;
+
+/**
+ * In-memory box of {@link MovementFlags}, for benchmarks and tools that run without a game.
+ * <p>
+ * Holds flags only: {@link #getBlockState} is always null, which only costs ladder alignment
+ * in path post-processing. Everything outside the box reads as unknown, like an unloaded chunk.
+ * Unlike a {@link ChunkCache} section it keeps the follower bits too, for simulated players.
+ */
+public class SyntheticBlockAccess implements BlockAccess {
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final int[] flags;
+
+    public SyntheticBlockAccess(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.flags = new int[sizeX * sizeY * sizeZ];
+    }
+
+    public void set(int x, int y, int z, int value) {
+        int index = index(x, y, z);
+        if (index >= 0) {
+            flags[index] = value;
+        }
+    }
+
+    public void fill(int x0, int y0, int z0, int x1, int y1, int z1, int value) {
+        for (int y = y0; y <= y1; y++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int x = x0; x <= x1; x++) {
+                    set(x, y, z, value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getFlags(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index >= 0 ? flags[index] : 0;
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        return null;
+    }
+
+    @Override
+    public boolean isWithinBounds(int x, int z) {
+        return x >= minX && z >= minZ && x < minX + sizeX && z < minZ + sizeZ;
+    }
+
+    @Override
+    public int getBottomY() {
+        return minY;
+    }
+
+    private int index(int x, int y, int z) {
+        int lx = x - minX, ly = y - minY, lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) {
+            return -1;
+        }
+        return (ly * sizeZ + lz) * sizeX + lx;
+    }
+}
@@ -0,0 +1,73 @@
+package net.natga999.wynn_ai.path;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * One change published by the {@link TerrainChangeBus}: either blocks of a single chunk
+ * section, or a whole chunk that was loaded or unloaded.
+ * <p>
+ * Changed blocks are kept as 12 bit offsets inside their section (x, z, y nibbles, the same
+ * layout vanilla packs section-local positions in), so a full chunk delta costs 8 KB at most.
+ */
+public final class TerrainChange {
+    private static final short[] NO_BLOCKS = new short[0];
+
+    private final ClientWorld world;
+    private final long section; // Packed ChunkSectionPos; y is unused for a chunk change
+    private final short[] blocks; // Empty for a chunk change
+    private final boolean wholeChunk;
+
+    private TerrainChange(ClientWorld world, long section, short[] blocks, boolean wholeChunk) {
+        this.world = world;
+        this.section = section;
+        this.blocks = blocks;
+        this.wholeChunk = wholeChunk;
+    }
+
+    static TerrainChange blocks(ClientWorld world, long section, short[] blocks) {
+        return new TerrainChange(world, section, blocks, false);
+    }
+
+    static TerrainChange chunk(ClientWorld world, int chunkX, int chunkZ) {
+        return new TerrainChange(world, ChunkSectionPos.asLong(chunkX, 0, chunkZ), NO_BLOCKS, true);
+    }
+
+    static short packLocal(int x, int y, int z) {
+        return (short) (((x & 15) << 8) | ((z & 15) << 4) | (y & 15));
+    }
+
+    public ClientWorld getWorld() {
+        return world;
+    }
+
+    /** Every section of the chunk may have changed, there are no block records. */
+    public boolean isWholeChunk() {
+        return wholeChunk;
+    }
+
+    public int getChunkX() {
+        return ChunkSectionPos.unpackX(section);
+    }
+
+    public int getChunkZ() {
+        return ChunkSectionPos.unpackZ(section);
+    }
+
+    /** Section coordinate of the changed blocks; meaningless for a whole chunk. */
+    public int getSectionY() {
+        return ChunkSectionPos.unpackY(section);
+    }
+
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    public BlockPos getBlock(int i) {
+        short local = blocks[i];
+        return new BlockPos((getChunkX() << 4) | ((local >> 8) & 15),
+                (getSectionY() << 4) | (local & 15),
+                (getChunkZ() << 4) | ((local >> 4) & 15));
+    }
+}
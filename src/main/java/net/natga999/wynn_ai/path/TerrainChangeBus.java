@@ -0,0 +1,168 @@
+package net.natga999.wynn_ai.path;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Every change the client makes to its terrain, published as {@link TerrainChange} records
+ * per chunk section: every block the client world sets, whether the server sent it, the client
+ * predicted it or the server settled a prediction (through {@code MixinClientWorld}, with chunk
+ * deltas batched by {@code MixinClientPlayNetworkHandler}), and chunk load/unload.
+ * <p>
+ * Each change also bumps a version counter, recorded per section and per chunk. A cache of
+ * data derived from terrain remembers {@link #version()} from before it read any block and
+ * later asks {@link #changedSince} about the area it read, instead of listening for changes
+ * itself. Subscribers run first: the {@link ChunkCache} has dropped its copies by the time a
+ * version moves, so a reader that sees the new version also sees the new blocks.
+ */
+public class TerrainChangeBus {
+    private static final TerrainChangeBus INSTANCE = new TerrainChangeBus();
+
+    /** Called on the client thread, in subscription order; must not read blocks. */
+    public interface Listener {
+        void terrainChanged(TerrainChange change);
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Long2LongOpenHashMap sectionVersions = new Long2LongOpenHashMap(); // Packed ChunkSectionPos, unchanged at 0
+    private final Long2LongOpenHashMap chunkVersions = new Long2LongOpenHashMap(); // Packed ChunkPos: last change of any section or the chunk
+    private final Long2LongOpenHashMap wholeChunkVersions = new Long2LongOpenHashMap(); // Packed ChunkPos: last load/unload
+    private long version;
+    private long clearedAt; // Everything counts as changed at the last clear
+
+    // Client thread only: a chunk delta in progress, its blocks collected per section
+    private ClientWorld batchWorld;
+    private Long2ObjectLinkedOpenHashMap<ShortArrayList> batch;
+
+    private TerrainChangeBus() {
+    }
+
+    public static TerrainChangeBus getInstance() {
+        return INSTANCE;
+    }
+
+    /** Hooks chunk load/unload; block updates come in through the mixins. */
+    public static void register() {
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+                INSTANCE.chunkChanged(world, chunk.getPos().x, chunk.getPos().z));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+                INSTANCE.chunkChanged(world, chunk.getPos().x, chunk.getPos().z));
+    }
+
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** The current version; take it before reading blocks the result will depend on. */
+    public synchronized long version() {
+        return version;
+    }
+
+    /** Version of the last change to the section, packed as {@link ChunkSectionPos#asLong}. */
+    public synchronized long sectionVersion(long section) {
+        long chunk = ChunkPos.toLong(ChunkSectionPos.unpackX(section), ChunkSectionPos.unpackZ(section));
+        // A load/unload is only recorded for the chunk, it covers every section in it
+        return Math.max(clearedAt, Math.max(sectionVersions.get(section), wholeChunkVersions.get(chunk)));
+    }
+
+    /** Version of the last change anywhere in the chunk, packed as {@link ChunkPos#toLong}. */
+    public synchronized long chunkVersion(long chunk) {
+        return Math.max(clearedAt, chunkVersions.get(chunk));
+    }
+
+    /** Whether a block in the box, bounds inclusive, changed after {@code since}. */
+    public synchronized boolean changedSince(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, long since) {
+        if (clearedAt > since) return true;
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                long chunk = ChunkPos.toLong(cx, cz);
+                if (chunkVersions.get(chunk) <= since) continue; // Nothing in this chunk, skip its sections
+                if (wholeChunkVersions.get(chunk) > since) return true;
+                for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+                    if (sectionVersions.get(ChunkSectionPos.asLong(cx, sy, cz)) > since) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether anything in the chunk changed after {@code since}. */
+    public boolean chunkChangedSince(long chunk, long since) {
+        return chunkVersion(chunk) > since;
+    }
+
+    /** A block the client world set, or one block of the chunk delta being applied. */
+    public void blockChanged(ClientWorld world, BlockPos pos) {
+        long section = ChunkSectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        if (batch != null && world == batchWorld) {
+            ShortArrayList blocks = batch.get(section);
+            if (blocks == null) {
+                blocks = new ShortArrayList();
+                batch.put(section, blocks);
+            }
+            blocks.add(TerrainChange.packLocal(pos.getX(), pos.getY(), pos.getZ()));
+            return;
+        }
+        publishBlocks(world, section, new short[] { TerrainChange.packLocal(pos.getX(), pos.getY(), pos.getZ()) });
+    }
+
+    /**
+     * Collects the block updates of one chunk delta packet until {@link #endBatch}, which
+     * publishes them as one record per section.
+     */
+    public void beginBatch(ClientWorld world) {
+        endBatch(); // A delta that threw halfway never ended its batch
+        batchWorld = world;
+        batch = new Long2ObjectLinkedOpenHashMap<>();
+    }
+
+    public void endBatch() {
+        if (batch == null) return;
+        ClientWorld world = batchWorld;
+        Long2ObjectLinkedOpenHashMap<ShortArrayList> sections = batch;
+        batch = null;
+        batchWorld = null;
+        for (Long2ObjectMap.Entry<ShortArrayList> entry : sections.long2ObjectEntrySet()) {
+            publishBlocks(world, entry.getLongKey(), entry.getValue().toShortArray());
+        }
+    }
+
+    public void chunkChanged(ClientWorld world, int chunkX, int chunkZ) {
+        TerrainChange change = TerrainChange.chunk(world, chunkX, chunkZ);
+        listeners.forEach(listener -> listener.terrainChanged(change));
+        synchronized (this) {
+            long chunk = ChunkPos.toLong(chunkX, chunkZ);
+            chunkVersions.put(chunk, ++version);
+            wholeChunkVersions.put(chunk, version);
+        }
+    }
+
+    /** Everything counts as changed, for a world change; sections are tracked from scratch. */
+    public synchronized void clear() {
+        sectionVersions.clear();
+        chunkVersions.clear();
+        wholeChunkVersions.clear();
+        clearedAt = ++version;
+    }
+
+    private void publishBlocks(ClientWorld world, long section, short[] blocks) {
+        TerrainChange change = TerrainChange.blocks(world, section, blocks);
+        listeners.forEach(listener -> listener.terrainChanged(change));
+        synchronized (this) {
+            sectionVersions.put(section, ++version);
+            chunkVersions.put(ChunkPos.toLong(ChunkSectionPos.unpackX(section), ChunkSectionPos.unpackZ(section)), version);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package net.natga999.wynn_ai.path.hpa;
+
+import net.natga999.wynn_ai.path.BlockAccess;
+
+import net.minecraft.block.BlockState;
+
+/**
+ * Narrows another {@link BlockAccess} to a column box, so a {@code PathFinder} run on it
+ * never leaves the box. Blocks are still read through the wrapped access.
+ */
+final class BoundedBlockAccess implements BlockAccess {
+    private final BlockAccess blocks;
+    private final int minX, minZ, maxX, maxZ; // Inclusive
+
+    BoundedBlockAccess(BlockAccess blocks, int minX, int minZ, int maxX, int maxZ) {
+        this.blocks = blocks;
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+    }
+
+    /** The 16x16 columns of one chunk. */
+    static BoundedBlockAccess ofChunk(BlockAccess blocks, int chunkX, int chunkZ) {
+        return new BoundedBlockAccess(blocks, chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15);
+    }
+
+    @Override
+    public int getFlags(int x, int y, int z) {
+        return blocks.getFlags(x, y, z);
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        return blocks.getBlockState(x, y, z);
+    }
+
+    @Override
+    public boolean isWithinBounds(int x, int z) {
+        return x >= minX && x <= maxX && z >= minZ && z <= maxZ && blocks.isWithinBounds(x, z);
+    }
+
+    @Override
+    public int getBottomY() {
+        return blocks.getBottomY();
+    }
+}
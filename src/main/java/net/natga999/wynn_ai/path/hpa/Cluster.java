@@ -0,0 +1,237 @@
+package net.natga999.wynn_ai.path.hpa;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import net.natga999.wynn_ai.path.BlockAccess;
+import net.natga999.wynn_ai.path.MovementFlags;
+import net.natga999.wynn_ai.path.PathFinder;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One chunk column of the abstract graph: the portals on its four borders and, filled in
+ * lazily, the block-level paths between them.
+ * <p>
+ * A portal is a standable block on the inside of a border whose neighbour across it is
+ * standable too. Consecutive border cells (allowing one block of height change between
+ * them) form an entrance; short entrances get one portal in the middle, long ones one at
+ * each end. Both clusters of a border find the same entrances, so every portal's twin
+ * across the border is a portal of the neighbour. A corner block can be a portal of two
+ * borders, and then appears twice with a different twin.
+ */
+final class Cluster {
+    private static final int LONG_ENTRANCE = 6; // Entrances longer than this get a portal at each end
+
+    // Border directions: step across the border, and the axis the border runs along
+    private static final int[] OUT_X = { 1, -1, 0,  0 };
+    private static final int[] OUT_Z = { 0,  0, 1, -1 };
+
+    final int chunkX, chunkZ;
+    final int minY, maxY; // Height band the borders were scanned in
+    final boolean complete; // False if a border was outside the search bounds and skipped
+
+    private final long[] portals; // Packed positions inside this cluster
+    private final long[] twins;   // Packed position across the border, same index
+    private final Long2ObjectOpenHashMap<List<Edge>> edges = new Long2ObjectOpenHashMap<>(); // Guarded by this
+
+    /** A block-level path between two nodes of the abstract graph. */
+    static final class Edge {
+        final long target;
+        final double cost;
+        final long[] path; // Every block stepped through, both ends included
+
+        Edge(long target, double cost, long[] path) {
+            this.target = target;
+            this.cost = cost;
+            this.path = path;
+        }
+
+        /** Wraps a {@link PathFinder} raw path, costed by its length. */
+        static Edge of(List<BlockPos> rawPath) {
+            long[] path = new long[rawPath.size()];
+            double cost = 0.0;
+            for (int i = 0; i < path.length; i++) {
+                path[i] = rawPath.get(i).asLong();
+                if (i > 0) {
+                    cost += Math.sqrt(rawPath.get(i - 1).getSquaredDistance(rawPath.get(i)));
+                }
+            }
+            return new Edge(path[path.length - 1], cost, path);
+        }
+    }
+
+    private Cluster(int chunkX, int chunkZ, int minY, int maxY, boolean complete, long[] portals, long[] twins) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.complete = complete;
+        this.portals = portals;
+        this.twins = twins;
+    }
+
+    boolean covers(int minY, int maxY) {
+        return this.minY <= minY && this.maxY >= maxY;
+    }
+
+    int portalCount() {
+        return portals.length;
+    }
+
+    long portal(int index) {
+        return portals[index];
+    }
+
+    long twin(int index) {
+        return twins[index];
+    }
+
+    /** Index of the portal at or after {@code from}, -1 if there is none. */
+    int indexOf(long portal, int from) {
+        for (int i = from; i < portals.length; i++) {
+            if (portals[i] == portal) return i;
+        }
+        return -1;
+    }
+
+    boolean isPortal(long portal) {
+        return indexOf(portal, 0) >= 0;
+    }
+
+    /**
+     * Paths from a portal to every other portal of this cluster it can reach without leaving
+     * the cluster. Searched on first use and kept until the cluster is dropped.
+     */
+    synchronized List<Edge> edgesFrom(BlockAccess blocks, long portal) {
+        List<Edge> cached = edges.get(portal);
+        if (cached != null) {
+            return cached;
+        }
+
+        BlockPos from = BlockPos.fromLong(portal);
+        List<Edge> found = new ArrayList<>();
+        // One flood of the cluster reaches every other portal
+        List<List<BlockPos>> rawPaths = new PathFinder(BoundedBlockAccess.ofChunk(blocks, chunkX, chunkZ), from, from)
+                .findRawPaths(from, portals);
+        for (int i = 0; i < portals.length; i++) {
+            // Skip itself, corners seen before, and portals it can't reach
+            if (portals[i] == portal || indexOf(portals[i], 0) != i || rawPaths.get(i) == null) continue;
+            found.add(Edge.of(rawPaths.get(i)));
+        }
+        edges.put(portal, found);
+        return found;
+    }
+
+    /**
+     * Finds the portals of a chunk within [{@code minY}, {@code maxY}].
+     */
+    static Cluster scan(BlockAccess blocks, int chunkX, int chunkZ, int minY, int maxY) {
+        long[] portals = new long[16];
+        long[] twins = new long[16];
+        int count = 0;
+        boolean complete = true;
+
+        for (int side = 0; side < 4; side++) {
+            int outX = OUT_X[side], outZ = OUT_Z[side];
+            // First inside cell of the border, and the step along it
+            int baseX = (chunkX << 4) + (outX > 0 ? 15 : 0);
+            int baseZ = (chunkZ << 4) + (outZ > 0 ? 15 : 0);
+            int alongX = outX == 0 ? 1 : 0;
+            int alongZ = outZ == 0 ? 1 : 0;
+
+            if (!blocks.isWithinBounds(baseX + outX, baseZ + outZ)) {
+                complete = false; // Neighbour can't be searched, nor can this border be crossed
+                continue;
+            }
+
+            for (Entrance entrance : findEntrances(blocks, baseX, baseZ, alongX, alongZ, outX, outZ, minY, maxY)) {
+                int[] picks = entrance.length > LONG_ENTRANCE
+                        ? new int[]{0, entrance.length - 1}
+                        : new int[]{entrance.length / 2};
+                for (int pick : picks) {
+                    int i = entrance.first + pick;
+                    int x = baseX + alongX * i, z = baseZ + alongZ * i, y = entrance.ys[pick];
+                    if (count == portals.length) {
+                        portals = Arrays.copyOf(portals, count * 2);
+                        twins = Arrays.copyOf(twins, count * 2);
+                    }
+                    portals[count] = BlockPos.asLong(x, y, z);
+                    twins[count] = BlockPos.asLong(x + outX, y, z + outZ);
+                    count++;
+                }
+            }
+        }
+
+        return new Cluster(chunkX, chunkZ, minY, maxY, complete,
+                Arrays.copyOf(portals, count), Arrays.copyOf(twins, count));
+    }
+
+    // Cells i = 0..15 along one border, grouped into entrances
+    private static List<Entrance> findEntrances(BlockAccess blocks, int baseX, int baseZ, int alongX, int alongZ,
+                                                int outX, int outZ, int minY, int maxY) {
+        List<Entrance> finished = new ArrayList<>();
+        List<Entrance> active = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            int x = baseX + alongX * i, z = baseZ + alongZ * i;
+            List<Entrance> extended = new ArrayList<>();
+
+            for (int y = minY; y <= maxY; y++) {
+                if (!isStandable(blocks, x, y, z) || !isStandable(blocks, x + outX, y, z + outZ)) continue;
+
+                // Continue an entrance from the previous cell within a step up or down, else start one
+                Entrance entrance = null;
+                for (Entrance candidate : active) {
+                    if (!extended.contains(candidate) && Math.abs(candidate.lastY() - y) <= 1) {
+                        entrance = candidate;
+                        break;
+                    }
+                }
+                if (entrance == null) {
+                    entrance = new Entrance(i);
+                }
+                entrance.add(y);
+                extended.add(entrance);
+            }
+
+            for (Entrance entrance : active) {
+                if (!extended.contains(entrance)) finished.add(entrance);
+            }
+            active = extended;
+        }
+        finished.addAll(active);
+        return finished;
+    }
+
+    // Same footing the PathFinder needs to step onto a block: a floor below, feet and head
+    // space, and room above to have stepped in from either side
+    private static boolean isStandable(BlockAccess blocks, int x, int y, int z) {
+        return MovementFlags.has(blocks.getFlags(x, y - 1, z), MovementFlags.FLOOR)
+                && MovementFlags.has(blocks.getFlags(x, y, z), MovementFlags.FEET)
+                && MovementFlags.has(blocks.getFlags(x, y + 1, z), MovementFlags.HEAD)
+                && MovementFlags.has(blocks.getFlags(x, y + 2, z), MovementFlags.HEAD);
+    }
+
+    // A run of border cells from `first`, one standing height per cell
+    private static final class Entrance {
+        final int first;
+        final int[] ys = new int[16];
+        int length;
+
+        Entrance(int first) {
+            this.first = first;
+        }
+
+        void add(int y) {
+            ys[length++] = y;
+        }
+
+        int lastY() {
+            return ys[length - 1];
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.natga999.wynn_ai.path.hpa;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+import net.natga999.wynn_ai.path.BlockAccess;
+import net.natga999.wynn_ai.path.ChunkCache;
+
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * LRU of scanned {@link Cluster}s, keyed by packed {@link ChunkPos}.
+ * <p>
+ * A cluster's portals depend on its own blocks and on the border blocks of its four
+ * neighbours, so a changed chunk drops itself and the clusters around it. Clusters are
+ * scanned outside the lock: the lock is never held while reading blocks, which keeps
+ * invalidation from the {@link ChunkCache} (which holds its own lock) deadlock free.
+ */
+final class ClusterGraph implements ChunkCache.InvalidationListener {
+    private static final int MAX_CLUSTERS = 1024;
+
+    private final Long2ObjectLinkedOpenHashMap<Cluster> clusters = new Long2ObjectLinkedOpenHashMap<>();
+    private int modCount; // Bumped on every invalidation, guards scans racing with one
+
+    /**
+     * Returns the cluster of a chunk scanned at least over [{@code minY}, {@code maxY}],
+     * scanning it if needed.
+     */
+    Cluster getCluster(BlockAccess blocks, int chunkX, int chunkZ, int minY, int maxY) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        Cluster cached;
+        int expectedModCount;
+        synchronized (this) {
+            cached = clusters.getAndMoveToLast(key);
+            expectedModCount = modCount;
+        }
+
+        if (cached != null) {
+            if (cached.covers(minY, maxY)) {
+                return cached;
+            }
+            // Grow the band rather than flip between two searches' bands
+            minY = Math.min(minY, cached.minY);
+            maxY = Math.max(maxY, cached.maxY);
+        }
+
+        Cluster scanned = Cluster.scan(blocks, chunkX, chunkZ, minY, maxY);
+        if (scanned.complete) { // A cut-off border would be missing its portals for every later search
+            synchronized (this) {
+                if (modCount == expectedModCount) {
+                    clusters.putAndMoveToLast(key, scanned);
+                    if (clusters.size() > MAX_CLUSTERS) {
+                        clusters.removeFirst(); // Least recently used
+                    }
+                }
+            }
+        }
+        return scanned;
+    }
+
+    @Override
+    public synchronized void chunkInvalidated(int chunkX, int chunkZ) {
+        modCount++;
+        clusters.remove(ChunkPos.toLong(chunkX, chunkZ));
+        clusters.remove(ChunkPos.toLong(chunkX + 1, chunkZ));
+        clusters.remove(ChunkPos.toLong(chunkX - 1, chunkZ));
+        clusters.remove(ChunkPos.toLong(chunkX, chunkZ + 1));
+        clusters.remove(ChunkPos.toLong(chunkX, chunkZ - 1));
+    }
+
+    @Override
+    public synchronized void cacheCleared() {
+        modCount++;
+        clusters.clear();
+    }
+}
@@ -0,0 +1,307 @@
+package net.natga999.wynn_ai.path.hpa;
+
+import net.natga999.wynn_ai.path.BlockAccess;
+import net.natga999.wynn_ai.path.ChunkCache;
+import net.natga999.wynn_ai.path.PathFinder;
+import net.natga999.wynn_ai.path.PathResult;
+
+import net.minecraft.util.math.BlockPos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical A* (HPA*) for trips too long for a single block-level {@link PathFinder} run.
+ * <p>
+ * The world is cut into chunk-sized {@link Cluster}s connected through portals on their
+ * borders. A search first plans over portals only, using block-level paths between the
+ * portals of a cluster that are searched once and cached in the {@link ClusterGraph}; the
+ * first few clusters of the result are then searched again directly so the part walked
+ * first doesn't detour through portal cells. The whole result is block-level.
+ */
+public class HierarchicalPathPlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchicalPathPlanner.class);
+    private static final HierarchicalPathPlanner INSTANCE = new HierarchicalPathPlanner();
+
+    private static final int MAX_ABSTRACT_NODES = 4000; // Portals to expand before giving up
+    private static final int VERTICAL_MARGIN = 32; // Height band scanned for portals around start and goal
+    private static final int REFINE_CLUSTERS = 2; // Clusters around the start that are searched again directly
+    private static final double HEURISTIC_WEIGHT = 1.2; // Slightly greedy: a few percent longer, far fewer portals expanded
+
+    private final ClusterGraph graph = new ClusterGraph();
+
+    /** A planner with its own cluster cache, for worlds the {@link ChunkCache} doesn't track. */
+    public HierarchicalPathPlanner() {
+    }
+
+    /** The planner for the client world; its clusters are dropped along with the chunk cache. */
+    public static HierarchicalPathPlanner getInstance() {
+        return INSTANCE;
+    }
+
+    public static void register() {
+        ChunkCache.getInstance().addListener(INSTANCE.graph);
+    }
+
+    /**
+     * @return the smoothed path with its movement notes, or null if there is none
+     */
+    public PathResult findPath(BlockAccess blocks, BlockPos start, BlockPos goal) {
+        List<BlockPos> rawPath = findRawPath(blocks, start, goal);
+        if (rawPath == null) {
+            return null;
+        }
+
+        return new PathFinder(blocks, start, goal).smoothRawPath(rawPath);
+    }
+
+    /**
+     * @return every block the path steps through, or null if there is none
+     */
+    public List<BlockPos> findRawPath(BlockAccess blocks, BlockPos start, BlockPos goal) {
+        if (!blocks.isWithinBounds(start) || !blocks.isWithinBounds(goal)) {
+            LOGGER.debug("Start {} or goal {} is outside the search bounds", start, goal);
+            return null;
+        }
+
+        int startChunkX = start.getX() >> 4, startChunkZ = start.getZ() >> 4;
+        int goalChunkX = goal.getX() >> 4, goalChunkZ = goal.getZ() >> 4;
+
+        // Within one cluster the abstract graph has nothing to add
+        if (startChunkX == goalChunkX && startChunkZ == goalChunkZ) {
+            List<BlockPos> direct = new PathFinder(BoundedBlockAccess.ofChunk(blocks, startChunkX, startChunkZ), start, goal)
+                    .findRawPath(start, goal);
+            if (direct != null) {
+                return direct;
+            }
+        }
+
+        Search search = new Search(blocks, start, goal);
+        List<Node> abstractPath = search.run();
+        if (abstractPath == null) {
+            return null;
+        }
+        LOGGER.debug("Hierarchical path from {} to {}: {} abstract nodes, {} expanded",
+                start, goal, abstractPath.size(), search.expanded);
+        return refine(blocks, abstractPath);
+    }
+
+    // Stitches the edge paths together, then searches the first few clusters again
+    private List<BlockPos> refine(BlockAccess blocks, List<Node> abstractPath) {
+        Node startNode = abstractPath.getFirst();
+        int startChunkX = BlockPos.unpackLongX(startNode.pos) >> 4;
+        int startChunkZ = BlockPos.unpackLongZ(startNode.pos) >> 4;
+
+        // Last node still close to the start
+        int horizon = abstractPath.size() - 1;
+        for (int i = 1; i < abstractPath.size(); i++) {
+            long pos = abstractPath.get(i).pos;
+            int clusters = Math.max(Math.abs((BlockPos.unpackLongX(pos) >> 4) - startChunkX),
+                    Math.abs((BlockPos.unpackLongZ(pos) >> 4) - startChunkZ));
+            if (clusters >= REFINE_CLUSTERS) {
+                horizon = i;
+                break;
+            }
+        }
+
+        List<BlockPos> rawPath = null;
+        int stitchFrom = 1;
+        if (horizon > 1) {
+            BlockPos from = BlockPos.fromLong(startNode.pos);
+            BlockPos to = BlockPos.fromLong(abstractPath.get(horizon).pos);
+            BlockAccess window = new BoundedBlockAccess(blocks,
+                    (Math.min(from.getX(), to.getX()) & ~15) - 16, (Math.min(from.getZ(), to.getZ()) & ~15) - 16,
+                    (Math.max(from.getX(), to.getX()) | 15) + 16, (Math.max(from.getZ(), to.getZ()) | 15) + 16);
+            rawPath = new PathFinder(window, from, to).findRawPath(from, to);
+            if (rawPath != null) {
+                stitchFrom = horizon + 1;
+            }
+        }
+        if (rawPath == null) {
+            rawPath = new ArrayList<>();
+            rawPath.add(BlockPos.fromLong(startNode.pos));
+        }
+
+        for (int i = stitchFrom; i < abstractPath.size(); i++) {
+            long[] path = abstractPath.get(i).path;
+            for (int j = 1; j < path.length; j++) { // First block is the previous node
+                rawPath.add(BlockPos.fromLong(path[j]));
+            }
+        }
+        return rawPath;
+    }
+
+    private static final class Node {
+        final long pos;
+        double g;
+        double f;
+        Node parent;
+        long[] path; // Blocks from the parent to here
+        boolean closed;
+
+        Node(long pos) {
+            this.pos = pos;
+        }
+    }
+
+    // A node's place in the open queue at the cost it was queued with; the queue never sees a cost change
+    private static final class Entry {
+        final double f;
+        final Node node;
+
+        Entry(double f, Node node) {
+            this.f = f;
+            this.node = node;
+        }
+    }
+
+    /** One abstract A* over portals, from start to goal. */
+    private final class Search {
+        private final BlockAccess blocks;
+        private final long startKey, goalKey;
+        private final int goalX, goalY, goalZ;
+        private final int goalChunkX, goalChunkZ;
+        private final int minY, maxY;
+
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private final PriorityQueue<Entry> open = new PriorityQueue<>(Comparator.comparingDouble((Entry entry) -> entry.f));
+        int expanded;
+
+        Search(BlockAccess blocks, BlockPos start, BlockPos goal) {
+            this.blocks = blocks;
+            this.startKey = start.asLong();
+            this.goalKey = goal.asLong();
+            this.goalX = goal.getX();
+            this.goalY = goal.getY();
+            this.goalZ = goal.getZ();
+            this.goalChunkX = goalX >> 4;
+            this.goalChunkZ = goalZ >> 4;
+            this.minY = Math.max(blocks.getBottomY() + 1, Math.min(start.getY(), goal.getY()) - VERTICAL_MARGIN);
+            this.maxY = Math.max(start.getY(), goal.getY()) + VERTICAL_MARGIN;
+        }
+
+        List<Node> run() {
+            Node startNode = new Node(startKey);
+            startNode.f = estimate(startKey);
+            nodes.put(startKey, startNode);
+            open.add(new Entry(startNode.f, startNode));
+
+            while (!open.isEmpty()) {
+                Entry entry = open.poll();
+                Node current = entry.node;
+                if (current.closed || entry.f != current.f) continue; // Stale entry, the node was re-queued with a lower cost
+
+                if (current.pos == goalKey) {
+                    return reconstruct(current);
+                }
+                current.closed = true;
+
+                if (++expanded > MAX_ABSTRACT_NODES) {
+                    LOGGER.debug("Hierarchical search aborted after {} abstract nodes", MAX_ABSTRACT_NODES);
+                    return null;
+                }
+                // Planning service cancels a search by interrupting its worker
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+
+                expand(current);
+            }
+
+            LOGGER.debug("No hierarchical path found after {} abstract nodes", expanded);
+            return null;
+        }
+
+        private void expand(Node current) {
+            int chunkX = BlockPos.unpackLongX(current.pos) >> 4;
+            int chunkZ = BlockPos.unpackLongZ(current.pos) >> 4;
+            Cluster cluster = graph.getCluster(blocks, chunkX, chunkZ, minY, maxY);
+
+            if (current.pos == startKey) {
+                // The start is no portal: flood its cluster to reach every portal
+                long[] portals = new long[cluster.portalCount()];
+                for (int i = 0; i < portals.length; i++) {
+                    portals[i] = cluster.portal(i);
+                }
+                BlockPos from = BlockPos.fromLong(startKey);
+                List<List<BlockPos>> rawPaths = new PathFinder(BoundedBlockAccess.ofChunk(blocks, chunkX, chunkZ), from, from)
+                        .findRawPaths(from, portals);
+                for (List<BlockPos> rawPath : rawPaths) {
+                    if (rawPath != null) relax(current, Cluster.Edge.of(rawPath));
+                }
+            } else {
+                for (Cluster.Edge edge : cluster.edgesFrom(blocks, current.pos)) {
+                    relax(current, edge);
+                }
+
+                // Cross the border, if the neighbour agrees there is a portal there
+                for (int index = cluster.indexOf(current.pos, 0); index >= 0; index = cluster.indexOf(current.pos, index + 1)) {
+                    long twin = cluster.twin(index);
+                    int twinX = BlockPos.unpackLongX(twin), twinZ = BlockPos.unpackLongZ(twin);
+                    if (blocks.isWithinBounds(twinX, twinZ)
+                            && graph.getCluster(blocks, twinX >> 4, twinZ >> 4, minY, maxY).isPortal(twin)) {
+                        relax(current, new Cluster.Edge(twin, 1.0, new long[]{current.pos, twin})); // Always one straight step
+                    }
+                }
+            }
+
+            if (chunkX == goalChunkX && chunkZ == goalChunkZ) {
+                Cluster.Edge edge = searchEdge(chunkX, chunkZ, current.pos, goalKey);
+                if (edge != null) relax(current, edge);
+            }
+        }
+
+        // Block-level path inside one cluster, for the goal that has no cached edges
+        private Cluster.Edge searchEdge(int chunkX, int chunkZ, long from, long to) {
+            if (from == to) {
+                return new Cluster.Edge(to, 0.0, new long[]{from});
+            }
+            BlockPos fromPos = BlockPos.fromLong(from), toPos = BlockPos.fromLong(to);
+            List<BlockPos> rawPath = new PathFinder(BoundedBlockAccess.ofChunk(blocks, chunkX, chunkZ), fromPos, toPos)
+                    .findRawPath(fromPos, toPos);
+            return rawPath != null ? Cluster.Edge.of(rawPath) : null;
+        }
+
+        private void relax(Node parent, Cluster.Edge edge) {
+            double g = parent.g + edge.cost;
+            Node node = nodes.get(edge.target);
+            if (node == null) {
+                node = new Node(edge.target);
+                nodes.put(edge.target, node);
+            } else if (node.closed || g >= node.g) {
+                return;
+            }
+
+            node.g = g;
+            node.f = g + HEURISTIC_WEIGHT * estimate(edge.target);
+            node.parent = parent;
+            node.path = edge.path;
+            open.add(new Entry(node.f, node)); // Any older entry of the node is skipped when polled
+        }
+
+        // Straight-line distance: edge costs are path lengths, so unweighted it never overestimates
+        private double estimate(long pos) {
+            double dx = BlockPos.unpackLongX(pos) - goalX;
+            double dy = BlockPos.unpackLongY(pos) - goalY;
+            double dz = BlockPos.unpackLongZ(pos) - goalZ;
+            return Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+
+        private List<Node> reconstruct(Node goalNode) {
+            List<Node> path = new ArrayList<>();
+            for (Node node = goalNode; node != null; node = node.parent) {
+                path.add(node);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
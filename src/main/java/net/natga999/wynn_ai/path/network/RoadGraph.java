@@ -0,0 +1,400 @@
+package net.natga999.wynn_ai.path.network;
+
+import net.natga999.wynn_ai.path.search.IndexedMinHeap;
+
+import net.minecraft.util.math.Vec3d;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The road network compiled for routing: nodes numbered 0..n-1 and their outgoing edges in
+ * one adjacency array (CSR), with ALT landmark distances for the A* heuristic.
+ * <p>
+ * Connections become edges costed by their length; a tunnel entrance gets an extra edge to
+ * its exit costed {@link #TUNNEL_TRAVEL_COST}. Tunnels make the straight-line distance
+ * overestimate, so it is only used as a heuristic on graphs without them. Landmark bounds
+ * come from the triangle inequality over true road distances and hold either way.
+ * <p>
+ * A compiled graph is never edited: {@link RoadNetworkManager} drops it on every change to
+ * the network and compiles a new one on the next query.
+ */
+final class RoadGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoadGraph.class);
+
+    private static final double TUNNEL_TRAVEL_COST = 1.0;
+    private static final int LANDMARK_COUNT = 16;
+    private static final int LANDMARK_MIN_NODES = 256; // Smaller graphs search faster than the landmarks take to build
+    private static final int ACTIVE_LANDMARKS = 8; // Consulted per query, the ones bounding start to goal best
+    private static final int LANDMARK_SEED_ATTEMPTS = 4;
+
+    private final RoadNode[] nodes;
+    private final Map<String, Integer> indices;
+    private final double[] xs, ys, zs;
+
+    // Outgoing edges of node v are offsets[v] until offsets[v + 1]
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    private final boolean straightLineAdmissible; // No tunnels, every edge is at least its straight-line length
+    private final int landmarkCount;
+    private final double[] fromLandmark; // d(landmark -> v) at [v * landmarkCount + l], node-major for the heuristic
+    private final double[] toLandmark;   // d(v -> landmark), same layout
+    private final int[] activeLandmarks = new int[ACTIVE_LANDMARKS];
+    private final double[] goalFromLandmark = new double[ACTIVE_LANDMARKS]; // Goal's distances, per active slot
+    private final double[] goalToLandmark = new double[ACTIVE_LANDMARKS];
+    private int activeCount;
+
+    // Search state, reused between queries; stamps avoid clearing per-node arrays
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] seenStamp;
+    private final int[] closedStamp;
+    private final IndexedMinHeap open;
+    private int stamp;
+
+    private RoadGraph(RoadNode[] nodes, Map<String, Integer> indices, int[] offsets, int[] targets, double[] weights,
+                      boolean straightLineAdmissible) {
+        int n = nodes.length;
+        this.nodes = nodes;
+        this.indices = indices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.straightLineAdmissible = straightLineAdmissible;
+
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        for (int v = 0; v < n; v++) {
+            Vec3d pos = nodes[v].getPosition();
+            xs[v] = pos.x;
+            ys[v] = pos.y;
+            zs[v] = pos.z;
+        }
+
+        this.cost = new double[n];
+        this.parent = new int[n];
+        this.seenStamp = new int[n];
+        this.closedStamp = new int[n];
+        this.open = new IndexedMinHeap(Math.max(16, n));
+
+        if (n >= LANDMARK_MIN_NODES) {
+            this.landmarkCount = LANDMARK_COUNT;
+            this.fromLandmark = new double[n * LANDMARK_COUNT];
+            this.toLandmark = new double[n * LANDMARK_COUNT];
+            buildLandmarks();
+        } else {
+            this.landmarkCount = 0;
+            this.fromLandmark = null;
+            this.toLandmark = null;
+        }
+    }
+
+    static RoadGraph compile(Collection<RoadNode> allNodes) {
+        long startTime = System.nanoTime();
+        RoadNode[] nodes = allNodes.toArray(new RoadNode[0]);
+        // Number nodes along a Z-order curve, so road neighbours sit close together in every array
+        Arrays.sort(nodes, Comparator.comparingLong(RoadGraph::zOrder));
+        Map<String, Integer> indices = new HashMap<>(nodes.length * 2);
+        for (int v = 0; v < nodes.length; v++) {
+            indices.put(nodes[v].getId(), v);
+        }
+
+        int[] offsets = new int[nodes.length + 1];
+        int[] targets = new int[16];
+        double[] weights = new double[16];
+        int edgeCount = 0;
+        boolean hasTunnels = false;
+
+        for (int v = 0; v < nodes.length; v++) {
+            RoadNode node = nodes[v];
+            offsets[v] = edgeCount;
+            Vec3d pos = node.getPosition();
+
+            for (String neighborId : node.getConnections()) {
+                Integer neighbor = indices.get(neighborId);
+                if (neighbor == null) continue; // Dangling connection
+                if (edgeCount == targets.length) {
+                    targets = Arrays.copyOf(targets, edgeCount * 2);
+                    weights = Arrays.copyOf(weights, edgeCount * 2);
+                }
+                targets[edgeCount] = neighbor;
+                weights[edgeCount] = pos.distanceTo(nodes[neighbor].getPosition());
+                edgeCount++;
+            }
+
+            if ("TUNNEL_ENTRANCE".equalsIgnoreCase(node.getType()) && node.getTargetTunnelExitNodeId() != null) {
+                Integer exit = indices.get(node.getTargetTunnelExitNodeId());
+                if (exit == null) {
+                    LOGGER.warn("Tunnel entrance {} has invalid target exit ID {}", node.getId(), node.getTargetTunnelExitNodeId());
+                } else if (!node.getWorldId().equals(nodes[exit].getWorldId())) {
+                    LOGGER.warn("Tunnel from {} to {} crosses worlds ({} -> {}). Cross-world routing is not supported.",
+                            node.getId(), nodes[exit].getId(), node.getWorldId(), nodes[exit].getWorldId());
+                } else {
+                    if (edgeCount == targets.length) {
+                        targets = Arrays.copyOf(targets, edgeCount * 2);
+                        weights = Arrays.copyOf(weights, edgeCount * 2);
+                    }
+                    targets[edgeCount] = exit;
+                    weights[edgeCount] = TUNNEL_TRAVEL_COST;
+                    edgeCount++;
+                    hasTunnels |= TUNNEL_TRAVEL_COST < pos.distanceTo(nodes[exit].getPosition());
+                }
+            }
+        }
+        offsets[nodes.length] = edgeCount;
+
+        RoadGraph graph = new RoadGraph(nodes, indices, offsets,
+                Arrays.copyOf(targets, edgeCount), Arrays.copyOf(weights, edgeCount), !hasTunnels);
+        LOGGER.debug("Compiled road graph: {} nodes, {} edges, {} landmarks in {} ms", nodes.length, edgeCount,
+                graph.landmarkCount, (System.nanoTime() - startTime) / 1_000_000);
+        return graph;
+    }
+
+    // Interleaves the bits of the 16-block cell the node is in
+    private static long zOrder(RoadNode node) {
+        Vec3d pos = node.getPosition();
+        long x = ((long) Math.floor(pos.x) >> 4) + (1L << 31), z = ((long) Math.floor(pos.z) >> 4) + (1L << 31);
+        long key = 0;
+        for (int bit = 0; bit < 32; bit++) {
+            key |= ((x >>> bit) & 1L) << (2 * bit) | ((z >>> bit) & 1L) << (2 * bit + 1);
+        }
+        return key;
+    }
+
+    /**
+     * Shortest route between two nodes, both ends included, or null if either is unknown or
+     * the goal can't be reached.
+     */
+    synchronized List<RoadNode> findPath(String startId, String goalId) {
+        Integer startIndex = indices.get(startId);
+        Integer goalIndex = indices.get(goalId);
+        if (startIndex == null || goalIndex == null) {
+            return null;
+        }
+        int start = startIndex, goal = goalIndex;
+
+        nextStamp();
+        open.clear();
+        if (landmarkCount > 0) {
+            chooseActiveLandmarks(start, goal);
+        }
+        visit(start, 0.0, -1);
+        open.insert(start, estimate(start, goal));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == goal) {
+                return reconstruct(goal);
+            }
+            closedStamp[current] = stamp;
+
+            double currentCost = cost[current];
+            for (int e = offsets[current], end = offsets[current + 1]; e < end; e++) {
+                int neighbor = targets[e];
+                if (closedStamp[neighbor] == stamp) continue; // Consistent heuristic, a closed node is final
+                double g = currentCost + weights[e];
+
+                if (seenStamp[neighbor] != stamp) {
+                    double h = estimate(neighbor, goal);
+                    if (h == Double.POSITIVE_INFINITY) continue; // A landmark proves the goal unreachable from here
+                    visit(neighbor, g, current);
+                    open.insert(neighbor, g + h);
+                } else if (g < cost[neighbor]) {
+                    double h = estimate(neighbor, goal);
+                    visit(neighbor, g, current);
+                    open.decreaseKey(neighbor, g + h);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void visit(int node, double g, int from) {
+        seenStamp[node] = stamp;
+        cost[node] = g;
+        parent[node] = from;
+    }
+
+    private void nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            // Wrapped after two billion searches: start the stamps over
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    private List<RoadNode> reconstruct(int goal) {
+        List<RoadNode> path = new ArrayList<>();
+        for (int node = goal; node != -1; node = parent[node]) {
+            path.add(nodes[node]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Landmarks giving the best bound between start and goal; only these are consulted during the search
+    private void chooseActiveLandmarks(int start, int goal) {
+        activeCount = Math.min(ACTIVE_LANDMARKS, landmarkCount);
+        double[] bounds = new double[activeCount];
+        Arrays.fill(bounds, -1.0);
+        for (int l = 0; l < landmarkCount; l++) {
+            double bound = Math.max(
+                    difference(fromLandmark[goal * landmarkCount + l], fromLandmark[start * landmarkCount + l]),
+                    difference(toLandmark[start * landmarkCount + l], toLandmark[goal * landmarkCount + l]));
+            // Insertion into the short list, best bound first
+            for (int slot = 0; slot < activeCount; slot++) {
+                if (bound > bounds[slot]) {
+                    System.arraycopy(bounds, slot, bounds, slot + 1, activeCount - slot - 1);
+                    System.arraycopy(activeLandmarks, slot, activeLandmarks, slot + 1, activeCount - slot - 1);
+                    bounds[slot] = bound;
+                    activeLandmarks[slot] = l;
+                    break;
+                }
+            }
+        }
+        for (int slot = 0; slot < activeCount; slot++) {
+            goalFromLandmark[slot] = fromLandmark[goal * landmarkCount + activeLandmarks[slot]];
+            goalToLandmark[slot] = toLandmark[goal * landmarkCount + activeLandmarks[slot]];
+        }
+    }
+
+    private static double difference(double a, double b) {
+        return a == Double.POSITIVE_INFINITY || b == Double.POSITIVE_INFINITY ? 0.0 : a - b;
+    }
+
+    // Lower bound on d(v -> goal): the best landmark bound, and the straight line where it holds
+    private double estimate(int v, int goal) {
+        double best = 0.0;
+        if (straightLineAdmissible) {
+            double dx = xs[v] - xs[goal], dy = ys[v] - ys[goal], dz = zs[v] - zs[goal];
+            best = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        int vBase = v * landmarkCount;
+        for (int slot = 0; slot < activeCount; slot++) {
+            int l = activeLandmarks[slot];
+            // d(v, goal) >= d(L, goal) - d(L, v)
+            double fromV = fromLandmark[vBase + l], fromGoal = goalFromLandmark[slot];
+            if (fromV != Double.POSITIVE_INFINITY) {
+                if (fromGoal == Double.POSITIVE_INFINITY) {
+                    return Double.POSITIVE_INFINITY; // L reaches v but not the goal, so neither does v
+                }
+                best = Math.max(best, fromGoal - fromV);
+            }
+            // d(v, goal) >= d(v, L) - d(goal, L)
+            double toV = toLandmark[vBase + l], toGoal = goalToLandmark[slot];
+            if (toV != Double.POSITIVE_INFINITY && toGoal != Double.POSITIVE_INFINITY) {
+                best = Math.max(best, toV - toGoal);
+            }
+        }
+        return best;
+    }
+
+    // Picks landmarks far apart, each the node furthest from the ones picked before
+    private void buildLandmarks() {
+        int n = nodes.length;
+        int[] reverseOffsets = new int[n + 1];
+        int[] reverseTargets = new int[targets.length];
+        double[] reverseWeights = new double[weights.length];
+        reverse(reverseOffsets, reverseTargets, reverseWeights);
+
+        double[] distances = new double[n];
+        double[] nearestLandmark = new double[n]; // Distance from the closest landmark so far
+        Arrays.fill(nearestLandmark, Double.POSITIVE_INFINITY);
+
+        // Start on the edge of the largest part of the network: furthest from a node that reaches most of it.
+        // Stray nodes and small islands get no landmark of their own, the bounds just fall back for them.
+        int seed = 0, seedReach = -1;
+        for (int attempt = 0; attempt < LANDMARK_SEED_ATTEMPTS && seedReach < n / 2; attempt++) {
+            int candidate = (int) ((long) attempt * n / LANDMARK_SEED_ATTEMPTS);
+            int reach = dijkstra(candidate, offsets, targets, weights, distances);
+            if (reach > seedReach) {
+                seed = candidate;
+                seedReach = reach;
+            }
+        }
+        dijkstra(seed, offsets, targets, weights, distances);
+        int landmark = furthest(distances);
+
+        for (int l = 0; l < landmarkCount; l++) {
+            dijkstra(landmark, offsets, targets, weights, distances);
+            for (int v = 0; v < n; v++) {
+                fromLandmark[v * landmarkCount + l] = distances[v];
+                nearestLandmark[v] = Math.min(nearestLandmark[v], distances[v]);
+            }
+            dijkstra(landmark, reverseOffsets, reverseTargets, reverseWeights, distances);
+            for (int v = 0; v < n; v++) {
+                toLandmark[v * landmarkCount + l] = distances[v];
+            }
+            landmark = furthest(nearestLandmark);
+        }
+    }
+
+    // Index of the largest finite distance
+    private static int furthest(double[] distances) {
+        int best = -1;
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] != Double.POSITIVE_INFINITY && (best < 0 || distances[v] > distances[best])) best = v;
+        }
+        return Math.max(best, 0);
+    }
+
+    private void reverse(int[] reverseOffsets, int[] reverseTargets, double[] reverseWeights) {
+        int n = nodes.length;
+        for (int e = 0; e < targets.length; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] fill = Arrays.copyOf(reverseOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int slot = fill[targets[e]]++;
+                reverseTargets[slot] = v;
+                reverseWeights[slot] = weights[e];
+            }
+        }
+    }
+
+    // Distances from the source over the given edges; returns how many nodes it reached
+    private int dijkstra(int source, int[] edgeOffsets, int[] edgeTargets, double[] edgeWeights, double[] distances) {
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        int reached = 0;
+        open.clear();
+        distances[source] = 0.0;
+        open.insert(source, 0.0);
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            reached++;
+            double d = distances[current];
+            for (int e = edgeOffsets[current], end = edgeOffsets[current + 1]; e < end; e++) {
+                int neighbor = edgeTargets[e];
+                double candidate = d + edgeWeights[e];
+                if (candidate < distances[neighbor]) {
+                    boolean queued = open.contains(neighbor);
+                    distances[neighbor] = candidate;
+                    if (queued) {
+                        open.decreaseKey(neighbor, candidate);
+                    } else {
+                        open.insert(neighbor, candidate);
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+}
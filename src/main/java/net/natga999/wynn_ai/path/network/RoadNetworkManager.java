@@ -1,5 +1,6 @@
 package net.natga999.wynn_ai.path.network;
 
+import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 
 import net.fabricmc.loader.api.FabricLoader;
@@ -23,28 +24,43 @@ import java.util.stream.Collectors;
 public class RoadNetworkManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoadNetworkManager.class);
 
-    private static final RoadNetworkManager INSTANCE = new RoadNetworkManager();
     private final Map<String, RoadNode> nodes = new HashMap<>();
+    private final RoadNodeIndex index = new RoadNodeIndex(); // Same nodes, by world and position
+    private RoadGraph graph; // Compiled for routing, null until the next query after a change
     private final Path networkFilePath;
     private final Gson gson;
     private final LinkedList<String> recentlyAddedNodeIds = new LinkedList<>();
     private static final int MAX_RECENT_NODES_TO_TRACK = 2;
-    private static final double TUNNEL_TRAVEL_COST = 1.0;
 
-    private RoadNetworkManager() {
-        this.networkFilePath = FabricLoader.getInstance()
+    // Holder keeps FabricLoader out of class init, so detached networks work without a running game
+    private static final class Holder {
+        private static final RoadNetworkManager INSTANCE = new RoadNetworkManager(FabricLoader.getInstance()
                 .getConfigDir()
                 .resolve("wynn_ai")
-                .resolve("road_network.json");
+                .resolve("road_network.json"));
+    }
+
+    private RoadNetworkManager(Path networkFilePath) {
+        this.networkFilePath = networkFilePath;
         this.gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
     }
 
     public static RoadNetworkManager getInstance() {
-        return INSTANCE;
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Creates a network that is not the mod's shared one, backed by the given file.
+     * Used by benchmarks and tools that build graphs in memory.
+     */
+    public static RoadNetworkManager detached(Path networkFilePath) {
+        return new RoadNetworkManager(networkFilePath);
     }
 
     public boolean loadNetwork() {
         nodes.clear();
+        index.clear();
+        invalidateGraph();
         recentlyAddedNodeIds.clear();
         if (!Files.exists(networkFilePath)) {
             LOGGER.warn("Road network file not found: {}", networkFilePath);
@@ -58,6 +74,7 @@ public class RoadNetworkManager {
                 for (RoadNode node : wrapper.nodes) {
                     node.initializeTransientFields();
                     nodes.put(node.getId(), node);
+                    index.add(node);
                 }
                 LOGGER.info("Loaded {} road nodes from {}", nodes.size(), networkFilePath);
             } else {
@@ -92,6 +109,8 @@ public class RoadNetworkManager {
             return false;
         }
         nodes.put(node.getId(), node);
+        index.add(node);
+        invalidateGraph();
         LOGGER.info("Added node: {}", node.getId());
         // Track recently added node
         addRecentNode(node.getId());
@@ -125,7 +144,8 @@ public class RoadNetworkManager {
             LOGGER.warn("Attempted to remove non-existent node: {}", nodeId);
             return false;
         }
-        nodes.remove(nodeId);
+        index.remove(nodes.remove(nodeId));
+        invalidateGraph();
         recentlyAddedNodeIds.remove(nodeId); // Also remove from recent list
         // Also remove this node from all other nodes' connection lists
         for (RoadNode otherNode : nodes.values()) {
@@ -161,6 +181,7 @@ public class RoadNetworkManager {
         }
 
         if (changed1 || changed2) {
+            invalidateGraph();
             LOGGER.info("Added connection between {} and {}", nodeId1, nodeId2);
             return true;
         } else {
@@ -183,6 +204,7 @@ public class RoadNetworkManager {
         boolean removed2 = node2.getConnections().remove(nodeId1);
 
         if (removed1 || removed2) {
+            invalidateGraph();
             LOGGER.info("Removed connection between {} and {}", nodeId1, nodeId2);
             return true;
         } else {
@@ -201,9 +223,25 @@ public class RoadNetworkManager {
         // If typeName is null or empty, maybe set type to null.
         String newType = (typeName == null || typeName.trim().isEmpty()) ? null : typeName.trim();
         node.setType(newType); // Requires setType in RoadNode
+        invalidateGraph(); // Tunnel entrances are found by type
         LOGGER.info("Node {} type set to '{}'", nodeId, newType);
     }
 
+    /**
+     * Points a tunnel entrance at its exit, or clears it with a null exit ID.
+     */
+    public boolean setTunnelExit(String entranceNodeId, String exitNodeId) {
+        RoadNode entrance = nodes.get(entranceNodeId);
+        if (entrance == null || (exitNodeId != null && !nodes.containsKey(exitNodeId))) {
+            LOGGER.warn("Set tunnel exit: Node not found ({} -> {})", entranceNodeId, exitNodeId);
+            return false;
+        }
+        entrance.setTargetTunnelExitNodeId(exitNodeId);
+        invalidateGraph();
+        LOGGER.info("Tunnel entrance {} now leads to {}", entranceNodeId, exitNodeId);
+        return true;
+    }
+
     public RoadNode getNodeById(String id) {
         return nodes.get(id);
     }
@@ -220,111 +258,64 @@ public class RoadNetworkManager {
     }
 
     public RoadNode findClosestNode(Vec3d targetPosition, String worldId, double maxDistance) {
-        return nodes.values().stream()
-                .filter(node -> node.getWorldId().equals(worldId) && node.getPosition() != null)
-                .filter(node -> node.getPosition().distanceTo(targetPosition) <= maxDistance)
-                .min(Comparator.comparingDouble(node -> node.getPosition().distanceTo(targetPosition)))
-                .orElse(null);
+        return index.nearest(targetPosition, worldId, maxDistance);
     }
 
     public RoadNode findClosestNode(Vec3d targetPosition, String worldId) {
         return findClosestNode(targetPosition, worldId, Double.MAX_VALUE);
     }
 
-    public List<RoadNode> findPathOnRoadNetwork(String startNodeId, String goalNodeId) {
-        RoadNode startNode = nodes.get(startNodeId);
-        RoadNode goalNode = nodes.get(goalNodeId);
-
-        if (startNode == null || goalNode == null) {
-            LOGGER.warn("A* pathfinding: Start or goal node not found ({} -> {})", startNodeId, goalNodeId);
-            return null;
-        }
-
-        PriorityQueue<PathStep> openSet = new PriorityQueue<>(Comparator.comparingDouble(step -> step.fScore));
-        Map<RoadNode, RoadNode> cameFrom = new HashMap<>();
-        Map<RoadNode, Double> gScore = new HashMap<>(); // Cost from start to node
-
-        nodes.values().forEach(node -> gScore.put(node, Double.POSITIVE_INFINITY));
-        gScore.put(startNode, 0.0);
-
-        openSet.add(new PathStep(startNode, heuristic(startNode, goalNode)));
-
-        while (!openSet.isEmpty()) {
-            RoadNode current = openSet.poll().node;
-
-            if (current.equals(goalNode)) {
-                return reconstructPath(cameFrom, current);
-            }
+    /**
+     * Up to {@code count} nodes of a world within {@code maxDistance} of the position, closest first.
+     */
+    public List<RoadNode> findClosestNodes(Vec3d targetPosition, String worldId, int count, double maxDistance) {
+        return index.nearest(targetPosition, worldId, count, maxDistance);
+    }
 
-            for (String neighborId : current.getConnections()) {
-                RoadNode neighbor = nodes.get(neighborId);
-                if (neighbor == null || neighbor.getPosition() == null) continue; // Skip invalid connections
+    /** Nodes of a world within {@code radius} of the position, in no particular order. */
+    public List<RoadNode> findNodesWithinRadius(Vec3d center, String worldId, double radius) {
+        return index.withinRadius(center, worldId, radius);
+    }
 
-                double tentativeGScore = gScore.get(current) + current.getPosition().distanceTo(neighbor.getPosition());
+    /** Nodes of a world inside the box, in no particular order. */
+    public List<RoadNode> findNodesInBox(String worldId, Box box) {
+        return index.withinBox(worldId, box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+    }
 
-                if (tentativeGScore < gScore.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
-                    cameFrom.put(neighbor, current);
-                    gScore.put(neighbor, tentativeGScore);
-                    double fScore = tentativeGScore + heuristic(neighbor, goalNode);
-                    // Remove if neighbor is already in openSet with higher fScore, then add new
-                    openSet.removeIf(step -> step.node.equals(neighbor));
-                    openSet.add(new PathStep(neighbor, fScore));
-                }
-            }
+    /** All nodes of a world, in no particular order. */
+    public List<RoadNode> getNodesInWorld(String worldId) {
+        return index.nodesIn(worldId);
+    }
 
-            // *** Explore tunnel connection if applicable ***
-            if ("TUNNEL_ENTRANCE".equalsIgnoreCase(current.getType()) && current.getTargetTunnelExitNodeId() != null) {
-                RoadNode tunnelExitNeighbor = nodes.get(current.getTargetTunnelExitNodeId());
-                if (tunnelExitNeighbor != null && tunnelExitNeighbor.getPosition() != null) {
-                    // Ensure the tunnel exit is in the same world, or handle cross-world tunnels if your system supports it
-                    if (current.getWorldId().equals(tunnelExitNeighbor.getWorldId())) {
-                        double tentativeGScore = gScore.get(current) + TUNNEL_TRAVEL_COST; // Special low cost for tunnel travel
-
-                        if (tentativeGScore < gScore.getOrDefault(tunnelExitNeighbor, Double.POSITIVE_INFINITY)) {
-                            cameFrom.put(tunnelExitNeighbor, current); // Traveled from current (entrance) to exit
-                            gScore.put(tunnelExitNeighbor, tentativeGScore);
-                            double fScore = tentativeGScore + heuristic(tunnelExitNeighbor, goalNode);
-                            openSet.removeIf(step -> step.node.equals(tunnelExitNeighbor));
-                            openSet.add(new PathStep(tunnelExitNeighbor, fScore));
-                            LOGGER.debug("A*: Considered tunnel from {} to {} with cost {}", current.getId(), tunnelExitNeighbor.getId(), TUNNEL_TRAVEL_COST);
-                        }
-                    } else {
-                        LOGGER.warn("A*: Tunnel from {} to {} crosses worlds ({} -> {}). Cross-world A* not yet supported here.",
-                                current.getId(), tunnelExitNeighbor.getId(), current.getWorldId(), tunnelExitNeighbor.getWorldId());
-                    }
-                } else {
-                    LOGGER.warn("A*: Tunnel entrance {} has invalid target exit ID {} or exit node has no position.", current.getId(), current.getTargetTunnelExitNodeId());
-                }
-            }
+    /**
+     * Shortest route over the road network, both ends included, or null if there is none.
+     * The first query after an edit compiles the network into a {@link RoadGraph}.
+     */
+    public List<RoadNode> findPathOnRoadNetwork(String startNodeId, String goalNodeId) {
+        if (!nodes.containsKey(startNodeId) || !nodes.containsKey(goalNodeId)) {
+            LOGGER.warn("A* pathfinding: Start or goal node not found ({} -> {})", startNodeId, goalNodeId);
+            return null;
         }
-        LOGGER.warn("A* pathfinding failed to find a path from {} to {}", startNodeId, goalNodeId);
-        return null; // Path not found
-    }
 
-    private double heuristic(RoadNode a, RoadNode b) {
-        if (a.getPosition() == null || b.getPosition() == null) return Double.POSITIVE_INFINITY;
-        return a.getPosition().distanceTo(b.getPosition());
+        List<RoadNode> path = graph().findPath(startNodeId, goalNodeId);
+        if (path == null) {
+            LOGGER.warn("A* pathfinding failed to find a path from {} to {}", startNodeId, goalNodeId);
+        }
+        return path;
     }
 
-    private List<RoadNode> reconstructPath(Map<RoadNode, RoadNode> cameFrom, RoadNode current) {
-        List<RoadNode> totalPath = new ArrayList<>();
-        totalPath.add(current);
-        while (cameFrom.containsKey(current)) {
-            current = cameFrom.get(current);
-            totalPath.addFirst(current); // Add to the beginning to reverse
+    private RoadGraph graph() {
+        RoadGraph compiled = graph;
+        if (compiled == null) {
+            compiled = RoadGraph.compile(nodes.values());
+            graph = compiled;
         }
-        return totalPath;
+        return compiled;
     }
 
-    // Helper class for A* priority queue
-    private static class PathStep {
-        RoadNode node;
-        double fScore; // gScore + hScore
-
-        PathStep(RoadNode node, double fScore) {
-            this.node = node;
-            this.fScore = fScore;
-        }
+    // Every change to nodes, connections or tunnels goes through here
+    private void invalidateGraph() {
+        graph = null;
     }
 
     // Helper class for GSON deserialization of the top-level "nodes" array
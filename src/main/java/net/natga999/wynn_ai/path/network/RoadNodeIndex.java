@@ -0,0 +1,228 @@
+package net.natga999.wynn_ai.path.network;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Grid hash over the road nodes of each world, so lookups only visit the cells around the
+ * queried position instead of every node.
+ * <p>
+ * Cells are square columns on x/z; heights are only checked against each node. Distances are
+ * the same 3D distances {@link Vec3d#distanceTo} gives, the horizontal grid just bounds them
+ * from below. Node positions never change, so a node stays in the cell it was added to.
+ */
+final class RoadNodeIndex {
+    private static final int CELL_SHIFT = 5; // 32 block cells: a few nodes each on a typical road
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final Map<String, WorldGrid> worlds = new HashMap<>();
+
+    void add(RoadNode node) {
+        if (node.getWorldId() == null || node.getPosition() == null) return;
+        worlds.computeIfAbsent(node.getWorldId(), id -> new WorldGrid()).add(node);
+    }
+
+    void remove(RoadNode node) {
+        if (node.getWorldId() == null || node.getPosition() == null) return;
+        WorldGrid grid = worlds.get(node.getWorldId());
+        if (grid != null && grid.remove(node) && grid.size == 0) {
+            worlds.remove(node.getWorldId());
+        }
+    }
+
+    void clear() {
+        worlds.clear();
+    }
+
+    /** Every indexed node of a world, in no particular order. */
+    List<RoadNode> nodesIn(String worldId) {
+        WorldGrid grid = worlds.get(worldId);
+        if (grid == null) return Collections.emptyList();
+        List<RoadNode> result = new ArrayList<>(grid.size);
+        for (List<RoadNode> cell : grid.cells.values()) {
+            result.addAll(cell);
+        }
+        return result;
+    }
+
+    /** The closest node within {@code maxDistance}, or null. */
+    RoadNode nearest(Vec3d target, String worldId, double maxDistance) {
+        List<RoadNode> found = nearest(target, worldId, 1, maxDistance);
+        return found.isEmpty() ? null : found.getFirst();
+    }
+
+    /** Up to {@code k} nodes within {@code maxDistance}, closest first. */
+    List<RoadNode> nearest(Vec3d target, String worldId, int k, double maxDistance) {
+        WorldGrid grid = worlds.get(worldId);
+        if (grid == null || k <= 0) return Collections.emptyList();
+
+        // Farthest of the k best on top, so it is the one replaced
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+        int centerX = cell(target.x), centerZ = cell(target.z);
+        int maxRing = grid.maxRing(centerX, centerZ);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything from this ring on is at least this far away horizontally
+            double ringDistance = (ring - 1) * (double) CELL_SIZE;
+            if (ringDistance > maxDistance) break;
+            if (best.size() == k && ringDistance >= best.peek().distance) break;
+
+            if (8L * ring > grid.cells.size()) {
+                // Ring has more cells than the world has occupied ones, finish with a plain scan
+                for (List<RoadNode> cell : grid.cells.values()) {
+                    Vec3d pos = cell.getFirst().getPosition(); // Cells are never left empty
+                    int ringOfCell = Math.max(Math.abs(cell(pos.x) - centerX), Math.abs(cell(pos.z) - centerZ));
+                    if (ringOfCell >= ring) offer(cell, target, k, maxDistance, best);
+                }
+                break;
+            }
+
+            for (int cx = centerX - ring; cx <= centerX + ring; cx++) {
+                boolean edgeColumn = cx == centerX - ring || cx == centerX + ring;
+                // Inner columns only have their two cells on the ring
+                int step = edgeColumn ? 1 : Math.max(1, 2 * ring);
+                for (int cz = centerZ - ring; cz <= centerZ + ring; cz += step) {
+                    List<RoadNode> cell = grid.cells.get(ChunkPos.toLong(cx, cz));
+                    if (cell != null) offer(cell, target, k, maxDistance, best);
+                }
+            }
+        }
+
+        List<RoadNode> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().node);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static void offer(List<RoadNode> cell, Vec3d target, int k, double maxDistance, PriorityQueue<Candidate> best) {
+        for (RoadNode node : cell) {
+            double distance = node.getPosition().distanceTo(target);
+            if (distance > maxDistance) continue;
+            if (best.size() < k) {
+                best.add(new Candidate(node, distance));
+            } else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Candidate(node, distance));
+            }
+        }
+    }
+
+    /** Every node within {@code radius} of {@code center}, in no particular order. */
+    List<RoadNode> withinRadius(Vec3d center, String worldId, double radius) {
+        List<RoadNode> result = new ArrayList<>();
+        for (RoadNode node : withinBox(worldId,
+                center.x - radius, center.y - radius, center.z - radius,
+                center.x + radius, center.y + radius, center.z + radius)) {
+            if (node.getPosition().distanceTo(center) <= radius) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /** Every node inside the box, bounds inclusive, in no particular order. */
+    List<RoadNode> withinBox(String worldId, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        WorldGrid grid = worlds.get(worldId);
+        if (grid == null) return Collections.emptyList();
+
+        // Clamp to the occupied cells, a huge box must not walk empty space
+        int fromX = Math.max(cell(minX), grid.minCellX), toX = Math.min(cell(maxX), grid.maxCellX);
+        int fromZ = Math.max(cell(minZ), grid.minCellZ), toZ = Math.min(cell(maxZ), grid.maxCellZ);
+        if (fromX > toX || fromZ > toZ) return Collections.emptyList();
+        List<RoadNode> result = new ArrayList<>();
+        if ((long) (toX - fromX + 1) * (toZ - fromZ + 1) > grid.cells.size()) {
+            // Box spans more cells than there are occupied ones
+            for (List<RoadNode> cell : grid.cells.values()) {
+                collectInBox(cell, result, minX, minY, minZ, maxX, maxY, maxZ);
+            }
+            return result;
+        }
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cz = fromZ; cz <= toZ; cz++) {
+                List<RoadNode> cell = grid.cells.get(ChunkPos.toLong(cx, cz));
+                if (cell != null) {
+                    collectInBox(cell, result, minX, minY, minZ, maxX, maxY, maxZ);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void collectInBox(List<RoadNode> cell, List<RoadNode> result,
+                                     double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (RoadNode node : cell) {
+            Vec3d pos = node.getPosition();
+            if (pos.x >= minX && pos.x <= maxX && pos.y >= minY && pos.y <= maxY && pos.z >= minZ && pos.z <= maxZ) {
+                result.add(node);
+            }
+        }
+    }
+
+    private static int cell(double coordinate) {
+        // Clamped so infinite or huge query bounds still make a valid cell
+        return (int) Math.floor(Math.max(-1.0e9, Math.min(1.0e9, coordinate)) / CELL_SIZE);
+    }
+
+    private static final class Candidate {
+        final RoadNode node;
+        final double distance;
+
+        Candidate(RoadNode node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    // The cells of one world, with the extent of every cell ever occupied
+    private static final class WorldGrid {
+        final Long2ObjectOpenHashMap<List<RoadNode>> cells = new Long2ObjectOpenHashMap<>();
+        int size;
+        int minCellX = Integer.MAX_VALUE, minCellZ = Integer.MAX_VALUE;
+        int maxCellX = Integer.MIN_VALUE, maxCellZ = Integer.MIN_VALUE;
+
+        void add(RoadNode node) {
+            int cx = cell(node.getPosition().x), cz = cell(node.getPosition().z);
+            List<RoadNode> cell = cells.get(ChunkPos.toLong(cx, cz));
+            if (cell == null) {
+                cell = new ArrayList<>(4);
+                cells.put(ChunkPos.toLong(cx, cz), cell);
+            }
+            cell.add(node);
+            size++;
+            minCellX = Math.min(minCellX, cx);
+            minCellZ = Math.min(minCellZ, cz);
+            maxCellX = Math.max(maxCellX, cx);
+            maxCellZ = Math.max(maxCellZ, cz);
+        }
+
+        boolean remove(RoadNode node) {
+            long key = ChunkPos.toLong(cell(node.getPosition().x), cell(node.getPosition().z));
+            List<RoadNode> cell = cells.get(key);
+            if (cell == null || !cell.remove(node)) return false;
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+            size--;
+            return true; // The extent only shrinks on reload, a little slack costs a few empty lookups
+        }
+
+        // Rings needed from the center cell to cover every occupied cell
+        int maxRing(int centerX, int centerZ) {
+            if (size == 0) return -1;
+            return Math.max(Math.max(Math.abs(centerX - minCellX), Math.abs(centerX - maxCellX)),
+                    Math.max(Math.abs(centerZ - minCellZ), Math.abs(centerZ - maxCellZ)));
+        }
+    }
+}
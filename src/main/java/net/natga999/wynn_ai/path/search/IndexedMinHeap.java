@@ -0,0 +1,166 @@
+package net.natga999.wynn_ai.path.search;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Binary min-heap of node indices keyed by a double, with decrease-key.
+ * <p>
+ * Each node can be in the heap at most once, so an improved path updates its entry instead of
+ * queueing a duplicate. Node indices are dense and come from {@link NodePool}.
+ */
+public final class IndexedMinHeap {
+    private int[] heap;       // Node indices in heap order
+    private double[] keys;    // Key per heap slot, kept next to heap[] for cache-friendly sifting
+    private int[] positions;  // Heap slot per node index, -1 when not queued
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return node < positions.length && positions[node] >= 0;
+    }
+
+    public void insert(int node, double key) {
+        ensureCapacity(node + 1);
+        int slot = size++;
+        heap[slot] = node;
+        keys[slot] = key;
+        positions[node] = slot;
+        siftUp(slot);
+    }
+
+    /**
+     * Lowers the key of a queued node. Larger keys are ignored.
+     */
+    public void decreaseKey(int node, double key) {
+        int slot = positions[node];
+        if (slot < 0 || key >= keys[slot]) return;
+        keys[slot] = key;
+        siftUp(slot);
+    }
+
+    public void remove(int node) {
+        if (!contains(node)) return;
+        int slot = positions[node];
+        positions[node] = -1;
+
+        int last = --size;
+        if (slot != last) {
+            heap[slot] = heap[last];
+            keys[slot] = keys[last];
+            positions[heap[slot]] = slot;
+            // The moved entry may belong above or below its new slot
+            if (slot > 0 && keys[slot] < keys[(slot - 1) >>> 1]) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+    }
+
+    /**
+     * Recomputes every key, e.g. after the goal and with it the heuristic changed.
+     */
+    public void rekey(IntToDoubleFunction keyOf) {
+        for (int slot = 0; slot < size; slot++) {
+            keys[slot] = keyOf.applyAsDouble(heap[slot]);
+        }
+        for (int slot = (size >>> 1) - 1; slot >= 0; slot--) {
+            siftDown(slot);
+        }
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+
+        int last = --size;
+        if (last > 0) {
+            heap[0] = heap[last];
+            keys[0] = keys[last];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int node = heap[slot];
+        double key = keys[slot];
+
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            move(parent, slot);
+            slot = parent;
+        }
+        place(node, key, slot);
+    }
+
+    private void siftDown(int slot) {
+        int node = heap[slot];
+        double key = keys[slot];
+        int half = size >>> 1;
+
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child]) break;
+            move(child, slot);
+            slot = child;
+        }
+        place(node, key, slot);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positions[heap[to]] = to;
+    }
+
+    private void place(int node, double key, int slot) {
+        heap[slot] = node;
+        keys[slot] = key;
+        positions[node] = slot;
+    }
+
+    private void ensureCapacity(int nodeCount) {
+        if (nodeCount > positions.length) {
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(nodeCount, oldLength * 2));
+            Arrays.fill(positions, oldLength, positions.length, -1);
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+    }
+}
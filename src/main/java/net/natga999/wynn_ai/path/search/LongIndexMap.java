@@ -0,0 +1,100 @@
+package net.natga999.wynn_ai.path.search;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from packed positions ({@code BlockPos.asLong}) to node indices.
+ * <p>
+ * Linear probing without deletes; {@link #clear()} only bumps a generation stamp, so one
+ * instance is reused for every search on a thread without touching its arrays.
+ */
+public final class LongIndexMap {
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int[] stamps; // Slot is occupied when its stamp equals the current generation
+    private int generation = 1;
+    private int mask;
+    private int size;
+
+    public LongIndexMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int get(long key) {
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow(); // Keep the load factor at or below 0.5
+        }
+
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = generation;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0); // Wrapped, start over
+            generation = 1;
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads the packed x/z bits
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+
+        allocate(oldKeys.length * 2);
+        generation = 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        return Math.max(16, capacity);
+    }
+}
@@ -0,0 +1,109 @@
+package net.natga999.wynn_ai.path.search;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for search nodes: packed position, cost so far, parent and
+ * closed flag per dense index. Arrays only ever grow, so a reused pool allocates nothing.
+ * <p>
+ * Any-angle searches also keep a fallback per node: the cheapest parent one plain move away,
+ * used when the parent they took on trust turns out not to be in line of sight.
+ */
+public final class NodePool {
+    public static final int NO_PARENT = -1;
+
+    private long[] positions;
+    private double[] costs;
+    private int[] parents;
+    private boolean[] closed;
+    private double[] fallbackCosts;
+    private int[] fallbackParents;
+    private int size;
+
+    public NodePool(int capacity) {
+        positions = new long[capacity];
+        costs = new double[capacity];
+        parents = new int[capacity];
+        closed = new boolean[capacity];
+        fallbackCosts = new double[capacity];
+        fallbackParents = new int[capacity];
+    }
+
+    /**
+     * @return the index of the new node
+     */
+    public int add(long position, double cost, int parent) {
+        if (size == positions.length) {
+            grow();
+        }
+        int node = size++;
+        positions[node] = position;
+        costs[node] = cost;
+        parents[node] = parent;
+        closed[node] = false;
+        fallbackCosts[node] = cost;
+        fallbackParents[node] = parent;
+        return node;
+    }
+
+    public void update(int node, double cost, int parent) {
+        costs[node] = cost;
+        parents[node] = parent;
+    }
+
+    public void updateFallback(int node, double cost, int parent) {
+        fallbackCosts[node] = cost;
+        fallbackParents[node] = parent;
+    }
+
+    public long position(int node) {
+        return positions[node];
+    }
+
+    public double cost(int node) {
+        return costs[node];
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public double fallbackCost(int node) {
+        return fallbackCosts[node];
+    }
+
+    public int fallbackParent(int node) {
+        return fallbackParents[node];
+    }
+
+    public boolean isClosed(int node) {
+        return closed[node];
+    }
+
+    public void close(int node) {
+        closed[node] = true;
+    }
+
+    /** Lets a kept search expand the node again. */
+    public void reopen(int node) {
+        closed[node] = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0; // Entries are overwritten by add()
+    }
+
+    private void grow() {
+        int capacity = positions.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        closed = Arrays.copyOf(closed, capacity);
+        fallbackCosts = Arrays.copyOf(fallbackCosts, capacity);
+        fallbackParents = Arrays.copyOf(fallbackParents, capacity);
+    }
+}
@@ -0,0 +1,51 @@
+package net.natga999.wynn_ai.path.search;
+
+/**
+ * Reusable buffers for one A* search: node pool, position index and open set.
+ * <p>
+ * One workspace lives per planning thread (see {@link #get()}), so back-to-back searches
+ * reuse the same arrays. A search must not call into another search on the same thread.
+ */
+public final class SearchWorkspace {
+    private static final int INITIAL_NODES = 8192; // A typical capped search opens a few thousand nodes
+
+    private static final ThreadLocal<SearchWorkspace> LOCAL = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    public final NodePool nodes = new NodePool(INITIAL_NODES);
+    public final LongIndexMap index = new LongIndexMap(INITIAL_NODES);
+    public final IndexedMinHeap open = new IndexedMinHeap(INITIAL_NODES);
+
+    /**
+     * A workspace of its own, for a search that is kept and resumed rather than run once.
+     * One-off searches use {@link #get()}.
+     */
+    public SearchWorkspace() {
+    }
+
+    /**
+     * @return this thread's workspace, reset and ready for a new search
+     */
+    public static SearchWorkspace get() {
+        SearchWorkspace workspace = LOCAL.get();
+        workspace.reset();
+        return workspace;
+    }
+
+    public void reset() {
+        nodes.clear();
+        index.clear();
+        open.clear();
+    }
+
+    /**
+     * @return the node for the position, or {@link LongIndexMap#MISSING} if it was never reached
+     */
+    public int nodeAt(long position) {
+        return index.get(position);
+    }
+
+    public boolean isClosed(long position) {
+        int node = index.get(position);
+        return node != LongIndexMap.MISSING && nodes.isClosed(node);
+    }
+}
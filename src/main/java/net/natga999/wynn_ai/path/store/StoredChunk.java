@@ -0,0 +1,201 @@
+package net.natga999.wynn_ai.path.store;
+
+import net.natga999.wynn_ai.path.MovementFlags;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The walkable shape of one chunk as the {@link TerrainStore} keeps it: for each of its 256
+ * columns, the search bits of {@link MovementFlags} from the bottom of the world up to the
+ * column's height, one above its highest non-air block. Everything above is air.
+ * <p>
+ * A column is kept as runs of equal flags. Encoded, the flags of a chunk go through a palette
+ * and every run is two varints, so a column of ordinary terrain takes a few bytes. Decoded, a
+ * lookup walks the column's runs, rarely more than a dozen.
+ */
+public final class StoredChunk {
+    private static final int FORMAT = 1; // Bumped when the encoding changes, older chunks are skipped
+    private static final int COLUMNS = 16 * 16;
+    static final int AIR_FLAGS = MovementFlags.AIR | MovementFlags.FEET | MovementFlags.HEAD; // What is above a column's height
+
+    /** Where {@link #encode} reads a chunk's flags from; x and z are chunk-local, y absolute. */
+    @FunctionalInterface
+    public interface FlagSource {
+        int getFlags(int x, int y, int z);
+    }
+
+    private final int bottomY;
+    private final int[] columnStarts; // Runs of column i are [columnStarts[i], columnStarts[i + 1])
+    private final int[] runTops; // Exclusive top y of each run
+    private final char[] runFlags;
+
+    private StoredChunk(int bottomY, int[] columnStarts, int[] runTops, char[] runFlags) {
+        this.bottomY = bottomY;
+        this.columnStarts = columnStarts;
+        this.runTops = runTops;
+        this.runFlags = runFlags;
+    }
+
+    /**
+     * @return the search bits of {@link MovementFlags} at the position, only the low four bits of x and z count
+     */
+    public int getFlags(int x, int y, int z) {
+        int column = ((z & 15) << 4) | (x & 15);
+        if (y >= bottomY) {
+            for (int i = columnStarts[column], end = columnStarts[column + 1]; i < end; i++) {
+                if (y < runTops[i]) {
+                    return runFlags[i];
+                }
+            }
+        }
+        return AIR_FLAGS;
+    }
+
+    /** One above the highest non-air block of the column, the bottom of the world if there is none. */
+    public int getHeight(int x, int z) {
+        int column = ((z & 15) << 4) | (x & 15);
+        int end = columnStarts[column + 1];
+        return end > columnStarts[column] ? runTops[end - 1] : bottomY;
+    }
+
+    /**
+     * Reduces a chunk to its encoded form.
+     *
+     * @param topY exclusive
+     */
+    public static byte[] encode(int bottomY, int topY, FlagSource source) {
+        int[] column = new int[topY - bottomY];
+        int[] palette = new int[16];
+        int paletteSize = 0;
+        int[] runs = new int[COLUMNS * 8]; // Palette index and length of each run, grown as needed
+        int runCount = 0;
+        int[] columnRuns = new int[COLUMNS];
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int height = 0;
+                for (int i = 0; i < column.length; i++) {
+                    int flags = source.getFlags(x, bottomY + i, z) & MovementFlags.SECTION_BITS;
+                    column[i] = flags;
+                    if (flags != AIR_FLAGS) height = i + 1;
+                }
+
+                int first = runCount;
+                for (int i = 0; i < height; ) {
+                    int flags = column[i];
+                    int length = 1;
+                    while (i + length < height && column[i + length] == flags) length++;
+
+                    // A chunk's palette is small, a linear scan beats hashing
+                    int index = 0;
+                    while (index < paletteSize && palette[index] != flags) index++;
+                    if (index == paletteSize) {
+                        if (paletteSize == palette.length) palette = Arrays.copyOf(palette, paletteSize * 2);
+                        palette[paletteSize++] = flags;
+                    }
+
+                    if (runCount * 2 + 2 > runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+                    runs[runCount * 2] = index;
+                    runs[runCount * 2 + 1] = length;
+                    runCount++;
+                    i += length;
+                }
+                columnRuns[(z << 4) | x] = runCount - first;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + runCount * 3);
+        out.write(FORMAT);
+        writeVarInt(out, (bottomY << 1) ^ (bottomY >> 31)); // Zigzag, the bottom is usually negative
+        writeVarInt(out, paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            writeVarInt(out, palette[i]);
+        }
+        int run = 0;
+        for (int i = 0; i < COLUMNS; i++) {
+            writeVarInt(out, columnRuns[i]);
+            for (int end = run + columnRuns[i]; run < end; run++) {
+                writeVarInt(out, runs[run * 2]);
+                writeVarInt(out, runs[run * 2 + 1]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a chunk written by {@link #encode}, from the buffer's position on.
+     *
+     * @throws IllegalArgumentException if the data is not a chunk of this format
+     */
+    public static StoredChunk decode(ByteBuffer data) {
+        try {
+            int format = data.get();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unknown stored chunk format " + format);
+            }
+            int zigzag = readVarInt(data);
+            int bottomY = (zigzag >>> 1) ^ -(zigzag & 1);
+
+            int paletteSize = readVarInt(data);
+            if (paletteSize < 0 || paletteSize > MovementFlags.SECTION_BITS + 1) {
+                throw new IllegalArgumentException("Malformed palette of " + paletteSize + " flags");
+            }
+            char[] palette = new char[paletteSize];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = (char) readVarInt(data);
+            }
+
+            int[] columnStarts = new int[COLUMNS + 1];
+            int[] runTops = new int[COLUMNS * 4];
+            char[] runFlags = new char[runTops.length];
+            int runCount = 0;
+            for (int i = 0; i < COLUMNS; i++) {
+                columnStarts[i] = runCount;
+                int runs = readVarInt(data);
+                int y = bottomY;
+                for (int r = 0; r < runs; r++) {
+                    int index = readVarInt(data);
+                    int length = readVarInt(data);
+                    if (index < 0 || index >= palette.length || length <= 0) {
+                        throw new IllegalArgumentException("Malformed run in column " + i);
+                    }
+                    if (runCount == runTops.length) {
+                        runTops = Arrays.copyOf(runTops, runCount * 2);
+                        runFlags = Arrays.copyOf(runFlags, runCount * 2);
+                    }
+                    y += length;
+                    runTops[runCount] = y;
+                    runFlags[runCount] = palette[index];
+                    runCount++;
+                }
+            }
+            columnStarts[COLUMNS] = runCount;
+            return new StoredChunk(bottomY, columnStarts, Arrays.copyOf(runTops, runCount), Arrays.copyOf(runFlags, runCount));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Stored chunk is cut short", e);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer data) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = data.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -0,0 +1,281 @@
+package net.natga999.wynn_ai.path.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One region file of a {@link WorldTerrain}: the encoded {@link StoredChunk}s of a 32x32 chunk
+ * square, behind a table of where each one starts and how long it is.
+ * <p>
+ * Reads take slices of a read-only mapping of the whole file. The mapping and the table are read
+ * through short-lived channels of their own: searches get interrupted when they are cancelled,
+ * and an interrupt closes the channel it lands in. Only the writer thread keeps a channel open.
+ * Chunks are only ever appended, so a slice handed to a reader stays valid when its chunk is
+ * written again; the space of replaced copies is given back when the writer first opens the file,
+ * unless a reader already holds a slice: a mapped file can't be replaced on every platform.
+ */
+final class TerrainRegion {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TerrainRegion.class);
+
+    static final int SIZE = 32; // Chunks per side
+    private static final int MAGIC = 0x57414954; // "WAIT"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8 + SIZE * SIZE * 8; // Magic, version, then offset and length per chunk
+
+    // Files whose compacted copy couldn't be moved over them; not tried again until restart
+    private static final Set<Path> UNCOMPACTABLE = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final int[] offsets = new int[SIZE * SIZE]; // The file's table, kept in step with it
+    private final int[] lengths = new int[SIZE * SIZE];
+    private long size; // 0 while the file has no header yet
+    private MappedByteBuffer mapped; // Remapped when a read reaches past it
+    private boolean sliced; // A reader has been handed part of a mapping, so the file stays as it is
+    private FileChannel channel; // Writer thread only, opened by its first write
+
+    private TerrainRegion(Path file) {
+        this.file = file;
+    }
+
+    /** Index of a chunk within its region. */
+    static int index(int chunkX, int chunkZ) {
+        return ((chunkZ & (SIZE - 1)) * SIZE) | (chunkX & (SIZE - 1));
+    }
+
+    static String fileName(int regionX, int regionZ) {
+        return "r." + regionX + "." + regionZ + ".terrain";
+    }
+
+    /**
+     * Reads a region file's table. The file is only created, reset or compacted by the first write.
+     *
+     * @return null if the file doesn't exist and isn't to be created
+     */
+    static TerrainRegion open(Path file, boolean create) throws IOException {
+        TerrainRegion region = new TerrainRegion(file);
+        if (!Files.exists(file)) {
+            return create ? region : null;
+        }
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = readTable(reader, region.offsets, region.lengths);
+            region.size = Math.max(fileSize, 0); // Unreadable reads as empty until the writer resets it
+        }
+        return region;
+    }
+
+    /**
+     * @return a read-only view of the chunk's encoded data, or null if the region doesn't have the chunk
+     */
+    synchronized ByteBuffer read(int index) throws IOException {
+        int length = lengths[index];
+        if (length == 0) return null;
+        int offset = offsets[index];
+
+        if (mapped == null || mapped.capacity() < offset + length) {
+            try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = reader.map(FileChannel.MapMode.READ_ONLY, 0, size); // Outlives the channel
+            }
+        }
+        sliced = true;
+        return mapped.slice(offset, length);
+    }
+
+    /** Appends the chunk's new data, then points the table at it. Writer thread only. */
+    void write(int index, byte[] data) throws IOException {
+        FileChannel out = writeChannel();
+        long offset;
+        synchronized (this) {
+            offset = size;
+        }
+        if (offset + data.length > Integer.MAX_VALUE) {
+            throw new IOException("Terrain region is full");
+        }
+        append(out, index, ByteBuffer.wrap(data), offset);
+
+        synchronized (this) {
+            size = offset + data.length;
+            offsets[index] = (int) offset;
+            lengths[index] = data.length;
+        }
+    }
+
+    /**
+     * Closes the writer's channel and drops the mapping; slices already handed out keep theirs
+     * until they are collected. Writer thread only.
+     */
+    void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close terrain region {}", file, e);
+            }
+            channel = null;
+        }
+        synchronized (this) {
+            mapped = null;
+        }
+    }
+
+    // Opens the file on the first write: resets an unreadable one, compacts one that is more
+    // than half replaced copies if nothing maps it, and takes over the table as it is on disk
+    private FileChannel writeChannel() throws IOException {
+        if (channel != null) return channel;
+
+        Files.createDirectories(file.getParent());
+        int[] diskOffsets = new int[SIZE * SIZE];
+        int[] diskLengths = new int[SIZE * SIZE];
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            long fileSize = readTable(opened, diskOffsets, diskLengths);
+            Path compacted = null;
+            if (fileSize <= 0) {
+                if (fileSize < 0) LOGGER.warn("Resetting unreadable terrain region {}", file);
+                fileSize = writeEmpty(opened, diskOffsets, diskLengths);
+            } else if (fileSize - HEADER_BYTES - live(diskLengths) > live(diskLengths) && canCompact()) {
+                try {
+                    compacted = compact(file, opened, diskOffsets, diskLengths);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not compact terrain region {}, keeping it as it is", file, e);
+                }
+            }
+
+            synchronized (this) {
+                // Moved and re-read under the lock, so no read maps the new file with the old table
+                if (compacted != null && sliced) {
+                    deleteQuietly(compacted); // A read came in while compacting
+                    compacted = null;
+                }
+                if (compacted != null) {
+                    opened.close();
+                    try {
+                        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        LOGGER.warn("Could not replace terrain region {} with its compacted copy, keeping it as it is", file, e);
+                        UNCOMPACTABLE.add(file);
+                        deleteQuietly(compacted);
+                    }
+                    opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    fileSize = readTable(opened, diskOffsets, diskLengths);
+                    if (fileSize <= 0) throw new IOException("Terrain region is unreadable after compacting");
+                }
+                System.arraycopy(diskOffsets, 0, offsets, 0, offsets.length);
+                System.arraycopy(diskLengths, 0, lengths, 0, lengths.length);
+                size = fileSize;
+                mapped = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        channel = opened;
+        return opened;
+    }
+
+    private synchronized boolean canCompact() {
+        return !sliced && !UNCOMPACTABLE.contains(file);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete {}", file, e);
+        }
+    }
+
+    /**
+     * Reads the header into the tables.
+     *
+     * @return the file's size, 0 for an empty file, -1 if the header is unreadable
+     */
+    private static long readTable(FileChannel channel, int[] offsets, int[] lengths) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) return 0;
+        if (fileSize < HEADER_BYTES) return -1;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) return -1;
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) return -1;
+
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            int offset = header.getInt();
+            int length = header.getInt();
+            if (length < 0 || (length > 0 && (offset < HEADER_BYTES || (long) offset + length > fileSize))) {
+                return -1;
+            }
+            offsets[i] = offset;
+            lengths[i] = length;
+        }
+        return fileSize;
+    }
+
+    private static long writeEmpty(FileChannel channel, int[] offsets, int[] lengths) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.position(HEADER_BYTES).flip();
+        writeFully(channel, header, 0);
+        Arrays.fill(offsets, 0);
+        Arrays.fill(lengths, 0);
+        return HEADER_BYTES;
+    }
+
+    // The data is in place before the table points at it, so a crash in between keeps the old copy
+    private static void append(FileChannel channel, int index, ByteBuffer data, long offset) throws IOException {
+        int length = data.remaining();
+        writeFully(channel, data, offset);
+        ByteBuffer entry = ByteBuffer.allocate(8).putInt((int) offset).putInt(length).flip();
+        writeFully(channel, entry, 8L + index * 8L);
+    }
+
+    private static long live(int[] lengths) {
+        long live = 0;
+        for (int length : lengths) live += length;
+        return live;
+    }
+
+    // Copies the live chunks to a fresh file next to the old one, for the caller to move over it
+    private static Path compact(Path file, FileChannel source, int[] offsets, int[] lengths) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+        try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            long end = writeEmpty(target, new int[SIZE * SIZE], new int[SIZE * SIZE]);
+            for (int i = 0; i < SIZE * SIZE; i++) {
+                if (lengths[i] == 0) continue;
+                ByteBuffer data = ByteBuffer.allocate(lengths[i]);
+                while (data.hasRemaining()) {
+                    if (source.read(data, offsets[i] + data.position()) < 0) throw new IOException("Terrain region cut short");
+                }
+                data.flip();
+                append(target, i, data, end);
+                end += lengths[i];
+            }
+            LOGGER.debug("Compacted terrain region {} from {} to {} bytes", file, source.size(), end);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return temporary;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package net.natga999.wynn_ai.path.store;
+
+import net.natga999.wynn_ai.path.ChunkView;
+
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.loader.api.FabricLoader;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the walkable shape of every chunk the client unloads, so searches can plan through
+ * terrain that was seen before but is out of render distance now.
+ * <p>
+ * An unloading chunk's sections are copied on the client thread and handed to a single writer
+ * thread, which reduces them to a {@link StoredChunk} and appends it to a region file under
+ * {@code config/wynn_ai/terrain/<server>/<dimension>}. A {@link ChunkView} falls back to the
+ * store for chunks the client doesn't have; a loaded chunk always wins, so stored terrain only
+ * stands in until the chunk is seen again. Chunks still loaded when the client disconnects are
+ * not stored.
+ */
+public final class TerrainStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TerrainStore.class);
+    private static final TerrainStore INSTANCE = new TerrainStore();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WynnAI Terrain Store");
+        thread.setDaemon(true); // Never keep the game alive on exit
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Client thread only. Kept for the session, so a region file is only ever open once
+    private final Map<Path, WorldTerrain> terrains = new HashMap<>();
+    private volatile Binding binding; // The world the client is in, null between worlds
+
+    private static final class Binding {
+        final ClientWorld world;
+        final WorldTerrain terrain;
+
+        Binding(ClientWorld world, WorldTerrain terrain) {
+            this.world = world;
+            this.terrain = terrain;
+        }
+    }
+
+    private TerrainStore() {
+    }
+
+    public static TerrainStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Hooks chunk load/unload. Register before the {@code TerrainChangeBus}: an unloading chunk
+     * is then stored before the caches hear that it is gone, and a search that reads it again
+     * finds it here.
+     */
+    public static void register() {
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> INSTANCE.bind(world));
+        ClientChunkEvents.CHUNK_UNLOAD.register(INSTANCE::capture);
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> INSTANCE.unbind());
+    }
+
+    /**
+     * The stored terrain of a world, or null if the store isn't following that world.
+     * Any thread.
+     */
+    public WorldTerrain forWorld(ClientWorld world) {
+        Binding current = binding;
+        return current != null && current.world == world ? current.terrain : null;
+    }
+
+    private void capture(ClientWorld world, WorldChunk chunk) {
+        WorldTerrain terrain = bind(world);
+        ChunkSection[] live = chunk.getSectionArray();
+        @SuppressWarnings("unchecked")
+        PalettedContainer<BlockState>[] sections = new PalettedContainer[live.length];
+        boolean empty = true;
+        try {
+            for (int i = 0; i < live.length; i++) {
+                if (live[i] != null && !live[i].isEmpty()) {
+                    sections[i] = live[i].getBlockStateContainer().copy();
+                    empty = false;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not copy chunk {} for the terrain store", chunk.getPos(), e);
+            return;
+        }
+        if (empty) return; // Nothing to stand on, same as not stored
+
+        int chunkX = chunk.getPos().x, chunkZ = chunk.getPos().z;
+        WorldTerrain.Capture capture = new WorldTerrain.Capture(sections, world.getBottomSectionCoord() << 4);
+        terrain.capture(chunkX, chunkZ, capture);
+        writer.execute(() -> terrain.write(chunkX, chunkZ, capture));
+    }
+
+    private WorldTerrain bind(ClientWorld world) {
+        Binding current = binding;
+        if (current != null && current.world == world) {
+            return current.terrain;
+        }
+
+        Path directory = FabricLoader.getInstance().getConfigDir()
+                .resolve("wynn_ai")
+                .resolve("terrain")
+                .resolve(fileName(serverName()))
+                .resolve(fileName(world.getRegistryKey().getValue().toString()));
+        WorldTerrain terrain = terrains.computeIfAbsent(directory, WorldTerrain::new);
+        if (current != null && current.terrain != terrain) {
+            release(current.terrain);
+        }
+        binding = new Binding(world, terrain);
+        LOGGER.debug("Storing terrain in {}", directory);
+        return terrain;
+    }
+
+    private void unbind() {
+        Binding current = binding;
+        binding = null;
+        if (current != null) {
+            release(current.terrain);
+        }
+    }
+
+    // Left behind: free its memory now, its files once the writes queued for it are done
+    private void release(WorldTerrain terrain) {
+        terrain.trim();
+        writer.execute(terrain::close);
+    }
+
+    private static String serverName() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        ServerInfo server = client.getCurrentServerEntry();
+        if (server != null) {
+            return server.address;
+        }
+        return client.getServer() != null ? "local-" + client.getServer().getSaveProperties().getLevelName() : "unknown";
+    }
+
+    private static String fileName(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,207 @@
+package net.natga999.wynn_ai.path.store;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import net.natga999.wynn_ai.path.MovementFlags;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The stored terrain of one world: its {@link TerrainRegion} files under one directory, the
+ * chunks captured but not written yet, and an LRU of decoded {@link StoredChunk}s.
+ * <p>
+ * Any thread may read. Captures come from the client thread and are written by the
+ * {@link TerrainStore}'s writer thread, the only one that writes region files.
+ */
+public final class WorldTerrain {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorldTerrain.class);
+
+    private static final int MAX_DECODED_CHUNKS = 1024; // A few KB each
+
+    private final Path directory;
+    private final Long2ObjectLinkedOpenHashMap<StoredChunk> decoded = new Long2ObjectLinkedOpenHashMap<>(); // Packed ChunkPos, LRU order
+    private final Long2ObjectOpenHashMap<Capture> captures = new Long2ObjectOpenHashMap<>(); // Packed ChunkPos, not written yet
+    private final Long2ObjectOpenHashMap<TerrainRegion> regions = new Long2ObjectOpenHashMap<>(); // Packed region pos
+    private final LongOpenHashSet absentRegions = new LongOpenHashSet(); // No file yet, until the writer creates one
+    private int modCount; // Bumped on every capture, guards decodes racing with one
+
+    /**
+     * The sections of an unloaded chunk, copied on the client thread. Encoded by whichever
+     * thread needs it first, the writer or a search; racing encoders produce the same bytes.
+     */
+    static final class Capture {
+        private final PalettedContainer<BlockState>[] sections; // Null for all-air sections
+        private final int bottomY;
+        private volatile byte[] encoded;
+
+        Capture(PalettedContainer<BlockState>[] sections, int bottomY) {
+            this.sections = sections;
+            this.bottomY = bottomY;
+        }
+
+        byte[] encode() {
+            byte[] data = encoded;
+            if (data == null) {
+                data = StoredChunk.encode(bottomY, bottomY + sections.length * 16, (x, y, z) -> {
+                    PalettedContainer<BlockState> section = sections[(y - bottomY) >> 4];
+                    return section != null ? MovementFlags.get(section.get(x, y & 15, z)) : StoredChunk.AIR_FLAGS;
+                });
+                encoded = data;
+            }
+            return data;
+        }
+    }
+
+    WorldTerrain(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The chunk as it was last stored, or null if it never was. Decoded chunks are kept, so
+     * searches over the same area only read the region files once.
+     */
+    public StoredChunk getChunk(int chunkX, int chunkZ) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        Capture capture;
+        int expectedModCount;
+        synchronized (this) {
+            StoredChunk chunk = decoded.getAndMoveToLast(key);
+            if (chunk != null) {
+                return chunk;
+            }
+            capture = captures.get(key);
+            expectedModCount = modCount;
+        }
+
+        // Read and decoded outside the lock, other searches keep reading meanwhile
+        StoredChunk chunk;
+        try {
+            ByteBuffer data;
+            if (capture != null) {
+                data = ByteBuffer.wrap(capture.encode());
+            } else {
+                TerrainRegion region = region(chunkX >> 5, chunkZ >> 5, false);
+                data = region != null ? region.read(TerrainRegion.index(chunkX, chunkZ)) : null;
+            }
+            if (data == null) {
+                return null;
+            }
+            chunk = StoredChunk.decode(data);
+        } catch (ClosedByInterruptException e) {
+            return null; // The search was cancelled, the region is read again next time
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Could not read stored chunk [{}, {}] from {}", chunkX, chunkZ, directory, e);
+            return null;
+        }
+
+        synchronized (this) {
+            // A capture landed meanwhile: still answer this read, but don't keep the old chunk
+            if (modCount == expectedModCount) {
+                decoded.putAndMoveToLast(key, chunk);
+                if (decoded.size() > MAX_DECODED_CHUNKS) {
+                    decoded.removeFirst(); // Least recently used
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /** Takes over a chunk the client is unloading; reads see it right away. Client thread. */
+    synchronized void capture(int chunkX, int chunkZ, Capture capture) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        modCount++;
+        captures.put(key, capture);
+        decoded.remove(key);
+    }
+
+    /** Writes a capture to its region file. Writer thread only. */
+    void write(int chunkX, int chunkZ, Capture capture) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        byte[] data = capture.encode();
+        TerrainRegion region = region(chunkX >> 5, chunkZ >> 5, true);
+
+        if (region != null) {
+            try {
+                region.write(TerrainRegion.index(chunkX, chunkZ), data);
+            } catch (IOException e) {
+                LOGGER.warn("Could not store chunk [{}, {}] in {}", chunkX, chunkZ, directory, e);
+            }
+        }
+
+        synchronized (this) {
+            // A later capture of the same chunk has its own write queued
+            if (captures.get(key) == capture) {
+                captures.remove(key);
+            }
+        }
+    }
+
+    /** Drops the decoded chunks, for when the client leaves this world. */
+    synchronized void trim() {
+        decoded.clear();
+    }
+
+    /**
+     * Closes the region files; a later read or write opens them again. Writer thread only, so
+     * the writes queued before it are done.
+     */
+    void close() {
+        List<TerrainRegion> open;
+        synchronized (this) {
+            open = new ArrayList<>(regions.values());
+            regions.clear();
+            absentRegions.clear();
+        }
+        open.forEach(TerrainRegion::close);
+    }
+
+    // Opened outside the lock like a decode, so a search or capture never waits on a file
+    private TerrainRegion region(int regionX, int regionZ, boolean create) {
+        long key = ChunkPos.toLong(regionX, regionZ);
+        synchronized (this) {
+            TerrainRegion region = regions.get(key);
+            if (region != null || (!create && absentRegions.contains(key))) {
+                return region;
+            }
+        }
+
+        Path file = directory.resolve(TerrainRegion.fileName(regionX, regionZ));
+        TerrainRegion region;
+        try {
+            region = TerrainRegion.open(file, create);
+        } catch (ClosedByInterruptException e) {
+            return null; // A cancelled search, not a broken file
+        } catch (IOException e) {
+            LOGGER.warn("Could not open terrain region {}", file, e);
+            region = null;
+        }
+
+        synchronized (this) {
+            TerrainRegion opened = regions.get(key);
+            if (opened != null) {
+                return opened; // Another thread was first
+            }
+            if (region != null) {
+                regions.put(key, region);
+                absentRegions.remove(key);
+            } else {
+                absentRegions.add(key); // Also when it failed to open, it is tried again on the next write
+            }
+        }
+        return region;
+    }
+}
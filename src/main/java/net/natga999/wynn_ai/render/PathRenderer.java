@@ -1,6 +1,7 @@
 package net.natga999.wynn_ai.render;
 
 import net.natga999.wynn_ai.managers.HarvestPathManager;
+import net.natga999.wynn_ai.path.CompactPath;
 
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
@@ -11,8 +12,6 @@ import com.mojang.blaze3d.systems.RenderSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-
 public class PathRenderer {
     private static final Logger LOGGER = LoggerFactory.getLogger(PathRenderer.class);
 
@@ -20,7 +19,7 @@ public class PathRenderer {
     private static final int SPLINE_COLOR = 0xFF00FF00; // Green ARGB
     private static final float LINE_WIDTH = 2.0f;
 
-    public static void renderSplinePath(MatrixStack matrices, Vec3d cameraPos, List<Vec3d> splinePath) {
+    public static void renderSplinePath(MatrixStack matrices, Vec3d cameraPos, CompactPath splinePath) {
         if (splinePath == null || splinePath.size() < 2) {
             return;
         }
@@ -48,20 +47,7 @@ public class PathRenderer {
         // Create the position matrix
         MatrixStack.Entry entry = matrices.peek();
 
-        for (int i = 0; i < splinePath.size() - 1; i++) {
-            Vec3d start = splinePath.get(i).subtract(cameraPos);
-            Vec3d end = splinePath.get(i + 1).subtract(cameraPos);
-            Vec3d normalized = new Vec3d(end.x - start.x, end.y - start.y, end.z - start.z).normalize();
-
-            // Draw lines using modern approach
-            buffer.vertex(entry.getPositionMatrix(), (float)start.x, (float)start.y, (float)start.z)
-                    .color(red, green, blue, alpha)
-                    .normal(entry, (float)normalized.x, (float)normalized.y, (float)normalized.z);
-
-            buffer.vertex(entry.getPositionMatrix(), (float)end.x, (float)end.y, (float)end.z)
-                    .color(red, green, blue, alpha)
-                    .normal(entry, (float)normalized.x, (float)normalized.y, (float)normalized.z);
-        }
+        drawSegments(buffer, entry, cameraPos, splinePath, red, green, blue, alpha);
 
         // Draw and end
         vertexConsumerProvider.draw(layer);
@@ -72,7 +58,7 @@ public class PathRenderer {
         RenderSystem.disableBlend();
     }
 
-    public static void renderPath(MatrixStack matrices, Vec3d cameraPos, List<Vec3d> path) {
+    public static void renderPath(MatrixStack matrices, Vec3d cameraPos, CompactPath path) {
         // Only render when in MOVING_TO_NODE state
         if (path == null || path.size() < 2) {
             return;
@@ -99,20 +85,7 @@ public class PathRenderer {
         // Create the position matrix
         MatrixStack.Entry entry = matrices.peek();
 
-        for (int i = 0; i < path.size() - 1; i++) {
-            Vec3d start = path.get(i).subtract(cameraPos);
-            Vec3d end = path.get(i + 1).subtract(cameraPos);
-            Vec3d normalized = new Vec3d(end.x - start.x, end.y - start.y, end.z - start.z).normalize();
-
-            // Draw lines using modern approach
-            buffer.vertex(entry.getPositionMatrix(), (float)start.x, (float)start.y, (float)start.z)
-                    .color(red, green, blue, alpha)
-                    .normal(entry, (float)normalized.x, (float)normalized.y, (float)normalized.z);
-
-            buffer.vertex(entry.getPositionMatrix(), (float)end.x, (float)end.y, (float)end.z)
-                    .color(red, green, blue, alpha)
-                    .normal(entry, (float)normalized.x, (float)normalized.y, (float)normalized.z);
-        }
+        drawSegments(buffer, entry, cameraPos, path, red, green, blue, alpha);
 
         // Draw and end
         vertexConsumerProvider.draw(layer);
@@ -123,10 +96,43 @@ public class PathRenderer {
         RenderSystem.disableBlend();
 
         // Additionally, render the spline path if available
-        List<Vec3d> splinePath = HarvestPathManager.getInstance().getSplinePath();
+        CompactPath splinePath = HarvestPathManager.getInstance().getSplinePath();
         if (splinePath != null && !splinePath.isEmpty()) {
             LOGGER.debug("Spline path exists with {} points", splinePath.size());
             renderSplinePath(matrices, cameraPos, splinePath);
         }
     }
-}
\ No newline at end of file
+
+    // Straight from the path's coordinates, nothing is allocated per segment each frame
+    private static void drawSegments(VertexConsumer buffer, MatrixStack.Entry entry, Vec3d cameraPos, CompactPath path,
+                                     float red, float green, float blue, float alpha) {
+        for (int i = 0; i < path.size() - 1; i++) {
+            float startX = (float) (path.x(i) - cameraPos.x);
+            float startY = (float) (path.y(i) - cameraPos.y);
+            float startZ = (float) (path.z(i) - cameraPos.z);
+            float endX = (float) (path.x(i + 1) - cameraPos.x);
+            float endY = (float) (path.y(i + 1) - cameraPos.y);
+            float endZ = (float) (path.z(i + 1) - cameraPos.z);
+
+            // Normal is the segment direction, zero for a zero length segment like Vec3d.normalize()
+            float dx = endX - startX, dy = endY - startY, dz = endZ - startZ;
+            float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length < 1.0E-4f) {
+                dx = dy = dz = 0;
+            } else {
+                dx /= length;
+                dy /= length;
+                dz /= length;
+            }
+
+            // Draw lines using modern approach
+            buffer.vertex(entry.getPositionMatrix(), startX, startY, startZ)
+                    .color(red, green, blue, alpha)
+                    .normal(entry, dx, dy, dz);
+
+            buffer.vertex(entry.getPositionMatrix(), endX, endY, endZ)
+                    .color(red, green, blue, alpha)
+                    .normal(entry, dx, dy, dz);
+        }
+    }
+}
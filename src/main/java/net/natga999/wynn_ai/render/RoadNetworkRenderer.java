@@ -6,6 +6,7 @@ import net.natga999.wynn_ai.path.network.RoadNode;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.render.*;
 import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 
 import com.mojang.blaze3d.systems.RenderSystem;
@@ -15,9 +16,10 @@ import org.joml.Matrix4f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class RoadNetworkRenderer {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoadNetworkRenderer.class);
@@ -30,6 +32,7 @@ public class RoadNetworkRenderer {
     private static final double Y_OFFSET = 0.5;               // Common Y offset for lines and markers
     private static final int TEST_HIGHWAY_PATH_COLOR = 0xFFFFA500; // Orange ARGB
     private static final float TEST_HIGHWAY_LINE_WIDTH = 3.0f;
+    private static final double MIN_RENDER_RANGE = 64.0;         // Blocks around the camera, if the view distance is lower
 
     // Toggles
     public static boolean renderNetwork = true;
@@ -43,16 +46,27 @@ public class RoadNetworkRenderer {
             return;
         }
 
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.world == null) {
+            return;
+        }
+        String playerWorldId = client.world.getRegistryKey().getValue().toString();
+        Vec3d cameraPos = camera.getPos();
+
+        // Only nodes within view distance; lines to nodes further out are still drawn from this end
         RoadNetworkManager rnm = RoadNetworkManager.getInstance();
-        Collection<RoadNode> allNodes = rnm.getAllNodes();
+        double range = Math.max(MIN_RENDER_RANGE, client.options.getClampedViewDistance() * 16.0);
+        List<RoadNode> visibleNodes = rnm.findNodesInBox(playerWorldId, new Box(
+                cameraPos.x - range, cameraPos.y - range, cameraPos.z - range,
+                cameraPos.x + range, cameraPos.y + range, cameraPos.z + range));
 
-        if (allNodes == null || allNodes.isEmpty()) {
+        if (visibleNodes.isEmpty() && !renderTestHighwayPath) {
             return;
         }
-
-        Vec3d cameraPos = camera.getPos();
-        String playerWorldId = MinecraftClient.getInstance().world != null ?
-                MinecraftClient.getInstance().world.getRegistryKey().getValue().toString() : null;
+        Set<String> visibleIds = new HashSet<>();
+        for (RoadNode node : visibleNodes) {
+            visibleIds.add(node.getId());
+        }
 
         MatrixStack.Entry matrixEntry = matrices.peek();
         Matrix4f positionMatrix = matrixEntry.getPositionMatrix();
@@ -113,17 +127,15 @@ public class RoadNetworkRenderer {
             float lineGreen = ((NODE_CONNECTION_COLOR >>  8) & 0xFF) / 255.0f;
             float lineBlue  = (NODE_CONNECTION_COLOR & 0xFF) / 255.0f;
 
-            for (RoadNode node : allNodes) {
-                if (node.getPosition() == null) continue;
-                if (playerWorldId != null && node.getWorldId() != null && !node.getWorldId().equals(playerWorldId)) continue;
-                // ... (rest of line rendering logic as before) ...
+            for (RoadNode node : visibleNodes) {
                 Vec3d nodePosWorldBase = node.getPosition();
                 for (String connectedNodeId : node.getConnections()) {
                     RoadNode connectedNode = rnm.getNodeById(connectedNodeId);
                     if (connectedNode == null || connectedNode.getPosition() == null) continue;
-                    if (playerWorldId != null && connectedNode.getWorldId() != null && !connectedNode.getWorldId().equals(playerWorldId)) continue;
+                    if (connectedNode.getWorldId() != null && !connectedNode.getWorldId().equals(playerWorldId)) continue;
 
-                    if (node.getId().compareTo(connectedNodeId) < 0) {
+                    // Draw each line once: from the lower ID if both ends are visible, else from the visible end
+                    if (node.getId().compareTo(connectedNodeId) < 0 || !visibleIds.contains(connectedNodeId)) {
                         Vec3d connectedNodePosWorldBase = connectedNode.getPosition();
                         Vec3d nodePosWorldRender = nodePosWorldBase.add(0, Y_OFFSET, 0);
                         Vec3d connectedNodePosWorldRender = connectedNodePosWorldBase.add(0, Y_OFFSET, 0);
@@ -166,10 +178,7 @@ public class RoadNetworkRenderer {
 
             boolean hasDrawnAnyMarkers = false;
 
-            for (RoadNode node : allNodes) {
-                if (node.getPosition() == null) continue;
-                if (playerWorldId != null && node.getWorldId() != null && !node.getWorldId().equals(playerWorldId)) continue;
-
+            for (RoadNode node : visibleNodes) {
                 hasDrawnAnyMarkers = true;
 
                 Vec3d nodeCenterWorld = node.getPosition().add(0, Y_OFFSET, 0);
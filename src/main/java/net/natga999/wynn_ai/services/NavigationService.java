@@ -1,6 +1,9 @@
 package net.natga999.wynn_ai.services;
 
+import net.natga999.wynn_ai.ai.BasicPathAI;
 import net.natga999.wynn_ai.path.LongDistancePathPlanner;
+import net.natga999.wynn_ai.path.PathResult;
+import net.natga999.wynn_ai.path.network.RoadNode;
 
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
@@ -9,56 +12,159 @@ import net.minecraft.util.math.Vec3d;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class NavigationService {
     private static final Logger LOGGER = LoggerFactory.getLogger(NavigationService.class);
     private static final NavigationService INSTANCE = new NavigationService();
 
+    // Search ranges of local walks, as they were when whole trips were searched at once
+    private static final int SEGMENT_RANGE = LongDistancePathPlanner.LOCAL_PATHFINDER_RANGE; // To or from a road node
+    private static final int DIRECT_RANGE = LongDistancePathPlanner.LOCAL_PATHFINDER_RANGE * 2; // A trip without road nodes
+    private static final int BETWEEN_NODES_RANGE = LongDistancePathPlanner.LOCAL_PATHFINDER_RANGE * 2; // Nodes the network doesn't connect
+    private static final int DIRECT_FALLBACK_RANGE = LongDistancePathPlanner.LOCAL_PATHFINDER_RANGE * 3; // The road network couldn't be used
+
     private final LongDistancePathPlanner longDistancePathPlanner;
+    private Journey journey; // Client thread only
     // Future: private final BoatRouteManager boatManager;
     // Future: private final TeleportManager teleportManager;
-    // Future: private final YourOrchestratorClass navigationOrchestrator;
 
     private NavigationService() {
         this.longDistancePathPlanner = LongDistancePathPlanner.getInstance();
         // Initialize other managers here if they were part of this service
-        // this.navigationOrchestrator = new YourOrchestratorClass(BasicPathAI.getInstance(), this);
     }
 
     public static NavigationService getInstance() {
         return INSTANCE;
     }
 
+    /** What a part of a journey takes. */
+    public enum SegmentType {
+        LOCAL_WALK, // Block-level path, searched when the player gets near it
+        HIGHWAY,    // Spline along road nodes, no search needed
+        TUNNEL      // Walk into the entrance, come out at the exit
+    }
+
+    public enum JourneyStatus {
+        NONE,
+        ACTIVE,
+        ARRIVED,
+        FAILED
+    }
+
     /**
-     * Represents a complete travel plan, which might involve multiple segments and modes.
-     * For now, it will be simplified.
+     * One part of a travel plan. Only local walks have a block-level path, refined just before
+     * they are walked; highways and tunnels follow their road nodes.
+     */
+    public static final class Segment {
+        public final SegmentType type;
+        public final Vec3d from;
+        public final Vec3d to;
+        public final List<RoadNode> roadNodes; // Highway nodes, or a tunnel's entrance and exit; empty for a local walk
+        private final int searchRange; // Blocks, see LongDistancePathPlanner.planLocalSegment
+        private PathResult path; // Refined local walk, null until its search is done
+        private CompletableFuture<PathResult> refinement;
+
+        private boolean prefetched; // Searched from its start before the player got there
+
+        private Segment(SegmentType type, Vec3d from, Vec3d to, List<RoadNode> roadNodes, int searchRange) {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+            this.roadNodes = roadNodes;
+            this.searchRange = searchRange;
+        }
+
+        static Segment localWalk(Vec3d from, Vec3d to, int searchRange) {
+            return new Segment(SegmentType.LOCAL_WALK, from, to, List.of(), searchRange);
+        }
+
+        static Segment highway(List<RoadNode> nodes) {
+            return new Segment(SegmentType.HIGHWAY, nodes.getFirst().getPosition(), nodes.getLast().getPosition(), List.copyOf(nodes), 0);
+        }
+
+        static Segment tunnel(RoadNode entrance, RoadNode exit) {
+            return new Segment(SegmentType.TUNNEL, entrance.getPosition(), exit.getPosition(), List.of(entrance, exit), 0);
+        }
+
+        /** The block-level path of a refined local walk, null otherwise. */
+        public PathResult getPath() {
+            return path;
+        }
+
+        boolean isRefined() {
+            return path != null;
+        }
+
+        // Starts the block-level search from where the walk is to start, unless one is running
+        void refine(Vec3d start, ClientWorld world) {
+            if (refinement == null) {
+                path = null;
+                refinement = LongDistancePathPlanner.getInstance().planLocalSegment(start, to, world, searchRange);
+            }
+        }
+
+        // Takes the finished search; false while it still runs or after it failed
+        boolean pollRefinement() {
+            if (path != null) return true;
+            if (refinement == null || !refinement.isDone()) return false;
+            path = refinement.isCompletedExceptionally() ? null : refinement.join();
+            refinement = null;
+            return path != null;
+        }
+
+        boolean refinementFailed() {
+            return path == null && refinement == null;
+        }
+
+        void cancel() {
+            if (refinement != null) {
+                refinement.cancel(true);
+                refinement = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + from + " -> " + to;
+        }
+    }
+
+    /**
+     * A travel plan as typed segments. Planning it only reads the road network and searches
+     * the first local walk, so it takes as long for a trip across the map as for one down the
+     * road; the later walks are searched as the player approaches them, over terrain that is
+     * loaded by then.
      */
     public static class TravelPlan {
-        // For now, just a list of Vec3d waypoints.
-        // Later, this will be a list of segments (local walk, highway spline, use tunnel, take boat etc.)
-        public final List<Vec3d> waypoints; // The direct output of LongDistancePathPlanner for now
+        public final List<Segment> segments;
         public final boolean planSuccess;
 
-        public TravelPlan(List<Vec3d> waypoints, boolean success) {
-            this.waypoints = waypoints;
+        public TravelPlan(List<Segment> segments, boolean success) {
+            this.segments = segments;
             this.planSuccess = success;
         }
     }
 
     /**
      * Calculates a travel plan from the current player position to a goal position.
-     * For now, this directly uses LongDistancePathPlanner.
-     * In the future, this will incorporate multi-modal pathfinding (tunnels, boats, teleports).
+     * In the future, this will incorporate multi-modal pathfinding (boats, teleports).
+     *
+     * The first local walk is searched off-tick, so the plan arrives through a future that
+     * completes on the client thread; poll it from the tick instead of blocking on it.
+     * {@link #startJourney} plans and follows a journey in one go.
      *
      * @param goalPosition The final destination.
-     * @return A TravelPlan object. Check planSuccess before using waypoints.
+     * @return A future TravelPlan object. Check planSuccess before using its segments;
+     *         cancelling it cancels the searches behind it.
      */
-    public TravelPlan planJourneyTo(Vec3d goalPosition) {
+    public CompletableFuture<TravelPlan> planJourneyTo(Vec3d goalPosition) {
         MinecraftClient client = MinecraftClient.getInstance();
         if (client.player == null || client.world == null) {
             LOGGER.warn("NavigationService: Cannot plan journey, player or world is null.");
-            return new TravelPlan(null, false);
+            return CompletableFuture.completedFuture(new TravelPlan(List.of(), false));
         }
 
         Vec3d startPosition = client.player.getPos();
@@ -69,54 +175,257 @@ public class NavigationService {
         // --- Future Multi-Modal Logic Would Go Here ---
         // 1. Check for direct teleports (if available and efficient).
         // 2. Evaluate paths involving boats.
-        // 3. Evaluate paths involving tunnels (via enhanced LongDistancePathPlanner or here).
-        // 4. Evaluate walking/running paths (current LongDistancePathPlanner).
-        // 5. Compare options and choose the "best" one.
-        // --- For Now: Direct passthrough to LongDistancePathPlanner ---
+        // 3. Compare options and choose the "best" one.
 
-        List<Vec3d> waypoints = longDistancePathPlanner.planPathToGoal(startPosition, goalPosition, world);
+        List<Segment> segments = buildSegments(startPosition, goalPosition, longDistancePathPlanner.findRoadRoute(startPosition, goalPosition, world));
+        Segment first = segments.getFirst();
+        // Fallback to direct path if we can't even reach the first road node; only searched then
+        Segment direct = Segment.localWalk(startPosition, goalPosition, DIRECT_FALLBACK_RANGE);
+        first.refine(startPosition, world);
+        CompletableFuture<TravelPlan> plan = first.refinement.thenCompose(result -> {
+            if (result != null && !result.getWaypoints().isEmpty()) {
+                LOGGER.info("NavigationService: Journey planned as {} segments, the first walk {} with {} waypoints.",
+                        segments.size(), result.isPartial() ? "partially, up to " + result.getEnd() + "," : "fully", result.getWaypoints().size());
+                return CompletableFuture.completedFuture(new TravelPlan(segments, true));
+            }
+            if (segments.size() > 1) {
+                LOGGER.warn("NavigationService: Failed to plan a path to the road network. Attempting direct path to {}.", goalPosition);
+                direct.refine(startPosition, world);
+                return direct.refinement.thenApply(directResult -> {
+                    if (directResult != null && !directResult.getWaypoints().isEmpty()) {
+                        return new TravelPlan(List.of(direct), true);
+                    }
+                    LOGGER.warn("NavigationService: Failed to create a path to {}.", goalPosition);
+                    return new TravelPlan(List.of(), false);
+                });
+            }
+            LOGGER.warn("NavigationService: Failed to create a path to {}.", goalPosition);
+            return CompletableFuture.completedFuture(new TravelPlan(List.of(), false));
+        });
+
+        // The plan is derived from the searches, cancelling it doesn't reach them on its own
+        plan.whenComplete((value, error) -> {
+            if (plan.isCancelled()) {
+                first.cancel();
+                direct.cancel();
+            }
+        });
+        return plan;
+    }
 
-        if (waypoints != null && !waypoints.isEmpty()) {
-            LOGGER.info("NavigationService: Journey planned successfully via LongDistancePathPlanner with {} waypoints.", waypoints.size());
-            return new TravelPlan(waypoints, true);
-        } else {
-            LOGGER.warn("NavigationService: LongDistancePathPlanner failed to create a path to {}.", goalPosition);
-            return new TravelPlan(null, false);
+    // Mirrors how the road network used to be joined: walk to the closest node, follow the network
+    // to the node closest to the goal, walk the rest; without a usable network, walk.
+    private List<Segment> buildSegments(Vec3d start, Vec3d goal, LongDistancePathPlanner.RoadRoute route) {
+        List<Segment> segments = new ArrayList<>();
+        if (route.startNode == null) {
+            LOGGER.info("NavigationService: No road node near the start, or the goal is close. Walking directly.");
+            // Searched wider when the goal has a road node that couldn't be used
+            segments.add(Segment.localWalk(start, goal, route.goalNode != null ? DIRECT_FALLBACK_RANGE : DIRECT_RANGE));
+            return segments;
         }
+
+        segments.add(Segment.localWalk(start, route.startNode.getPosition(), SEGMENT_RANGE));
+        Vec3d lastPoint = route.startNode.getPosition();
+        if (route.hops != null && route.hops.size() >= 2) {
+            addNetworkSegments(segments, route.hops);
+            lastPoint = route.goalNode.getPosition();
+        } else if (route.goalNode != null && !route.goalNode.getId().equals(route.startNode.getId())) {
+            LOGGER.warn("NavigationService: No road network path between {} and {}. Walking between them.", route.startNode.getId(), route.goalNode.getId());
+            segments.add(Segment.localWalk(lastPoint, route.goalNode.getPosition(), BETWEEN_NODES_RANGE));
+            lastPoint = route.goalNode.getPosition();
+        }
+        if (lastPoint.distanceTo(goal) > 1.0) { // Only if not already at goal
+            segments.add(Segment.localWalk(lastPoint, goal, SEGMENT_RANGE));
+        }
+        return segments;
     }
 
+    // Splits the network route at its tunnels, the way HighwaySplineStrategy recognises them
+    private static void addNetworkSegments(List<Segment> segments, List<RoadNode> hops) {
+        List<RoadNode> run = new ArrayList<>();
+        run.add(hops.getFirst());
+        for (int i = 0; i + 1 < hops.size(); i++) {
+            RoadNode node = hops.get(i);
+            RoadNode next = hops.get(i + 1);
+            if ("TUNNEL_ENTRANCE".equalsIgnoreCase(node.getType()) && next.getId().equals(node.getTargetTunnelExitNodeId())) {
+                if (run.size() >= 2) segments.add(Segment.highway(run));
+                segments.add(Segment.tunnel(node, next));
+                run = new ArrayList<>();
+            }
+            run.add(next);
+        }
+        if (run.size() >= 2) segments.add(Segment.highway(run));
+    }
 
-    /*
-     * More advanced planning method that might return structured path segments.
-     * Placeholder for when your orchestrator needs more than just Vec3d list.
+    /**
+     * Plans a journey and follows it, driven by {@link #tick()}; replaces any journey still going.
+     * Watch {@link #getJourneyStatus()} for how it ends.
+     */
+    public void startJourney(Vec3d goalPosition) {
+        cancelJourney();
+        journey = new Journey(goalPosition, planJourneyTo(goalPosition));
+    }
 
+    public JourneyStatus getJourneyStatus() {
+        return journey != null ? journey.status : JourneyStatus.NONE;
+    }
 
-    public StructuredTravelPlan planStructuredJourneyTo(Vec3d goalPosition) {
-        // 1. Path locally to first highway node (List<Vec3d>)
-        // 2. Get highway road nodes (List<RoadNode>) - this part now includes tunnels
-        // 3. Path locally from last highway node to goal (List<Vec3d>)
-        // This method would call your modified LongDistancePathPlanner that returns these 3 components.
-        // Then, an orchestrator would use BasicPathAI.startGeneralPath and .startHighwaySplinePath.
-        return null; // Placeholder
+    /** Stops the current journey, and the player with it if it was still going. */
+    public void cancelJourney() {
+        Journey current = journey;
+        journey = null;
+        if (current != null && current.status == JourneyStatus.ACTIVE) {
+            current.cancel();
+            BasicPathAI.getInstance().stop();
+        }
+    }
+
+    /**
+     * Follows the current journey. Called once per client tick, after the planning service
+     * delivered its results and before BasicPathAI moves.
+     */
+    public void tick() {
+        Journey current = journey;
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (current == null || current.status != JourneyStatus.ACTIVE || client.player == null || client.world == null) {
+            return;
+        }
+        current.tick(client.player.getPos(), client.world);
     }
 
+    // A journey being followed; client thread only
+    private static final class Journey {
+        private static final double PREFETCH_DISTANCE = 64.0; // Search a walk this far before reaching its start
+        private static final double TUNNEL_EXIT_DISTANCE = 8.0; // Through the tunnel once this close to its exit
+        private static final int TUNNEL_TIMEOUT_TICKS = 20 * 20;
+
+        private final Vec3d goal;
+        private CompletableFuture<TravelPlan> pendingPlan;
+        private List<Segment> segments;
+        private int index;
+        private boolean segmentStarted;
+        private int segmentTicks;
+        private JourneyStatus status = JourneyStatus.ACTIVE;
 
-    // If you create an Orchestrator class for executing multi-segment paths:
-    // public void startManagedJourney(Vec3d goalPosition) {
-    //    TravelPlan plan = planJourneyTo(goalPosition); // or planStructuredJourneyTo
-    //    if (plan.planSuccess) {
-    //        navigationOrchestrator.executePlan(plan);
-    //    } else {
-    //        MinecraftClient.getInstance().player.sendMessage(Text.literal("NavigationService: Could not find a way to " + goalPosition), false);
-    //    }
-    // }
-    //
-    // public boolean isJourneyComplete() {
-    //    return navigationOrchestrator.isComplete();
-    // }
-    //
-    // public void cancelJourney() {
-    //    navigationOrchestrator.stop();
-    // }
-    **/
-}
\ No newline at end of file
+        Journey(Vec3d goal, CompletableFuture<TravelPlan> pendingPlan) {
+            this.goal = goal;
+            this.pendingPlan = pendingPlan;
+        }
+
+        void tick(Vec3d playerPos, ClientWorld world) {
+            if (pendingPlan != null) {
+                if (!pendingPlan.isDone()) return;
+                TravelPlan plan = pendingPlan.isCompletedExceptionally() ? null : pendingPlan.join();
+                pendingPlan = null;
+                if (plan == null || !plan.planSuccess) {
+                    fail("no plan");
+                    return;
+                }
+                segments = plan.segments;
+            }
+
+            BasicPathAI ai = BasicPathAI.getInstance();
+            Segment segment = segments.get(index);
+            segmentTicks++;
+            switch (segment.type) {
+                case LOCAL_WALK -> tickLocalWalk(segment, ai, playerPos, world);
+                case HIGHWAY -> {
+                    if (!segmentStarted) {
+                        ai.startHighwaySplinePath(segment.roadNodes);
+                        segmentStarted = true;
+                    } else if (isFollowDone(ai)) {
+                        advance();
+                    }
+                }
+                case TUNNEL -> {
+                    if (playerPos.distanceTo(segment.to) < TUNNEL_EXIT_DISTANCE) {
+                        advance();
+                    } else if (!segmentStarted) {
+                        ai.startGeneralPath(List.of(segment.from));
+                        segmentStarted = true;
+                    } else if (segmentTicks > TUNNEL_TIMEOUT_TICKS) {
+                        fail("tunnel " + segment.roadNodes.getFirst().getId() + " never led to its exit");
+                    }
+                }
+            }
+            if (status == JourneyStatus.ACTIVE) {
+                prefetch(playerPos, world);
+            }
+        }
+
+        private void tickLocalWalk(Segment segment, BasicPathAI ai, Vec3d playerPos, ClientWorld world) {
+            if (!segmentStarted) {
+                segment.refine(playerPos, world); // No-op if prefetched
+                if (!segment.pollRefinement()) {
+                    if (segment.refinementFailed()) {
+                        if (segment.prefetched) {
+                            // Searched from the segment's start, which the player may not quite be at
+                            segment.prefetched = false;
+                            segment.refine(playerPos, world);
+                        } else {
+                            fail("no path to " + segment.to);
+                        }
+                    }
+                    return;
+                }
+                ai.startGeneralPath(segment.getPath().getPath());
+                segmentStarted = true;
+            } else if (isFollowDone(ai)) {
+                if (segment.getPath().isPartial()) {
+                    // Ends short of the segment's end: plan the rest from here
+                    LOGGER.info("NavigationService: Reached the end of a partial path, planning on to {}", segment.to);
+                    segment.refine(playerPos, world);
+                    segmentStarted = false;
+                } else {
+                    advance();
+                }
+            }
+        }
+
+        // Searches the next local walk once the player gets near it, so it is ready on arrival
+        private void prefetch(Vec3d playerPos, ClientWorld world) {
+            for (int i = index + 1; i < segments.size(); i++) {
+                Segment next = segments.get(i);
+                if (next.type != SegmentType.LOCAL_WALK) continue;
+                if (!next.isRefined() && playerPos.distanceTo(next.from) < PREFETCH_DISTANCE) {
+                    next.refine(next.from, world);
+                    next.prefetched = true;
+                }
+                return;
+            }
+        }
+
+        private static boolean isFollowDone(BasicPathAI ai) {
+            return ai.getStrategy() == null || ai.getStrategy().isComplete(ai);
+        }
+
+        private void advance() {
+            index++;
+            segmentStarted = false;
+            segmentTicks = 0;
+            if (index >= segments.size()) {
+                LOGGER.info("NavigationService: Arrived at {}.", goal);
+                status = JourneyStatus.ARRIVED;
+            } else {
+                LOGGER.info("NavigationService: Journey segment {}/{}: {}", index + 1, segments.size(), segments.get(index));
+            }
+        }
+
+        private void fail(String reason) {
+            LOGGER.warn("NavigationService: Journey to {} failed, {}.", goal, reason);
+            cancel();
+            BasicPathAI.getInstance().stop(); // Or the player walks on along the last segment's path
+            status = JourneyStatus.FAILED;
+        }
+
+        void cancel() {
+            if (pendingPlan != null) {
+                pendingPlan.cancel(true);
+                pendingPlan = null;
+            }
+            if (segments != null) {
+                segments.forEach(Segment::cancel);
+            }
+        }
+    }
+}
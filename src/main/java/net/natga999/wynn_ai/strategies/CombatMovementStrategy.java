@@ -29,7 +29,7 @@ public class CombatMovementStrategy implements MovementStrategy {
 
                 // Use a slightly lower aim point to avoid looking up too much when moving
                 Vec3d aimPoint = currentTarget.subtract(0, 0.5, 0);
-                ai.updateMovementToward(aimPoint, client);
+                ai.updateMovementToward(aimPoint);
 
                 // Let the controller determine if we've reached waypoints
                 if (combatController.hasReachedWaypoint(player, currentTarget)) {
@@ -62,7 +62,9 @@ public class CombatMovementStrategy implements MovementStrategy {
     }
 
     @Override
-    public void handleCameraRotation(BasicPathAI ai, MinecraftClient client) {
+    public void handleCameraRotation(BasicPathAI ai) {
+        // Combat targets are the client's own entities, so this stays with the client's player
+        MinecraftClient client = MinecraftClient.getInstance();
         if (client.player == null) return;
 
         // Delegate camera rotation to the combat controller
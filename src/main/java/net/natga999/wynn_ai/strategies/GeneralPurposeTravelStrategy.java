@@ -2,8 +2,6 @@ package net.natga999.wynn_ai.strategies;
 
 import net.natga999.wynn_ai.ai.BasicPathAI;
 
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.util.math.Vec3d;
 
 import org.slf4j.Logger;
@@ -14,12 +12,10 @@ public class GeneralPurposeTravelStrategy implements MovementStrategy {
 
     @Override
     public void tick(BasicPathAI ai) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client == null || client.player == null) {
+        if (!ai.getHost().isPresent()) {
             ai.stop();
             return;
         }
-        ClientPlayerEntity player = client.player;
         Vec3d currentWaypoint = ai.getCurrentWaypoint();
 
         if (currentWaypoint == null) {
@@ -29,9 +25,9 @@ public class GeneralPurposeTravelStrategy implements MovementStrategy {
             return;
         }
 
-        ai.updateMovementToward(currentWaypoint, client); // Assumes BasicPathAI handles jump checks
+        ai.updateMovementToward(currentWaypoint); // Assumes BasicPathAI handles jump checks
 
-        if (ai.isReachedNext(player)) {
+        if (ai.isReachedNext()) {
             ai.incrementCurrentPathIndex();
             if (ai.getCurrentWaypoint() == null) {
                 LOGGER.info("GeneralPurposeTravelStrategy: Reached end of path.");
@@ -43,11 +39,11 @@ public class GeneralPurposeTravelStrategy implements MovementStrategy {
     }
 
     @Override
-    public void handleCameraRotation(BasicPathAI ai, MinecraftClient client) {
+    public void handleCameraRotation(BasicPathAI ai) {
         Vec3d waypoint = ai.getCurrentWaypoint();
-        if (waypoint != null && client.player != null) {
+        if (waypoint != null) {
             // Use the final=false version for smooth turning
-            BasicPathAI.getInstance().rotateCameraToward(client, false);
+            ai.rotateCameraToward(false);
         }
     }
 
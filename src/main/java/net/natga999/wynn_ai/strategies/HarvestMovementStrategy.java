@@ -2,9 +2,8 @@ package net.natga999.wynn_ai.strategies;
 
 import net.natga999.wynn_ai.ai.BasicPathAI;
 import net.natga999.wynn_ai.managers.HarvestPathManager;
+import net.natga999.wynn_ai.path.CompactPath;
 
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.util.math.Vec3d;
 
 import java.util.Random;
@@ -15,21 +14,18 @@ public class HarvestMovementStrategy implements MovementStrategy {
 
     @Override
     public void tick(BasicPathAI ai) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        ClientPlayerEntity player = client.player;
-
-        if (player == null) return;
+        if (!ai.getHost().isPresent()) return;
 
         // Get the current waypoint
         Vec3d waypoint = ai.getCurrentWaypoint();
         if (waypoint == null) return;
 
         // Move toward the current waypoint
-        ai.updateMovementToward(waypoint, client);
+        ai.updateMovementToward(waypoint);
 
         // Check if we've reached the final destination with random factor
         if (ai.getCurrentIndex() >= ai.getPathSize() - 1 && !harvest.isPathComplete()) {
-            Vec3d playerPos = player.getPos();
+            Vec3d playerPos = ai.getHost().getPos();
             double distanceXZ = Math.sqrt(
                     Math.pow(playerPos.x - waypoint.x, 2) +
                             Math.pow(playerPos.z - waypoint.z, 2)
@@ -37,13 +33,16 @@ public class HarvestMovementStrategy implements MovementStrategy {
             double distanceY = Math.abs(playerPos.y - waypoint.y);
 
             // Apply random factor to distance check for more natural behavior
-            double randomFactor = 0.9 + random.nextDouble() * (1.6 - 0.9);
+            // Next to a cliff or in a corridor, walk all the way to the node
+            double randomFactor = ai.currentLegHas(CompactPath.PRECISE | CompactPath.NARROW)
+                    ? 0.4
+                    : 0.9 + random.nextDouble() * (1.6 - 0.9);
             if (distanceXZ < randomFactor && distanceY < 1.0) {
                 if (HarvestPathManager
                         .getOriginalGoalPos() != null) {
                     Vec3d goalPos = Vec3d.of(HarvestPathManager
                             .getOriginalGoalPos().add(0, 1, 0));
-                    BasicPathAI.getInstance().rotateCameraToward(client, true);
+                    ai.rotateCameraToward(true);
                 }
                 harvest.setPathComplete(true);
                 ai.stop();
@@ -52,7 +51,7 @@ public class HarvestMovementStrategy implements MovementStrategy {
         }
 
         // Check if we've reached the current waypoint
-        if (ai.isReachedNext(player)) {
+        if (ai.isReachedNext()) {
             ai.incrementCurrentPathIndex();
 
             // Check if we're at the end of the path
@@ -68,7 +67,7 @@ public class HarvestMovementStrategy implements MovementStrategy {
                             HarvestPathManager
                                     .getOriginalGoalPos().getZ() + 0.5
                     );
-                    BasicPathAI.getInstance().rotateCameraToward(client, true);
+                    ai.rotateCameraToward(true);
                 }
 
                 // Mark the path as complete
@@ -91,15 +90,10 @@ public class HarvestMovementStrategy implements MovementStrategy {
     }
 
     @Override
-    public void handleCameraRotation(BasicPathAI ai, MinecraftClient client) {
-        if (client.player == null) return;
-
+    public void handleCameraRotation(BasicPathAI ai) {
         Vec3d target = ai.getCurrentWaypoint();
         if (target != null) {
-            BasicPathAI.getInstance().rotateCameraToward(
-                    client,
-                    false
-            );
+            ai.rotateCameraToward(false);
         }
     }
 }
\ No newline at end of file
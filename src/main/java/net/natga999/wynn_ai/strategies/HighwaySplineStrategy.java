@@ -1,10 +1,10 @@
 package net.natga999.wynn_ai.strategies;
 
 import net.natga999.wynn_ai.ai.BasicPathAI;
+import net.natga999.wynn_ai.path.CompactPath;
 import net.natga999.wynn_ai.path.network.RoadNode;
 import net.natga999.wynn_ai.utility.CatmullRomSpline;
 
-import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.math.Vec3d;
 
 import org.slf4j.Logger;
@@ -22,7 +22,7 @@ public class HighwaySplineStrategy implements MovementStrategy {
     private int currentHighwayNodeProgressIndex; // Which node in fullHighwayNodePath is the start of the current spline segment's focus
 
     private static final int SPLINE_CONTROL_POINTS_LOOKAHEAD = 4; // How many RoadNodes to consider for generating one spline segment (e.g., P0, P1, P2, P3 for spline between P1-P2)
-    private static final int CATMULL_SEGMENTS_PER_NODE_PAIR = 8; // Detail level for CatmullRomSpline.createSpline
+    private static final double SPLINE_CHORD_ERROR = CatmullRomSpline.DEFAULT_CHORD_ERROR; // Detail level for CatmullRomSpline.createPath
 
     boolean pathSegmentInProgress;
 
@@ -42,21 +42,21 @@ public class HighwaySplineStrategy implements MovementStrategy {
 
     @Override
     public void tick(BasicPathAI ai) {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client == null || client.player == null || isOverallHighwayPathComplete) {
+        boolean hasPlayer = ai.getHost().isPresent();
+        if (!hasPlayer || isOverallHighwayPathComplete) {
             if (isOverallHighwayPathComplete && ai.getCurrentWaypoint() == null && pathSegmentInProgress) {
                 // This case indicates the last segment was set, but AI finished, and overall is complete.
                 LOGGER.info("HighwaySplineStrategy: Overall path complete and AI finished its last segment.");
                 pathSegmentInProgress = false; // Clear the flag
             } else if (isOverallHighwayPathComplete && ai.getCurrentWaypoint() != null) {
                 // Still processing the very last spline segment.
-                ai.updateMovementToward(ai.getCurrentWaypoint(), client);
-                if (ai.isReachedNext(client.player)) {
+                ai.updateMovementToward(ai.getCurrentWaypoint());
+                if (ai.isReachedNext()) {
                     ai.incrementCurrentPathIndex();
                     if (ai.getCurrentWaypoint() == null) pathSegmentInProgress = false; // Reached end of last segment
                 }
-            } else if (!isOverallHighwayPathComplete && (client == null || client.player == null)) {
-                LOGGER.warn("HighwaySplineStrategy: Exiting tick early due to null client or player.");
+            } else if (!isOverallHighwayPathComplete && !hasPlayer) {
+                LOGGER.warn("HighwaySplineStrategy: Exiting tick early due to missing player.");
             }
             return;
         }
@@ -94,9 +94,9 @@ public class HighwaySplineStrategy implements MovementStrategy {
             return;
         }
 
-        ai.updateMovementToward(ai.getCurrentWaypoint(), client);
+        ai.updateMovementToward(ai.getCurrentWaypoint());
 
-        if (ai.isReachedNext(client.player)) {
+        if (ai.isReachedNext()) {
             ai.incrementCurrentPathIndex();
             // Log progress within the current spline segment if needed
             // LOGGER.debug("HighwaySplineStrategy: Reached spline point {}/{}", ai.getCurrentIndex(), ai.getPathSize());
@@ -200,10 +200,10 @@ public class HighwaySplineStrategy implements MovementStrategy {
                 controlPointPositions.size(),
                 segmentControlNodes.stream().map(RoadNode::getId).collect(Collectors.joining(", ")));
 
-        List<Vec3d> splinePoints = CatmullRomSpline.createSpline(controlPointPositions, CATMULL_SEGMENTS_PER_NODE_PAIR);
+        CompactPath splinePoints = CatmullRomSpline.createPath(CompactPath.of(controlPointPositions), SPLINE_CHORD_ERROR);
 
         if (splinePoints == null || splinePoints.isEmpty()) {
-            LOGGER.warn("CatmullRomSpline.createSpline returned null or empty. HighwayNodeIndex {}.", currentHighwayNodeProgressIndex);
+            LOGGER.warn("CatmullRomSpline.createPath returned null or empty. HighwayNodeIndex {}.", currentHighwayNodeProgressIndex);
             ai.setPath(new ArrayList<>()); // Give AI an empty path
             pathSegmentInProgress = false; // No active segment for AI
             // Do not advance currentHighwayNodeProgressIndex here. Let tick() handle retrying or erroring out.
@@ -228,10 +228,10 @@ public class HighwaySplineStrategy implements MovementStrategy {
     }
 
     @Override
-    public void handleCameraRotation(BasicPathAI ai, MinecraftClient client) {
+    public void handleCameraRotation(BasicPathAI ai) {
         Vec3d waypoint = ai.getCurrentWaypoint();
-        if (waypoint != null && client.player != null) {
-            BasicPathAI.getInstance().rotateCameraToward(client, false);
+        if (waypoint != null) {
+            ai.rotateCameraToward(false);
         }
     }
 
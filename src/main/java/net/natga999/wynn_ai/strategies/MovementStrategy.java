@@ -2,8 +2,6 @@ package net.natga999.wynn_ai.strategies;
 
 import net.natga999.wynn_ai.ai.BasicPathAI;
 
-import net.minecraft.client.MinecraftClient;
-
 public interface MovementStrategy {
     /** Called every tick, once per frame. */
     void tick(BasicPathAI ai);
@@ -14,5 +12,6 @@ public interface MovementStrategy {
     /** Optional cleanup when path finishes or is cancelled. */
     default void onStop(BasicPathAI ai) {}
 
-    void handleCameraRotation(BasicPathAI ai, MinecraftClient client);
+    /** Turns the player of {@link BasicPathAI#getHost()}, called before {@link #tick} while it has one. */
+    void handleCameraRotation(BasicPathAI ai);
 }
\ No newline at end of file
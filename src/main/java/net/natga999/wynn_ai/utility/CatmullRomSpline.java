@@ -1,86 +1,137 @@
 package net.natga999.wynn_ai.utility;
 
+import net.natga999.wynn_ai.path.CompactPath;
+
 import net.minecraft.util.math.Vec3d;
 
 import java.util.*;
 
+/**
+ * Catmull-Rom curve through the points of a path, sampled by how much it bends: each piece
+ * between two points is split until no sample chord is further than a given error from the
+ * curve. Straight stretches end up as their two end points, tight corners get dense.
+ * <p>
+ * The samples form a {@link CompactPath}, whose arc lengths make it a curve parameterised by
+ * distance; {@link CompactPath#positionAt} looks up any point along it.
+ */
 public class CatmullRomSpline {
+    /** Chord error the movement code samples with, in blocks. */
+    public static final double DEFAULT_CHORD_ERROR = 0.05;
+
     private static final double TENSION = 0.5;
     private static final double DROP_THRESHOLD = 0.1; // Blocks drop
     private static final double DIST_THRESHOLD = 1.0; // Blocks distance
+    private static final int MAX_DEPTH = 6; // At most 64 samples per piece
 
-    public static List<Vec3d> createSpline(List<Vec3d> points, int segments) {
+    public static List<Vec3d> createSpline(List<Vec3d> points, double maxChordError) {
         if (points.size() < 2) return new ArrayList<>(points);
+        return createPath(CompactPath.of(points), maxChordError).toList();
+    }
 
-        List<Vec3d> spline = new ArrayList<>();
+    /**
+     * Points of {@code points} keep their flags, the start of a straight piece is also
+     * {@link CompactPath#STRAIGHT}. Samples between two points get the movement notes of the
+     * second, the one they lead to. The point shared by two pieces is only added once.
+     *
+     * @param maxChordError furthest a line between two samples may stray from the curve, in blocks
+     */
+    public static CompactPath createPath(CompactPath points, double maxChordError) {
         int n = points.size();
+        if (n < 2) return points;
+
+        CompactPath.Builder spline = new CompactPath.Builder(n * 4).annotated(points.isAnnotated());
+        double[] curves = new double[12 * (2 * MAX_DEPTH + 2)]; // Bezier pieces waiting to be split, see subdivide
+        double toleranceSq = maxChordError * maxChordError;
+
+        // Iterate through each segment, with "virtual" endpoints for smooth rounding
+        for (int i = 0; i < n - 1; i++) {
+            int p1 = i, p2 = i + 1;
+            double dy = points.y(p2) - points.y(p1);
+            double dx = points.x(p2) - points.x(p1), dz = points.z(p2) - points.z(p1);
+
+            // Detect a steep drop or a very short distance: add only start and end, a single straight segment
+            if (-dy > DROP_THRESHOLD || dy >= DROP_THRESHOLD || dx * dx + dy * dy + dz * dz < DIST_THRESHOLD * DIST_THRESHOLD) {
+                spline.addDistinct(points.x(p1), points.y(p1), points.z(p1), points.flags(p1) | CompactPath.STRAIGHT);
+                spline.addDistinct(points.x(p2), points.y(p2), points.z(p2), points.flags(p2));
+                continue;
+            }
 
-        // Straight line for exactly 2 points
-        if (n == 2) {
-            Vec3d start = points.get(0);
-            Vec3d end = points.get(1);
-            for (int s = 0; s <= segments; s++) {
-                double t = s / (double) segments;
-                spline.add(start.multiply(1 - t).add(end.multiply(t)));
+            // Otherwise, follow the curve. A cardinal spline piece is a cubic, the same one as the
+            // Bezier curve with inner points a third of the tangents away from its ends.
+            for (int axis = 0; axis < 3; axis++) {
+                double start = coord(points, p1, axis), end = coord(points, p2, axis);
+                curves[axis] = start;
+                curves[3 + axis] = start + TENSION * (end - before(points, p1, axis)) / 3;
+                curves[6 + axis] = end - TENSION * (after(points, p2, axis) - start) / 3;
+                curves[9 + axis] = end;
             }
-            return spline;
+            spline.addDistinct(curves[0], curves[1], curves[2], points.flags(p1));
+            subdivide(spline, curves, 0, 0, toleranceSq, points.flags(p2) & CompactPath.MOVEMENT);
+            spline.addDistinct(curves[9], curves[10], curves[11], points.flags(p2));
         }
 
-        // Create "virtual" endpoints for smooth rounding
-        Vec3d virtualStart = points.get(0).subtract(points.get(1).subtract(points.get(0)));
-        Vec3d virtualEnd = points.get(n - 1).add(points.get(n - 1).subtract(points.get(n - 2)));
-
-        List<Vec3d> extended = new ArrayList<>();
-        extended.add(virtualStart);
-        extended.addAll(points);
-        extended.add(virtualEnd);
-
-        // Iterate through each segment
-        for (int i = 1; i < extended.size() - 2; i++) {
-            Vec3d p0 = extended.get(i - 1);
-            Vec3d p1 = extended.get(i);
-            Vec3d p2 = extended.get(i + 1);
-            Vec3d p3 = extended.get(i + 2);
-
-            // Detect a steep drop: if p1 to p2 drops more than threshold
-            if ((p1.y - p2.y > DROP_THRESHOLD) || (p2.y - p1.y >= DROP_THRESHOLD)) {
-                // Add only start and end of drop to create a single straight segment
-                spline.add(p1);
-                spline.add(p2);
-                continue;
-            }
+        return spline.build();
+    }
 
-            // Detect very short distance: straight line only
-            if (p1.distanceTo(p2) < DIST_THRESHOLD) {
-                spline.add(p1);
-                spline.add(p2);
-                continue;
-            }
+    /*
+     * Adds the samples of the Bezier curve at curves[at..at + 12) after its start, up to but not
+     * including its end. A flat enough curve is its chord, others are split in half; the right
+     * half goes to at + 12 and the left one to at + 24, so the left half's own halves only
+     * overwrite the right one after it was done with.
+     */
+    private static void subdivide(CompactPath.Builder out, double[] curves, int at, int depth, double toleranceSq, int sampleFlags) {
+        // The curve stays within 3/4 of its inner points' distance from the chord
+        double flatness = Math.max(distanceToChordSq(curves, at, at + 3), distanceToChordSq(curves, at, at + 6));
+        if (depth == MAX_DEPTH || flatness * (9.0 / 16.0) <= toleranceSq) {
+            return;
+        }
 
-            // Otherwise, interpolate smoothly
-            for (int s = 0; s <= segments; s++) {
-                double t = s / (double) segments;
-                spline.add(interpolate(p0, p1, p2, p3, t));
-            }
+        int right = at + 12, left = at + 24;
+        for (int axis = 0; axis < 3; axis++) {
+            double c0 = curves[at + axis], c1 = curves[at + 3 + axis], c2 = curves[at + 6 + axis], c3 = curves[at + 9 + axis];
+            double c01 = (c0 + c1) / 2, c12 = (c1 + c2) / 2, c23 = (c2 + c3) / 2;
+            double c012 = (c01 + c12) / 2, c123 = (c12 + c23) / 2;
+            double mid = (c012 + c123) / 2;
+            curves[left + axis] = c0;
+            curves[left + 3 + axis] = c01;
+            curves[left + 6 + axis] = c012;
+            curves[left + 9 + axis] = mid;
+            curves[right + axis] = mid;
+            curves[right + 3 + axis] = c123;
+            curves[right + 6 + axis] = c23;
+            curves[right + 9 + axis] = c3;
         }
 
-        return spline;
+        subdivide(out, curves, left, depth + 1, toleranceSq, sampleFlags);
+        out.addDistinct(curves[right], curves[right + 1], curves[right + 2], sampleFlags);
+        subdivide(out, curves, right, depth + 1, toleranceSq, sampleFlags);
+    }
+
+    // Squared distance of the point at curves[p] from the chord of the curve at curves[at]
+    private static double distanceToChordSq(double[] curves, int at, int p) {
+        double ax = curves[at], ay = curves[at + 1], az = curves[at + 2];
+        double cx = curves[at + 9] - ax, cy = curves[at + 10] - ay, cz = curves[at + 11] - az;
+        double px = curves[p] - ax, py = curves[p + 1] - ay, pz = curves[p + 2] - az;
+        double lengthSq = cx * cx + cy * cy + cz * cz;
+        double t = lengthSq > 0 ? Math.clamp((px * cx + py * cy + pz * cz) / lengthSq, 0.0, 1.0) : 0;
+        double ex = px - t * cx, ey = py - t * cy, ez = pz - t * cz;
+        return ex * ex + ey * ey + ez * ez;
+    }
+
+    // Coordinate of the point before i, mirrored through the first point for i = 0
+    private static double before(CompactPath points, int i, int axis) {
+        if (i > 0) return coord(points, i - 1, axis);
+        return 2 * coord(points, 0, axis) - coord(points, 1, axis);
+    }
+
+    // Coordinate of the point after i, mirrored through the last point for the last one
+    private static double after(CompactPath points, int i, int axis) {
+        int last = points.size() - 1;
+        if (i < last) return coord(points, i + 1, axis);
+        return 2 * coord(points, last, axis) - coord(points, last - 1, axis);
     }
 
-    private static Vec3d interpolate(Vec3d p0, Vec3d p1, Vec3d p2, Vec3d p3, double t) {
-        double t2 = t * t;
-        double t3 = t2 * t;
-
-        // Tension-adjusted basis functions
-        double b0 = -TENSION * t3 + 2 * TENSION * t2 - TENSION * t;
-        double b1 = (2 - TENSION) * t3 + (TENSION - 3) * t2 + 1;
-        double b2 = (TENSION - 2) * t3 + (3 - 2 * TENSION) * t2 + TENSION * t;
-        double b3 = TENSION * t3 - TENSION * t2;
-
-        return new Vec3d(
-                b0 * p0.x + b1 * p1.x + b2 * p2.x + b3 * p3.x,
-                b0 * p0.y + b1 * p1.y + b2 * p2.y + b3 * p3.y,
-                b0 * p0.z + b1 * p1.z + b2 * p2.z + b3 * p3.z
-        );
+    private static double coord(CompactPath points, int i, int axis) {
+        return axis == 0 ? points.x(i) : axis == 1 ? points.y(i) : points.z(i);
     }
-}
\ No newline at end of file
+}